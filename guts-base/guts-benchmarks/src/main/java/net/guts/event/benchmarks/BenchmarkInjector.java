@@ -0,0 +1,88 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.benchmarks;
+
+import net.guts.common.injection.InjectionListeners;
+import net.guts.event.Channel;
+import net.guts.event.ChannelOptions;
+import net.guts.event.EventModule;
+import net.guts.event.Events;
+import net.guts.event.internal.EventImpl;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import static net.guts.event.benchmarks.Consumers.DEFERRED;
+import static net.guts.event.benchmarks.Consumers.EDT;
+import static net.guts.event.benchmarks.Consumers.FILTERED;
+import static net.guts.event.benchmarks.Consumers.MANY;
+import static net.guts.event.benchmarks.Consumers.REGISTRATION;
+import static net.guts.event.benchmarks.Consumers.RING_FILTERED;
+import static net.guts.event.benchmarks.Consumers.RING_MANY;
+import static net.guts.event.benchmarks.Consumers.RING_SINGLE;
+import static net.guts.event.benchmarks.Consumers.SINGLE;
+
+// Creates the Guice Injector shared by all benchmarks, with one Channel<Long>
+// per benchmarked scenario
+final class BenchmarkInjector
+{
+	static final String FAST_INVOKER = "fast";
+	static final String REFLECTION_INVOKER = "reflection";
+	
+	private BenchmarkInjector()
+	{
+	}
+	
+	static Injector create(String invoker)
+	{
+		return create(invoker, ChannelOptions.DEFAULT);
+	}
+	
+	// options apply to all channels
+	static Injector create(final String invoker, final ChannelOptions options)
+	{
+		Injector injector = Guice.createInjector(new EventModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				if (REFLECTION_INVOKER.equals(invoker))
+				{
+					Events.useReflection(binder());
+				}
+				for (String topic: TOPICS)
+				{
+					Events.bindChannel(binder(), Long.class, topic, options);
+				}
+			}
+		});
+		InjectionListeners.injectListeners(injector);
+		return injector;
+	}
+	
+	static Channel<Long> channel(Injector injector, String topic)
+	{
+		return injector.getInstance(Key.get(CHANNEL_TYPE, new EventImpl(topic, false)));
+	}
+
+	static final private String[] TOPICS = {
+		SINGLE, MANY, FILTERED, DEFERRED, EDT, REGISTRATION,
+		RING_SINGLE, RING_MANY, RING_FILTERED
+	};
+	static final private TypeLiteral<Channel<Long>> CHANNEL_TYPE = 
+		new TypeLiteral<Channel<Long>>() {};
+}
@@ -0,0 +1,88 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.guts.common.cleaner.Cleanable;
+import net.guts.event.EventService;
+
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+
+import static net.guts.event.benchmarks.Consumers.REGISTRATION;
+
+// Cost of removing garbage-collected consumers from a Channel; before each
+// invocation, NUM_CONSUMERS consumers are registered and only 1 out of
+// KEEP_RATIO is kept reachable
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class CleanupBenchmark
+{
+	static final private int NUM_CONSUMERS = 10000;
+	static final private int KEEP_RATIO = 10;
+	
+	@Setup(Level.Trial) public void setupInjector()
+	{
+		Injector injector = BenchmarkInjector.create(BenchmarkInjector.FAST_INVOKER);
+		_service = injector.getInstance(EventService.class);
+		_channel = (Cleanable) _service.getChannel(TypeLiteral.get(Long.class), REGISTRATION);
+	}
+
+	@Setup(Level.Invocation) public void setupConsumers()
+	{
+		// Remove consumers kept from previous invocation
+		_kept.clear();
+		System.gc();
+		_channel.cleanup();
+		for (int i = 0; i < NUM_CONSUMERS; i++)
+		{
+			Consumers.Registration consumer = new Consumers.Registration();
+			_service.registerConsumers(consumer);
+			if (i % KEEP_RATIO == 0)
+			{
+				_kept.add(consumer);
+			}
+		}
+		System.gc();
+	}
+	
+	@Benchmark public void cleanup()
+	{
+		_channel.cleanup();
+	}
+	
+	private EventService _service;
+	private Cleanable _channel;
+	final private List<Consumers.Registration> _kept = new ArrayList<Consumers.Registration>();
+}
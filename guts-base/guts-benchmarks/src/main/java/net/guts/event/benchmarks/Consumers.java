@@ -0,0 +1,151 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.benchmarks;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.guts.event.Consumes;
+import net.guts.event.Filters;
+import net.guts.event.InDeferredThread;
+import net.guts.event.InEDT;
+
+// All consumer classes used by benchmarks, one topic per scenario
+final class Consumers
+{
+	static final String SINGLE = "single";
+	static final String MANY = "many";
+	static final String FILTERED = "filtered";
+	static final String DEFERRED = "deferred";
+	static final String EDT = "edt";
+	static final String REGISTRATION = "registration";
+	static final String RING_SINGLE = "ring-single";
+	static final String RING_MANY = "ring-many";
+	static final String RING_FILTERED = "ring-filtered";
+	
+	private Consumers()
+	{
+	}
+	
+	static public class Direct
+	{
+		public void push(Long event)
+		{
+			_sum += event;
+		}
+		
+		long _sum = 0;
+	}
+
+	static public class Single
+	{
+		@Consumes(topic = SINGLE) public void push(Long event)
+		{
+			_sum += event;
+		}
+		
+		long _sum = 0;
+	}
+	
+	static public class Many
+	{
+		@Consumes(topic = MANY) public void push(Long event)
+		{
+			_sum += event;
+		}
+		
+		long _sum = 0;
+	}
+
+	static public class Filtered
+	{
+		@Filters(topic = FILTERED) public boolean accept(Long event)
+		{
+			return (event & 1) == 0;
+		}
+		
+		@Consumes(topic = FILTERED) public void push(Long event)
+		{
+			_sum += event;
+		}
+		
+		long _sum = 0;
+	}
+
+	static public class Deferred
+	{
+		@Consumes(topic = DEFERRED) @InDeferredThread public void push(Long event)
+		{
+			_count.incrementAndGet();
+		}
+		
+		final AtomicLong _count = new AtomicLong();
+	}
+	
+	static public class Edt
+	{
+		@Consumes(topic = EDT) @InEDT public void push(Long event)
+		{
+			_count.incrementAndGet();
+		}
+		
+		final AtomicLong _count = new AtomicLong();
+	}
+	
+	// Consumers used to compare default and ring-buffered channels; they count
+	// events so that benchmarks can wait for all events to be consumed
+	static public class RingSingle
+	{
+		@Consumes(topic = RING_SINGLE) public void push(Long event)
+		{
+			_count.incrementAndGet();
+		}
+		
+		final AtomicLong _count = new AtomicLong();
+	}
+	
+	static public class RingMany
+	{
+		@Consumes(topic = RING_MANY) public void push(Long event)
+		{
+			_count.incrementAndGet();
+		}
+		
+		final AtomicLong _count = new AtomicLong();
+	}
+	
+	static public class RingFiltered
+	{
+		@Filters(topic = RING_FILTERED) public boolean accept(Long event)
+		{
+			_count.incrementAndGet();
+			return (event & 1) == 0;
+		}
+		
+		@Consumes(topic = RING_FILTERED) public void push(Long event)
+		{
+			_sum += event;
+		}
+		
+		final AtomicLong _count = new AtomicLong();
+		long _sum = 0;
+	}
+	
+	static public class Registration
+	{
+		@Consumes(topic = REGISTRATION) public void push(Long event)
+		{
+		}
+	}
+}
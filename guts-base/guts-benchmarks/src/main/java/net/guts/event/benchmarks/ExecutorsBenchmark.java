@@ -0,0 +1,108 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.guts.event.Channel;
+
+import com.google.inject.Injector;
+
+import static net.guts.event.benchmarks.Consumers.DEFERRED;
+import static net.guts.event.benchmarks.Consumers.EDT;
+
+// Publication of events to consumers annotated with @InDeferredThread and @InEDT;
+// measured time is the cost for the publisher, consumers are drained after each 
+// iteration so that one iteration backlog does not impact the next one
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorsBenchmark
+{
+	static final private long DRAIN_TIMEOUT = 60000L;
+	static final private long DRAIN_PAUSE = 10L;
+	
+	@Setup public void setup()
+	{
+		Injector injector = BenchmarkInjector.create(BenchmarkInjector.FAST_INVOKER);
+		_deferred = injector.getInstance(Consumers.Deferred.class);
+		_edt = injector.getInstance(Consumers.Edt.class);
+		_deferredChannel = BenchmarkInjector.channel(injector, DEFERRED);
+		_edtChannel = BenchmarkInjector.channel(injector, EDT);
+	}
+	
+	@Benchmark public void publishInDeferredThread()
+	{
+		_deferredChannel.publish(_next++);
+		_deferredPublished++;
+	}
+
+	@Benchmark public void publishInEDT()
+	{
+		_edtChannel.publish(_next++);
+		_edtPublished++;
+	}
+	
+	@TearDown(Level.Iteration) public void drain() 
+		throws InterruptedException, InvocationTargetException
+	{
+		// Wait for all pending notifications in EDT
+		SwingUtilities.invokeAndWait(new Runnable()
+		{
+			@Override public void run()
+			{
+			}
+		});
+		waitFor(_edt._count, _edtPublished);
+		waitFor(_deferred._count, _deferredPublished);
+	}
+	
+	static private void waitFor(AtomicLong count, long expected) throws InterruptedException
+	{
+		long timeout = System.currentTimeMillis() + DRAIN_TIMEOUT;
+		while (count.get() < expected && System.currentTimeMillis() < timeout)
+		{
+			Thread.sleep(DRAIN_PAUSE);
+		}
+	}
+
+	private long _next = 0;
+	private long _deferredPublished = 0;
+	private long _edtPublished = 0;
+	private Consumers.Deferred _deferred;
+	private Consumers.Edt _edt;
+	private Channel<Long> _deferredChannel;
+	private Channel<Long> _edtChannel;
+}
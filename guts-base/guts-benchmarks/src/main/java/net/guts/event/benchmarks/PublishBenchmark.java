@@ -0,0 +1,103 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.guts.event.Channel;
+
+import com.google.inject.Injector;
+
+import static net.guts.event.benchmarks.Consumers.FILTERED;
+import static net.guts.event.benchmarks.Consumers.MANY;
+import static net.guts.event.benchmarks.Consumers.SINGLE;
+
+// Synchronous publication of events (consumers called in the publisher thread)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublishBenchmark
+{
+	static final private int NUM_CONSUMERS = 10;
+	
+	@Param({BenchmarkInjector.FAST_INVOKER, BenchmarkInjector.REFLECTION_INVOKER})
+	public String _invoker;
+	
+	@Setup public void setup()
+	{
+		Injector injector = BenchmarkInjector.create(_invoker);
+		_direct = new Consumers.Direct();
+		_single = injector.getInstance(Consumers.Single.class);
+		for (int i = 0; i < NUM_CONSUMERS; i++)
+		{
+			_many.add(injector.getInstance(Consumers.Many.class));
+		}
+		_filtered = injector.getInstance(Consumers.Filtered.class);
+		_singleChannel = BenchmarkInjector.channel(injector, SINGLE);
+		_manyChannel = BenchmarkInjector.channel(injector, MANY);
+		_filteredChannel = BenchmarkInjector.channel(injector, FILTERED);
+	}
+	
+	// Reference: direct java call to a consumer, without GUTS-Events
+	@Benchmark public long directCall()
+	{
+		_direct.push(_next++);
+		return _direct._sum;
+	}
+	
+	@Benchmark public long publishToOneConsumer()
+	{
+		_singleChannel.publish(_next++);
+		return _single._sum;
+	}
+	
+	@Benchmark public long publishToManyConsumers()
+	{
+		_manyChannel.publish(_next++);
+		return _many.get(0)._sum;
+	}
+	
+	@Benchmark public long publishToFilteredConsumer()
+	{
+		_filteredChannel.publish(_next++);
+		return _filtered._sum;
+	}
+
+	private long _next = 0;
+	private Consumers.Direct _direct;
+	private Consumers.Single _single;
+	final private List<Consumers.Many> _many = new ArrayList<Consumers.Many>();
+	private Consumers.Filtered _filtered;
+	private Channel<Long> _singleChannel;
+	private Channel<Long> _manyChannel;
+	private Channel<Long> _filteredChannel;
+}
@@ -0,0 +1,74 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.guts.event.EventService;
+
+import com.google.inject.Injector;
+
+// Cost of EventService.registerConsumers() for instances of an already analyzed
+// class; every invocation starts with a new Injector (hence an empty Channel)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class RegistrationBenchmark
+{
+	static final private int NUM_CONSUMERS = 1000;
+	
+	@Setup(Level.Invocation) public void setup()
+	{
+		Injector injector = BenchmarkInjector.create(BenchmarkInjector.FAST_INVOKER);
+		_service = injector.getInstance(EventService.class);
+		_consumers = new Consumers.Registration[NUM_CONSUMERS];
+		for (int i = 0; i < NUM_CONSUMERS; i++)
+		{
+			_consumers[i] = new Consumers.Registration();
+		}
+		// Make sure Consumers.Registration class has already been analyzed once
+		_service.registerConsumers(new Consumers.Registration());
+	}
+	
+	@Benchmark @OperationsPerInvocation(NUM_CONSUMERS) 
+	public void registerConsumers(Blackhole hole)
+	{
+		for (Consumers.Registration consumer: _consumers)
+		{
+			_service.registerConsumers(consumer);
+		}
+		hole.consume(_consumers);
+	}
+	
+	private EventService _service;
+	private Consumers.Registration[] _consumers;
+}
@@ -0,0 +1,141 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.guts.event.Channel;
+import net.guts.event.ChannelOptions;
+import net.guts.event.RingBuffering;
+
+import com.google.inject.Injector;
+
+import static net.guts.event.benchmarks.Consumers.RING_FILTERED;
+import static net.guts.event.benchmarks.Consumers.RING_MANY;
+import static net.guts.event.benchmarks.Consumers.RING_SINGLE;
+
+// Publication of events from a single thread to default (synchronous) channels
+// and to ring-buffered channels; for ring-buffered channels, the measured time
+// is the publisher-side cost, all events are drained at the end of each iteration
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingBufferBenchmark
+{
+	static final private int NUM_CONSUMERS = 10;
+	static final private int RING_SIZE = 4096;
+	static final private String NONE = "none";
+	static final private String BUSY_SPIN = "busy-spin";
+	static final private String BLOCKING = "blocking";
+	
+	@Param({NONE, BUSY_SPIN, BLOCKING})
+	public String _ring;
+	
+	@Setup public void setup()
+	{
+		Injector injector = BenchmarkInjector.create(
+			BenchmarkInjector.FAST_INVOKER, options(_ring));
+		_single = injector.getInstance(Consumers.RingSingle.class);
+		for (int i = 0; i < NUM_CONSUMERS; i++)
+		{
+			_many.add(injector.getInstance(Consumers.RingMany.class));
+		}
+		_filtered = injector.getInstance(Consumers.RingFiltered.class);
+		_singleChannel = BenchmarkInjector.channel(injector, RING_SINGLE);
+		_manyChannel = BenchmarkInjector.channel(injector, RING_MANY);
+		_filteredChannel = BenchmarkInjector.channel(injector, RING_FILTERED);
+	}
+	
+	// Make sure no events remain in rings before next iteration
+	@TearDown(Level.Iteration) public void drain() throws InterruptedException
+	{
+		waitFor(_single._count, _singleCount);
+		for (Consumers.RingMany many: _many)
+		{
+			waitFor(many._count, _manyCount);
+		}
+		waitFor(_filtered._count, _filteredCount);
+	}
+	
+	@Benchmark public void publishToOneConsumer()
+	{
+		_singleChannel.publish(_singleCount++);
+	}
+	
+	@Benchmark public void publishToManyConsumers()
+	{
+		_manyChannel.publish(_manyCount++);
+	}
+	
+	@Benchmark public void publishToFilteredConsumer()
+	{
+		_filteredChannel.publish(_filteredCount++);
+	}
+	
+	static private ChannelOptions options(String ring)
+	{
+		if (BUSY_SPIN.equals(ring))
+		{
+			return ChannelOptions.DEFAULT.withRingBuffering(RingBuffering.busySpin(RING_SIZE));
+		}
+		else if (BLOCKING.equals(ring))
+		{
+			return ChannelOptions.DEFAULT.withRingBuffering(RingBuffering.blocking(RING_SIZE));
+		}
+		else
+		{
+			return ChannelOptions.DEFAULT;
+		}
+	}
+	
+	static private void waitFor(AtomicLong count, long expected) throws InterruptedException
+	{
+		while (count.get() < expected)
+		{
+			Thread.sleep(1);
+		}
+	}
+
+	private long _singleCount = 0;
+	private long _manyCount = 0;
+	private long _filteredCount = 0;
+	private Consumers.RingSingle _single;
+	final private List<Consumers.RingMany> _many = new ArrayList<Consumers.RingMany>();
+	private Consumers.RingFiltered _filtered;
+	private Channel<Long> _singleChannel;
+	private Channel<Long> _manyChannel;
+	private Channel<Long> _filteredChannel;
+}
@@ -0,0 +1,40 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.common.cleaner;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.google.inject.BindingAnnotation;
+
+/**
+ * Binding annotation to enable the JMX MBean exposing statistics of the 
+ * {@link Cleaner} (see {@link CleanerMXBean}); the MBean is not registered unless
+ * you include the following code in one of your Guice 
+ * {@link com.google.inject.Module}s:
+ * <pre>
+ * bindConstant().annotatedWith(BindCleanerJmx.class).to(true);
+ * </pre>
+ * 
+ * @author Jean-Francois Poilpret
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.PARAMETER, ElementType.FIELD})
+@BindingAnnotation
+public @interface BindCleanerJmx
+{
+}
@@ -14,12 +14,16 @@
 
 package net.guts.common.cleaner;
 
+import java.lang.ref.WeakReference;
+
 import com.google.inject.ImplementedBy;
 
 @ImplementedBy(CleanerImpl.class)
 public interface Cleaner
 {
-	public void addCleanable(Cleanable cleanable);
-	public void removeCleanable(Cleanable cleanable);
+	// Creates a weak reference to referent; once referent has been garbage
+	// collected, cleanable.cleanup() gets called from the cleaner thread
+	public <T> WeakReference<T> weakReference(T referent, Cleanable cleanable);
+	// Requests cleanable.cleanup() to be called as soon as possible
 	public void enqueueCleanable(Cleanable cleanable);
 }
@@ -12,47 +12,89 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
+
 package net.guts.common.cleaner;
 
-import java.util.HashSet;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
-// Active object that removes from Channels any Consumer with a dangling
-// reference
+// Active object that waits for weak references (created through weakReference())
+// to be cleared by the garbage collector, then calls cleanup() on their Cleanable
+// (e.g. to remove from Channels any Consumer with a dangling reference); nothing
+// is done as long as no reference gets cleared.
+// Cleared references are handled in passes of bounded size and duration, the 
+// cleaner thread yielding between passes, so that a burst of garbage collected 
+// referents never monopolizes the cleaner thread nor the locks taken by 
+// Cleanables.
+// Statistics are always available through getStatistics(); they are also exposed
+// through JMX (see CleanerMXBean) if enabled with BindCleanerJmx, until stop() 
+// gets called or CleanerImpl gets garbage collected (the cleaner thread then exits):
+// the cleaner thread only references a Worker, never CleanerImpl itself, so that
+// discarded Injectors can still be garbage collected.
 @Singleton
 public class CleanerImpl implements Cleaner
 {
+	static private final Logger _logger = LoggerFactory.getLogger(CleanerImpl.class);
+	
+	static final String NAME_PREFIX = "net.guts.common:type=Cleaner,id=";
+	static final private int MAX_REFERENCES_PER_PASS = 1024;
+	static final private long MAX_PASS_TIME = TimeUnit.MILLISECONDS.toNanos(10);
+	static final private long FINAL_WAIT_MS = 1000L;
+	
 	@Inject
 	public CleanerImpl()
 	{
-		this(DELAY_SECONDS);
+		this(MAX_REFERENCES_PER_PASS, MAX_PASS_TIME);
 	}
-
-	public CleanerImpl(long delay)
+	
+	CleanerImpl(int maxReferencesPerPass, long maxPassTime)
 	{
-		_delay = delay * ONE_SECOND;
-		// Start a thread (as daemon)
+		_worker = new Worker(maxReferencesPerPass, maxPassTime);
+		// Stops the worker once this cleaner has been garbage collected
+		_worker.watch(this);
 		start();
 	}
 	
+	// Registers (or unregisters) the MBean exposing statistics
+	@Inject(optional = true) public void setJmx(@BindCleanerJmx boolean jmx)
+	{
+		_jmx = jmx;
+		if (!jmx)
+		{
+			_worker.unregister();
+		}
+		else if (_cleaner != null)
+		{
+			_worker.register();
+		}
+	}
+	
 	public void start()
 	{
 		if (_cleaner == null)
 		{
-			// Start a thread (as daemon)
-			_cleaner = new Thread()
+			if (_jmx)
 			{
-				@Override public void run()
-				{
-					cleanupLoop();
-				}
-			};
+				_worker.register();
+			}
+			// Start a thread (as daemon)
+			_cleaner = new Thread(_worker, "GUTS cleaner");
 			_cleaner.setDaemon(true);
 			_cleaner.setPriority(Thread.MIN_PRIORITY);
 			_cleaner.start();
@@ -65,75 +107,243 @@ public class CleanerImpl implements Cleaner
 		{
 			_cleaner.interrupt();
 			_cleaner = null;
+			_worker.unregister();
 		}
 	}
 	
-	@Override public void addCleanable(Cleanable cleanable)
+	@Override public <T> WeakReference<T> weakReference(T referent, Cleanable cleanable)
 	{
-		synchronized(_allCleanables)
-		{
-			_allCleanables.add(cleanable);
-		}
+		return new CleanableReference<T>(referent, _worker._references, cleanable);
 	}
 
 	@Override public void enqueueCleanable(Cleanable cleanable)
 	{
-		_waitingCleanables.offer(cleanable);
+		// A reference without referent can be enqueued right away
+		new CleanableReference<Object>(null, _worker._references, cleanable).enqueue();
 	}
-
-	@Override public void removeCleanable(Cleanable cleanable)
+	
+	// Statistics of this cleaner
+	CleanerMXBean getStatistics()
 	{
-		synchronized(_allCleanables)
-		{
-			_allCleanables.remove(cleanable);
-		}
+		return _worker;
+	}
+	
+	// Name of the MBean, null if not registered
+	ObjectName getName()
+	{
+		return _worker._name;
 	}
 	
-	private void cleanupLoop()
+	static private class Worker implements Runnable, CleanerMXBean
 	{
-		try
+		Worker(int maxReferencesPerPass, long maxPassTime)
+		{
+			_maxReferencesPerPass = maxReferencesPerPass;
+			_maxPassTime = maxPassTime;
+		}
+		
+		void watch(CleanerImpl cleaner)
+		{
+			_owner = new CleanableReference<CleanerImpl>(cleaner, _references, new Cleanable()
+			{
+				@Override public void cleanup()
+				{
+					_running = false;
+					unregister();
+				}
+			});
+		}
+		
+		synchronized void register()
 		{
-			long nextCleanup = System.currentTimeMillis() + _delay;
-			while (true)
+			if (_name == null)
 			{
-				long delay =  nextCleanup - System.currentTimeMillis();
-				// Make sure delay > 0
-				delay = Math.max(delay, 1);
-				Cleanable cleanable = _waitingCleanables.poll(delay, TimeUnit.MILLISECONDS);
-				if (cleanable != null)
+				try
 				{
-					cleanable.cleanup();
+					ObjectName name = new ObjectName(NAME_PREFIX + _ids.incrementAndGet());
+					ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+					_name = name;
 				}
-				if (System.currentTimeMillis() >= nextCleanup)
+				catch (JMException e)
 				{
-					cleanupAll();
-					nextCleanup = System.currentTimeMillis() + _delay;
+					_logger.warn("Could not register Cleaner MBean", e);
 				}
 			}
 		}
-		catch (InterruptedException e)
+		
+		synchronized void unregister()
 		{
-			// Re-assert the interrupted state of the thread
-			Thread.currentThread().interrupt();
+			if (_name != null)
+			{
+				try
+				{
+					ManagementFactory.getPlatformMBeanServer().unregisterMBean(_name);
+				}
+				catch (JMException e)
+				{
+					_logger.debug("Could not unregister Cleaner MBean", e);
+				}
+				_name = null;
+			}
 		}
-	}
-	
-	private void cleanupAll()
-	{
-		synchronized(_allCleanables)
+		
+		@Override public void run()
 		{
-			for (Cleanable cleanable: _allCleanables)
+			try
+			{
+				while (_running)
+				{
+					// Don't wait for cleared references while cleanups are pending
+					Reference<?> reference = 
+						(_pending.isEmpty() ? _references.remove() : _references.poll());
+					pass(reference);
+					// Let other threads run between passes
+					Thread.yield();
+				}
+				// The owner has been collected, but so may have been other referents
+				// at the same time (e.g. the rest of its Injector), which references
+				// may not be enqueued yet: wait for them a little while
+				Reference<?> reference = _references.remove(FINAL_WAIT_MS);
+				while (reference != null || !_pending.isEmpty())
+				{
+					pass(reference);
+					reference = (_pending.isEmpty() 
+						? _references.remove(FINAL_WAIT_MS) : _references.poll());
+				}
+			}
+			catch (InterruptedException e)
+			{
+				// Re-assert the interrupted state of the thread
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		// Handles first (may be null) and at most _maxReferencesPerPass - 1 other 
+		// cleared references; Cleanables that could not be called within 
+		// _maxPassTime are left pending for the next pass
+		private void pass(Reference<?> first)
+		{
+			long start = System.nanoTime();
+			// Take references already cleared, so that each Cleanable gets called 
+			// only once per pass, even when many of its references were cleared
+			Set<Cleanable> cleanables = _pending;
+			_pending = newCleanableSet();
+			Reference<?> reference = first;
+			int count = 0;
+			while (reference != null)
+			{
+				cleanables.add(((CleanableReference<?>) reference)._cleanable);
+				count++;
+				reference = (count < _maxReferencesPerPass ? _references.poll() : null);
+			}
+			int cleanups = 0;
+			for (Cleanable cleanable: cleanables)
+			{
+				// Always call at least one Cleanable per pass
+				if (cleanups > 0 && System.nanoTime() - start >= _maxPassTime)
+				{
+					_pending.add(cleanable);
+				}
+				else
+				{
+					cleanup(cleanable);
+					cleanups++;
+				}
+			}
+			// Statistics are written by the cleaner thread only
+			long duration = System.nanoTime() - start;
+			_clearedReferences += count;
+			_cleanups += cleanups;
+			_passes++;
+			_totalPassTime += duration;
+			_longestPassTime = Math.max(_longestPassTime, duration);
+		}
+		
+		//CSOFF: IllegalCatchCheck
+		private void cleanup(Cleanable cleanable)
+		{
+			try
 			{
 				cleanable.cleanup();
 			}
+			catch (RuntimeException e)
+			{
+				// Don't let one Cleanable kill the cleaner thread
+				_failedCleanups++;
+				_logger.error("Exception during cleanup of " + cleanable, e);
+			}
 		}
+		//CSON: IllegalCatchCheck
+		
+		static private Set<Cleanable> newCleanableSet()
+		{
+			return Collections.newSetFromMap(new IdentityHashMap<Cleanable, Boolean>());
+		}
+		
+		@Override public long getClearedReferences()
+		{
+			return _clearedReferences;
+		}
+
+		@Override public long getCleanups()
+		{
+			return _cleanups;
+		}
+
+		@Override public long getFailedCleanups()
+		{
+			return _failedCleanups;
+		}
+
+		@Override public long getPasses()
+		{
+			return _passes;
+		}
+
+		@Override public long getLongestPassTime()
+		{
+			return _longestPassTime;
+		}
+
+		@Override public long getTotalPassTime()
+		{
+			return _totalPassTime;
+		}
+		
+		final private ReferenceQueue<Object> _references = new ReferenceQueue<Object>();
+		final private int _maxReferencesPerPass;
+		final private long _maxPassTime;
+		// Must be kept for the worker to be notified once its CleanerImpl is gone
+		private WeakReference<CleanerImpl> _owner;
+		private volatile boolean _running = true;
+		private volatile ObjectName _name = null;
+		// Cleanables not called yet, used by the cleaner thread only
+		private Set<Cleanable> _pending = newCleanableSet();
+		
+		// Statistics, see CleanerMXBean
+		private volatile long _clearedReferences = 0;
+		private volatile long _cleanups = 0;
+		private volatile long _failedCleanups = 0;
+		private volatile long _passes = 0;
+		private volatile long _longestPassTime = 0;
+		private volatile long _totalPassTime = 0;
+	}
+	
+	static private class CleanableReference<T> extends WeakReference<T>
+	{
+		CleanableReference(T referent, ReferenceQueue<Object> queue, Cleanable cleanable)
+		{
+			super(referent, queue);
+			_cleanable = cleanable;
+		}
+		
+		final private Cleanable _cleanable;
 	}
 
-	static final private long ONE_SECOND = 1000;
-	static final private long DELAY_SECONDS = 300;
-	final private long _delay;
+	static final private AtomicInteger _ids = new AtomicInteger(0);
+	
 	private Thread _cleaner;
-	final private BlockingQueue<Cleanable> _waitingCleanables = 
-		new LinkedBlockingQueue<Cleanable>();
-	final private Set<Cleanable> _allCleanables = new HashSet<Cleanable>();
+	final private Worker _worker;
+	// MBean disabled by default
+	private volatile boolean _jmx = false;
 }
@@ -0,0 +1,31 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.common.cleaner;
+
+// Statistics of CleanerImpl, as a JMX view; all durations are in nanoseconds
+public interface CleanerMXBean
+{
+	// Number of cleared references (including enqueueCleanable() requests)
+	public long getClearedReferences();
+	// Number of calls to Cleanable.cleanup(), and how many of them failed
+	public long getCleanups();
+	public long getFailedCleanups();
+	// Number of passes, each pass handling a bounded number of references in a
+	// bounded time (unless a single Cleanable takes longer)
+	public long getPasses();
+	public long getLongestPassTime();
+	public long getTotalPassTime();
+}
@@ -0,0 +1,189 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.common.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gives access to the indexes generated, at compile time, by {@link IndexProcessor}
+ * in all jars (or directories) of the classpath.
+ * <p/>
+ * An index only knows classes of the jar that contains it; hence, for classes from
+ * a jar that was compiled without {@link IndexProcessor}, {@code AnnotationIndex}
+ * can't tell anything and {@link #mayUse} always returns {@code true}. The same 
+ * applies to classes that are not listed in the index of their jar (or directory),
+ * eg when the index is stale because some classes were compiled (typically by an
+ * IDE) without {@link IndexProcessor}; such cases are logged once per index.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public final class AnnotationIndex
+{
+	static private final Logger _logger = LoggerFactory.getLogger(AnnotationIndex.class);
+	
+	/**
+	 * Path of the index resource, generated by {@link IndexProcessor}, in each jar.
+	 */
+	static public final String INDEX_RESOURCE = "META-INF/guts/annotations.idx";
+	
+	// Prefix of index entries listing all indexed classes
+	static final String INDEXED_CLASS_PREFIX = "* ";
+	
+	AnnotationIndex(Map<String, Set<String>> indexes)
+	{
+		_indexes = indexes;
+	}
+	
+	/**
+	 * Loads all indexes available from {@code loader}.
+	 * 
+	 * @param loader the {@link ClassLoader} used to find all indexes
+	 * @return the content of all found indexes
+	 */
+	static public AnnotationIndex load(ClassLoader loader)
+	{
+		Map<String, Set<String>> indexes = new HashMap<String, Set<String>>();
+		try
+		{
+			Enumeration<URL> urls = loader.getResources(INDEX_RESOURCE);
+			while (urls.hasMoreElements())
+			{
+				URL url = urls.nextElement();
+				String location = url.toExternalForm();
+				String root = normalize(
+					location.substring(0, location.length() - INDEX_RESOURCE.length()));
+				indexes.put(root, read(url));
+			}
+		}
+		catch (IOException e)
+		{
+			// Without indexes, all classes will be scanned, as if no index existed
+			_logger.warn("Could not read annotation indexes", e);
+			indexes.clear();
+		}
+		return new AnnotationIndex(indexes);
+	}
+	
+	static private Set<String> read(URL url) throws IOException
+	{
+		Set<String> entries = new HashSet<String>();
+		BufferedReader reader = new BufferedReader(
+			new InputStreamReader(url.openStream(), "UTF-8"));
+		try
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				entries.add(line.trim());
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+		return entries;
+	}
+	
+	// Transforms "jar:file:/x.jar!/" into "file:/x.jar", as code sources of classes
+	static private String normalize(String root)
+	{
+		if (root.startsWith("jar:") && root.endsWith("!/"))
+		{
+			return root.substring("jar:".length(), root.length() - "!/".length());
+		}
+		return root;
+	}
+	
+	/**
+	 * Checks if {@code clazz} may use {@code annotation}, either directly or in one
+	 * of its superclasses or interfaces.
+	 * 
+	 * @param clazz the class to check
+	 * @param annotation an annotation marked with {@link Indexed}
+	 * @return {@code false} if the index tells that neither {@code clazz} nor its 
+	 * supertypes use {@code annotation}; {@code true} if {@code clazz} uses 
+	 * {@code annotation} or if there is no index for {@code clazz} or one of its 
+	 * supertypes, or if that index does not list it
+	 */
+	public boolean mayUse(Class<?> clazz, Class<? extends Annotation> annotation)
+	{
+		if (clazz == null || clazz.getClassLoader() == null)
+		{
+			// JDK classes never use Guts annotations
+			return false;
+		}
+		String root = root(clazz);
+		Set<String> index = _indexes.get(root);
+		if (index == null || index.contains(annotation.getName() + " " + clazz.getName()))
+		{
+			return true;
+		}
+		if (!index.contains(INDEXED_CLASS_PREFIX + clazz.getName()))
+		{
+			// Index can't tell, let the caller check by reflection
+			if (_staleIndexes.add(root))
+			{
+				_logger.warn("Annotation index of {} does not list {} (stale index?), " +
+					"classes not listed will be checked by reflection", root, clazz);
+			}
+			return true;
+		}
+		if (mayUse(clazz.getSuperclass(), annotation))
+		{
+			return true;
+		}
+		for (Class<?> type: clazz.getInterfaces())
+		{
+			if (mayUse(type, annotation))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	static String root(Class<?> clazz)
+	{
+		ProtectionDomain domain = clazz.getProtectionDomain();
+		CodeSource source = (domain != null ? domain.getCodeSource() : null);
+		if (source == null || source.getLocation() == null)
+		{
+			return null;
+		}
+		return source.getLocation().toExternalForm();
+	}
+	
+	// Entries of each index, by root (jar or directory) of the index
+	final private Map<String, Set<String>> _indexes;
+	// Roots of indexes already reported as stale
+	final private Set<String> _staleIndexes = 
+		Collections.synchronizedSet(new HashSet<String>());
+}
@@ -0,0 +1,195 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.common.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor (JSR-269) recording, into 
+ * {@value AnnotationIndex#INDEX_RESOURCE}, all classes that use an annotation 
+ * marked with {@link Indexed}. One line is written for each class and annotation,
+ * plus one line for each compiled class:
+ * <pre>
+ * net.guts.event.Consumes com.example.MyConsumer
+ * * com.example.MyConsumer
+ * * com.example.MyView
+ * </pre>
+ * The list of compiled classes allows {@link AnnotationIndex} to detect classes 
+ * that were compiled without this processor (stale index).
+ * <p/>
+ * This processor is automatically used by {@code javac} for all sources compiled
+ * with {@code guts-common} in the classpath. When only some sources are compiled
+ * (incremental compilation), the existing index is kept and completed.
+ *
+ * @author Jean-Francois Poilpret
+ */
+@SupportedAnnotationTypes("*")
+public class IndexProcessor extends AbstractProcessor
+{
+	@Override public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override public boolean process(
+		Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+	{
+		if (_entries == null)
+		{
+			_entries = readIndex();
+		}
+		for (Element element: roundEnv.getRootElements())
+		{
+			addIndexedTypes(element);
+		}
+		for (TypeElement annotation: annotations)
+		{
+			if (annotation.getAnnotation(Indexed.class) == null)
+			{
+				continue;
+			}
+			String annotationName = binaryName(annotation);
+			for (Element element: roundEnv.getElementsAnnotatedWith(annotation))
+			{
+				TypeElement type = enclosingType(element);
+				if (type != null)
+				{
+					_entries.add(annotationName + " " + binaryName(type));
+				}
+			}
+		}
+		if (roundEnv.processingOver())
+		{
+			writeIndex(_entries);
+		}
+		// Never claim annotations, other processors may need them
+		return false;
+	}
+	
+	// Records element and all its nested types as indexed
+	private void addIndexedTypes(Element element)
+	{
+		if (element.getKind().isClass() || element.getKind().isInterface())
+		{
+			String name = binaryName((TypeElement) element);
+			_entries.add(AnnotationIndex.INDEXED_CLASS_PREFIX + name);
+			for (Element enclosed: element.getEnclosedElements())
+			{
+				addIndexedTypes(enclosed);
+			}
+		}
+	}
+	
+	static private TypeElement enclosingType(Element element)
+	{
+		Element current = element;
+		while (current != null)
+		{
+			if (current.getKind().isClass() || current.getKind().isInterface())
+			{
+				return (TypeElement) current;
+			}
+			current = current.getEnclosingElement();
+		}
+		return null;
+	}
+	
+	private String binaryName(TypeElement type)
+	{
+		return processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+	
+	private Set<String> readIndex()
+	{
+		Set<String> entries = new TreeSet<String>();
+		try
+		{
+			FileObject index = processingEnv.getFiler().getResource(
+				StandardLocation.CLASS_OUTPUT, "", AnnotationIndex.INDEX_RESOURCE);
+			BufferedReader reader = new BufferedReader(
+				new InputStreamReader(index.openInputStream(), ENCODING));
+			try
+			{
+				String line;
+				while ((line = reader.readLine()) != null)
+				{
+					if (line.trim().length() > 0)
+					{
+						entries.add(line.trim());
+					}
+				}
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		catch (IOException e)
+		{
+			// No index yet: this is a full compilation
+		}
+		return entries;
+	}
+	
+	private void writeIndex(Set<String> entries)
+	{
+		Filer filer = processingEnv.getFiler();
+		try
+		{
+			FileObject index = filer.createResource(
+				StandardLocation.CLASS_OUTPUT, "", AnnotationIndex.INDEX_RESOURCE);
+			Writer writer = new OutputStreamWriter(index.openOutputStream(), ENCODING);
+			try
+			{
+				for (String entry: entries)
+				{
+					writer.write(entry);
+					writer.write('\n');
+				}
+			}
+			finally
+			{
+				writer.close();
+			}
+		}
+		catch (IOException e)
+		{
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, 
+				"Could not write " + AnnotationIndex.INDEX_RESOURCE + ": " + e);
+		}
+	}
+
+	static final private String ENCODING = "UTF-8";
+	
+	private Set<String> _entries = null;
+}
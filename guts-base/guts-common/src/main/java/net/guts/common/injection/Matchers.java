@@ -18,6 +18,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 
+import net.guts.common.index.AnnotationIndex;
 import net.guts.common.type.TypeHelper;
 
 import com.google.inject.TypeLiteral;
@@ -143,6 +144,39 @@ public final class Matchers
 	}
 	
 	
+	// Checks annotation index, generated at compile time, before actually calling
+	// matcher, which generally uses reflection
+	static final public Matcher<TypeLiteral<?>> indexed(
+		final Class<? extends Annotation> annotation, 
+		final Matcher<? super TypeLiteral<?>> matcher)
+	{
+		return new AbstractMatcher<TypeLiteral<?>>()
+		{
+			@Override public boolean matches(TypeLiteral<?> type)
+			{
+				return	index().mayUse(type.getRawType(), annotation)
+					&&	matcher.matches(type);
+			}
+			
+			private AnnotationIndex index()
+			{
+				if (_index == null)
+				{
+					ClassLoader loader = Thread.currentThread().getContextClassLoader();
+					if (loader == null)
+					{
+						loader = annotation.getClassLoader();
+					}
+					_index = AnnotationIndex.load(loader);
+				}
+				return _index;
+			}
+			
+			// Guice calls matchers from one thread only, while creating Injector
+			private AnnotationIndex _index = null;
+		};
+	}
+	
 	static final public Matcher<? super Method> isMethodReturnSubtype(final Class<?> type)
 	{
 		return new AbstractMatcher<Method>()
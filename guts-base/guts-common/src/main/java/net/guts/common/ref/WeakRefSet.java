@@ -20,12 +20,19 @@ import java.util.Iterator;
 import java.util.List;
 
 import net.guts.common.cleaner.Cleanable;
+import net.guts.common.cleaner.Cleaner;
 
 public class WeakRefSet<T> implements Cleanable
 {
-	static public <T> WeakRefSet<T> create()
+	// Elements garbage collected are removed by cleaner
+	static public <T> WeakRefSet<T> create(Cleaner cleaner)
 	{
-		return new WeakRefSet<T>();
+		return new WeakRefSet<T>(cleaner);
+	}
+	
+	private WeakRefSet(Cleaner cleaner)
+	{
+		_cleaner = cleaner;
 	}
 	
 	public boolean add(T element)
@@ -43,7 +50,7 @@ public class WeakRefSet<T> implements Cleanable
 					return false;
 				}
 			}
-			return _list.add(new WeakReference<T>(element));
+			return _list.add(_cleaner.weakReference(element, this));
 		}
 	}
 
@@ -112,5 +119,6 @@ public class WeakRefSet<T> implements Cleanable
 		remove(null);
 	}
 
+	final private Cleaner _cleaner;
 	final private List<WeakReference<T>> _list = new ArrayList<WeakReference<T>>();
 }
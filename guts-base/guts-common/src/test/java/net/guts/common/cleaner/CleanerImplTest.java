@@ -0,0 +1,268 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.common.cleaner;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+@Test(groups = "utest")
+public class CleanerImplTest
+{
+	@BeforeMethod public void setup()
+	{
+		_cleaner = new CleanerImpl();
+	}
+	
+	@AfterMethod public void teardown()
+	{
+		_cleaner.stop();
+	}
+	
+	public void checkEnqueuedCleanableCalled() throws Exception
+	{
+		CountingCleanable cleanable = new CountingCleanable(1);
+		_cleaner.enqueueCleanable(cleanable);
+		assertThat(cleanable.await()).isTrue();
+	}
+	
+	public void checkCleanableCalledOnceReferentCollected() throws Exception
+	{
+		CountingCleanable cleanable = new CountingCleanable(1);
+		Object referent = new Object();
+		WeakReference<Object> reference = _cleaner.weakReference(referent, cleanable);
+		assertThat(reference.get()).isSameAs(referent);
+		assertThat(cleanable._count.get()).isEqualTo(0);
+		
+		referent = null;
+		collect(reference);
+		assertThat(cleanable.await()).isTrue();
+	}
+	
+	public void checkCleanableNotCalledWhileReferentReachable() throws Exception
+	{
+		CountingCleanable cleanable = new CountingCleanable(1);
+		Object referent = new Object();
+		WeakReference<Object> reference = _cleaner.weakReference(referent, cleanable);
+		System.gc();
+		assertThat(cleanable._done.await(WAIT_MS, TimeUnit.MILLISECONDS)).isFalse();
+		assertThat(reference.get()).isSameAs(referent);
+	}
+	
+	public void checkCleanableCalledOnceForManyReferents() throws Exception
+	{
+		CountingCleanable cleanable = new CountingCleanable(1);
+		WeakReference<?>[] references = new WeakReference<?>[100];
+		// Stop cleaner so that all references get enqueued before it drains them
+		_cleaner.stop();
+		for (int i = 0; i < references.length; i++)
+		{
+			references[i] = _cleaner.weakReference(new Object(), cleanable);
+		}
+		for (WeakReference<?> reference: references)
+		{
+			collect(reference);
+		}
+		// Wait for previous thread to exit before starting another
+		Thread.sleep(WAIT_MS);
+		_cleaner.start();
+		assertThat(cleanable.await()).isTrue();
+		Thread.sleep(WAIT_MS);
+		assertThat(cleanable._count.get()).isEqualTo(1);
+	}
+	
+	public void checkReferencesHandledInBoundedPasses() throws Exception
+	{
+		_cleaner.stop();
+		_cleaner = new CleanerImpl(10, TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS));
+		CountingCleanable cleanable = new CountingCleanable(3);
+		WeakReference<?>[] references = new WeakReference<?>[25];
+		// Stop cleaner so that all references get enqueued before it drains them
+		_cleaner.stop();
+		for (int i = 0; i < references.length; i++)
+		{
+			references[i] = _cleaner.weakReference(new Object(), cleanable);
+		}
+		for (WeakReference<?> reference: references)
+		{
+			collect(reference);
+		}
+		// Wait for previous thread to exit before starting another
+		Thread.sleep(WAIT_MS);
+		_cleaner.start();
+		// Once per pass
+		assertThat(cleanable.await()).isTrue();
+		Thread.sleep(WAIT_MS);
+		assertThat(cleanable._count.get()).isEqualTo(3);
+		CleanerMXBean statistics = _cleaner.getStatistics();
+		assertThat(statistics.getPasses()).as("passes").isEqualTo(3);
+		assertThat(statistics.getClearedReferences()).as("cleared").isEqualTo(25);
+		assertThat(statistics.getCleanups()).as("cleanups").isEqualTo(3);
+		assertThat(statistics.getFailedCleanups()).as("failed cleanups").isEqualTo(0);
+	}
+	
+	public void checkPassesBoundedInTime() throws Exception
+	{
+		_cleaner.stop();
+		_cleaner = new CleanerImpl(10, TimeUnit.MILLISECONDS.toNanos(10));
+		_cleaner.stop();
+		// Wait for previous thread to exit, so that it doesn't drain references
+		Thread.sleep(WAIT_MS);
+		// Each cleanup takes longer than a pass may last
+		CountingCleanable[] cleanables = new CountingCleanable[3];
+		for (int i = 0; i < cleanables.length; i++)
+		{
+			cleanables[i] = new CountingCleanable(1, 20L);
+			_cleaner.enqueueCleanable(cleanables[i]);
+		}
+		_cleaner.start();
+		for (CountingCleanable cleanable: cleanables)
+		{
+			assertThat(cleanable.await()).isTrue();
+		}
+		Thread.sleep(WAIT_MS);
+		CleanerMXBean statistics = _cleaner.getStatistics();
+		assertThat(statistics.getPasses()).as("passes").isEqualTo(3);
+		assertThat(statistics.getClearedReferences()).as("cleared").isEqualTo(3);
+		assertThat(statistics.getCleanups()).as("cleanups").isEqualTo(3);
+	}
+	
+	public void checkMBeanNotRegisteredByDefault() throws Exception
+	{
+		assertThat(_cleaner.getName()).isNull();
+		assertThat(_cleaner.getStatistics()).isNotNull();
+		_cleaner.setJmx(true);
+		assertThat(_cleaner.getName()).isNotNull();
+		_cleaner.setJmx(false);
+		assertThat(_cleaner.getName()).isNull();
+	}
+	
+	public void checkMBeanEnabledByBinding() throws Exception
+	{
+		CleanerImpl cleaner = Guice.createInjector(new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				bindConstant().annotatedWith(BindCleanerJmx.class).to(true);
+			}
+		}).getInstance(CleanerImpl.class);
+		try
+		{
+			assertThat(cleaner.getName()).isNotNull();
+		}
+		finally
+		{
+			cleaner.stop();
+		}
+	}
+	
+	public void checkMBeanRegisteredUntilStopped() throws Exception
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		_cleaner.setJmx(true);
+		ObjectName name = _cleaner.getName();
+		assertThat(name).isNotNull();
+		assertThat(server.getAttribute(name, "Passes")).isNotNull();
+		_cleaner.stop();
+		assertThat(_cleaner.getName()).isNull();
+		assertThat(server.isRegistered(name)).isFalse();
+	}
+	
+	public void checkMBeanUnregisteredOnceCleanerCollected() throws Exception
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		CleanerImpl cleaner = new CleanerImpl();
+		cleaner.setJmx(true);
+		ObjectName name = cleaner.getName();
+		assertThat(server.isRegistered(name)).isTrue();
+		
+		WeakReference<CleanerImpl> reference = new WeakReference<CleanerImpl>(cleaner);
+		cleaner = null;
+		collect(reference);
+		for (int i = 0; i < MAX_GC && server.isRegistered(name); i++)
+		{
+			Thread.sleep(10);
+		}
+		assertThat(server.isRegistered(name)).isFalse();
+	}
+	
+	static private void collect(WeakReference<?> reference) throws InterruptedException
+	{
+		for (int i = 0; i < MAX_GC && reference.get() != null; i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertThat(reference.get()).isNull();
+	}
+	
+	static private class CountingCleanable implements Cleanable
+	{
+		CountingCleanable(int count)
+		{
+			this(count, 0L);
+		}
+		
+		CountingCleanable(int count, long delay)
+		{
+			_done = new CountDownLatch(count);
+			_delay = delay;
+		}
+		
+		@Override public void cleanup()
+		{
+			_count.incrementAndGet();
+			try
+			{
+				Thread.sleep(_delay);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			_done.countDown();
+		}
+		
+		boolean await() throws InterruptedException
+		{
+			return _done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		
+		final private CountDownLatch _done;
+		final private long _delay;
+		final private AtomicInteger _count = new AtomicInteger();
+	}
+	
+	static final private int MAX_GC = 100;
+	static final private long WAIT_MS = 200L;
+	static final private long TIMEOUT_SECONDS = 5L;
+	
+	private CleanerImpl _cleaner;
+}
@@ -0,0 +1,104 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.common.index;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+// Relies on IndexProcessor being used to compile test classes
+@Test(groups = "utest")
+public class AnnotationIndexTest
+{
+	public void checkAnnotatedClassesAreIndexed()
+	{
+		assertThat(index().mayUse(Annotated.class, Marker.class)).isTrue();
+		assertThat(index().mayUse(Annotated.Nested.class, Marker.class)).isTrue();
+	}
+
+	public void checkSubclassesOfAnnotatedClassesMayUseAnnotation()
+	{
+		assertThat(index().mayUse(SubAnnotated.class, Marker.class)).isTrue();
+	}
+
+	public void checkNonAnnotatedClassesAreNotIndexed()
+	{
+		assertThat(index().mayUse(NotAnnotated.class, Marker.class)).isFalse();
+		assertThat(index().mayUse(AnnotationIndexTest.class, Marker.class)).isFalse();
+	}
+
+	public void checkJdkClassesNeverUseAnnotations()
+	{
+		assertThat(index().mayUse(String.class, Marker.class)).isFalse();
+	}
+	
+	public void checkClassesMissingFromStaleIndexMayUseAnnotation()
+	{
+		// Simulates NotAnnotated compiled (eg by an IDE) after the index was written
+		Set<String> entries = new HashSet<String>();
+		entries.add(AnnotationIndex.INDEXED_CLASS_PREFIX + Annotated.class.getName());
+		Map<String, Set<String>> indexes = new HashMap<String, Set<String>>();
+		indexes.put(AnnotationIndex.root(AnnotationIndexTest.class), entries);
+		AnnotationIndex index = new AnnotationIndex(indexes);
+		assertThat(index.mayUse(NotAnnotated.class, Marker.class)).isTrue();
+		assertThat(index.mayUse(Annotated.class, Marker.class)).isFalse();
+	}
+
+	public void checkEmptyIndexChecksNothing()
+	{
+		Map<String, Set<String>> indexes = Collections.singletonMap(
+			AnnotationIndex.root(AnnotationIndexTest.class), Collections.<String>emptySet());
+		assertThat(new AnnotationIndex(indexes).mayUse(NotAnnotated.class, Marker.class))
+			.isTrue();
+	}
+	
+	static private AnnotationIndex index()
+	{
+		return AnnotationIndex.load(AnnotationIndexTest.class.getClassLoader());
+	}
+	
+	@Indexed @Retention(RetentionPolicy.RUNTIME)
+	static public @interface Marker
+	{
+	}
+	
+	static public class Annotated
+	{
+		@Marker public void method()
+		{
+		}
+		
+		static public class Nested
+		{
+			@Marker private int _field;
+		}
+	}
+	
+	static public class SubAnnotated extends Annotated
+	{
+	}
+	
+	static public class NotAnnotated
+	{
+	}
+}
@@ -0,0 +1,151 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event;
+
+/**
+ * Immutable set of options that change how one event {@link Channel} notifies its 
+ * consumers. Options are passed when binding a {@link Channel}:
+ * <pre>
+ * Events.bindChannel(binder(), Quote.class, "quotes", 
+ *     ChannelOptions.DEFAULT.withCoalescing(Coalescing.latest(100, MILLISECONDS)));
+ * </pre>
+ * If the same {@link Channel} is bound several times (eg in several modules), only
+ * the options passed to the first binding are used.
+ * 
+ * @see Events#bindChannel(com.google.inject.Binder, Class, String, ChannelOptions)
+ * @author Jean-Francois Poilpret
+ */
+public final class ChannelOptions
+{
+	/**
+	 * Default options: every published event is immediately dispatched to consumers.
+	 */
+	static public final ChannelOptions DEFAULT = new ChannelOptions(null, false, null, null);
+	
+	private ChannelOptions(Coalescing coalescing, boolean polymorphic, 
+		RingBuffering ringBuffering, Replay replay)
+	{
+		_coalescing = coalescing;
+		_polymorphic = polymorphic;
+		_ringBuffering = ringBuffering;
+		_replay = replay;
+	}
+	
+	/**
+	 * Returns a copy of {@code this} options with the given coalescing policy.
+	 * 
+	 * @param coalescing the coalescing policy of the {@link Channel}, or {@code null}
+	 * if events must not be coalesced
+	 * @return new options
+	 */
+	public ChannelOptions withCoalescing(Coalescing coalescing)
+	{
+		return new ChannelOptions(coalescing, _polymorphic, _ringBuffering, _replay);
+	}
+	
+	/**
+	 * Returns a copy of {@code this} options with or without polymorphic dispatch.
+	 * <p/>
+	 * With polymorphic dispatch, events published to the {@link Channel} are also
+	 * dispatched to consumers of all {@link Channel}s, with the same topic, for 
+	 * supertypes (classes or interfaces) of the {@link Channel} event type, eg
+	 * events published to {@code Channel<QuoteEvent>} would also get notified to 
+	 * {@code Channel<MarketEvent>} consumers if {@code QuoteEvent} is a subtype of
+	 * {@code MarketEvent} and {@code Channel<MarketEvent>} has been bound too.
+	 * <p/>
+	 * The list of supertypes {@link Channel}s is computed once, when channels are
+	 * bound, not each time an event is published.
+	 * 
+	 * @param polymorphic {@code true} to dispatch events to supertypes 
+	 * {@link Channel}s as well
+	 * @return new options
+	 */
+	public ChannelOptions withPolymorphicDispatch(boolean polymorphic)
+	{
+		return new ChannelOptions(_coalescing, polymorphic, _ringBuffering, _replay);
+	}
+	
+	/**
+	 * Returns a copy of {@code this} options with the given ring buffer policy.
+	 * 
+	 * @param ringBuffering the ring buffer policy of the {@link Channel}, or 
+	 * {@code null} if events must be dispatched from the publishing thread
+	 * @return new options
+	 */
+	public ChannelOptions withRingBuffering(RingBuffering ringBuffering)
+	{
+		return new ChannelOptions(_coalescing, _polymorphic, ringBuffering, _replay);
+	}
+	
+	/**
+	 * Returns a copy of {@code this} options with the given replay policy.
+	 * 
+	 * @param replay the replay policy of the {@link Channel}, or {@code null} if 
+	 * published events must not be retained for consumers registered later
+	 * @return new options
+	 */
+	public ChannelOptions withReplay(Replay replay)
+	{
+		return new ChannelOptions(_coalescing, _polymorphic, _ringBuffering, replay);
+	}
+	
+	/**
+	 * @return the coalescing policy of the {@link Channel}, or {@code null} if events
+	 * are not coalesced
+	 */
+	public Coalescing getCoalescing()
+	{
+		return _coalescing;
+	}
+	
+	/**
+	 * @return {@code true} if events are also dispatched to supertypes 
+	 * {@link Channel}s
+	 */
+	public boolean isPolymorphicDispatch()
+	{
+		return _polymorphic;
+	}
+	
+	/**
+	 * @return the ring buffer policy of the {@link Channel}, or {@code null} if 
+	 * events are dispatched from the publishing thread
+	 */
+	public RingBuffering getRingBuffering()
+	{
+		return _ringBuffering;
+	}
+	
+	/**
+	 * @return the replay policy of the {@link Channel}, or {@code null} if published
+	 * events are not retained
+	 */
+	public Replay getReplay()
+	{
+		return _replay;
+	}
+	
+	@Override public String toString()
+	{
+		return String.format(
+			"ChannelOptions(coalescing=%s, polymorphic=%b, ring=%s, replay=%s)", 
+			_coalescing, _polymorphic, _ringBuffering, _replay);
+	}
+
+	final private Coalescing _coalescing;
+	final private boolean _polymorphic;
+	final private RingBuffering _ringBuffering;
+	final private Replay _replay;
+}
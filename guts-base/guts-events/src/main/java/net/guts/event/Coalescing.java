@@ -0,0 +1,173 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy of a coalescing {@link Channel}: such a {@link Channel} does not notify 
+ * consumers as soon as an event is published; it waits for a given delay after 
+ * the first event, then notifies all consumers of the events published during 
+ * that delay, with only one call to each consumer's {@link java.util.concurrent.Executor}
+ * (eg only one "hop" to the EDT for {@link InEDT} consumers).
+ * <p/>
+ * Events published during the delay can either be all delivered (in order), or 
+ * collapsed to the latest one, or to the latest one for each key:
+ * <pre>
+ * Events.bindChannel(binder(), Quote.class, "quotes", ChannelOptions.DEFAULT
+ *     .withCoalescing(Coalescing.latestByKey(100, TimeUnit.MILLISECONDS, 
+ *         new Coalescing.Key&lt;Quote&gt;() {
+ *             &#64;Override public Object keyOf(Quote quote) {
+ *                 return quote.getInstrument();
+ *             }
+ *         })));
+ * </pre>
+ * Note that consumers without a Thread Policy annotation (eg {@link InEDT}) of a 
+ * coalescing {@link Channel} are notified from a GUTS-Events internal thread, not 
+ * from the thread that has published the events. That thread is shared by all 
+ * coalescing {@link Channel}s of an {@link com.google.inject.Injector}, hence such
+ * consumers should be fast: a slow consumer delays notification of all other 
+ * coalescing {@link Channel}s.
+ * 
+ * @see ChannelOptions#withCoalescing
+ * @author Jean-Francois Poilpret
+ */
+public final class Coalescing
+{
+	/**
+	 * Determines how events published during the coalescing delay are delivered
+	 * to consumers.
+	 */
+	static public enum Mode
+	{
+		/** All events are delivered, in the order they were published. */
+		ALL,
+		/** Only the latest published event is delivered. */
+		LATEST,
+		/** 
+		 * Only the latest published event of every key is delivered; events are
+		 * delivered in the order their key first appeared. 
+		 */
+		LATEST_BY_KEY
+	}
+	
+	/**
+	 * Extracts, from an event, the key used by {@link Mode#LATEST_BY_KEY} 
+	 * coalescing policies.
+	 * 
+	 * @param <T> type of events 
+	 */
+	static public interface Key<T>
+	{
+		/**
+		 * Returns the key of {@code event}; events with equal keys are collapsed
+		 * to the latest one.
+		 * 
+		 * @param event the event for which to get a key
+		 * @return the key of {@code event}
+		 */
+		public Object keyOf(T event);
+	}
+	
+	private Coalescing(Mode mode, long delay, TimeUnit unit, Key<?> key)
+	{
+		_mode = mode;
+		_delay = delay;
+		_unit = unit;
+		_key = key;
+	}
+	
+	/**
+	 * Creates a policy that delivers, in one batch, all events published during 
+	 * {@code delay}.
+	 * 
+	 * @param delay delay between the first published event and the notification of 
+	 * all events published in the meantime
+	 * @param unit unit of {@code delay}
+	 * @return a new coalescing policy
+	 */
+	static public Coalescing all(long delay, TimeUnit unit)
+	{
+		return new Coalescing(Mode.ALL, delay, unit, null);
+	}
+
+	/**
+	 * Creates a policy that delivers only the latest of all events published during 
+	 * {@code delay}.
+	 * 
+	 * @param delay delay between the first published event and the notification of 
+	 * the latest event published in the meantime
+	 * @param unit unit of {@code delay}
+	 * @return a new coalescing policy
+	 */
+	static public Coalescing latest(long delay, TimeUnit unit)
+	{
+		return new Coalescing(Mode.LATEST, delay, unit, null);
+	}
+
+	/**
+	 * Creates a policy that delivers, for every distinct key, only the latest of 
+	 * all events published during {@code delay}.
+	 * 
+	 * @param delay delay between the first published event and the notification of 
+	 * the latest events published in the meantime
+	 * @param unit unit of {@code delay}
+	 * @param key used to extract the key from each published event
+	 * @return a new coalescing policy
+	 */
+	static public Coalescing latestByKey(long delay, TimeUnit unit, Key<?> key)
+	{
+		if (key == null)
+		{
+			throw new IllegalArgumentException("key must not be null");
+		}
+		return new Coalescing(Mode.LATEST_BY_KEY, delay, unit, key);
+	}
+	
+	/**
+	 * @return how events published during the delay are delivered
+	 */
+	public Mode getMode()
+	{
+		return _mode;
+	}
+
+	/**
+	 * @return the coalescing delay, in milliseconds
+	 */
+	public long getDelayMillis()
+	{
+		return _unit.toMillis(_delay);
+	}
+
+	/**
+	 * @return the key extractor used by {@link Mode#LATEST_BY_KEY} policies,
+	 * {@code null} for other policies
+	 */
+	public Key<?> getKey()
+	{
+		return _key;
+	}
+	
+	@Override public String toString()
+	{
+		return String.format("Coalescing(%s, %d %s)", _mode, _delay, _unit);
+	}
+
+	final private Mode _mode;
+	final private long _delay;
+	final private TimeUnit _unit;
+	final private Key<?> _key;
+}
@@ -20,6 +20,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import net.guts.common.index.Indexed;
 import net.guts.event.internal.SameAsArgumentType;
 
 /**
@@ -64,6 +65,7 @@ import net.guts.event.internal.SameAsArgumentType;
  * @author Jean-Francois Poilpret
  */
 @Documented
+@Indexed
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface Consumes
@@ -75,6 +77,16 @@ public @interface Consumes
 	 * <p/>
 	 * If not provided, the annotated method must match an existing 
 	 * {@link Channel} with the same event type (and no topic).
+	 * <p/>
+	 * The topic may also contain wildcards, in which case the annotated method 
+	 * consumes events from all {@link Channel}s with the same event type and a 
+	 * matching topic. Topics are split into segments separated by {@code '.'}; 
+	 * {@code '*'} matches exactly one segment, {@code '#'} matches zero or more 
+	 * segments; eg {@code "quotes.*"} matches {@code "quotes.EUR"} but neither 
+	 * {@code "quotes.EUR.USD"} nor {@code "quotes"}, whereas {@code "quotes.#"} 
+	 * matches all of them. Matching {@link Channel}s are determined once, when the
+	 * consumer instance is registered (or later, when a new matching {@link Channel}
+	 * is registered).
 	 */
 	public String topic() default "";
 	
@@ -0,0 +1,189 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+/**
+ * Immutable settings of the thread pool used to notify consumer methods annotated
+ * with {@link InDeferredThread}.
+ * <p/>
+ * The pool is bounded both in number of threads and in number of pending event
+ * notifications; when the pool is saturated, the configured {@link Rejection} 
+ * policy applies. Pool threads are daemon threads that die after one minute of 
+ * inactivity.
+ * <p/>
+ * To change the default settings, include the following code in one of your
+ * Guice {@link com.google.inject.Module}s:
+ * <pre>
+ * bind(DeferredThreadOptions.class).toInstance(
+ *     DeferredThreadOptions.DEFAULT.withThreads(4).withRejection(Rejection.BLOCK));
+ * </pre>
+ * 
+ * @author Jean-Francois Poilpret
+ */
+public final class DeferredThreadOptions
+{
+	/**
+	 * What happens when an event notification is submitted to a saturated pool.
+	 */
+	static public enum Rejection
+	{
+		/**
+		 * The publishing thread notifies consumers itself (this slows down event
+		 * publishers until the pool catches up). With channel ordering, this is 
+		 * handled like {@link #BLOCK} in order to preserve events order.
+		 */
+		CALLER_RUNS,
+		/**
+		 * The publishing thread waits until there is room for the notification.
+		 * With channel ordering, a consumer publishing to its own saturated 
+		 * {@link Channel} can't wait for itself, hence it is handled like 
+		 * {@link #DISCARD}.
+		 */
+		BLOCK,
+		/**
+		 * Notification is dropped; every consumer that would have been notified is 
+		 * reported to {@link ConsumerExceptionHandler} with a 
+		 * {@link java.util.concurrent.RejectedExecutionException}.
+		 */
+		DISCARD
+	}
+	
+	/**
+	 * Default settings: twice as many threads as available processors, up to
+	 * {@code 10000} pending notifications, {@link Rejection#CALLER_RUNS} and no
+	 * channel ordering.
+	 */
+	static public final DeferredThreadOptions DEFAULT = new DeferredThreadOptions(
+		2 * Runtime.getRuntime().availableProcessors(), 10000, Rejection.CALLER_RUNS, false);
+	
+	private DeferredThreadOptions(
+		int threads, int queueSize, Rejection rejection, boolean channelOrdering)
+	{
+		if (threads <= 0)
+		{
+			throw new IllegalArgumentException("threads must be > 0");
+		}
+		if (queueSize <= 0)
+		{
+			throw new IllegalArgumentException("queueSize must be > 0");
+		}
+		if (rejection == null)
+		{
+			throw new IllegalArgumentException("rejection must not be null");
+		}
+		_threads = threads;
+		_queueSize = queueSize;
+		_rejection = rejection;
+		_channelOrdering = channelOrdering;
+	}
+	
+	/**
+	 * Returns a copy of {@code this} settings with the given maximum number of 
+	 * threads.
+	 * 
+	 * @param threads maximum number of threads in the pool, must be {@code > 0}
+	 * @return new settings
+	 */
+	public DeferredThreadOptions withThreads(int threads)
+	{
+		return new DeferredThreadOptions(threads, _queueSize, _rejection, _channelOrdering);
+	}
+	
+	/**
+	 * Returns a copy of {@code this} settings with the given maximum number of 
+	 * pending notifications.
+	 * 
+	 * @param queueSize maximum number of notifications waiting for a thread; when 
+	 * channel ordering is set, this is the maximum per {@link Channel}; must be
+	 * {@code > 0}
+	 * @return new settings
+	 */
+	public DeferredThreadOptions withQueueSize(int queueSize)
+	{
+		return new DeferredThreadOptions(_threads, queueSize, _rejection, _channelOrdering);
+	}
+	
+	/**
+	 * Returns a copy of {@code this} settings with the given rejection policy.
+	 * 
+	 * @param rejection what to do when the pool is saturated
+	 * @return new settings
+	 */
+	public DeferredThreadOptions withRejection(Rejection rejection)
+	{
+		return new DeferredThreadOptions(_threads, _queueSize, rejection, _channelOrdering);
+	}
+	
+	/**
+	 * Returns a copy of {@code this} settings with or without channel ordering.
+	 * <p/>
+	 * When channel ordering is set, consumers are notified of all events published
+	 * to one {@link Channel} in the order of publication, one event after the 
+	 * other; events from different {@link Channel}s are still notified in parallel.
+	 * 
+	 * @param channelOrdering {@code true} to preserve events order per 
+	 * {@link Channel}
+	 * @return new settings
+	 */
+	public DeferredThreadOptions withChannelOrdering(boolean channelOrdering)
+	{
+		return new DeferredThreadOptions(_threads, _queueSize, _rejection, channelOrdering);
+	}
+	
+	/**
+	 * @return the maximum number of threads in the pool
+	 */
+	public int getThreads()
+	{
+		return _threads;
+	}
+	
+	/**
+	 * @return the maximum number of pending notifications
+	 */
+	public int getQueueSize()
+	{
+		return _queueSize;
+	}
+	
+	/**
+	 * @return the policy applied when the pool is saturated
+	 */
+	public Rejection getRejection()
+	{
+		return _rejection;
+	}
+	
+	/**
+	 * @return {@code true} if events order is preserved per {@link Channel}
+	 */
+	public boolean isChannelOrdering()
+	{
+		return _channelOrdering;
+	}
+	
+	@Override public String toString()
+	{
+		return String.format(
+			"DeferredThreadOptions(threads=%d, queueSize=%d, rejection=%s, ordering=%b)",
+			_threads, _queueSize, _rejection, _channelOrdering);
+	}
+
+	final private int _threads;
+	final private int _queueSize;
+	final private Rejection _rejection;
+	final private boolean _channelOrdering;
+}
@@ -0,0 +1,110 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+import net.guts.event.internal.EventMetricsProvider;
+
+import com.google.inject.ProvidedBy;
+
+/**
+ * Service Provider Interface through which GUTS-Events reports the activity of
+ * {@link Channel}s and consumer methods, e.g. to monitoring tools.
+ * <p/>
+ * GUTS-Events calls {@link #channelCreated} once for every {@link Channel}, then
+ * {@link ChannelMetrics#consumerAdded} every time a consumer method gets registered
+ * to that {@link Channel}; returned objects are then called during events 
+ * dispatching, from publishing threads and from the threads notifying consumers 
+ * (as defined by Thread Policies), hence implementations must be thread-safe and
+ * as fast as possible.
+ * <p/>
+ * By default, metrics are disabled and an implementation that does nothing is used.
+ * Once enabled through {@link MetricsOptions}, default implementation counts 
+ * published events, measures consumer methods invocation times and logs consumer
+ * methods that take longer than the threshold set in {@link MetricsOptions}; its
+ * statistics can also be made available through a JMX MBean named 
+ * {@code net.guts.event:type=EventMetrics,id=...}.
+ * <p/>
+ * You can replace the default implementation with your own:
+ * <pre>
+ * bind(EventMetrics.class).to(MyEventMetrics.class).in(Scopes.SINGLETON);
+ * </pre>
+ * 
+ * @author Jean-Francois Poilpret
+ */
+@ProvidedBy(EventMetricsProvider.class)
+public interface EventMetrics
+{
+	/**
+	 * Called once when a new {@link Channel} is created.
+	 * 
+	 * @param eventType type of events of the new {@link Channel}
+	 * @param topic topic of the new {@link Channel}
+	 * @return the object to which all activity of the new {@link Channel} will be
+	 * reported; must not be {@code null}
+	 */
+	public ChannelMetrics channelCreated(Type eventType, String topic);
+	
+	/**
+	 * Receives activity reports of one {@link Channel}.
+	 */
+	public interface ChannelMetrics
+	{
+		/**
+		 * Called every time an event is published to the {@link Channel}.
+		 */
+		public void published();
+		
+		/**
+		 * Called every time a consumer instance gets registered to the 
+		 * {@link Channel}; several instances of the same class will lead to 
+		 * several calls with the same {@code consumer} method.
+		 * 
+		 * @param consumer the method to be called for every event
+		 * @return the object to which all notifications of {@code consumer} will
+		 * be reported; must not be {@code null}
+		 */
+		public ConsumerMetrics consumerAdded(Method consumer);
+	}
+	
+	/**
+	 * Receives activity reports of one consumer method, for one {@link Channel}.
+	 */
+	public interface ConsumerMetrics
+	{
+		/**
+		 * Called after each call to the consumer method.
+		 * 
+		 * @param nanos time taken by the consumer method, in nanoseconds
+		 */
+		public void notified(long nanos);
+		
+		/**
+		 * Called whenever the consumer method, its filter method, or the handler
+		 * of its returned value has thrown an exception; the exception itself is
+		 * passed to {@link ConsumerExceptionHandler}.
+		 */
+		public void failed();
+		
+		/**
+		 * Called whenever an event could not be passed to the consumer method 
+		 * because its Thread Policy executor rejected it.
+		 */
+		public void dropped();
+	}
+}
@@ -23,8 +23,10 @@ import net.guts.event.internal.AnnotationProcessorFactory;
 import net.guts.event.internal.ChannelFactory;
 import net.guts.event.internal.ChannelImpl;
 import net.guts.event.internal.ConsumerInjectionListener;
-import net.guts.event.internal.InDeferredThreadExecutor;
+import net.guts.event.internal.InDeferredThreadExecutorProvider;
 import net.guts.event.internal.InEDTExecutor;
+import net.guts.event.internal.JmxEventMetrics;
+import net.guts.event.internal.MailboxExecutorProvider;
 
 import com.google.inject.Scopes;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
@@ -45,12 +47,23 @@ import com.google.inject.assistedinject.FactoryModuleBuilder;
  * <li>{@link ConsumerExceptionHandler}: used to handle exceptions thrown by filter
  * and consumer methods during event notification; default behavior is to echo
  * information about the event and the exception to {@code System.err}.</li>
+ * <li>Filter and consumer methods invocation: by default, a class that calls the
+ * method directly is generated once per filter or consumer method; you can revert
+ * to plain reflection with {@link Events#useReflection}.</li>
+ * <li>{@link EventMetrics}: receives statistics about published events and 
+ * consumers notification; by default, metrics are disabled; once enabled in
+ * {@link MetricsOptions}, default implementation logs slow consumers and can be
+ * registered as a JMX MBean.</li>
  * </ul>
  * In addition, this module also defines default bindings for Thread Policies
  * annotations, used during event dispatching:
  * <ul>
- * <li>{@link InDeferredThread}: a new thread is created from when events are 
- * dispatched to matching consumers</li>
+ * <li>{@link InDeferredThread}: events notification is performed from a bounded
+ * pool of threads, which settings can be changed by binding 
+ * {@link DeferredThreadOptions}</li>
+ * <li>{@link InMailbox}: events notification is performed from a bounded pool of
+ * threads, each consumer instance being notified of events one after the other, 
+ * in the order they were sent</li>
  * <li>{@link InEDT}: events notification is performed from within <i>Swing 
  * Event-Dispatch Thread</i>.</li>
  * </ul>
@@ -70,7 +83,8 @@ final public class EventModule extends AbstractSingletonModule
 			InjectionListeners.requestInjection(binder(), new ConsumerInjectionListener());
 		OneTypeListener<Object> typeListener = 
 			new OneTypeListener<Object>(Object.class, injectionListener);
-		bindListener(Matchers.hasPublicMethodAnnotatedWith(Consumes.class), typeListener);
+		bindListener(Matchers.indexed(Consumes.class, 
+			Matchers.hasPublicMethodAnnotatedWith(Consumes.class)), typeListener);
 		
 		// Perform assisted inject for AnnotationProcessor
 		install(new FactoryModuleBuilder()
@@ -86,11 +100,16 @@ final public class EventModule extends AbstractSingletonModule
 		// used when @Consumes method have the matching annotations
 		// We bind all default Thread Policies supported by GUTS-Events
 		Events.bindExecutor(binder(), InDeferredThread.class)
-			.to(InDeferredThreadExecutor.class).in(Scopes.SINGLETON);
+			.toProvider(InDeferredThreadExecutorProvider.class).in(Scopes.SINGLETON);
+		Events.bindExecutor(binder(), InMailbox.class)
+			.toProvider(MailboxExecutorProvider.class).in(Scopes.SINGLETON);
 		Events.bindExecutor(binder(), InEDT.class)
 			.to(InEDTExecutor.class).in(Scopes.SINGLETON);
 		
 		// Initialize empty MultiMap to contain handlers of results returned by consumers
 		Events.getHandlerMap(binder());
+		
+		// Expose statistics of default EventMetrics through JMX (if enabled)
+		bind(JmxEventMetrics.class).asEagerSingleton();
 	}
 }
@@ -52,6 +52,25 @@ public interface EventService
 	 */
 	public <T> void registerChannel(TypeLiteral<T> type, String topic);
 	
+	/**
+	 * Registers a new Event {@link Channel} for the given {@code type} and 
+	 * {@code topic}, with specific {@code options}. Once registered, you can get a 
+	 * reference to the new {@link Channel} by calling {@link #getChannel}.
+	 * <p/>
+	 * If a {@link Channel} has already been registered for {@code type} and
+	 * {@code topic}, then this method does nothing (in particular, {@code options}
+	 * are ignored).
+	 *  
+	 * @param <T> type of the event managed by the newly registered 
+	 * {@link Channel}
+	 * @param type type of the event managed by the newly registered 
+	 * {@link Channel}
+	 * @param topic topic of the newly registered {@link Channel}; for an
+	 * unnamed {@link Channel}, just pass {@code null} or {@code ""}.
+	 * @param options options of the newly registered {@link Channel}
+	 */
+	public <T> void registerChannel(TypeLiteral<T> type, String topic, ChannelOptions options);
+	
 	/**
 	 * Lazily evaluates and returns the Event {@link Channel} for the given
 	 * {@code type} and {@code topic}. A {@link Channel} for {@code type} and
@@ -68,6 +87,28 @@ public interface EventService
 	public <T> Channel<T> getChannel(TypeLiteral<T> type, String topic)
 		throws IllegalArgumentException;
 
+	/**
+	 * Returns a {@link RequestChannel} sending requests of the given {@code type}
+	 * and {@code topic} to consumers, and collecting their replies of type
+	 * {@code replyType}. A {@link Channel} for {@code type} and {@code topic} must 
+	 * first have been registered with {@link #registerChannel}; the returned
+	 * {@link RequestChannel} shares all consumers of that {@link Channel}.
+	 * 
+	 * @param <Q> type of the requests sent by the {@link RequestChannel} to return
+	 * @param <R> type of the replies expected from consumers
+	 * @param type type of the requests sent by the {@link RequestChannel} to return
+	 * @param replyType type of the replies expected from consumers
+	 * @param topic topic of the requests sent by the {@link RequestChannel} to 
+	 * return; for an unnamed channel, just pass {@code null} or {@code ""}.
+	 * @return a {@code RequestChannel} matching request {@code type} and 
+	 * {@code topic}
+	 * @throws IllegalArgumentException if no {@link Channel} was registered for
+	 * {@code type} and {@code topic}
+	 */
+	public <Q, R> RequestChannel<Q, R> getRequestChannel(
+		TypeLiteral<Q> type, TypeLiteral<R> replyType, String topic)
+		throws IllegalArgumentException;
+
 	/**
 	 * Processes the given {@code instance} searching for methods annotated with
 	 * {@link Consumes} and {@link Filters} and automatically registers the found
@@ -83,6 +124,21 @@ public interface EventService
 	 * 
 	 * @param instance the object which consumer methods must be processed and 
 	 * registered with matching {@link Channel}s
+	 * @return a handle that can be closed to unregister the consumer methods of
+	 * {@code instance}
+	 */
+	public Subscription registerConsumers(Object instance);
+	
+	/**
+	 * Unregisters all consumer methods of the given {@code instance} from all 
+	 * {@link Channel}s, whether {@code instance} was created by Guice or passed to
+	 * {@link #registerConsumers}. This is equivalent to closing all 
+	 * {@link Subscription}s of {@code instance}.
+	 * <p/>
+	 * If {@code instance} has no registered consumer methods, this method does
+	 * nothing.
+	 * 
+	 * @param instance the object which consumer methods must stop receiving events
 	 */
-	public void registerConsumers(Object instance);
+	public void unregisterConsumers(Object instance);
 }
@@ -21,6 +21,10 @@ import java.util.concurrent.Executor;
 import static net.guts.common.type.PrimitiveHelper.toWrapper;
 import net.guts.event.internal.ChannelProvider;
 import net.guts.event.internal.EventImpl;
+import net.guts.event.internal.MethodInvokerFactory;
+import net.guts.event.internal.PrimitiveChannelProvider;
+import net.guts.event.internal.ReflectionMethodInvokerFactory;
+import net.guts.event.internal.RequestChannelProvider;
 
 import com.google.inject.Binder;
 import com.google.inject.Scopes;
@@ -133,8 +137,61 @@ public final class Events
 	 * @param eventType the exact type of the event for which to bind a {@link Channel}
 	 * @param topic topic of the event {@link Channel} to be bound
 	 */
-	@SuppressWarnings("unchecked")
 	static public <T> void bindChannel(Binder binder, TypeLiteral<T> eventType, String topic)
+	{
+		bindChannel(binder, eventType, topic, ChannelOptions.DEFAULT);
+	}
+
+	/**
+	 * Creates a Guice {@link com.google.inject.Binding} for an event {@link Channel}, based
+	 * on the type of event and the given topic, with specific options.
+	 * <p/>
+	 * This must be called from {@link com.google.inject.Module#configure(Binder)}.
+	 * <p/>
+	 * The bound channel can then be injected into any class instantiated by Guice 
+	 * {@link com.google.inject.Injector}:
+	 * <pre>
+	 * &#64;Inject &#64;Event(topic = TOPIC) private Channel&lt;Integer&gt; channel;
+	 * </pre>
+	 * 
+	 * @param <T> Type of the event of the newly bound {@link Channel}
+	 * @param binder the Guice binder passed to 
+	 * {@link com.google.inject.Module#configure(Binder)}
+	 * @param eventType the exact type of the event for which to bind a {@link Channel}
+	 * @param topic topic of the event {@link Channel} to be bound, may be {@code null}
+	 * @param options options of the event {@link Channel} to be bound
+	 */
+	static public <T> void bindChannel(
+		Binder binder, Class<T> eventType, String topic, ChannelOptions options)
+	{
+		bindChannel(binder, TypeLiteral.get(eventType), topic, options);
+	}
+
+	/**
+	 * Creates a Guice {@link com.google.inject.Binding} for an event {@link Channel}, based
+	 * on the type of event and the given topic, with specific options.
+	 * <p/>
+	 * This must be called from {@link com.google.inject.Module#configure(Binder)}.
+	 * <p/>
+	 * The bound channel can then be injected into any class instantiated by Guice 
+	 * {@link com.google.inject.Injector}:
+	 * <pre>
+	 * &#64;Inject &#64;Event(topic = TOPIC) private Channel&lt;List&lt;String&gt;&gt; channel;
+	 * </pre>
+	 * For {@code int}, {@code long} and {@code double} event types, the matching
+	 * {@link IntChannel}, {@link LongChannel} or {@link DoubleChannel} is also bound
+	 * (with the same topic), to publish events without boxing them.
+	 * 
+	 * @param <T> Type of the event of the newly bound {@link Channel}
+	 * @param binder the Guice binder passed to 
+	 * {@link com.google.inject.Module#configure(Binder)}
+	 * @param eventType the exact type of the event for which to bind a {@link Channel}
+	 * @param topic topic of the event {@link Channel} to be bound, may be {@code null}
+	 * @param options options of the event {@link Channel} to be bound
+	 */
+	@SuppressWarnings("unchecked")
+	static public <T> void bindChannel(
+		Binder binder, TypeLiteral<T> eventType, String topic, ChannelOptions options)
 	{
 		// Special handling of primitive event types
 		Type realType = toWrapper(eventType.getRawType());
@@ -154,7 +211,115 @@ public final class Events
 		{
 			binding.annotatedWith(new EventImpl("", true));
 		}
-		binding.toProvider(new ChannelProvider<T>(eventType, topic)).in(Scopes.SINGLETON);
+		binding.toProvider(
+			new ChannelProvider<T>(eventType, topic, options)).in(Scopes.SINGLETON);
+		// Specialized channels to publish numeric events without boxing them
+		Class<?> rawType = eventType.getRawType();
+		if (rawType == int.class)
+		{
+			bindPrimitiveChannel(binder, IntChannel.class, topic);
+		}
+		else if (rawType == long.class)
+		{
+			bindPrimitiveChannel(binder, LongChannel.class, topic);
+		}
+		else if (rawType == double.class)
+		{
+			bindPrimitiveChannel(binder, DoubleChannel.class, topic);
+		}
+	}
+	
+	static private <C> void bindPrimitiveChannel(
+		Binder binder, Class<C> channelType, String topic)
+	{
+		AnnotatedBindingBuilder<C> binding = binder.bind(channelType);
+		if (topic != null && !"".equals(topic))
+		{
+			binding.annotatedWith(new EventImpl(topic, false));
+		}
+		binding.toProvider(
+			new PrimitiveChannelProvider<C>(channelType, topic)).in(Scopes.SINGLETON);
+	}
+
+	/**
+	 * Creates a Guice {@link com.google.inject.Binding} for a {@link RequestChannel},
+	 * based on the type of requests and the type of replies; no topic is associated
+	 * to the newly bound {@link RequestChannel}.
+	 * <p/>
+	 * This must be called from {@link com.google.inject.Module#configure(Binder)}.
+	 * <p/>
+	 * The bound channel can then be injected into any class instantiated by Guice 
+	 * {@link com.google.inject.Injector}:
+	 * <pre>
+	 * &#64;Inject private RequestChannel&lt;CustomerQuery, Customer&gt; channel;
+	 * </pre>
+	 * 
+	 * @param <Q> Type of the requests of the newly bound {@link RequestChannel}
+	 * @param <R> Type of the replies of the newly bound {@link RequestChannel}
+	 * @param binder the Guice binder passed to 
+	 * {@link com.google.inject.Module#configure(Binder)}
+	 * @param requestType the exact type of the requests for which to bind a 
+	 * {@link RequestChannel}
+	 * @param replyType the type of the replies expected from consumers
+	 */
+	static public <Q, R> void bindRequestChannel(
+		Binder binder, Class<Q> requestType, Class<R> replyType)
+	{
+		bindRequestChannel(
+			binder, TypeLiteral.get(requestType), TypeLiteral.get(replyType), null);
+	}
+
+	/**
+	 * Creates a Guice {@link com.google.inject.Binding} for a {@link RequestChannel},
+	 * based on the type of requests, the type of replies and the given topic.
+	 * <p/>
+	 * This must be called from {@link com.google.inject.Module#configure(Binder)}.
+	 * <p/>
+	 * The bound channel can then be injected into any class instantiated by Guice 
+	 * {@link com.google.inject.Injector}:
+	 * <pre>
+	 * &#64;Inject &#64;Event(topic = TOPIC) 
+	 * private RequestChannel&lt;CustomerQuery, Customer&gt; channel;
+	 * </pre>
+	 * The bound {@link RequestChannel} also registers the {@link Channel} of 
+	 * {@code requestType} and {@code topic} (with default {@link ChannelOptions}) if
+	 * it was not bound yet.
+	 * 
+	 * @param <Q> Type of the requests of the newly bound {@link RequestChannel}
+	 * @param <R> Type of the replies of the newly bound {@link RequestChannel}
+	 * @param binder the Guice binder passed to 
+	 * {@link com.google.inject.Module#configure(Binder)}
+	 * @param requestType the exact type of the requests for which to bind a 
+	 * {@link RequestChannel}
+	 * @param replyType the type of the replies expected from consumers
+	 * @param topic topic of the {@link RequestChannel} to be bound, may be 
+	 * {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	static public <Q, R> void bindRequestChannel(Binder binder, 
+		TypeLiteral<Q> requestType, TypeLiteral<R> replyType, String topic)
+	{
+		// Special handling of primitive request types
+		Type realType = toWrapper(requestType.getRawType());
+		boolean isPrimitive = (realType != requestType.getRawType());
+		if (!isPrimitive)
+		{
+			realType = requestType.getType();
+		}
+		Type channelType = Types.newParameterizedType(
+			RequestChannel.class, realType, replyType.getType());
+		AnnotatedBindingBuilder<RequestChannel<Q, R>> binding = binder.bind(
+			(TypeLiteral<RequestChannel<Q, R>>) TypeLiteral.get(channelType));
+		if (topic != null && !"".equals(topic))
+		{
+			binding.annotatedWith(new EventImpl(topic, isPrimitive));
+		}
+		else if (isPrimitive)
+		{
+			binding.annotatedWith(new EventImpl("", true));
+		}
+		binding.toProvider(new RequestChannelProvider<Q, R>(
+			requestType, replyType, topic)).in(Scopes.SINGLETON);
 	}
 
 	/**
@@ -248,6 +413,27 @@ public final class Events
 		return bindHandler(binder, TypeLiteral.get(returnType));
 	}
 			
+	/**
+	 * Makes GUTS-Events call all filter and consumer methods through plain 
+	 * reflection, rather than through classes generated for each of these 
+	 * methods.
+	 * <p/>
+	 * Generated classes are faster to call, but cannot always be generated, e.g.
+	 * on recent JVMs, when {@code java.lang} is not opened to Guice (GUTS-Events 
+	 * then falls back to reflection, and logs a warning once); reflection also
+	 * avoids generating classes at all, which is useful when consumers are 
+	 * registered rarely or when generated classes are not wanted.
+	 * <p/>
+	 * This must be called from {@link com.google.inject.Module#configure(Binder)}.
+	 * 
+	 * @param binder the Guice binder passed to 
+	 * {@link com.google.inject.Module#configure(Binder)}
+	 */
+	static public void useReflection(Binder binder)
+	{
+		binder.bind(MethodInvokerFactory.class).to(ReflectionMethodInvokerFactory.class);
+	}
+	
 	static MapBinder<TypeLiteral<?>, ConsumerReturnHandler<?>> getHandlerMap(Binder binder)
 	{
 		return MapBinder.newMapBinder(binder, HANDLERS_KEY, HANDLERS_VALUE);
@@ -20,6 +20,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import net.guts.common.index.Indexed;
 import net.guts.event.internal.SameAsArgumentType;
 
 /**
@@ -56,6 +57,7 @@ import net.guts.event.internal.SameAsArgumentType;
  * @author Jean-Francois Poilpret
  */
 @Documented
+@Indexed
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface Filters
@@ -68,6 +70,9 @@ public @interface Filters
 	 * <p/>
 	 * If not provided, the annotated method must match an existing 
 	 * {@link Channel} with the same event type (and no topic).
+	 * <p/>
+	 * A wildcard topic (see {@link Consumes#topic()}) filters events for the 
+	 * consumer method with the exact same wildcard topic.
 	 */
 	public String topic() default "";
 	
@@ -23,7 +23,7 @@ import java.lang.annotation.Target;
 /**
  * Annotates an event consumer method (already annotated with {@link Consumes}) to
  * indicate that it should not be notified of new events from the {@link Thread} that 
- * has been used by the events supplier, but from a new {@link Thread}.
+ * has been used by the events supplier, but from another {@link Thread}.
  * <p/>
  * Here is a typical usage:
  * <pre>
@@ -34,8 +34,12 @@ import java.lang.annotation.Target;
  * <p/>
  * Note that if, for the same event, several consumer methods (even in different 
  * classes and instances) use this annotation, all of them will be called in one
- * <b>same</b> new {@link Thread}, different from the one which the event supplier
+ * <b>same</b> {@link Thread}, different from the one which the event supplier
  * sent the event from.
+ * <p/>
+ * Threads are taken from a bounded pool, shared by all {@link Channel}s; pool 
+ * settings can be changed by binding {@link DeferredThreadOptions} in one of your
+ * Guice {@link com.google.inject.Module}s.
  * 
  * @author Jean-Francois Poilpret
  */
@@ -0,0 +1,58 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates an event consumer method (already annotated with {@link Consumes}) to
+ * indicate that it should not be notified of new events from the {@link Thread} 
+ * that has been used by the events supplier, but from a pool of threads, in the 
+ * same order as events were sent.
+ * <p/>
+ * Here is a typical usage:
+ * <pre>
+ * public class Consumer {
+ *     &#64;Consumes &#64;InMailbox public void consumes(Integer event) {...}
+ * }
+ * </pre>
+ * <p/>
+ * Each consumer instance gets its own "mailbox" where events wait until the 
+ * previous event has been consumed by that instance; hence one consumer instance 
+ * never gets notified from two threads at a time (all its {@code InMailbox} 
+ * consumer methods share the same mailbox), whereas different consumer instances
+ * are notified in parallel. This is a simple way to move slow consumers out of the
+ * event supplier {@link Thread} without adding synchronization to these consumers.
+ * <p/>
+ * Unlike with {@link InDeferredThread}, several consumer methods notified of the 
+ * same event are called from different {@link Thread}s.
+ * <p/>
+ * Mailboxes use a separate pool of threads, which settings are the same as for
+ * {@link InDeferredThread}, defined by binding {@link DeferredThreadOptions}; the
+ * queue size is then the maximum number of events pending in one mailbox.
+ * 
+ * @author Jean-Francois Poilpret
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface InMailbox
+{
+}
@@ -0,0 +1,44 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+/**
+ * Specialized event channel for {@code int} events, which allows suppliers to send
+ * events to consumers without boxing them into {@link Integer}s.
+ * <p/>
+ * {@code IntChannel} is automatically bound, along with {@code Channel<Integer>}, when
+ * {@link Events#bindChannel} is used for {@code int.class} events; both channels
+ * share the same consumers:
+ * <pre>
+ * &#64;Inject private IntChannel channel;
+ * </pre>
+ * Consumers and filters declaring a {@code int} argument are then called without
+ * any allocation, with the same filtering and priority order as for 
+ * {@link Channel#publish}. Events are boxed anyway for consumers called from 
+ * another {@link Thread} and for channels with coalescing, ring buffering, 
+ * replay or polymorphic dispatch options.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public interface IntChannel
+{
+	/**
+	 * Sends {@code event} to all consumers of {@code this} channel.
+	 * 
+	 * @param event the event to be sent to consumers
+	 */
+	public void publish(int event);
+}
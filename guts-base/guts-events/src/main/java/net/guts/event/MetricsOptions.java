@@ -0,0 +1,137 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable settings of the default {@link EventMetrics} implementation.
+ * <p/>
+ * Metrics are disabled by default: GUTS-Events then reports nothing (and measures
+ * nothing) during events dispatching. Once enabled, published events are counted,
+ * and consumer methods invocation times are measured; these statistics can also
+ * be exposed through JMX.
+ * <p/>
+ * Consumer methods that take longer than the "slow consumer" threshold to handle
+ * an event are logged (as warnings), with the event type and the thread in which
+ * they were called; this helps finding consumers that block the <i>Swing Event 
+ * Dispatch Thread</i>.
+ * <p/>
+ * To enable metrics, include the following code in one of your Guice 
+ * {@link com.google.inject.Module}s:
+ * <pre>
+ * bind(MetricsOptions.class).toInstance(MetricsOptions.DEFAULT.withEnabled(true)
+ *     .withSlowConsumerThreshold(20, TimeUnit.MILLISECONDS).withJmx(true));
+ * </pre>
+ * 
+ * @author Jean-Francois Poilpret
+ */
+public final class MetricsOptions
+{
+	/**
+	 * Default settings: metrics disabled; once enabled, consumers taking 
+	 * {@code 100} milliseconds or more are logged, statistics are not available
+	 * through JMX.
+	 */
+	static public final MetricsOptions DEFAULT = 
+		new MetricsOptions(false, TimeUnit.MILLISECONDS.toNanos(100), false);
+	
+	private MetricsOptions(boolean enabled, long slowConsumerThreshold, boolean jmx)
+	{
+		if (slowConsumerThreshold < 0)
+		{
+			throw new IllegalArgumentException("slowConsumerThreshold must be >= 0");
+		}
+		_enabled = enabled;
+		_slowConsumerThreshold = slowConsumerThreshold;
+		_jmx = jmx;
+	}
+	
+	/**
+	 * Returns a copy of {@code this} settings with metrics enabled or disabled.
+	 * 
+	 * @param enabled {@code true} to use the default {@link EventMetrics} 
+	 * implementation, {@code false} to report nothing
+	 * @return new settings
+	 */
+	public MetricsOptions withEnabled(boolean enabled)
+	{
+		return new MetricsOptions(enabled, _slowConsumerThreshold, _jmx);
+	}
+	
+	/**
+	 * Returns a copy of {@code this} settings with the given "slow consumer" 
+	 * threshold.
+	 * 
+	 * @param threshold minimum time taken by a consumer method, to handle one
+	 * event, for it to be logged; {@code 0} disables logging
+	 * @param unit unit of {@code threshold}
+	 * @return new settings
+	 */
+	public MetricsOptions withSlowConsumerThreshold(long threshold, TimeUnit unit)
+	{
+		return new MetricsOptions(_enabled, unit.toNanos(threshold), _jmx);
+	}
+	
+	/**
+	 * Returns a copy of {@code this} settings with or without the JMX MBean.
+	 * 
+	 * @param jmx {@code true} to register an MBean exposing statistics (only if
+	 * metrics are enabled)
+	 * @return new settings
+	 */
+	public MetricsOptions withJmx(boolean jmx)
+	{
+		return new MetricsOptions(_enabled, _slowConsumerThreshold, jmx);
+	}
+	
+	/**
+	 * @return {@code true} if the default {@link EventMetrics} implementation is 
+	 * used
+	 */
+	public boolean isEnabled()
+	{
+		return _enabled;
+	}
+	
+	/**
+	 * @param unit the unit in which to return the threshold
+	 * @return the "slow consumer" threshold, {@code 0} if disabled
+	 */
+	public long getSlowConsumerThreshold(TimeUnit unit)
+	{
+		return unit.convert(_slowConsumerThreshold, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return {@code true} if statistics are exposed through JMX
+	 */
+	public boolean isJmx()
+	{
+		return _jmx;
+	}
+	
+	@Override public String toString()
+	{
+		return String.format(
+			"MetricsOptions(enabled=%b, slowConsumerThreshold=%dns, jmx=%b)",
+			_enabled, _slowConsumerThreshold, _jmx);
+	}
+
+	final private boolean _enabled;
+	final private long _slowConsumerThreshold;
+	final private boolean _jmx;
+}
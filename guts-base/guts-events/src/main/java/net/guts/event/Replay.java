@@ -0,0 +1,139 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+/**
+ * Policy of a replaying ("sticky") {@link Channel}: such a {@link Channel} 
+ * retains the latest events published to it and replays them to each consumer
+ * as soon as it gets registered, eg by {@link EventService#registerConsumers}. 
+ * This is useful for "state" events, so that views created late (eg docking 
+ * views opened after startup) get the current state without any need to 
+ * publish it again:
+ * <pre>
+ * Events.bindChannel(binder(), Quote.class, "quotes", ChannelOptions.DEFAULT
+ *     .withReplay(Replay.latestByKey(500, new Coalescing.Key&lt;Quote&gt;() {
+ *         &#64;Override public Object keyOf(Quote quote) {
+ *             return quote.getInstrument();
+ *         }
+ *     })));
+ * </pre>
+ * The number of retained events is always bounded, hence retained events don't 
+ * grow without limit, even for channels with large events or many keys.
+ * <p/>
+ * Replayed events are notified, in the order they were published, only to the
+ * newly registered consumer, from the {@link Thread} determined by its optional
+ * "Thread Policy" annotation, and only if its filter (if any) accepts them. 
+ * Events published while a consumer is being registered are notified to that
+ * consumer exactly once, after replayed events: recording an event is atomic
+ * with respect to consumers registration, but consumers are notified (and
+ * retained events replayed) outside of any lock, hence publishing to a replaying
+ * {@link Channel} from several threads is not serialized.
+ * <p/>
+ * When the {@link Channel} is also coalesced, coalesced events (as notified to 
+ * consumers) are retained, rather than all published events.
+ * 
+ * @see ChannelOptions#withReplay
+ * @author Jean-Francois Poilpret
+ */
+public final class Replay
+{
+	/**
+	 * Determines which published events are retained for replay.
+	 */
+	static public enum Mode
+	{
+		/** The latest published events are retained. */
+		LATEST,
+		/** 
+		 * The latest published event of every key is retained; when there are too
+		 * many keys, the least recently published key gets dropped.
+		 */
+		LATEST_BY_KEY
+	}
+	
+	private Replay(Mode mode, int size, Coalescing.Key<?> key)
+	{
+		if (size <= 0)
+		{
+			throw new IllegalArgumentException("size must be strictly positive");
+		}
+		_mode = mode;
+		_size = size;
+		_key = key;
+	}
+	
+	/**
+	 * Creates a policy that retains the {@code count} latest published events.
+	 * 
+	 * @param count maximum number of retained events
+	 * @return a new replay policy
+	 */
+	static public Replay latest(int count)
+	{
+		return new Replay(Mode.LATEST, count, null);
+	}
+
+	/**
+	 * Creates a policy that retains the latest published event for every distinct
+	 * key, for at most {@code maxKeys} keys.
+	 * 
+	 * @param maxKeys maximum number of retained events (one per key)
+	 * @param key used to extract the key from each published event
+	 * @return a new replay policy
+	 */
+	static public Replay latestByKey(int maxKeys, Coalescing.Key<?> key)
+	{
+		if (key == null)
+		{
+			throw new IllegalArgumentException("key must not be null");
+		}
+		return new Replay(Mode.LATEST_BY_KEY, maxKeys, key);
+	}
+	
+	/**
+	 * @return which published events are retained
+	 */
+	public Mode getMode()
+	{
+		return _mode;
+	}
+
+	/**
+	 * @return maximum number of retained events
+	 */
+	public int getSize()
+	{
+		return _size;
+	}
+
+	/**
+	 * @return the key extractor used by {@link Mode#LATEST_BY_KEY} policies,
+	 * {@code null} for other policies
+	 */
+	public Coalescing.Key<?> getKey()
+	{
+		return _key;
+	}
+	
+	@Override public String toString()
+	{
+		return String.format("Replay(%s, size=%d)", _mode, _size);
+	}
+
+	final private Mode _mode;
+	final private int _size;
+	final private Coalescing.Key<?> _key;
+}
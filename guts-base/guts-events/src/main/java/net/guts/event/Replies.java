@@ -0,0 +1,59 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Pending result of a request sent through a {@link RequestChannel}. As a
+ * {@link Future}, it completes with the list of all replies, in the order they 
+ * were returned by consumers, once every consumer notified of the request has 
+ * returned (or failed, in which case it simply does not reply).
+ * <p/>
+ * A request that no consumer accepts completes immediately with an empty list.
+ * <p/>
+ * <b>Important!</b> Never block on {@link #get()} from a {@link Thread} that 
+ * consumers of the request need (e.g. the EDT for {@link InEDT} consumers), as
+ * this would dead-lock; use {@link #addListener} instead.
+ *
+ * @param <R> Type of the replies expected from consumers
+ * 
+ * @author Jean-Francois Poilpret
+ */
+public interface Replies<R> extends Future<List<R>>
+{
+	/**
+	 * Gives access to the first reply only, which is useful when any consumer 
+	 * can answer the request. The returned {@link Future} completes as soon as one
+	 * consumer replies, or with {@code null} if all consumers have returned without
+	 * replying. Cancelling it cancels {@code this} too.
+	 * 
+	 * @return the first reply to the request
+	 */
+	public Future<R> first();
+	
+	/**
+	 * Registers {@code listener} to be run from {@code executor} once {@code this}
+	 * is done (completed or cancelled). If {@code this} is already done, then
+	 * {@code listener} is passed to {@code executor} right away.
+	 * 
+	 * @param listener the task to execute once all replies are known
+	 * @param executor the {@link Executor} used to run {@code listener}
+	 */
+	public void addListener(Runnable listener, Executor executor);
+}
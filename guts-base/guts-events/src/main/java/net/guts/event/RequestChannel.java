@@ -0,0 +1,60 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+/**
+ * Event channel which suppliers use to send requests to consumers and get their
+ * replies back. Replies are the non {@code null} results returned by consumer 
+ * methods notified of a request.
+ * <p/>
+ * Consumers of requests are plain consumer methods, annotated with 
+ * {@link Consumes}, that return a result; they are notified from the 
+ * {@link Thread} determined by their optional "Thread Policy" annotation, as for 
+ * any other event:
+ * <pre>
+ * public class Consumer {
+ *     &#64;Consumes &#64;InDeferredThread public Customer find(CustomerQuery query) {...}
+ * }
+ * </pre>
+ * You can declare bindings to {@code RequestChannel} by using 
+ * {@link Events#bindRequestChannel} in your own {@link com.google.inject.Module}s,
+ * then inject them into your own classes:
+ * <pre>
+ * &#64;Inject private RequestChannel&lt;CustomerQuery, Customer&gt; channel;
+ * ...
+ * channel.publish(query).addListener(new Runnable() {...}, edtExecutor);
+ * </pre>
+ * A {@code RequestChannel} shares its consumers with the {@link Channel} of the
+ * same request type and topic. Requests are never coalesced nor ring-buffered,
+ * whatever the {@link ChannelOptions} of that {@link Channel}.
+ *
+ * @param <Q> Type of the requests published by {@code this} channel
+ * @param <R> Type of the replies expected from consumers; results of consumer
+ * methods that are not instances of {@code R} are ignored
+ * 
+ * @author Jean-Francois Poilpret
+ */
+public interface RequestChannel<Q, R>
+{
+	/**
+	 * Sends {@code request} to all consumers of {@code this} RequestChannel.
+	 * This method never waits for consumers called from other {@link Thread}s.
+	 * 
+	 * @param request the request to be sent to consumers
+	 * @return the replies of consumers to {@code request}
+	 */
+	public Replies<R> publish(Q request);
+}
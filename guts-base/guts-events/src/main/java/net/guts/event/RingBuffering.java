@@ -0,0 +1,125 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+/**
+ * Policy of a ring-buffered {@link Channel}: such a {@link Channel} does not notify 
+ * consumers from the thread that publishes events; published events are stored 
+ * into a preallocated ring buffer, from which one dedicated GUTS-Events thread 
+ * takes them and notifies consumers, in the order events were published.
+ * <p/>
+ * This is meant for "hot" channels with <b>one single publishing thread</b> that 
+ * must spend as little time as possible in {@link Channel#publish}:
+ * <pre>
+ * Events.bindChannel(binder(), Quote.class, "quotes", ChannelOptions.DEFAULT
+ *     .withRingBuffering(RingBuffering.busySpin(1024)));
+ * </pre>
+ * <b>Important</b>: publishing events to a ring-buffered {@link Channel} from 
+ * several threads is not supported: once a first thread has published an event,
+ * {@link Channel#publish} throws {@link IllegalStateException} when called from
+ * any other thread.
+ * <p/>
+ * The GUTS-Events thread is started when the first event is published; it stops
+ * once the {@link Channel} has been garbage collected (eg when its 
+ * {@link com.google.inject.Injector} is discarded).
+ * <p/>
+ * When the ring buffer is full, the publisher waits until the oldest event has
+ * been consumed.
+ * <p/>
+ * Consumers without a Thread Policy annotation are notified from the dedicated 
+ * GUTS-Events thread; consumers with a Thread Policy annotation (eg {@link InEDT})
+ * are notified as usual.
+ * 
+ * @see ChannelOptions#withRingBuffering
+ * @author Jean-Francois Poilpret
+ */
+public final class RingBuffering
+{
+	/**
+	 * Determines how the GUTS-Events thread waits for new events.
+	 */
+	static public enum WaitStrategy
+	{
+		/** 
+		 * The thread checks for new events in a tight loop: lowest latency, but
+		 * one CPU core is always busy, even when no event is published. 
+		 */
+		BUSY_SPIN,
+		/** 
+		 * The thread sleeps until an event is published: higher latency, but no
+		 * CPU is used when no event is published.
+		 */
+		BLOCKING
+	}
+	
+	private RingBuffering(int size, WaitStrategy waitStrategy)
+	{
+		if (size <= 0 || (size & (size - 1)) != 0)
+		{
+			throw new IllegalArgumentException("size must be a power of 2");
+		}
+		_size = size;
+		_waitStrategy = waitStrategy;
+	}
+	
+	/**
+	 * Creates a policy where the GUTS-Events thread waits for events with
+	 * {@link WaitStrategy#BUSY_SPIN}.
+	 * 
+	 * @param size number of events the ring buffer can hold, must be a power of 2
+	 * @return a new ring buffer policy
+	 */
+	static public RingBuffering busySpin(int size)
+	{
+		return new RingBuffering(size, WaitStrategy.BUSY_SPIN);
+	}
+
+	/**
+	 * Creates a policy where the GUTS-Events thread waits for events with
+	 * {@link WaitStrategy#BLOCKING}.
+	 * 
+	 * @param size number of events the ring buffer can hold, must be a power of 2
+	 * @return a new ring buffer policy
+	 */
+	static public RingBuffering blocking(int size)
+	{
+		return new RingBuffering(size, WaitStrategy.BLOCKING);
+	}
+	
+	/**
+	 * @return number of events the ring buffer can hold
+	 */
+	public int getSize()
+	{
+		return _size;
+	}
+
+	/**
+	 * @return how the GUTS-Events thread waits for new events
+	 */
+	public WaitStrategy getWaitStrategy()
+	{
+		return _waitStrategy;
+	}
+	
+	@Override public String toString()
+	{
+		return String.format("RingBuffering(size=%d, wait=%s)", _size, _waitStrategy);
+	}
+
+	final private int _size;
+	final private WaitStrategy _waitStrategy;
+}
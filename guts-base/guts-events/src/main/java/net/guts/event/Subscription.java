@@ -0,0 +1,73 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import java.awt.Component;
+
+/**
+ * Handle to the consumer methods of one instance, as registered by 
+ * {@link EventService#registerConsumers}; closing it unregisters these consumer 
+ * methods from all {@link Channel}s, so that the instance does not receive events
+ * anymore.
+ * <p/>
+ * This is useful for short-lived objects (e.g. dialogs opened and closed many
+ * times) that would otherwise remain registered until garbage collected:
+ * <pre>
+ * Subscription subscription = eventService.registerConsumers(dialog);
+ * ...
+ * subscription.close();
+ * </pre>
+ * For Swing components, unregistration can be automatic:
+ * <pre>
+ * eventService.registerConsumers(dialog).closeOnDispose(dialog);
+ * </pre>
+ * Note that consumers of an instance that gets garbage collected are always
+ * unregistered automatically, even if its {@code Subscription} was never closed.
+ * 
+ * @author Jean-Francois Poilpret
+ */
+public interface Subscription
+{
+	/**
+	 * Unregisters all consumer methods of this subscription. Calling this method
+	 * more than once has no effect.
+	 */
+	public void close();
+	
+	/**
+	 * @return {@code true} if this subscription has been closed
+	 */
+	public boolean isClosed();
+	
+	/**
+	 * Makes this subscription automatically closed as soon as the 
+	 * {@link java.awt.Window} that contains {@code component} (or 
+	 * {@code component} itself if it is a {@code Window}) gets closed, ie 
+	 * disposed. If {@code component} is moved to another {@code Window}, then that
+	 * {@code Window} is the one that counts.
+	 * <p/>
+	 * Components that stop being displayable without their {@code Window} being
+	 * disposed (e.g. removed tabs, {@link java.awt.CardLayout} cards or docked
+	 * panels being moved) keep their subscription open. Note that a 
+	 * {@code Window} that is disposed and then shown again has lost its 
+	 * subscription for good.
+	 * 
+	 * @param component the component which {@code Window} lifecycle determines 
+	 * this subscription lifecycle
+	 * @return {@code this} subscription
+	 */
+	public Subscription closeOnDispose(Component component);
+}
@@ -0,0 +1,55 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge;
+
+import net.guts.common.injection.AbstractSingletonModule;
+import net.guts.event.bridge.internal.EventBridgeImpl;
+
+/**
+ * Guice {@link com.google.inject.Module} mirroring some event 
+ * {@link net.guts.event.Channel}s to other JVMs, eg other instances of the same 
+ * application running on the same machine. This module must be added along with
+ * {@link net.guts.event.EventModule}, and a {@link BridgeTransport} must be bound:
+ * <pre>
+ * Injector injector = Guice.createInjector(new EventModule(), new BridgeModule(),
+ *     new AbstractModule()
+ * {
+ *     &#64;Override protected void configure()
+ *     {
+ *         bind(BridgeTransport.class).toInstance(new LocalSocketTransport(PORT));
+ *         Events.bindChannel(binder(), String.class, "status");
+ *         Bridges.bridgeChannel(binder(), String.class, "status", Codecs.string());
+ *     }
+ * });
+ * InjectionListeners.injectListeners(injector);
+ * </pre>
+ * The bridge registers itself as a consumer (with the lowest priority) of each 
+ * bridged {@link net.guts.event.Channel}; events published locally are encoded 
+ * and sent, by batches, from a dedicated {@link Thread}. Events received from 
+ * other JVMs are published to the local {@link net.guts.event.Channel}, from the
+ * {@link Thread} of the {@link BridgeTransport}, and are not sent back.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public final class BridgeModule extends AbstractSingletonModule
+{
+	@Override protected void configure()
+	{
+		// Initialize empty set of bridged channels
+		Bridges.bridgedChannels(binder());
+		bind(EventBridge.class).to(EventBridgeImpl.class).asEagerSingleton();
+	}
+}
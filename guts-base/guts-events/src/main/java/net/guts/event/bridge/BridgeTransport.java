@@ -0,0 +1,71 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge;
+
+import java.io.IOException;
+
+/**
+ * Service Provider Interface of the transports used by {@link BridgeModule} to
+ * exchange events with other JVMs (or other {@link com.google.inject.Injector}s).
+ * A transport sends opaque packets (each containing a batch of encoded events) to
+ * all other endpoints connected to it, but never back to the sending endpoint.
+ * <p/>
+ * GUTS-Events provides {@link LoopbackTransport} (between 
+ * {@link com.google.inject.Injector}s in the same JVM) and 
+ * {@link LocalSocketTransport} (between JVMs on the same machine).
+ *
+ * @author Jean-Francois Poilpret
+ */
+public interface BridgeTransport
+{
+	/**
+	 * Receives packets sent by other endpoints of a {@link BridgeTransport}.
+	 */
+	static public interface Receiver
+	{
+		/**
+		 * Called by the {@link BridgeTransport}, from any {@link Thread}, for each
+		 * packet sent by another endpoint; packets of a given endpoint are received
+		 * in the order they were sent.
+		 * 
+		 * @param packet the received packet, must not be modified
+		 */
+		public void receive(byte[] packet);
+	}
+	
+	/**
+	 * Connects {@code this} endpoint to the transport; from then on, packets sent
+	 * by other endpoints get passed to {@code receiver}.
+	 * 
+	 * @param receiver receives all packets sent by other endpoints
+	 * @throws IOException if {@code this} endpoint could not be connected
+	 */
+	public void start(Receiver receiver) throws IOException;
+	
+	/**
+	 * Sends {@code packet} to all other endpoints. This method is always called 
+	 * from the same {@link Thread}.
+	 * 
+	 * @param packet the packet to send
+	 * @throws IOException if {@code packet} could not be sent
+	 */
+	public void send(byte[] packet) throws IOException;
+	
+	/**
+	 * Disconnects {@code this} endpoint from the transport.
+	 */
+	public void stop();
+}
@@ -0,0 +1,96 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge;
+
+import net.guts.event.bridge.internal.BridgedChannel;
+
+import com.google.inject.Binder;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+
+/**
+ * Utility class used to declare, within a {@link com.google.inject.Module}, which 
+ * event {@link net.guts.event.Channel}s are mirrored to other JVMs by 
+ * {@link BridgeModule}.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public final class Bridges
+{
+	private Bridges()
+	{
+	}
+	
+	/**
+	 * Declares that the {@link net.guts.event.Channel} for {@code eventType} and 
+	 * {@code topic} must be mirrored to other JVMs: events published locally are 
+	 * sent to all other JVMs, and events published by other JVMs are published
+	 * to the local {@link net.guts.event.Channel}. Consumers and suppliers don't 
+	 * need to know whether a {@link net.guts.event.Channel} is bridged.
+	 * <p/>
+	 * The {@link net.guts.event.Channel} must be bound as usual with 
+	 * {@link net.guts.event.Events#bindChannel}, and be bridged, with the same 
+	 * type, topic and an equivalent codec, in all JVMs that share it. A bridged
+	 * {@link net.guts.event.Channel} can use neither 
+	 * {@link net.guts.event.ChannelOptions#withCoalescing coalescing} nor
+	 * {@link net.guts.event.ChannelOptions#withRingBuffering ring buffering}.
+	 * <p/>
+	 * This must be called from {@link com.google.inject.Module#configure(Binder)}.
+	 * 
+	 * @param <T> type of events of the bridged {@link net.guts.event.Channel}
+	 * @param binder the Guice binder passed to 
+	 * {@link com.google.inject.Module#configure(Binder)}
+	 * @param eventType the exact type of events of the bridged 
+	 * {@link net.guts.event.Channel}
+	 * @param topic topic of the bridged {@link net.guts.event.Channel}, may be
+	 * {@code null}
+	 * @param codec converts events to and from their binary form
+	 */
+	static public <T> void bridgeChannel(
+		Binder binder, Class<T> eventType, String topic, EventCodec<? super T> codec)
+	{
+		bridgeChannel(binder, TypeLiteral.get(eventType), topic, codec);
+	}
+
+	/**
+	 * Declares that the {@link net.guts.event.Channel} for {@code eventType} and 
+	 * {@code topic} must be mirrored to other JVMs.
+	 * 
+	 * @see #bridgeChannel(Binder, Class, String, EventCodec)
+	 * @param <T> type of events of the bridged {@link net.guts.event.Channel}
+	 * @param binder the Guice binder passed to 
+	 * {@link com.google.inject.Module#configure(Binder)}
+	 * @param eventType the exact type of events of the bridged 
+	 * {@link net.guts.event.Channel}
+	 * @param topic topic of the bridged {@link net.guts.event.Channel}, may be
+	 * {@code null}
+	 * @param codec converts events to and from their binary form
+	 */
+	static public <T> void bridgeChannel(Binder binder, 
+		TypeLiteral<T> eventType, String topic, EventCodec<? super T> codec)
+	{
+		bridgedChannels(binder).addBinding().toInstance(
+			new BridgedChannel<T>(eventType, topic, codec));
+	}
+	
+	static Multibinder<BridgedChannel<?>> bridgedChannels(Binder binder)
+	{
+		return Multibinder.newSetBinder(binder, BRIDGED_CHANNEL);
+	}
+
+	static final private TypeLiteral<BridgedChannel<?>> BRIDGED_CHANNEL = 
+		new TypeLiteral<BridgedChannel<?>>() {};
+}
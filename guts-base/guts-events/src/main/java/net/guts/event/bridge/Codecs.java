@@ -0,0 +1,271 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Factory of {@link EventCodec}s for common types of events.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public final class Codecs
+{
+	private Codecs()
+	{
+	}
+	
+	/**
+	 * @return a codec for {@code String} events
+	 */
+	static public EventCodec<String> string()
+	{
+		return STRING;
+	}
+	
+	/**
+	 * @return a codec for {@code Integer} (or {@code int}) events
+	 */
+	static public EventCodec<Integer> integer()
+	{
+		return INTEGER;
+	}
+	
+	/**
+	 * @return a codec for {@code Long} (or {@code long}) events
+	 */
+	static public EventCodec<Long> longInteger()
+	{
+		return LONG;
+	}
+	
+	/**
+	 * @return a codec for {@code Double} (or {@code double}) events
+	 */
+	static public EventCodec<Double> doublePrecision()
+	{
+		return DOUBLE;
+	}
+	
+	/**
+	 * Returns a codec for {@link Serializable} events, based on Java serialization.
+	 * This is the least compact codec, it should be used only when writing a 
+	 * specific {@link EventCodec} is not worth it.
+	 * <p/>
+	 * Only the given classes (and their superclasses), arrays of them, primitive
+	 * arrays, {@code String}, {@code Enum} and primitive wrappers can be decoded;
+	 * any other class in received events (eg the class of a field) makes decoding
+	 * fail, so that other processes can't make this JVM instantiate arbitrary 
+	 * classes.
+	 * 
+	 * @param <T> type of events
+	 * @param eventClass class of events
+	 * @param otherClasses other classes that events may reference
+	 * @return a codec based on Java serialization
+	 */
+	static public <T extends Serializable> EventCodec<T> serializable(
+		Class<T> eventClass, Class<?>... otherClasses)
+	{
+		Set<String> allowed = new HashSet<String>(ALWAYS_ALLOWED);
+		allow(allowed, eventClass);
+		for (Class<?> clazz: otherClasses)
+		{
+			allow(allowed, clazz);
+		}
+		return new SerializableCodec<T>(eventClass, allowed);
+	}
+	
+	static private void allow(Set<String> allowed, Class<?> clazz)
+	{
+		for (Class<?> type = clazz; type != null; type = type.getSuperclass())
+		{
+			allowed.add(type.getName());
+		}
+	}
+	
+	static final private EventCodec<String> STRING = new EventCodec<String>()
+	{
+		@Override public void encode(String event, DataOutput output) throws IOException
+		{
+			output.writeUTF(event);
+		}
+
+		@Override public String decode(DataInput input) throws IOException
+		{
+			return input.readUTF();
+		}
+	};
+	
+	static final private EventCodec<Integer> INTEGER = new EventCodec<Integer>()
+	{
+		@Override public void encode(Integer event, DataOutput output) throws IOException
+		{
+			output.writeInt(event);
+		}
+
+		@Override public Integer decode(DataInput input) throws IOException
+		{
+			return input.readInt();
+		}
+	};
+	
+	static final private EventCodec<Long> LONG = new EventCodec<Long>()
+	{
+		@Override public void encode(Long event, DataOutput output) throws IOException
+		{
+			output.writeLong(event);
+		}
+
+		@Override public Long decode(DataInput input) throws IOException
+		{
+			return input.readLong();
+		}
+	};
+	
+	static final private EventCodec<Double> DOUBLE = new EventCodec<Double>()
+	{
+		@Override public void encode(Double event, DataOutput output) throws IOException
+		{
+			output.writeDouble(event);
+		}
+
+		@Override public Double decode(DataInput input) throws IOException
+		{
+			return input.readDouble();
+		}
+	};
+	
+	static final private class SerializableCodec<T extends Serializable> 
+		implements EventCodec<T>
+	{
+		SerializableCodec(Class<T> eventClass, Set<String> allowed)
+		{
+			_eventClass = eventClass;
+			_allowed = allowed;
+		}
+		
+		@Override public void encode(T event, DataOutput output) throws IOException
+		{
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ObjectOutputStream stream = new ObjectOutputStream(buffer);
+			stream.writeObject(event);
+			stream.close();
+			output.writeInt(buffer.size());
+			output.write(buffer.toByteArray());
+		}
+
+		@Override public T decode(DataInput input) throws IOException
+		{
+			byte[] bytes = new byte[input.readInt()];
+			input.readFully(bytes);
+			ObjectInputStream stream = 
+				new CheckedObjectInputStream(new ByteArrayInputStream(bytes), _allowed);
+			try
+			{
+				return _eventClass.cast(stream.readObject());
+			}
+			catch (ClassNotFoundException e)
+			{
+				IOException error = new IOException("Unknown event class");
+				error.initCause(e);
+				throw error;
+			}
+			catch (ClassCastException e)
+			{
+				IOException error = new IOException("Unexpected event class");
+				error.initCause(e);
+				throw error;
+			}
+			finally
+			{
+				stream.close();
+			}
+		}
+		
+		final private Class<T> _eventClass;
+		final private Set<String> _allowed;
+	}
+	
+	// Refuses to resolve any class that was not explicitly allowed
+	static final private class CheckedObjectInputStream extends ObjectInputStream
+	{
+		CheckedObjectInputStream(InputStream input, Set<String> allowed) 
+			throws IOException
+		{
+			super(input);
+			_allowed = allowed;
+		}
+		
+		@Override protected Class<?> resolveClass(ObjectStreamClass desc)
+			throws IOException, ClassNotFoundException
+		{
+			if (!isAllowed(desc.getName()))
+			{
+				throw new InvalidClassException(desc.getName(), "not allowed in events");
+			}
+			return super.resolveClass(desc);
+		}
+		
+		@Override protected Class<?> resolveProxyClass(String[] interfaces)
+			throws IOException, ClassNotFoundException
+		{
+			throw new InvalidClassException("Proxy classes not allowed in events");
+		}
+		
+		// Arrays are named like "[I" or "[[Lcom.example.Event;"
+		private boolean isAllowed(String name)
+		{
+			String element = name;
+			while (element.startsWith("["))
+			{
+				element = element.substring(1);
+			}
+			if (element == name)
+			{
+				return _allowed.contains(name);
+			}
+			if (element.startsWith("L") && element.endsWith(";"))
+			{
+				return _allowed.contains(element.substring(1, element.length() - 1));
+			}
+			// Primitive array
+			return element.length() == 1;
+		}
+		
+		final private Set<String> _allowed;
+	}
+	
+	static final private Set<String> ALWAYS_ALLOWED = 
+		Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+			String.class.getName(), Enum.class.getName(), Number.class.getName(), 
+			Boolean.class.getName(), Character.class.getName(), Byte.class.getName(),
+			Short.class.getName(), Integer.class.getName(), Long.class.getName(), 
+			Float.class.getName(), Double.class.getName())));
+}
@@ -0,0 +1,33 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge;
+
+/**
+ * Mirrors bridged {@link net.guts.event.Channel}s, as declared with 
+ * {@link Bridges#bridgeChannel}, to other JVMs through a {@link BridgeTransport}.
+ * It is created and started automatically by {@link BridgeModule}; it may be 
+ * injected only to {@link #close} it before exiting.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public interface EventBridge
+{
+	/**
+	 * Stops mirroring events and disconnects from the {@link BridgeTransport}.
+	 * Events published but not sent yet are dropped.
+	 */
+	public void close();
+}
@@ -0,0 +1,52 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Converts events of one bridged {@link net.guts.event.Channel} to and from a 
+ * compact binary form, for transmission by a {@link BridgeTransport}. Codecs for 
+ * common types are provided by {@link Codecs}.
+ * <p/>
+ * Implementations must be thread-safe.
+ *
+ * @param <T> type of events converted by {@code this} codec
+ * 
+ * @author Jean-Francois Poilpret
+ */
+public interface EventCodec<T>
+{
+	/**
+	 * Writes {@code event} to {@code output}.
+	 * 
+	 * @param event the event to write
+	 * @param output where {@code event} must be written
+	 * @throws IOException if {@code event} could not be written
+	 */
+	public void encode(T event, DataOutput output) throws IOException;
+	
+	/**
+	 * Reads one event, as previously written by {@link #encode}, from {@code input}.
+	 * 
+	 * @param input where the event must be read from
+	 * @return the event read from {@code input}
+	 * @throws IOException if no event could be read
+	 */
+	public T decode(DataInput input) throws IOException;
+}
@@ -0,0 +1,476 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BridgeTransport} between JVMs running on the same machine, through 
+ * sockets bound to the loopback interface only.
+ * <p/>
+ * All endpoints use the same port: the first started endpoint listens on that
+ * port and relays packets between all other endpoints, which connect to it. If 
+ * that endpoint gets stopped, remaining endpoints automatically elect a new one.
+ * Packets sent while no endpoint listens are lost.
+ * <p/>
+ * Only endpoints run by the same user can connect: the listening endpoint writes
+ * a random token to a file readable only by its owner (in {@code ~/.guts} by
+ * default), and rejects connections that don't send that token back.
+ * <p/>
+ * Packets are limited to 1 MB.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public class LocalSocketTransport implements BridgeTransport
+{
+	static private final Logger _logger = 
+		LoggerFactory.getLogger(LocalSocketTransport.class);
+	
+	/**
+	 * Creates a new endpoint connected, once started, to all other endpoints using
+	 * the same {@code port} on the same machine.
+	 * 
+	 * @param port TCP port shared by all endpoints connected together
+	 */
+	public LocalSocketTransport(int port)
+	{
+		this(port, new File(System.getProperty("user.home"), ".guts"));
+	}
+	
+	/**
+	 * Creates a new endpoint connected, once started, to all other endpoints using
+	 * the same {@code port} and {@code tokenDirectory} on the same machine.
+	 * 
+	 * @param port TCP port shared by all endpoints connected together
+	 * @param tokenDirectory directory where the secret token of the listening 
+	 * endpoint gets written; created if needed, and made accessible only to its 
+	 * owner
+	 */
+	public LocalSocketTransport(int port, File tokenDirectory)
+	{
+		_port = port;
+		_tokenDirectory = tokenDirectory;
+		_tokenFile = new File(tokenDirectory, "bridge-" + port + ".token");
+	}
+	
+	@Override public void start(Receiver receiver) throws IOException
+	{
+		_receiver = receiver;
+		_running = true;
+		connect();
+	}
+
+	@Override public void send(byte[] packet) throws IOException
+	{
+		if (packet.length > MAX_PACKET_SIZE)
+		{
+			throw new IOException("Packet too large: " + packet.length);
+		}
+		for (Connection connection: _connections)
+		{
+			connection.write(packet);
+		}
+	}
+
+	@Override public void stop()
+	{
+		_running = false;
+		ServerSocket server = _server;
+		if (server != null)
+		{
+			// Deleted before closing, so that it never deletes the token of the next
+			// listening endpoint
+			_tokenFile.delete();
+			close(server);
+		}
+		for (Connection connection: _connections)
+		{
+			connection.close();
+		}
+	}
+	
+	// Either listens to _port (then relays packets) or connects to the endpoint
+	// listening to it
+	private void connect() throws IOException
+	{
+		InetAddress localhost = InetAddress.getByName(null);
+		ServerSocket server = new ServerSocket();
+		try
+		{
+			server.bind(new InetSocketAddress(localhost, _port));
+		}
+		catch (BindException e)
+		{
+			// Another endpoint listens already
+			close(server);
+			server = null;
+		}
+		if (server != null)
+		{
+			try
+			{
+				// Written before accepting any connection
+				_token = writeToken();
+			}
+			catch (IOException e)
+			{
+				close(server);
+				throw e;
+			}
+			_server = server;
+			start(new Acceptor(server), "acceptor");
+			return;
+		}
+		Connection hub = new Connection(new Socket(localhost, _port), false);
+		// Wait until the listening endpoint has registered this connection, so that
+		// no packet sent after start() returns gets lost
+		hub.join();
+		_connections.add(hub);
+		start(hub, "reader");
+	}
+	
+	// Called once the listening endpoint has been stopped
+	private void reconnect()
+	{
+		while (_running)
+		{
+			try
+			{
+				Thread.sleep(RETRY_DELAY_MS);
+				connect();
+				return;
+			}
+			catch (IOException e)
+			{
+				_logger.debug("Could not reconnect to port " + _port, e);
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+		}
+	}
+	
+	private byte[] writeToken() throws IOException
+	{
+		if (!_tokenDirectory.isDirectory() && !_tokenDirectory.mkdirs())
+		{
+			throw new IOException("Could not create directory " + _tokenDirectory);
+		}
+		restrictToOwner(_tokenDirectory);
+		byte[] token = new byte[TOKEN_SIZE];
+		RANDOM.nextBytes(token);
+		// Written to a temporary file first, so that other endpoints never read a
+		// partial token
+		File temp = File.createTempFile("bridge", ".tmp", _tokenDirectory);
+		try
+		{
+			restrictToOwner(temp);
+			FileOutputStream output = new FileOutputStream(temp);
+			try
+			{
+				output.write(token);
+			}
+			finally
+			{
+				output.close();
+			}
+			// renameTo() fails on Windows if the file exists already
+			_tokenFile.delete();
+			if (!temp.renameTo(_tokenFile))
+			{
+				throw new IOException("Could not write token file " + _tokenFile);
+			}
+		}
+		finally
+		{
+			temp.delete();
+		}
+		return token;
+	}
+	
+	private byte[] readToken() throws IOException
+	{
+		DataInputStream input = new DataInputStream(new FileInputStream(_tokenFile));
+		try
+		{
+			byte[] token = new byte[TOKEN_SIZE];
+			input.readFully(token);
+			return token;
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+	
+	// File API can only change permissions for owner or for everybody
+	static private void restrictToOwner(File file)
+	{
+		file.setReadable(false, false);
+		file.setWritable(false, false);
+		file.setExecutable(false, false);
+		file.setReadable(true, true);
+		file.setWritable(true, true);
+		if (file.isDirectory())
+		{
+			file.setExecutable(true, true);
+		}
+	}
+	
+	private void start(Runnable task, String name)
+	{
+		Thread thread = new Thread(task, THREAD_NAME + _port + " " + name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	static private void close(ServerSocket server)
+	{
+		try
+		{
+			server.close();
+		}
+		catch (IOException e)
+		{
+			_logger.debug("Could not close server socket", e);
+		}
+	}
+	
+	private class Acceptor implements Runnable
+	{
+		Acceptor(ServerSocket server)
+		{
+			_serverSocket = server;
+		}
+		
+		@Override public void run()
+		{
+			while (_running)
+			{
+				try
+				{
+					// Handshake is performed by the relay thread
+					Connection client = new Connection(_serverSocket.accept(), true);
+					start(client, "relay");
+				}
+				catch (IOException e)
+				{
+					if (_running)
+					{
+						_logger.warn("Stopped accepting connections on port " + _port, e);
+					}
+					return;
+				}
+			}
+		}
+		
+		final private ServerSocket _serverSocket;
+	}
+	
+	// Connection to another endpoint, reads its packets until closed
+	private class Connection implements Runnable
+	{
+		Connection(Socket socket, boolean relay) throws IOException
+		{
+			_socket = socket;
+			_socket.setTcpNoDelay(true);
+			_input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			_output = 
+				new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			_relay = relay;
+		}
+		
+		@Override public void run()
+		{
+			if (_relay && !accept())
+			{
+				return;
+			}
+			try
+			{
+				while (true)
+				{
+					int length = _input.readInt();
+					if (length < 0 || length > MAX_PACKET_SIZE)
+					{
+						throw new IOException("Invalid packet size: " + length);
+					}
+					byte[] packet = new byte[length];
+					_input.readFully(packet);
+					if (_relay)
+					{
+						relay(packet);
+					}
+					_receiver.receive(packet);
+				}
+			}
+			catch (IOException e)
+			{
+				_logger.debug("Connection closed on port " + _port, e);
+			}
+			close();
+			if (!_relay && _running)
+			{
+				// The listening endpoint is gone
+				reconnect();
+			}
+		}
+		
+		private void relay(byte[] packet)
+		{
+			for (Connection connection: _connections)
+			{
+				if (connection != this)
+				{
+					connection.write(packet);
+				}
+			}
+		}
+		
+		// Checks the token sent by the other endpoint, then registers this connection
+		// and acknowledges it; synchronized so that no relayed packet gets written
+		// before that ack
+		synchronized private boolean accept()
+		{
+			try
+			{
+				_socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+				_output.writeByte(READY);
+				_output.flush();
+				byte[] token = new byte[TOKEN_SIZE];
+				_input.readFully(token);
+				if (!MessageDigest.isEqual(token, _token))
+				{
+					_logger.warn("Rejected connection with invalid token on port " + _port);
+					close();
+					return false;
+				}
+				_socket.setSoTimeout(0);
+				_connections.add(this);
+				_output.writeByte(ACCEPTED);
+				_output.flush();
+				return true;
+			}
+			catch (IOException e)
+			{
+				_logger.debug("Could not accept connection on port " + _port, e);
+				close();
+				return false;
+			}
+		}
+		
+		// Sends the token of the listening endpoint, then waits for its ack
+		void join() throws IOException
+		{
+			try
+			{
+				_socket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+				// The listening endpoint writes its token before accepting connections
+				expect(READY);
+				_output.write(readToken());
+				_output.flush();
+				expect(ACCEPTED);
+				_socket.setSoTimeout(0);
+			}
+			catch (IOException e)
+			{
+				close();
+				throw e;
+			}
+		}
+		
+		private void expect(byte status) throws IOException
+		{
+			if (_input.readByte() != status)
+			{
+				throw new IOException("Invalid handshake on port " + _port);
+			}
+		}
+		
+		synchronized void write(byte[] packet)
+		{
+			try
+			{
+				_output.writeInt(packet.length);
+				_output.write(packet);
+				_output.flush();
+			}
+			catch (IOException e)
+			{
+				_logger.debug("Could not write to connection on port " + _port, e);
+				close();
+			}
+		}
+		
+		void close()
+		{
+			_connections.remove(this);
+			try
+			{
+				_socket.close();
+			}
+			catch (IOException e)
+			{
+				_logger.debug("Could not close connection on port " + _port, e);
+			}
+		}
+		
+		final private Socket _socket;
+		final private DataInputStream _input;
+		final private DataOutputStream _output;
+		final private boolean _relay;
+	}
+	
+	static final private String THREAD_NAME = "GUTS-Events bridge ";
+	static final private long RETRY_DELAY_MS = 500L;
+	static final private byte READY = 1;
+	static final private byte ACCEPTED = 2;
+	static final private int HANDSHAKE_TIMEOUT_MS = 5000;
+	static final private int TOKEN_SIZE = 32;
+	static final private int MAX_PACKET_SIZE = 1024 * 1024;
+	static final private SecureRandom RANDOM = new SecureRandom();
+	
+	final private int _port;
+	final private File _tokenDirectory;
+	final private File _tokenFile;
+	// Connected endpoints: all others if listening, else only the listening one
+	final private List<Connection> _connections = new CopyOnWriteArrayList<Connection>();
+	private volatile ServerSocket _server = null;
+	// Token of this endpoint, when listening
+	private volatile byte[] _token = null;
+	private volatile Receiver _receiver = null;
+	private volatile boolean _running = false;
+}
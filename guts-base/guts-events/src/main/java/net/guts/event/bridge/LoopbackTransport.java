@@ -0,0 +1,92 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link BridgeTransport} between several {@link com.google.inject.Injector}s of 
+ * the same JVM; all {@code LoopbackTransport}s with the same name are connected 
+ * together. This is mainly useful for testing bridged {@link net.guts.event.Channel}s
+ * without any other JVM.
+ * <p/>
+ * Packets are passed to other endpoints directly from the sending {@link Thread}.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public class LoopbackTransport implements BridgeTransport
+{
+	/**
+	 * Creates a new endpoint connected, once started, to all other endpoints with
+	 * the same {@code name}.
+	 * 
+	 * @param name name shared by all endpoints connected together
+	 */
+	public LoopbackTransport(String name)
+	{
+		_name = name;
+	}
+	
+	@Override public void start(Receiver receiver)
+	{
+		_receiver = receiver;
+		List<LoopbackTransport> endpoints = _endpoints.get(_name);
+		if (endpoints == null)
+		{
+			endpoints = new CopyOnWriteArrayList<LoopbackTransport>();
+			List<LoopbackTransport> previous = _endpoints.putIfAbsent(_name, endpoints);
+			if (previous != null)
+			{
+				endpoints = previous;
+			}
+		}
+		endpoints.add(this);
+	}
+
+	@Override public void send(byte[] packet)
+	{
+		List<LoopbackTransport> endpoints = _endpoints.get(_name);
+		if (endpoints != null)
+		{
+			for (LoopbackTransport endpoint: endpoints)
+			{
+				if (endpoint != this)
+				{
+					endpoint._receiver.receive(packet);
+				}
+			}
+		}
+	}
+
+	@Override public void stop()
+	{
+		List<LoopbackTransport> endpoints = _endpoints.get(_name);
+		if (endpoints != null)
+		{
+			endpoints.remove(this);
+		}
+	}
+
+	// All started endpoints, by name
+	static final private ConcurrentMap<String, List<LoopbackTransport>> _endpoints =
+		new ConcurrentHashMap<String, List<LoopbackTransport>>();
+	
+	final private String _name;
+	private volatile Receiver _receiver = null;
+}
@@ -0,0 +1,68 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge.internal;
+
+import net.guts.event.bridge.EventCodec;
+
+import com.google.inject.TypeLiteral;
+
+// Declaration of one Channel to be mirrored by the bridge
+public class BridgedChannel<T>
+{
+	public BridgedChannel(TypeLiteral<T> type, String topic, EventCodec<? super T> codec)
+	{
+		_type = type;
+		_topic = (topic == null ? "" : topic);
+		_codec = codec;
+	}
+	
+	TypeLiteral<T> getType()
+	{
+		return _type;
+	}
+	
+	String getTopic()
+	{
+		return _topic;
+	}
+	
+	EventCodec<? super T> getCodec()
+	{
+		return _codec;
+	}
+	
+	// Identifies the channel in packets, must be the same in all JVMs
+	String getId()
+	{
+		return _type + "#" + _topic;
+	}
+	
+	// Several modules may bridge the same channel: Multibinder keeps only one
+	@Override public int hashCode()
+	{
+		return getId().hashCode();
+	}
+
+	@Override public boolean equals(Object obj)
+	{
+		return	obj instanceof BridgedChannel<?> 
+			&&	((BridgedChannel<?>) obj).getId().equals(getId());
+	}
+
+	final private TypeLiteral<T> _type;
+	final private String _topic;
+	final private EventCodec<? super T> _codec;
+}
@@ -0,0 +1,296 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.guts.event.EventService;
+import net.guts.event.bridge.BridgeTransport;
+import net.guts.event.bridge.EventBridge;
+import net.guts.event.bridge.EventCodec;
+import net.guts.event.internal.ChannelImpl;
+import net.guts.event.internal.InCurrentThreadExecutor;
+import net.guts.event.internal.ReflectionMethodInvoker;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+// Packets contain a batch of events, each one encoded as:
+// channel id (UTF), length of encoded event (int), encoded event
+@Singleton
+public class EventBridgeImpl implements EventBridge, BridgeTransport.Receiver, Runnable
+{
+	static private final Logger _logger = LoggerFactory.getLogger(EventBridgeImpl.class);
+	
+	@Inject
+	public EventBridgeImpl(EventService service, BridgeTransport transport, 
+		Set<BridgedChannel<?>> channels) throws IOException
+	{
+		_transport = transport;
+		for (BridgedChannel<?> channel: channels)
+		{
+			Mirror<?> mirror = createMirror(service, channel);
+			_mirrors.put(channel.getId(), mirror);
+		}
+		_transport.start(this);
+		_sender = new Thread(this, THREAD_NAME);
+		_sender.setDaemon(true);
+		_sender.start();
+	}
+	
+	// EventService always returns ChannelImpl, which allows registering consumers
+	// without any @Consumes annotation
+	@SuppressWarnings("unchecked")
+	private <T> Mirror<T> createMirror(EventService service, BridgedChannel<T> bridged)
+	{
+		service.registerChannel(bridged.getType(), bridged.getTopic());
+		ChannelImpl<T> channel = 
+			(ChannelImpl<T>) service.getChannel(bridged.getType(), bridged.getTopic());
+		if (!channel.isSynchronous())
+		{
+			// Received events could not be told apart from local ones
+			throw new IllegalArgumentException("Bridged channel " + bridged.getId() + 
+				" must use neither coalescing nor ring buffering");
+		}
+		Mirror<T> mirror = new Mirror<T>(bridged, channel);
+		// Sending to other JVMs comes after all local consumers
+		channel.addConsumer(mirror, new ReflectionMethodInvoker(CONSUME), 
+			Integer.MAX_VALUE, null, _direct);
+		return mirror;
+	}
+	
+	@Override public void close()
+	{
+		_closed = true;
+		_sender.interrupt();
+		_transport.stop();
+		for (Mirror<?> mirror: _mirrors.values())
+		{
+			mirror._channel.removeConsumers(mirror);
+		}
+	}
+
+	// Sends batches of events published locally
+	@Override public void run()
+	{
+		List<Outgoing> batch = new ArrayList<Outgoing>(MAX_BATCH);
+		while (!_closed)
+		{
+			try
+			{
+				batch.add(_outgoing.take());
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+			_outgoing.drainTo(batch, MAX_BATCH - 1);
+			for (byte[] packet: encode(batch))
+			{
+				try
+				{
+					_transport.send(packet);
+				}
+				catch (IOException e)
+				{
+					_logger.warn("Could not send " + packet.length + " bytes of events", e);
+				}
+			}
+			batch.clear();
+		}
+	}
+	
+	// Splits batch in packets of about PACKET_SIZE bytes
+	private List<byte[]> encode(List<Outgoing> batch)
+	{
+		List<byte[]> packets = new ArrayList<byte[]>();
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(buffer);
+		ByteArrayOutputStream eventBuffer = new ByteArrayOutputStream();
+		DataOutputStream eventOutput = new DataOutputStream(eventBuffer);
+		try
+		{
+			for (Outgoing event: batch)
+			{
+				eventBuffer.reset();
+				try
+				{
+					event._mirror.encode(event._event, eventOutput);
+				}
+				catch (IOException e)
+				{
+					_logger.warn("Could not encode event " + event._event, e);
+					continue;
+				}
+				output.writeUTF(event._mirror._id);
+				output.writeInt(eventBuffer.size());
+				eventBuffer.writeTo(output);
+				if (buffer.size() >= PACKET_SIZE)
+				{
+					packets.add(buffer.toByteArray());
+					buffer.reset();
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			// Can't happen with ByteArrayOutputStream
+			throw new IllegalStateException(e);
+		}
+		if (buffer.size() > 0)
+		{
+			packets.add(buffer.toByteArray());
+		}
+		return packets;
+	}
+
+	// Publishes locally the events sent by other JVMs
+	@Override public void receive(byte[] packet)
+	{
+		if (_closed)
+		{
+			return;
+		}
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(packet));
+		try
+		{
+			while (input.available() > 0)
+			{
+				String id = input.readUTF();
+				byte[] event = new byte[input.readInt()];
+				input.readFully(event);
+				// Ignore channels that are not bridged in this JVM
+				Mirror<?> mirror = _mirrors.get(id);
+				if (mirror != null)
+				{
+					mirror.publish(event);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			_logger.warn("Could not decode received events", e);
+		}
+	}
+	
+	// Consumer of one bridged channel
+	private class Mirror<T>
+	{
+		Mirror(BridgedChannel<T> bridged, ChannelImpl<T> channel)
+		{
+			_id = bridged.getId();
+			_codec = bridged.getCodec();
+			_channel = channel;
+		}
+		
+		// Called by _channel for every event
+		public void consume(Object event)
+		{
+			// Events received from other JVMs are not sent back, but events published
+			// by consumers while they handle a received event are sent
+			if (event != null && _receiving.get() != event)
+			{
+				if (!_outgoing.offer(new Outgoing(this, event)))
+				{
+					_logger.warn("Too many pending events, dropped event " + event);
+				}
+			}
+		}
+		
+		@SuppressWarnings("unchecked")
+		void encode(Object event, DataOutputStream output) throws IOException
+		{
+			_codec.encode((T) event, output);
+		}
+		
+		@SuppressWarnings("unchecked")
+		void publish(byte[] bytes) throws IOException
+		{
+			T event = 
+				(T) _codec.decode(new DataInputStream(new ByteArrayInputStream(bytes)));
+			// _channel is synchronous, hence calls consume() from this thread; this
+			// also applies to mirrors of its supertypes channels
+			_receiving.set(event);
+			try
+			{
+				_channel.publish(event);
+			}
+			finally
+			{
+				_receiving.remove();
+			}
+		}
+		
+		final private String _id;
+		final private EventCodec<? super T> _codec;
+		final private ChannelImpl<T> _channel;
+	}
+	
+	static private class Outgoing
+	{
+		Outgoing(Mirror<?> mirror, Object event)
+		{
+			_mirror = mirror;
+			_event = event;
+		}
+		
+		final private Mirror<?> _mirror;
+		final private Object _event;
+	}
+	
+	static private Method consumeMethod()
+	{
+		try
+		{
+			return Mirror.class.getMethod("consume", Object.class);
+		}
+		catch (NoSuchMethodException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static final private String THREAD_NAME = "GUTS-Events bridge sender";
+	static final private int MAX_BATCH = 256;
+	static final private int MAX_PENDING = 64 * 1024;
+	static final private int PACKET_SIZE = 64 * 1024;
+	static final private Method CONSUME = consumeMethod();
+	
+	final private BridgeTransport _transport;
+	final private Map<String, Mirror<?>> _mirrors = new HashMap<String, Mirror<?>>();
+	final private BlockingQueue<Outgoing> _outgoing = 
+		new LinkedBlockingQueue<Outgoing>(MAX_PENDING);
+	final private InCurrentThreadExecutor _direct = new InCurrentThreadExecutor();
+	// Event received from another JVM, while it is being published locally
+	final private ThreadLocal<Object> _receiving = new ThreadLocal<Object>();
+	final private Thread _sender;
+	private volatile boolean _closed = false;
+}
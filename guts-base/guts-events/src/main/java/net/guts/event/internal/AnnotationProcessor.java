@@ -18,10 +18,15 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
@@ -41,31 +46,49 @@ public class AnnotationProcessor
 	
 	@Inject
 	public AnnotationProcessor(@Assisted Set<ChannelKey> channels,
-		Map<Class<? extends Annotation>, Provider<Executor>> executors)
+		Map<Class<? extends Annotation>, Provider<Executor>> executors,
+		MethodInvokerFactory invokers)
 	{
 		_channels = channels;
 		_executors = executors;
+		_invokers = invokers;
 	}
 
-	//TODO synchronization?
+	// Thread-safe: the same class may be analyzed concurrently by several threads,
+	// but then only the first result gets cached and returned to all threads
 	public List<ConsumerFilter> process(Class<?> clazz)
 	{
 		// First check if clazz has been processed already
 		List<ConsumerFilter> events = _inspectedClasses.get(clazz);
 		if (events == null)
 		{
-			List<Consumer> consumers = findConsumers(clazz);
-			List<Filter> filters = findFilters(clazz);
-			events = mixConsumerAndFilters(consumers, filters);
-			_inspectedClasses.put(clazz, events);
+			Method[] methods = sortedMethods(clazz);
+			List<Consumer> consumers = findConsumers(methods);
+			List<Filter> filters = findFilters(methods);
+			events = Collections.unmodifiableList(
+				mixConsumerAndFilters(clazz, consumers, filters));
+			List<ConsumerFilter> previous = _inspectedClasses.putIfAbsent(clazz, events);
+			if (previous != null)
+			{
+				events = previous;
+			}
 		}
 		return events;
 	}
 	
-	private List<Consumer> findConsumers(Class<?> clazz)
+	// Class.getMethods() order is unspecified: sort methods so that analysis always
+	// gives the same result for the same class
+	static private Method[] sortedMethods(Class<?> clazz)
+	{
+		Method[] methods = clazz.getMethods();
+		Arrays.sort(methods, METHOD_ORDER);
+		return methods;
+	}
+	
+	private List<Consumer> findConsumers(Method[] methods)
 	{
 		List<Consumer> consumers = new ArrayList<Consumer>();
-		for (Method m: clazz.getMethods())
+		for (Method m: methods)
 		{
 			// Analyze each consumer method
 			Consumes consumes = m.getAnnotation(Consumes.class);
@@ -106,10 +129,10 @@ public class AnnotationProcessor
 		return policy;
 	}
 
-	private List<Filter> findFilters(Class<?> clazz)
+	private List<Filter> findFilters(Method[] methods)
 	{
 		List<Filter> allFilters = new ArrayList<Filter>();
-		for (Method m: clazz.getMethods())
+		for (Method m: methods)
 		{
 			// Analyze each consumer method
 			Filters filters = m.getAnnotation(Filters.class);
@@ -127,8 +150,10 @@ public class AnnotationProcessor
 	}
 
 	private List<ConsumerFilter> mixConsumerAndFilters(
-		List<Consumer> consumers, List<Filter> filters)
+		Class<?> clazz, List<Consumer> consumers, List<Filter> filters)
 	{
+		// Invokers are created only once per method, even if used several times
+		Map<Method, MethodInvoker> invokers = new HashMap<Method, MethodInvoker>();
 		List<ConsumerFilter> events = new ArrayList<ConsumerFilter>();
 		// Check every consumer
 		for (Consumer consumer: consumers)
@@ -151,20 +176,35 @@ public class AnnotationProcessor
 				if (	filter._key.equals(consumer._key)
 					&&	filter._id.equals(consumer._idFilter))
 				{
-					events.add(new ConsumerFilter(consumer._key, consumer._method, 
-						filter._method, consumer._priority, executor));
+					events.add(new ConsumerFilter(consumer._key, 
+						invoker(invokers, clazz, consumer._method), 
+						invoker(invokers, clazz, filter._method), 
+						consumer._priority, executor));
 					hasFilter = true;
 				}
 			}
 			// When there's no filter method, we should add the consumer only
 			if (!hasFilter)
 			{
-				events.add(new ConsumerFilter(consumer._key, consumer._method, 
+				events.add(new ConsumerFilter(consumer._key, 
+					invoker(invokers, clazz, consumer._method), 
 					null, consumer._priority, executor));
 			}
 		}
 		return events;
 	}
+	
+	private MethodInvoker invoker(
+		Map<Method, MethodInvoker> invokers, Class<?> clazz, Method method)
+	{
+		MethodInvoker invoker = invokers.get(method);
+		if (invoker == null)
+		{
+			invoker = _invokers.create(clazz, method);
+			invokers.put(method, invoker);
+		}
+		return invoker;
+	}
 
 	//CSOFF: ReturnCountCheck
 	private ChannelKey analyzeMethod(boolean isFilter, Method m, String topic, Class<?> type)
@@ -197,9 +237,9 @@ public class AnnotationProcessor
 			eventType = argType.getSupertype(type);
 		}
 		// Check that there exists one registered Event Channel of
-		// this type!
+		// this type! (wildcard topics are matched later against all channels)
 		ChannelKey key = new ChannelKey(eventType.getType(), topic);
-		if (!_channels.contains(key))
+		if (!TopicTrie.isPattern(topic) && !_channels.contains(key))
 		{
 			handleError(InternalError.EVENT_NOT_REGISTERED.getError(isFilter), 
 				m, eventType.getType(), topic);
@@ -251,9 +291,19 @@ public class AnnotationProcessor
 	}
 	//CSON: HideUtilityClassConstructorCheck
 
-	final private Map<Class<?>, List<ConsumerFilter>> _inspectedClasses = 
-		new HashMap<Class<?>, List<ConsumerFilter>>();
+	static final private Comparator<Method> METHOD_ORDER = new Comparator<Method>()
+	{
+		@Override public int compare(Method m1, Method m2)
+		{
+			int diff = m1.getName().compareTo(m2.getName());
+			return (diff != 0 ? diff : m1.toGenericString().compareTo(m2.toGenericString()));
+		}
+	};
+
+	final private ConcurrentMap<Class<?>, List<ConsumerFilter>> _inspectedClasses = 
+		new ConcurrentHashMap<Class<?>, List<ConsumerFilter>>();
 	final private Set<ChannelKey> _channels;
 	final private Map<Class<? extends Annotation>, Provider<Executor>> _executors;
+	final private MethodInvokerFactory _invokers;
 	final private Executor _defaultExecutor = new InCurrentThreadExecutor();
 }
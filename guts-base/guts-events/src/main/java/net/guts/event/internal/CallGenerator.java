@@ -0,0 +1,169 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.lang.reflect.Method;
+
+import com.google.inject.internal.BytecodeGen;
+import com.google.inject.internal.BytecodeGen.Visibility;
+import com.google.inject.internal.asm.$ClassVisitor;
+import com.google.inject.internal.asm.$Type;
+import com.google.inject.internal.cglib.core.$AbstractClassGenerator;
+import com.google.inject.internal.cglib.core.$ClassEmitter;
+import com.google.inject.internal.cglib.core.$CodeEmitter;
+import com.google.inject.internal.cglib.core.$Constants;
+import com.google.inject.internal.cglib.core.$DefaultNamingPolicy;
+import com.google.inject.internal.cglib.core.$EmitUtils;
+import com.google.inject.internal.cglib.core.$ReflectUtils;
+import com.google.inject.internal.cglib.core.$Signature;
+
+// Generates, for one method taking one argument, a class that calls the method
+// directly, without reflection nor arguments array:
+// public Object call(Object instance, Object event)
+// {
+//     return ((Consumer) instance).push((Event) event);
+// }
+// For methods taking one int, long or double argument, it can also generate a class
+// that decodes raw bits and calls the method without any boxing:
+// public Object call(Object instance, long bits)
+// {
+//     return ((Consumer) instance).push((int) bits);
+// }
+// Boolean results (filters) are returned through Boolean.valueOf() (no allocation)
+// and void results as null. Exceptions thrown by the method are not wrapped.
+final class CallGenerator extends $AbstractClassGenerator
+{
+	static boolean supportsPrimitive(Class<?> type)
+	{
+		return type == int.class || type == long.class || type == double.class;
+	}
+	
+	static ObjectCall generate(Class<?> clazz, Method method, Visibility visibility)
+	{
+		return (ObjectCall) new CallGenerator(clazz, method, visibility, false).create();
+	}
+	
+	static PrimitiveCall generatePrimitive(
+		Class<?> clazz, Method method, Visibility visibility)
+	{
+		return (PrimitiveCall) new CallGenerator(clazz, method, visibility, true).create();
+	}
+	
+	private CallGenerator(
+		Class<?> clazz, Method method, Visibility visibility, boolean primitive)
+	{
+		super(SOURCE);
+		_clazz = clazz;
+		_method = method;
+		_argType = method.getParameterTypes()[0];
+		_primitive = primitive;
+		setNamePrefix(clazz.getName());
+		setNamingPolicy(NAMING_POLICY);
+		// Same class loaders as used by Guice for FastClasses
+		setClassLoader(visibility == Visibility.PUBLIC 
+			? BytecodeGen.getClassLoader(clazz) : clazz.getClassLoader());
+		// Invokers are cached per consumer class by AnnotationProcessor
+		setUseCache(false);
+	}
+	
+	private Object create()
+	{
+		return super.create(_method);
+	}
+
+	@Override public void generateClass($ClassVisitor visitor)
+	{
+		$ClassEmitter ce = new $ClassEmitter(visitor);
+		ce.begin_class($Constants.V1_2, $Constants.ACC_PUBLIC, getClassName(), 
+			OBJECT, new $Type[]{_primitive ? PRIMITIVE_CALL : OBJECT_CALL}, 
+			$Constants.SOURCE_FILE);
+		$EmitUtils.null_constructor(ce);
+		$CodeEmitter e = ce.begin_method($Constants.ACC_PUBLIC, 
+			_primitive ? PRIMITIVE_CALL_METHOD : OBJECT_CALL_METHOD, null);
+		e.load_arg(0);
+		e.checkcast($Type.getType(_clazz));
+		e.load_arg(1);
+		if (!_primitive)
+		{
+			// Unboxes the event if the method takes a primitive
+			e.unbox($Type.getType(_argType));
+		}
+		else if (_argType == int.class)
+		{
+			e.cast_numeric($Type.LONG_TYPE, $Type.INT_TYPE);
+		}
+		else if (_argType == double.class)
+		{
+			e.invoke_static(DOUBLE, LONG_BITS_TO_DOUBLE);
+		}
+		e.invoke($ReflectUtils.getMethodInfo(_method), $Type.getType(_clazz));
+		Class<?> result = _method.getReturnType();
+		if (result == boolean.class)
+		{
+			e.invoke_static(BOOLEAN, BOOLEAN_VALUE_OF);
+		}
+		else if (result.isPrimitive())
+		{
+			// Also pushes null for void methods
+			e.box($Type.getType(result));
+		}
+		e.return_value();
+		e.end_method();
+		ce.end_class();
+	}
+
+	@Override protected ClassLoader getDefaultClassLoader()
+	{
+		return _clazz.getClassLoader();
+	}
+
+	@Override protected Object firstInstance(@SuppressWarnings("rawtypes") Class type)
+	{
+		return $ReflectUtils.newInstance(type);
+	}
+
+	@Override protected Object nextInstance(Object instance)
+	{
+		return instance;
+	}
+
+	static final private Source SOURCE = new Source(CallGenerator.class.getName());
+	static final private $DefaultNamingPolicy NAMING_POLICY = new $DefaultNamingPolicy()
+	{
+		@Override protected String getTag()
+		{
+			return "ByGuts";
+		}
+	};
+	static final private $Type OBJECT = $Type.getType(Object.class);
+	static final private $Type OBJECT_CALL = $Type.getType(ObjectCall.class);
+	static final private $Type PRIMITIVE_CALL = $Type.getType(PrimitiveCall.class);
+	static final private $Type DOUBLE = $Type.getType(Double.class);
+	static final private $Type BOOLEAN = $Type.getType(Boolean.class);
+	static final private $Signature OBJECT_CALL_METHOD = new $Signature(
+		"call", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;");
+	static final private $Signature PRIMITIVE_CALL_METHOD = 
+		new $Signature("call", "(Ljava/lang/Object;J)Ljava/lang/Object;");
+	static final private $Signature LONG_BITS_TO_DOUBLE = 
+		new $Signature("longBitsToDouble", "(J)D");
+	static final private $Signature BOOLEAN_VALUE_OF = 
+		new $Signature("valueOf", "(Z)Ljava/lang/Boolean;");
+
+	final private Class<?> _clazz;
+	final private Method _method;
+	final private Class<?> _argType;
+	final private boolean _primitive;
+}
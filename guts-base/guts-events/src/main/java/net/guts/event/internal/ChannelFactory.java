@@ -16,7 +16,9 @@ package net.guts.event.internal;
 
 import java.lang.reflect.Type;
 
+import net.guts.event.ChannelOptions;
+
 public interface ChannelFactory
 {
-	public ChannelImpl<?> create(Type eventType, String topic);
+	public ChannelImpl<?> create(Type eventType, String topic, ChannelOptions options);
 }
@@ -18,214 +18,667 @@ import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.IdentityHashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import net.guts.common.cleaner.Cleanable;
 import net.guts.common.cleaner.Cleaner;
 import net.guts.common.type.Nullable;
 import net.guts.event.Channel;
+import net.guts.event.ChannelOptions;
 import net.guts.event.ConsumerExceptionHandler;
 import net.guts.event.ConsumerReturnHandler;
+import net.guts.event.EventMetrics;
+import net.guts.event.EventMetrics.ChannelMetrics;
+import net.guts.event.EventMetrics.ConsumerMetrics;
 
 import com.google.inject.Inject;
 import com.google.inject.TypeLiteral;
 import com.google.inject.assistedinject.Assisted;
 
-public class ChannelImpl<T> implements Channel<T>, Cleanable
+public class ChannelImpl<T> 
+	implements Channel<T>, Cleanable, Coalescer.Flusher<T>, RingBuffer.Handler<T>
 {
 	@Inject
 	public ChannelImpl(@Assisted Type eventType, @Assisted @Nullable String topic, 
+		@Assisted ChannelOptions options,
 		ConsumerExceptionHandler exceptionHandler, Cleaner cleanup,
-		Map<TypeLiteral<?>, ConsumerReturnHandler<?>> returnHandlers)
+		Map<TypeLiteral<?>, ConsumerReturnHandler<?>> returnHandlers,
+		CoalescingScheduler scheduler, EventMetrics metrics)
 	{
 		_eventType = eventType;
 		_eventClass = TypeLiteral.get(_eventType).getRawType();
 		_topic = topic;
 		_exceptionHandler = exceptionHandler;
 		_cleanup = cleanup;
-		_cleanup.addCleanable(this);
 		_returnHandlers = returnHandlers;
+		_metrics = metrics.channelCreated(eventType, topic);
+		if (options.getCoalescing() != null)
+		{
+			_coalescer = new Coalescer<T>(options.getCoalescing(), scheduler, this);
+		}
+		else
+		{
+			_coalescer = null;
+		}
+		if (options.getRingBuffering() != null)
+		{
+			_ringBuffer = new RingBuffer<T>(options.getRingBuffering(), this, cleanup, 
+				String.format("GUTS-Events ring (%s, '%s')", eventType, _topic));
+		}
+		else
+		{
+			_ringBuffer = null;
+		}
+		if (options.getReplay() != null)
+		{
+			_history = new History<T>(options.getReplay());
+		}
+		else
+		{
+			_history = null;
+		}
+	}
+	
+	public Consumer addConsumer(Object instance, Method consumer, int priority, 
+		Method filter, Executor executor)
+	{
+		return addConsumer(instance, new ReflectionMethodInvoker(consumer), priority, 
+			(filter != null ? new ReflectionMethodInvoker(filter) : null), executor);
 	}
 	
-	public void addConsumer(Object instance, Method consumer, int priority, Method filter, 
-		Executor executor)
+	// Returns the new consumer, which can later be passed to removeConsumers()
+	public Consumer addConsumer(Object instance, MethodInvoker consumer, int priority, 
+		MethodInvoker filter, Executor executor)
 	{
-		Lock write = _lock.writeLock();
-		write.lock();
+		Type returnType = consumer.getMethod().getGenericReturnType();
+		// Consumers get removed by cleanup() once instance is garbage collected
+		Consumer newConsumer = new Consumer(_cleanup.weakReference(instance, this), 
+			consumer, filter, priority, 
+			findHandler(TypeLiteral.get(returnType)), 
+			_metrics.consumerAdded(consumer.getMethod()));
+		List<T> history = null;
+		if (_history != null)
+		{
+			// Events dispatched to the new consumer before its replay is over are
+			// deferred until then
+			newConsumer.startReplay();
+		}
+		_lock.lock();
 		try
 		{
-			SortedSet<Consumer> consumers = _executorConsumers.get(executor);
-			if (consumers == null)
+			_groups = add(_groups, newConsumer, executor);
+			// Events are recorded under the same lock as the dispatch plan is read
+			// by handle() and flush(), hence each event is either replayed or 
+			// dispatched to the new consumer, never both
+			if (_history != null)
 			{
-				consumers = new TreeSet<Consumer>();
-				_executorConsumers.put(executor, consumers);
+				history = _history.events();
 			}
-			consumers.add(new Consumer(instance, consumer, filter, priority));
 		}
 		finally
 		{
-			write.unlock();
+			_lock.unlock();
 		}
+		// Consumers are never notified under _lock
+		if (history != null)
+		{
+			replay(newConsumer, executor, history);
+		}
+		return newConsumer;
 	}
 	
-	@Override public void publish(final T event)
+	// Copies groups, adding consumer to the group of its executor
+	static private ConsumerGroup[] add(
+		ConsumerGroup[] groups, Consumer consumer, Executor executor)
 	{
-		//  Find all interested consumers (based on filters)
-		Map<Executor, EventPublisher> consumers = new HashMap<Executor, EventPublisher>();
-		Lock read = _lock.readLock();
-		read.lock();
-		try
+		for (int i = 0; i < groups.length; i++)
 		{
-			for (Map.Entry<Executor, SortedSet<Consumer>> entry: _executorConsumers.entrySet())
+			if (groups[i]._executor == executor)
 			{
-				EventPublisher publisher = new EventPublisher(event);
-				consumers.put(entry.getKey(), publisher);
-				for (Consumer consumer: entry.getValue())
+				ConsumerGroup[] newGroups = groups.clone();
+				newGroups[i] = groups[i].add(consumer);
+				return newGroups;
+			}
+		}
+		ConsumerGroup[] newGroups = Arrays.copyOf(groups, groups.length + 1);
+		newGroups[groups.length] = new ConsumerGroup(executor, new Consumer[]{consumer});
+		return newGroups;
+	}
+	
+	// Sends retained events to one newly added consumer only
+	private void replay(Consumer consumer, Executor executor, List<T> history)
+	{
+		List<T> accepted = new ArrayList<T>(history.size());
+		for (T event: history)
+		{
+			if (accept(consumer, event, actualType(event)))
+			{
+				accepted.add(event);
+			}
+		}
+		if (executor instanceof InCurrentThreadExecutor)
+		{
+			new ReplayPublisher(consumer, accepted).run();
+		}
+		else if (!accepted.isEmpty())
+		{
+			execute(executor, new ReplayPublisher(consumer, accepted));
+		}
+		else
+		{
+			// Nothing to replay, just resume notifications
+			endReplay(consumer, executor);
+		}
+	}
+	
+	// Ends replay of consumer, events deferred meanwhile are notified (or submitted
+	// to executor) in the order they were dispatched; a null executor means that
+	// they are notified in the current thread
+	@SuppressWarnings("unchecked")
+	private void endReplay(Consumer consumer, Executor executor)
+	{
+		boolean direct = (executor == null || executor instanceof InCurrentThreadExecutor);
+		List<Deferred> deferred;
+		while (!(deferred = consumer.takeDeferred()).isEmpty())
+		{
+			for (Deferred event: deferred)
+			{
+				if (direct)
 				{
-					if (consumer._instance.get() == null)
-					{
-						_needsCleanup = true;
-					}
-					else if (filter(consumer, event))
-					{
-						publisher._consumers.add(consumer);
-					}
+					notifyNow(consumer, (T) event._event, event._replies);
+				}
+				else
+				{
+					execute(executor, new ConsumerPublisher(consumer, 
+						Collections.singletonList((T) event._event), event._replies));
 				}
 			}
 		}
+	}
+	
+	// Tells whether consumers are notified (or submitted to their Executor) from
+	// the publishing thread itself, ie not later by a coalescer or ring buffer
+	public boolean isSynchronous()
+	{
+		return _coalescer == null && _ringBuffer == null;
+	}
+	
+	@Override public void publish(final T event)
+	{
+		_metrics.published();
+		if (_ringBuffer != null)
+		{
+			// Events will be dispatched by the ring buffer thread, through handle()
+			_ringBuffer.publish(event);
+			return;
+		}
+		handle(event);
+	}
+	
+	@Override public void handle(T event)
+	{
+		if (_history != null && _coalescer == null)
+		{
+			// Must be atomic with respect to replay, see addConsumer(), but consumers
+			// are notified outside the lock
+			ConsumerGroup[] groups;
+			_lock.lock();
+			try
+			{
+				_history.add(event);
+				groups = _groups;
+			}
+			finally
+			{
+				_lock.unlock();
+			}
+			dispatch(groups, event, null);
+		}
+		else
+		{
+			dispatch(event, null);
+		}
+		// Also notify consumers of supertypes channels (polymorphic dispatch only)
+		List<ChannelImpl<? super T>> channels = _superChannels;
+		for (int i = 0; i < channels.size(); i++)
+		{
+			channels.get(i).dispatch(event, null);
+		}
+	}
+	
+	// Sends event to all consumers, as publish() does, but collects the results
+	// returned by consumers into replies; requests are never coalesced nor go
+	// through the ring buffer
+	public void request(T event, ReplyCollector replies)
+	{
+		_metrics.published();
+		try
+		{
+			dispatch(event, replies);
+			List<ChannelImpl<? super T>> channels = _superChannels;
+			for (int i = 0; i < channels.size(); i++)
+			{
+				channels.get(i).dispatch(event, replies);
+			}
+		}
 		finally
 		{
-			read.unlock();
+			// Replies can complete only once all consumers are known
+			replies.dispatched();
 		}
-
-		if (_needsCleanup)
+	}
+	
+	// Called by EventServiceImpl whenever the list of supertypes channels changes
+	void setSuperChannels(List<ChannelImpl<? super T>> channels)
+	{
+		_superChannels = channels;
+	}
+	
+	// Notify consumers of this channel only, replies is null for plain events
+	private void dispatch(final T event, ReplyCollector replies)
+	{
+		if (_coalescer != null && replies == null)
 		{
-			// Enqueue this for later cleanup
-			_cleanup.enqueueCleanable(this);
+			// Events will be dispatched later, all at once, by flush()
+			_coalescer.add(event);
+			return;
 		}
 		
-		// Now call executors
-		for (Map.Entry<Executor, EventPublisher> entry: consumers.entrySet())
+		// No lock needed here: the dispatch plan is immutable, any concurrent change
+		// to consumers gets visible to the next call to publish()
+		dispatch(_groups, event, replies);
+	}
+	
+	private void dispatch(ConsumerGroup[] groups, T event, ReplyCollector replies)
+	{
+		for (ConsumerGroup group: groups)
 		{
+			dispatch(group, event, replies);
+		}
+	}
+	
+	private void dispatch(ConsumerGroup group, T event, ReplyCollector replies)
+	{
+		if (group._direct)
+		{
+			// Notify consumers right away, no need to allocate anything
+			Class<?> actualType = actualType(event);
+			for (Consumer consumer: group._consumers)
+			{
+				if (accept(consumer, event, actualType))
+				{
+					if (replies != null)
+					{
+						replies.expect(1);
+					}
+					notify(consumer, event, replies);
+				}
+			}
+		}
+		else if (group._perConsumer)
+		{
+			// One task per consumer, ordered per consumer instance by the executor
+			Class<?> actualType = actualType(event);
+			for (Consumer consumer: group._consumers)
+			{
+				if (accept(consumer, event, actualType))
+				{
+					if (replies != null)
+					{
+						replies.expect(1);
+					}
+					execute(group._executor, new ConsumerPublisher(
+						consumer, Collections.singletonList(event), replies));
+				}
+			}
+		}
+		else
+		{
+			EventPublisher publisher = select(group, event, replies);
 			// Don't call an executor if there's no consumer listening!
-			if (!entry.getValue()._consumers.isEmpty())
+			if (publisher != null)
 			{
-				entry.getKey().execute(entry.getValue());
+				execute(group._executor, publisher);
 			}
 		}
 	}
-
-	private boolean needCleanup()
+	
+	// Called by primitive channels (IntChannel, LongChannel, DoubleChannel) with
+	// the event encoded as raw bits (see PrimitiveMethodInvoker): consumers called
+	// in the current thread get it without boxing, all others get it boxed
+	public void publishBits(long bits)
 	{
-		if (_needsCleanup)
+		if (	_coalescer != null || _ringBuffer != null || _history != null
+			||	!_superChannels.isEmpty())
 		{
-			return true;
+			// These options need to keep the event, hence to box it
+			publish(box(bits));
+			return;
 		}
-		
-		Lock read = _lock.readLock();
-		read.lock();
-		try
+		_metrics.published();
+		// Boxed only once, if ever needed
+		T event = null;
+		for (ConsumerGroup group: _groups)
 		{
-			for (Map.Entry<Executor, SortedSet<Consumer>> entry: _executorConsumers.entrySet())
+			if (group._direct)
 			{
-				for (Consumer consumer: entry.getValue())
+				for (Consumer consumer: group._consumers)
 				{
-					if (consumer._instance.get() == null)
+					if (consumer._primitive)
+					{
+						if (accept(consumer, bits))
+						{
+							notify(consumer, bits);
+						}
+						continue;
+					}
+					if (event == null)
 					{
-						return true;
+						event = box(bits);
+					}
+					if (accept(consumer, event, event.getClass()))
+					{
+						notify(consumer, event, null);
 					}
 				}
 			}
-			return false;
+			else
+			{
+				if (event == null)
+				{
+					event = box(bits);
+				}
+				dispatch(group, event, null);
+			}
 		}
-		finally
+	}
+	
+	@SuppressWarnings("unchecked")
+	private T box(long bits)
+	{
+		if (_eventClass == int.class)
+		{
+			return (T) Integer.valueOf((int) bits);
+		}
+		if (_eventClass == double.class)
 		{
-			read.unlock();
+			return (T) Double.valueOf(Double.longBitsToDouble(bits));
 		}
+		return (T) Long.valueOf(bits);
 	}
 	
-	@Override public void cleanup()
+	// Called by _coalescer once the coalescing delay has elapsed
+	@Override public void flush(List<T> events)
 	{
-		if (!needCleanup())
+		if (_history == null)
 		{
+			flushGroups(_groups, events);
 			return;
 		}
-		Lock write = _lock.writeLock();
-		write.lock();
+		// Coalesced events are retained, atomically with respect to replay, see
+		// addConsumer(), but consumers are notified outside the lock
+		ConsumerGroup[] groups;
+		_lock.lock();
 		try
 		{
-			// First remove Consumers from each individual list for all executors
-			for (SortedSet<Consumer> consumers: _executorConsumers.values())
+			for (T event: events)
 			{
-				Iterator<Consumer> i = consumers.iterator();
-				while (i.hasNext())
+				_history.add(event);
+			}
+			groups = _groups;
+		}
+		finally
+		{
+			_lock.unlock();
+		}
+		flushGroups(groups, events);
+	}
+	
+	private void flushGroups(ConsumerGroup[] groups, List<T> events)
+	{
+		for (ConsumerGroup group: groups)
+		{
+			if (group._perConsumer)
+			{
+				flushPerConsumer(group, events);
+				continue;
+			}
+			List<EventPublisher> publishers = new ArrayList<EventPublisher>(events.size());
+			for (T event: events)
+			{
+				EventPublisher publisher = select(group, event, null);
+				if (publisher != null)
 				{
-					if (i.next()._instance.get() == null)
-					{
-						i.remove();
-					}
+					publishers.add(publisher);
 				}
 			}
-			
-			// Then remove any entries for which the consumer list is empty
-			Iterator<Map.Entry<Executor, SortedSet<Consumer>>> i = 
-				_executorConsumers.entrySet().iterator();
-			while (i.hasNext())
+			// Only one call to the executor for the whole batch of events
+			if (!publishers.isEmpty())
 			{
-				if (i.next().getValue().isEmpty())
+				execute(group._executor, new BatchPublisher(publishers));
+			}
+		}
+	}
+
+	// Sends each consumer the batch of events it accepts
+	private void flushPerConsumer(ConsumerGroup group, List<T> events)
+	{
+		for (Consumer consumer: group._consumers)
+		{
+			List<T> accepted = new ArrayList<T>(events.size());
+			for (T event: events)
+			{
+				if (accept(consumer, event, actualType(event)))
 				{
-					i.remove();
+					accepted.add(event);
 				}
 			}
-			_needsCleanup = false;
+			if (!accepted.isEmpty())
+			{
+				execute(group._executor, new ConsumerPublisher(consumer, accepted, null));
+			}
+		}
+	}
+	
+	private void execute(Executor executor, Publisher publisher)
+	{
+		try
+		{
+			executor.execute(publisher);
+		}
+		catch (RejectedExecutionException e)
+		{
+			// Consumers won't be notified, at least let them know
+			publisher.rejected(e);
+		}
+	}
+	
+	private void rejected(Consumer consumer, RejectedExecutionException e)
+	{
+		consumer._metrics.dropped();
+		Object instance = consumer._instance.get();
+		if (instance != null)
+		{
+			_exceptionHandler.handleException(
+				e, consumer._consumer.getMethod(), instance, _eventType, _topic);
+		}
+	}
+
+	//  Find all interested consumers (based on filters)
+	private EventPublisher select(ConsumerGroup group, T event, ReplyCollector replies)
+	{
+		Class<?> actualType = actualType(event);
+		Consumer[] consumers = group._consumers;
+		Consumer[] selected = new Consumer[consumers.length];
+		int count = 0;
+		for (Consumer consumer: consumers)
+		{
+			if (accept(consumer, event, actualType))
+			{
+				selected[count++] = consumer;
+			}
+		}
+		if (count == 0)
+		{
+			return null;
+		}
+		if (replies != null)
+		{
+			replies.expect(count);
+		}
+		return new EventPublisher(event, selected, count, replies);
+	}
+	
+	private Class<?> actualType(T event)
+	{
+		return (event == null ? _eventClass : event.getClass());
+	}
+	
+	// Called by Cleaner once some consumers of this channel have been garbage
+	// collected (only once for all consumers collected at the same time)
+	@Override public void cleanup()
+	{
+		remove(null, null);
+	}
+	
+	// Removes all consumers registered for instance
+	public void removeConsumers(Object instance)
+	{
+		if (instance != null)
+		{
+			remove(instance, null);
+		}
+	}
+	
+	// Removes only the given consumers (as returned by addConsumer()), other
+	// consumers of the same instances are kept; consumers that were not added to
+	// this channel are ignored
+	public void removeConsumers(Collection<Consumer> consumers)
+	{
+		Set<Consumer> removed = 
+			Collections.newSetFromMap(new IdentityHashMap<Consumer, Boolean>());
+		removed.addAll(consumers);
+		remove(null, removed);
+	}
+	
+	// Removes the given consumers if not null, otherwise consumers of instance, or
+	// consumers which instance has been garbage collected if instance is null
+	private void remove(Object instance, Set<Consumer> consumers)
+	{
+		_lock.lock();
+		try
+		{
+			// Rebuild the plan with remaining consumers only, dropping empty groups
+			List<ConsumerGroup> groups = new ArrayList<ConsumerGroup>(_groups.length);
+			boolean changed = false;
+			for (ConsumerGroup group: _groups)
+			{
+				ConsumerGroup cleaned = group.remove(instance, consumers);
+				if (cleaned != null)
+				{
+					groups.add(cleaned);
+				}
+				changed |= (cleaned != group);
+			}
+			if (changed)
+			{
+				_groups = groups.toArray(new ConsumerGroup[groups.size()]);
+			}
 		}
 		finally
 		{
-			write.unlock();
+			_lock.unlock();
 		}
 	}
 
-	private boolean filter(Consumer consumer, T event)
+	private boolean accept(Consumer consumer, T event, Class<?> actualType)
 	{
-		Class<?> actualType = (event == null ? _eventClass : event.getClass());
+		Object instance = consumer._instance.get();
+		if (instance == null)
+		{
+			// Consumer will soon be removed by cleanup()
+			return false;
+		}
 		if (consumer._filter != null)
 		{
 			// Check the event type matches _filter argument type
-			Class<?> argType = consumer._filter.getParameterTypes()[0];
-			if ((!argType.isPrimitive()) && !argType.isAssignableFrom(actualType))
+			if (!consumer.acceptsFilterArg(actualType))
 			{
 				return false;
 			}
-			if (!invoke(consumer._instance.get(), consumer._filter, event, false))
+			if (!invoke(instance, consumer, consumer._filter, event, false))
 			{
 				return false;
 			}
 		}
 		// Check the event matches _consumer argument type
-		Class<?> argType = consumer._consumer.getParameterTypes()[0];
-		return (argType.isPrimitive() || argType.isAssignableFrom(actualType));
+		return consumer.acceptsConsumerArg(actualType);
+	}
+	
+	// Only for consumers which methods take the primitive event type
+	private boolean accept(Consumer consumer, long bits)
+	{
+		Object instance = consumer._instance.get();
+		if (instance == null)
+		{
+			// Consumer will soon be removed by cleanup()
+			return false;
+		}
+		return	consumer._filter == null
+			||	invoke(instance, consumer, consumer._primitiveFilter, bits, false);
 	}
 	
 	//CSOFF: IllegalCatchCheck
-	@SuppressWarnings({"unchecked", "rawtypes"})
-	private void notify(Consumer consumer, T event)
+	private void notify(Consumer consumer, T event, ReplyCollector replies)
+	{
+		// Replayed events must be notified first
+		if (consumer._replaying && consumer.defer(event, replies))
+		{
+			return;
+		}
+		notifyNow(consumer, event, replies);
+	}
+	
+	private void notifyNow(Consumer consumer, T event, ReplyCollector replies)
 	{
 		Object instance = consumer._instance.get();
-		Object result = invoke(instance, consumer._consumer, event, null);
+		long start = (consumer._timed ? System.nanoTime() : 0L);
+		Object result = invoke(instance, consumer, consumer._consumer, event, null);
+		notified(consumer, instance, start, result, replies);
+	}
+	
+	private void notify(Consumer consumer, long bits)
+	{
+		Object instance = consumer._instance.get();
+		long start = (consumer._timed ? System.nanoTime() : 0L);
+		Object result = invoke(instance, consumer, consumer._primitiveConsumer, bits, null);
+		notified(consumer, instance, start, result, null);
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void notified(Consumer consumer, Object instance, long start, Object result,
+		ReplyCollector replies)
+	{
+		if (instance != null && consumer._timed)
+		{
+			consumer._metrics.notified(System.nanoTime() - start);
+		}
 		if (result != null)
 		{
 			// Check if there is a handler for the returned type of the consumer method
-			TypeLiteral<?> type = TypeLiteral.get(consumer._consumer.getGenericReturnType());
-			ConsumerReturnHandler handler = findHandler(type);
+			ConsumerReturnHandler handler = consumer._returnHandler;
 			if (handler != null)
 			{
 				// Call the registered handler for that return type
@@ -235,11 +688,17 @@ public class ChannelImpl<T> implements Channel<T>, Cleanable
 				}
 				catch (Exception e)
 				{
+					consumer._metrics.failed();
 					_exceptionHandler.handleException(
-						e, consumer._consumer, instance, _eventType, _topic);
+						e, consumer._consumer.getMethod(), instance, _eventType, _topic);
 				}
 			}
 		}
+		if (replies != null)
+		{
+			// A failed consumer just doesn't reply
+			replies.reply(result);
+		}
 	}
 	//CSON: IllegalCatchCheck
 
@@ -251,7 +710,8 @@ public class ChannelImpl<T> implements Channel<T>, Cleanable
 	
 	//CSOFF: IllegalCatchCheck
 	@SuppressWarnings("unchecked")
-	private <U> U invoke(Object instance, Method method, T event, U defaultValue)
+	private <U> U invoke(
+		Object instance, Consumer consumer, MethodInvoker method, T event, U defaultValue)
 	{
 		if (instance == null)
 		{
@@ -259,36 +719,198 @@ public class ChannelImpl<T> implements Channel<T>, Cleanable
 		}
 		try
 		{
-			method.setAccessible(true);
 			return (U) method.invoke(instance, event);
 		}
 		catch (InvocationTargetException e)
 		{
+			consumer._metrics.failed();
 			_exceptionHandler.handleException(
-				e.getTargetException(), method, instance, _eventType, _topic);
+				e.getTargetException(), method.getMethod(), instance, _eventType, _topic);
 		}
 		catch (Exception e)
 		{
-			_exceptionHandler.handleException(e, method, instance, _eventType, _topic);
+			consumer._metrics.failed();
+			_exceptionHandler.handleException(
+				e, method.getMethod(), instance, _eventType, _topic);
+		}
+		return defaultValue;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <U> U invoke(Object instance, Consumer consumer, 
+		PrimitiveMethodInvoker method, long bits, U defaultValue)
+	{
+		if (instance == null)
+		{
+			return defaultValue;
+		}
+		try
+		{
+			return (U) method.invoke(instance, bits);
+		}
+		catch (InvocationTargetException e)
+		{
+			consumer._metrics.failed();
+			_exceptionHandler.handleException(
+				e.getTargetException(), method.getMethod(), instance, _eventType, _topic);
+		}
+		catch (Exception e)
+		{
+			consumer._metrics.failed();
+			_exceptionHandler.handleException(
+				e, method.getMethod(), instance, _eventType, _topic);
 		}
 		return defaultValue;
 	}
 	//CSON: IllegalCatchCheck
 
-	static private class Consumer implements Comparable<Consumer>
+	// Immutable list of consumers (ordered by priority and registration time) 
+	// sharing the same Executor
+	static private class ConsumerGroup
+	{
+		ConsumerGroup(Executor executor, Consumer[] consumers)
+		{
+			_executor = executor;
+			_direct = (executor instanceof InCurrentThreadExecutor);
+			_perConsumer = (executor instanceof MailboxExecutor);
+			_consumers = consumers;
+		}
+		
+		ConsumerGroup add(Consumer consumer)
+		{
+			Consumer[] consumers = Arrays.copyOf(_consumers, _consumers.length + 1);
+			consumers[_consumers.length] = consumer;
+			Arrays.sort(consumers);
+			return new ConsumerGroup(_executor, consumers);
+		}
+		
+		// Returns this if no consumer was removed, null if all were
+		ConsumerGroup remove(Object instance, Set<Consumer> removed)
+		{
+			List<Consumer> consumers = new ArrayList<Consumer>(_consumers.length);
+			for (Consumer consumer: _consumers)
+			{
+				if (removed != null 
+					? !removed.contains(consumer) 
+					: consumer._instance.get() != instance)
+				{
+					consumers.add(consumer);
+				}
+			}
+			if (consumers.isEmpty())
+			{
+				return null;
+			}
+			if (consumers.size() == _consumers.length)
+			{
+				return this;
+			}
+			return new ConsumerGroup(
+				_executor, consumers.toArray(new Consumer[consumers.size()]));
+		}
+		
+		final private Executor _executor;
+		final private boolean _direct;
+		final private boolean _perConsumer;
+		final private Consumer[] _consumers;
+	}
+
+	// Opaque outside ChannelImpl
+	static class Consumer implements Comparable<Consumer>
 	{
-		Consumer(Object instance, Method consumer, Method filter, int priority)
+		Consumer(WeakReference<Object> instance, MethodInvoker consumer, MethodInvoker filter, 
+			int priority, ConsumerReturnHandler<?> returnHandler, ConsumerMetrics metrics)
 		{
-			_instance = new WeakReference<Object>(instance);
+			_instance = instance;
 			_consumer = consumer;
+			_consumerArgType = consumer.getMethod().getParameterTypes()[0];
 			_filter = filter;
+			if (_filter != null)
+			{
+				_filterArgType = filter.getMethod().getParameterTypes()[0];
+			}
+			else
+			{
+				_filterArgType = null;
+			}
 			_priority = priority;
+			_returnHandler = returnHandler;
+			_metrics = metrics;
+			_timed = (metrics != NoEventMetrics.CONSUMER);
+			_primitiveConsumer = primitive(consumer, _consumerArgType);
+			_primitiveFilter = primitive(filter, _filterArgType);
+			// Both methods must accept the primitive event to skip boxing
+			_primitive = (_primitiveConsumer != null 
+				&& (_filter == null || _primitiveFilter != null));
+		}
+		
+		static private PrimitiveMethodInvoker primitive(MethodInvoker method, Class<?> arg)
+		{
+			if (	method instanceof PrimitiveMethodInvoker 
+				&&	CallGenerator.supportsPrimitive(arg))
+			{
+				return (PrimitiveMethodInvoker) method;
+			}
+			return null;
+		}
+		
+		boolean acceptsConsumerArg(Class<?> actualType)
+		{
+			return	_consumerArgType.isPrimitive() 
+				||	_consumerArgType.isAssignableFrom(actualType);
+		}
+
+		boolean acceptsFilterArg(Class<?> actualType)
+		{
+			return	_filterArgType.isPrimitive() 
+				||	_filterArgType.isAssignableFrom(actualType);
+		}
+		
+		// Must be called before the consumer gets visible to publishers
+		void startReplay()
+		{
+			_deferred = new ArrayList<Deferred>();
+			_replaying = true;
+		}
+		
+		// Keeps event for later if replay is not over yet, returns false otherwise
+		boolean defer(Object event, ReplyCollector replies)
+		{
+			synchronized (this)
+			{
+				if (_deferred == null)
+				{
+					return false;
+				}
+				_deferred.add(new Deferred(event, replies));
+				return true;
+			}
+		}
+		
+		// Returns events deferred so far, replay is over once none is left
+		synchronized List<Deferred> takeDeferred()
+		{
+			List<Deferred> deferred = _deferred;
+			if (deferred.isEmpty())
+			{
+				_deferred = null;
+				_replaying = false;
+			}
+			else
+			{
+				_deferred = new ArrayList<Deferred>();
+			}
+			return deferred;
 		}
 
 		@Override public int compareTo(Consumer that)
 		{
-			int diff = this._priority - that._priority;
-			return (diff != 0 ? diff : this._order - that._order);
+			// Don't subtract priorities: Integer.MIN_VALUE/MAX_VALUE would overflow
+			if (this._priority != that._priority)
+			{
+				return (this._priority < that._priority ? -1 : 1);
+			}
+			return (this._order < that._order ? -1 : (this._order == that._order ? 0 : 1));
 		}
 		
 		@Override public int hashCode()
@@ -319,45 +941,228 @@ public class ChannelImpl<T> implements Channel<T>, Cleanable
 		}
 
 		final private WeakReference<Object> _instance;
-		final private Method _consumer;
-		final private Method _filter;
+		final private MethodInvoker _consumer;
+		final private Class<?> _consumerArgType;
+		final private MethodInvoker _filter;
+		final private Class<?> _filterArgType;
 		final private int _priority;
-		final private int _order = _total++;
-		static private int _total = 0; 
+		final private ConsumerReturnHandler<?> _returnHandler;
+		final private ConsumerMetrics _metrics;
+		// No need to measure invocation time when metrics are disabled
+		final private boolean _timed;
+		// Only for consumers of int, long or double events
+		final private PrimitiveMethodInvoker _primitiveConsumer;
+		final private PrimitiveMethodInvoker _primitiveFilter;
+		final private boolean _primitive;
+		final private int _order = _total.getAndIncrement();
+		static final private AtomicInteger _total = new AtomicInteger(0); 
+		// Only for consumers of replaying channels, until retained events have been
+		// replayed; _deferred is guarded by this
+		private volatile boolean _replaying = false;
+		private List<Deferred> _deferred = null;
 	}
 	
-	private class EventPublisher implements Runnable
+	// Event dispatched to a consumer while retained events were replayed to it
+	static private class Deferred
 	{
-		public EventPublisher(T event)
+		Deferred(Object event, ReplyCollector replies)
 		{
 			_event = event;
+			_replies = replies;
+		}
+		
+		final private Object _event;
+		final private ReplyCollector _replies;
+	}
+	
+	// Notification task passed to executors, all tasks from one channel share the
+	// same ordering key
+	private abstract class Publisher implements OrderedRunnable
+	{
+		@Override public Object getOrderingKey()
+		{
+			return ChannelImpl.this;
+		}
+		
+		abstract void rejected(RejectedExecutionException e);
+	}
+	
+	private class EventPublisher extends Publisher
+	{
+		public EventPublisher(
+			T event, Consumer[] consumers, int count, ReplyCollector replies)
+		{
+			_event = event;
+			_consumers = consumers;
+			_count = count;
+			_replies = replies;
 		}
 		
 		@Override public void run()
 		{
-			for (Consumer consumer: _consumers)
+			for (int i = 0; i < _count; i++)
 			{
-				ChannelImpl.this.notify(consumer, _event);
+				ChannelImpl.this.notify(_consumers[i], _event, _replies);
+			}
+		}
+		
+		@Override void rejected(RejectedExecutionException e)
+		{
+			for (int i = 0; i < _count; i++)
+			{
+				ChannelImpl.this.rejected(_consumers[i], e);
+				if (_replies != null)
+				{
+					_replies.reply(null);
+				}
 			}
 		}
 		
 		private final T _event;
-		private final SortedSet<Consumer> _consumers = new TreeSet<Consumer>();
+		private final Consumer[] _consumers;
+		private final int _count;
+		private final ReplyCollector _replies;
+	}
+	
+	// Notifies one consumer only, ordered per consumer instance
+	private class ConsumerPublisher extends Publisher
+	{
+		public ConsumerPublisher(Consumer consumer, List<T> events, ReplyCollector replies)
+		{
+			_consumer = consumer;
+			_events = events;
+			_replies = replies;
+			// Keep the instance until it gets notified
+			_instance = consumer._instance.get();
+		}
+		
+		@Override public Object getOrderingKey()
+		{
+			return _instance;
+		}
+		
+		@Override public void run()
+		{
+			for (T event: _events)
+			{
+				ChannelImpl.this.notify(_consumer, event, _replies);
+			}
+		}
+		
+		@Override void rejected(RejectedExecutionException e)
+		{
+			ChannelImpl.this.rejected(_consumer, e);
+			if (_replies != null)
+			{
+				_replies.reply(null);
+			}
+		}
+		
+		private final Consumer _consumer;
+		private final List<T> _events;
+		private final ReplyCollector _replies;
+		private final Object _instance;
+	}
+	
+	// Replays retained events to one new consumer, then notifies events deferred 
+	// meanwhile
+	private class ReplayPublisher extends Publisher
+	{
+		public ReplayPublisher(Consumer consumer, List<T> events)
+		{
+			_consumer = consumer;
+			_events = events;
+			// Keep the instance until it gets notified
+			_instance = consumer._instance.get();
+		}
+		
+		@Override public Object getOrderingKey()
+		{
+			return _instance;
+		}
+		
+		@Override public void run()
+		{
+			for (T event: _events)
+			{
+				notifyNow(_consumer, event, null);
+			}
+			endReplay(_consumer, null);
+		}
+		
+		@Override void rejected(RejectedExecutionException e)
+		{
+			ChannelImpl.this.rejected(_consumer, e);
+			// Deferred events are dropped as well
+			List<Deferred> deferred;
+			while (!(deferred = _consumer.takeDeferred()).isEmpty())
+			{
+				for (Deferred event: deferred)
+				{
+					ChannelImpl.this.rejected(_consumer, e);
+					if (event._replies != null)
+					{
+						event._replies.reply(null);
+					}
+				}
+			}
+		}
+		
+		private final Consumer _consumer;
+		private final List<T> _events;
+		private final Object _instance;
+	}
+	
+	private class BatchPublisher extends Publisher
+	{
+		public BatchPublisher(List<EventPublisher> publishers)
+		{
+			_publishers = publishers;
+		}
+		
+		@Override public void run()
+		{
+			for (EventPublisher publisher: _publishers)
+			{
+				publisher.run();
+			}
+		}
+		
+		@Override void rejected(RejectedExecutionException e)
+		{
+			for (EventPublisher publisher: _publishers)
+			{
+				publisher.rejected(e);
+			}
+		}
+		
+		private final List<EventPublisher> _publishers;
 	}
 
+	static final private ConsumerGroup[] NO_GROUPS = new ConsumerGroup[0];
+
 	final private Type _eventType;
 	final private Class<?> _eventClass;
 	final private String _topic;
 	final private ConsumerExceptionHandler _exceptionHandler;
 	final private Map<TypeLiteral<?>, ConsumerReturnHandler<?>> _returnHandlers;
+	final private ChannelMetrics _metrics;
 
-	// Ordered list (by priority and registration time) of consumers for this channel
-	// (grouped by Executor)
-	final private Map<Executor, SortedSet<Consumer>> _executorConsumers = 
-		new IdentityHashMap<Executor, SortedSet<Consumer>>();
-	// RW lock to access _consumers
-	final private ReadWriteLock _lock = new ReentrantReadWriteLock();
-	
-	private boolean _needsCleanup = false;
+	// Immutable dispatch plan: consumers grouped by Executor, each group ordered by
+	// priority and registration time; replaced as a whole (copy-on-write) whenever
+	// consumers are added or cleaned up
+	private volatile ConsumerGroup[] _groups = NO_GROUPS;
+	// Lock serializing all modifications of _groups; for replaying channels, also
+	// serializes recording of events with reading _groups, never held while
+	// consumers are notified
+	final private Lock _lock = new ReentrantLock();
+	
+	// Channels of supertypes of _eventType (same topic), only for polymorphic dispatch
+	private volatile List<ChannelImpl<? super T>> _superChannels = Collections.emptyList();
+	
 	private final Cleaner _cleanup;
+	private final Coalescer<T> _coalescer;
+	private final RingBuffer<T> _ringBuffer;
+	// Latest events published, only for replaying channels
+	private final History<T> _history;
 }
@@ -15,6 +15,7 @@
 package net.guts.event.internal;
 
 import net.guts.event.Channel;
+import net.guts.event.ChannelOptions;
 import net.guts.event.EventService;
 
 import com.google.inject.Inject;
@@ -23,16 +24,17 @@ import com.google.inject.TypeLiteral;
 
 public class ChannelProvider<T> implements Provider<Channel<T>>
 {
-	public ChannelProvider(TypeLiteral<T> type, String topic)
+	public ChannelProvider(TypeLiteral<T> type, String topic, ChannelOptions options)
 	{
 		_eventType = type;
 		_topic = topic;
+		_options = options;
 	}
 	
 	@Inject public void setEventService(EventService service)
 	{
 		_service = service;
-		_service.registerChannel(_eventType, _topic);
+		_service.registerChannel(_eventType, _topic, _options);
 	}
 
 	// All provider instances should be bound as singleton, hence get() should
@@ -45,5 +47,6 @@ public class ChannelProvider<T> implements Provider<Channel<T>>
 
 	final private TypeLiteral<T> _eventType;
 	final private String _topic;
+	final private ChannelOptions _options;
 	private EventService _service = null;
 }
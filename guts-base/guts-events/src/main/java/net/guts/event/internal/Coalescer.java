@@ -0,0 +1,99 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.guts.event.Coalescing;
+
+// Accumulates events published to a coalescing channel and hands them over, 
+// once the coalescing delay has elapsed, to the channel for actual dispatching
+class Coalescer<T> implements Runnable
+{
+	static interface Flusher<T>
+	{
+		public void flush(List<T> events);
+	}
+	
+	Coalescer(Coalescing policy, CoalescingScheduler scheduler, Flusher<T> flusher)
+	{
+		_policy = policy;
+		_scheduler = scheduler;
+		_flusher = flusher;
+	}
+	
+	@SuppressWarnings("unchecked") 
+	synchronized void add(T event)
+	{
+		switch (_policy.getMode())
+		{
+			case ALL:
+			_events.add(event);
+			break;
+			
+			case LATEST:
+			_events.clear();
+			_events.add(event);
+			break;
+			
+			case LATEST_BY_KEY:
+			_keyedEvents.put(((Coalescing.Key<T>) _policy.getKey()).keyOf(event), event);
+			break;
+		}
+		if (!_scheduled)
+		{
+			_scheduled = true;
+			_scheduler.schedule(this, _policy.getDelayMillis());
+		}
+	}
+	
+	@Override public void run()
+	{
+		List<T> events;
+		synchronized (this)
+		{
+			_scheduled = false;
+			if (!_keyedEvents.isEmpty())
+			{
+				events = new ArrayList<T>(_keyedEvents.values());
+				_keyedEvents.clear();
+			}
+			else if (!_events.isEmpty())
+			{
+				events = _events;
+				_events = new ArrayList<T>();
+			}
+			else
+			{
+				events = Collections.emptyList();
+			}
+		}
+		if (!events.isEmpty())
+		{
+			_flusher.flush(events);
+		}
+	}
+	
+	final private Coalescing _policy;
+	final private CoalescingScheduler _scheduler;
+	final private Flusher<T> _flusher;
+	private List<T> _events = new ArrayList<T>();
+	final private Map<Object, T> _keyedEvents = new LinkedHashMap<Object, T>();
+	private boolean _scheduled = false;
+}
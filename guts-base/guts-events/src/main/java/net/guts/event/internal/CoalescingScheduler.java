@@ -0,0 +1,85 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.internal;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import net.guts.common.cleaner.Cleanable;
+import net.guts.common.cleaner.Cleaner;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+// Single daemon thread that flushes all coalescing channels of an Injector; hence
+// consumers of these channels without Thread Policy are all notified from that
+// thread, one after the other.
+// The thread is created only when the first coalescing channel publishes an event,
+// it doesn't reference the scheduler: once the scheduler is garbage collected (eg
+// because its Injector was discarded), the Cleaner stops the thread.
+@Singleton
+public class CoalescingScheduler
+{
+	@Inject public CoalescingScheduler(Cleaner cleaner)
+	{
+		_cleaner = cleaner;
+	}
+	
+	public void schedule(Runnable flush, long delayMillis)
+	{
+		getExecutor().schedule(flush, delayMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	synchronized private ScheduledExecutorService getExecutor()
+	{
+		if (_executor == null)
+		{
+			ExecutorShutdown shutdown = new ExecutorShutdown();
+			_executor = Executors.newSingleThreadScheduledExecutor(shutdown);
+			shutdown._executor = _executor;
+			shutdown._scheduler = _cleaner.weakReference(this, shutdown);
+		}
+		return _executor;
+	}
+	
+	// Creates the scheduler thread, and stops it once the scheduler has been 
+	// garbage collected; referenced by the executor, hence by its thread
+	static private class ExecutorShutdown implements ThreadFactory, Cleanable
+	{
+		@Override public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, THREAD_NAME);
+			thread.setDaemon(true);
+			return thread;
+		}
+		
+		@Override public void cleanup()
+		{
+			_executor.shutdown();
+		}
+		
+		private volatile ScheduledExecutorService _executor;
+		// Must remain strongly referenced until the scheduler gets collected
+		@SuppressWarnings("unused")
+		private WeakReference<CoalescingScheduler> _scheduler;
+	}
+
+	static final private String THREAD_NAME = "GUTS-Events coalescing";
+	final private Cleaner _cleaner;
+	private ScheduledExecutorService _executor = null;
+}
@@ -19,8 +19,8 @@ import java.util.concurrent.Executor;
 
 public class ConsumerFilter
 {	
-	ConsumerFilter(
-		ChannelKey key, Method consumer, Method filter, int priority, Executor executor)
+	ConsumerFilter(ChannelKey key, MethodInvoker consumer, MethodInvoker filter, 
+		int priority, Executor executor)
 	{
 		_key = key;
 		_consumer = consumer;
@@ -36,10 +36,20 @@ public class ConsumerFilter
 	
 	public Method getConsumer()
 	{
-		return _consumer;
+		return _consumer.getMethod();
 	}
 	
 	public Method getFilter()
+	{
+		return (_filter != null ? _filter.getMethod() : null);
+	}
+	
+	MethodInvoker getConsumerInvoker()
+	{
+		return _consumer;
+	}
+	
+	MethodInvoker getFilterInvoker()
 	{
 		return _filter;
 	}
@@ -55,8 +65,8 @@ public class ConsumerFilter
 	}
 
 	final private ChannelKey _key;
-	final private Method _consumer;
-	final private Method _filter;
+	final private MethodInvoker _consumer;
+	final private MethodInvoker _filter;
 	final private int _priority;
 	final private Executor _executor;
 }
@@ -0,0 +1,95 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.beans.ConstructorProperties;
+
+// Immutable snapshot of the statistics of one consumer method for one channel,
+// as exposed through EventMetricsMXBean
+public class ConsumerStatistics
+{
+	@ConstructorProperties({"channel", "consumer", "notified", "failed", "dropped", 
+		"totalNanos", "maxNanos", "latencyHistogram"})
+	public ConsumerStatistics(String channel, String consumer, long notified, 
+		long failed, long dropped, long totalNanos, long maxNanos, long[] latencyHistogram)
+	{
+		_channel = channel;
+		_consumer = consumer;
+		_notified = notified;
+		_failed = failed;
+		_dropped = dropped;
+		_totalNanos = totalNanos;
+		_maxNanos = maxNanos;
+		_latencyHistogram = latencyHistogram.clone();
+	}
+
+	public String getChannel()
+	{
+		return _channel;
+	}
+
+	public String getConsumer()
+	{
+		return _consumer;
+	}
+
+	public long getNotified()
+	{
+		return _notified;
+	}
+
+	public long getFailed()
+	{
+		return _failed;
+	}
+
+	public long getDropped()
+	{
+		return _dropped;
+	}
+
+	public long getTotalNanos()
+	{
+		return _totalNanos;
+	}
+
+	public long getMaxNanos()
+	{
+		return _maxNanos;
+	}
+	
+	// See DefaultEventMetrics.HISTOGRAM_BUCKETS for the meaning of each bucket
+	public long[] getLatencyHistogram()
+	{
+		return _latencyHistogram.clone();
+	}
+	
+	@Override public String toString()
+	{
+		return String.format(
+			"%s on %s: notified=%d, failed=%d, dropped=%d, total=%dns, max=%dns", 
+			_consumer, _channel, _notified, _failed, _dropped, _totalNanos, _maxNanos);
+	}
+
+	final private String _channel;
+	final private String _consumer;
+	final private long _notified;
+	final private long _failed;
+	final private long _dropped;
+	final private long _totalNanos;
+	final private long _maxNanos;
+	final private long[] _latencyHistogram;
+}
@@ -0,0 +1,282 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.guts.event.EventMetrics;
+import net.guts.event.MetricsOptions;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.TypeLiteral;
+
+// Default EventMetrics: lock-free counters per channel and per consumer method,
+// consumer latencies are kept as histograms with power-of-2 buckets
+@Singleton
+public class DefaultEventMetrics implements EventMetrics
+{
+	static private final Logger _logger = LoggerFactory.getLogger(DefaultEventMetrics.class);
+	
+	// Bucket i counts invocations that took less than 2^(i + 10) ns (about 1us, 
+	// 2us, 4us...), last bucket counts all longer invocations
+	static public final int HISTOGRAM_BUCKETS = 32;
+	
+	@Inject 
+	public DefaultEventMetrics(Map<Class<? extends Annotation>, Provider<Executor>> executors)
+	{
+		_executors = executors;
+		setOptions(MetricsOptions.DEFAULT);
+	}
+	
+	@Inject(optional = true) 
+	public void setOptions(MetricsOptions options)
+	{
+		_options = options;
+		_slowThreshold = options.getSlowConsumerThreshold(TimeUnit.NANOSECONDS);
+	}
+	
+	public MetricsOptions getOptions()
+	{
+		return _options;
+	}
+	
+	public long getSlowConsumerThreshold(TimeUnit unit)
+	{
+		return unit.convert(_slowThreshold, TimeUnit.NANOSECONDS);
+	}
+	
+	// Changes the threshold until next restart (used from JMX)
+	public void setSlowConsumerThreshold(long threshold, TimeUnit unit)
+	{
+		_slowThreshold = unit.toNanos(threshold);
+	}
+
+	@Override public ChannelMetrics channelCreated(Type eventType, String topic)
+	{
+		String name = channelName(eventType, topic);
+		ChannelStats stats = new ChannelStats(name);
+		ChannelStats previous = _channels.putIfAbsent(name, stats);
+		return (previous != null ? previous : stats);
+	}
+	
+	// Snapshot of the number of events published to each channel
+	public Map<String, Long> getPublishCounts()
+	{
+		Map<String, Long> counts = new TreeMap<String, Long>();
+		for (ChannelStats channel: _channels.values())
+		{
+			counts.put(channel._name, channel._published.get());
+		}
+		return counts;
+	}
+	
+	// Snapshot of statistics of all consumer methods
+	public List<ConsumerStatistics> getConsumerStatistics()
+	{
+		List<ConsumerStatistics> statistics = new ArrayList<ConsumerStatistics>();
+		for (ChannelStats channel: _channels.values())
+		{
+			for (ConsumerStats consumer: channel._consumers.values())
+			{
+				statistics.add(consumer.snapshot());
+			}
+		}
+		return statistics;
+	}
+	
+	// Number of tasks waiting for a thread in each Thread Policy executor
+	public Map<String, Integer> getExecutorQueueDepths()
+	{
+		Map<String, Integer> depths = new TreeMap<String, Integer>();
+		for (Map.Entry<Class<? extends Annotation>, Provider<Executor>> entry: 
+			_executors.entrySet())
+		{
+			Executor executor = entry.getValue().get();
+			String name = "@" + entry.getKey().getSimpleName();
+			if (executor instanceof InDeferredThreadExecutor)
+			{
+				depths.put(name, ((InDeferredThreadExecutor) executor).getPendingCount());
+			}
+			else if (executor instanceof ThreadPoolExecutor)
+			{
+				depths.put(name, ((ThreadPoolExecutor) executor).getQueue().size());
+			}
+		}
+		return depths;
+	}
+	
+	public void reset()
+	{
+		for (ChannelStats channel: _channels.values())
+		{
+			channel.reset();
+		}
+	}
+	
+	static String channelName(Type eventType, String topic)
+	{
+		String type = TypeLiteral.get(eventType).toString();
+		return (topic == null || topic.length() == 0 ? type : type + " '" + topic + "'");
+	}
+	
+	static int bucket(long nanos)
+	{
+		int bucket = (Long.SIZE - Long.numberOfLeadingZeros(nanos)) - 10;
+		return Math.min(Math.max(bucket, 0), HISTOGRAM_BUCKETS - 1);
+	}
+
+	private class ChannelStats implements ChannelMetrics
+	{
+		ChannelStats(String name)
+		{
+			_name = name;
+		}
+		
+		@Override public void published()
+		{
+			_published.incrementAndGet();
+		}
+
+		@Override public ConsumerMetrics consumerAdded(Method consumer)
+		{
+			ConsumerStats stats = _consumers.get(consumer);
+			if (stats == null)
+			{
+				stats = new ConsumerStats(this, consumer);
+				ConsumerStats previous = _consumers.putIfAbsent(consumer, stats);
+				if (previous != null)
+				{
+					stats = previous;
+				}
+			}
+			return stats;
+		}
+		
+		void reset()
+		{
+			_published.set(0);
+			for (ConsumerStats consumer: _consumers.values())
+			{
+				consumer.reset();
+			}
+		}
+
+		final private String _name;
+		final private AtomicLong _published = new AtomicLong();
+		// Same method for all instances of a consumer class, hence one entry only
+		final private ConcurrentMap<Method, ConsumerStats> _consumers = 
+			new ConcurrentHashMap<Method, ConsumerStats>();
+	}
+	
+	private class ConsumerStats implements ConsumerMetrics
+	{
+		ConsumerStats(ChannelStats channel, Method consumer)
+		{
+			_channel = channel;
+			_consumer = consumer;
+		}
+		
+		@Override public void notified(long nanos)
+		{
+			_notified.incrementAndGet();
+			_totalNanos.addAndGet(nanos);
+			_histogram.incrementAndGet(bucket(nanos));
+			long max;
+			while (nanos > (max = _maxNanos.get()))
+			{
+				if (_maxNanos.compareAndSet(max, nanos))
+				{
+					break;
+				}
+			}
+			long threshold = _slowThreshold;
+			if (threshold > 0 && nanos >= threshold)
+			{
+				_logger.warn("Slow consumer {} took {} ms to handle event on {} in thread {}",
+					new Object[]{_consumer, TimeUnit.NANOSECONDS.toMillis(nanos), 
+					_channel._name, Thread.currentThread().getName()});
+			}
+		}
+
+		@Override public void failed()
+		{
+			_failed.incrementAndGet();
+		}
+
+		@Override public void dropped()
+		{
+			_dropped.incrementAndGet();
+		}
+		
+		ConsumerStatistics snapshot()
+		{
+			long[] histogram = new long[HISTOGRAM_BUCKETS];
+			for (int i = 0; i < histogram.length; i++)
+			{
+				histogram[i] = _histogram.get(i);
+			}
+			return new ConsumerStatistics(_channel._name, _consumer.toString(), 
+				_notified.get(), _failed.get(), _dropped.get(), 
+				_totalNanos.get(), _maxNanos.get(), histogram);
+		}
+		
+		void reset()
+		{
+			_notified.set(0);
+			_failed.set(0);
+			_dropped.set(0);
+			_totalNanos.set(0);
+			_maxNanos.set(0);
+			for (int i = 0; i < HISTOGRAM_BUCKETS; i++)
+			{
+				_histogram.set(i, 0);
+			}
+		}
+		
+		final private ChannelStats _channel;
+		final private Method _consumer;
+		final private AtomicLong _notified = new AtomicLong();
+		final private AtomicLong _failed = new AtomicLong();
+		final private AtomicLong _dropped = new AtomicLong();
+		final private AtomicLong _totalNanos = new AtomicLong();
+		final private AtomicLong _maxNanos = new AtomicLong();
+		final private AtomicLongArray _histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+	}
+
+	final private Map<Class<? extends Annotation>, Provider<Executor>> _executors;
+	final private ConcurrentMap<String, ChannelStats> _channels = 
+		new ConcurrentHashMap<String, ChannelStats>();
+	private MetricsOptions _options;
+	private volatile long _slowThreshold;
+}
@@ -0,0 +1,46 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import net.guts.event.EventMetrics;
+import net.guts.event.MetricsOptions;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+// Provides DefaultEventMetrics if enabled in MetricsOptions bound by the 
+// application, NoEventMetrics otherwise
+public class EventMetricsProvider implements Provider<EventMetrics>
+{
+	@Inject EventMetricsProvider(Provider<DefaultEventMetrics> metrics)
+	{
+		_metrics = metrics;
+	}
+	
+	@Inject(optional = true) 
+	public void setOptions(MetricsOptions options)
+	{
+		_options = options;
+	}
+	
+	@Override public EventMetrics get()
+	{
+		return (_options.isEnabled() ? _metrics.get() : NoEventMetrics.INSTANCE);
+	}
+
+	final private Provider<DefaultEventMetrics> _metrics;
+	private MetricsOptions _options = MetricsOptions.DEFAULT;
+}
@@ -14,18 +14,36 @@
 
 package net.guts.event.internal;
 
+import java.awt.Component;
+import java.awt.Window;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import net.guts.common.cleaner.Cleanable;
+import net.guts.common.cleaner.Cleaner;
+import net.guts.common.type.PrimitiveHelper;
 import net.guts.common.type.TypeHelper;
 import net.guts.event.Channel;
+import net.guts.event.ChannelOptions;
 import net.guts.event.EventService;
+import net.guts.event.RequestChannel;
+import net.guts.event.Subscription;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -35,28 +53,66 @@ import com.google.inject.TypeLiteral;
 public class EventServiceImpl implements EventService
 {
 	@Inject
-	public EventServiceImpl(
-		AnnotationProcessorFactory processorFactory, ChannelFactory channelFactory)
+	public EventServiceImpl(AnnotationProcessorFactory processorFactory, 
+		ChannelFactory channelFactory, Cleaner cleaner)
 	{
 		_processor = processorFactory.create(Collections.unmodifiableSet(_channels.keySet()));
 		_factory = channelFactory;
+		_cleaner = cleaner;
 	}
 	
 	@Override public <T> void registerChannel(TypeLiteral<T> type, String topic)
+	{
+		registerChannel(type, topic, ChannelOptions.DEFAULT);
+	}
+	
+	@Override public <T> void registerChannel(
+		TypeLiteral<T> type, String topic, ChannelOptions options)
 	{
 		ChannelKey key = new ChannelKey(type.getType(), topic);
-		Lock write = _lock.writeLock();
-		write.lock();
+		if (_channels.containsKey(key))
+		{
+			return;
+		}
+		_lock.lock();
 		try
 		{
-			if (!_channels.containsKey(key))
+			if (_channels.putIfAbsent(key, new ChannelImplHolder(options)) != null)
+			{
+				return;
+			}
+			_topics.add(key);
+			// Add existing wildcard consumers matching the new channel
+			Iterator<WildcardConsumer> i = _wildcardConsumers.iterator();
+			while (i.hasNext())
+			{
+				WildcardConsumer consumer = i.next();
+				Object instance = consumer._instance.get();
+				if (instance == null)
+				{
+					i.remove();
+				}
+				else if (consumer.matches(key))
+				{
+					addConsumer(getChannelImpl(key.getType(), key.getTopic()), 
+						instance, consumer._event, consumer._subscription);
+				}
+			}
+			// Existing polymorphic channels may have to dispatch to the new channel
+			for (Map.Entry<ChannelKey, ChannelImplHolder> entry: _channels.entrySet())
 			{
-				_channels.put(key, new ChannelImplHolder());
+				ChannelImpl<?> channel = entry.getValue().getChannel();
+				if (	channel != null
+					&&	entry.getValue().getOptions().isPolymorphicDispatch()
+					&&	isSuperKey(key, entry.getKey()))
+				{
+					updateSuperChannels(entry.getKey(), channel);
+				}
 			}
 		}
 		finally
 		{
-			write.unlock();
+			_lock.unlock();
 		}
 	}
 
@@ -67,64 +123,361 @@ public class EventServiceImpl implements EventService
 		return (Channel<T>) getChannelImpl(type.getType(), topic);
 	}
 
+	@Override @SuppressWarnings("unchecked")
+	public <Q, R> RequestChannel<Q, R> getRequestChannel(
+		TypeLiteral<Q> type, TypeLiteral<R> replyType, String topic)
+		throws IllegalArgumentException
+	{
+		ChannelImpl<Q> channel = (ChannelImpl<Q>) getChannelImpl(type.getType(), topic);
+		return new RequestChannelImpl<Q, R>(
+			channel, PrimitiveHelper.toWrapper(replyType.getRawType()));
+	}
+
 	private ChannelImpl<?> getChannelImpl(Type type, String topic)
 		throws IllegalArgumentException
 	{
 		ChannelKey key = new ChannelKey(type, topic);
-		Lock read = _lock.readLock();
-		read.lock();
+		ChannelImplHolder holder = _channels.get(key);
+		if (holder == null)
+		{
+			String message = String.format(
+				"No registered Event Channel for type '%s' and topic '%s'", type, topic);
+			throw new IllegalArgumentException(message);
+		}
+		// No lock once the channel has been created
+		ChannelImpl<?> channel = holder.getChannel();
+		if (channel != null)
+		{
+			return channel;
+		}
+		_lock.lock();
 		try
 		{
-			ChannelImplHolder holder = _channels.get(key);
-			if (holder == null)
-			{
-				String message = String.format(
-					"No registered Event Channel for type '%s' and topic '%s'", type, topic);
-				throw new IllegalArgumentException(message);
-			}
-			//TODO use double-check locking for better performance?
-			synchronized (holder)
+			channel = holder.getChannel();
+			if (channel == null)
 			{
-				ChannelImpl<?> channel = holder.getChannel();
-				if (channel == null)
+				channel = _factory.create(type, topic, holder.getOptions());
+				if (holder.getOptions().isPolymorphicDispatch())
 				{
-					channel = _factory.create(type, topic);
-					holder.setChannel(channel);
+					updateSuperChannels(key, channel);
 				}
-				return channel;
+				holder.setChannel(channel);
 			}
+			return channel;
 		}
 		finally
 		{
-			read.unlock();
+			_lock.unlock();
+		}
+	}
+
+	// Called with _lock held
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void updateSuperChannels(ChannelKey key, ChannelImpl<?> channel)
+	{
+		List<ChannelImpl<?>> superChannels = new ArrayList<ChannelImpl<?>>();
+		for (ChannelKey superKey: _channels.keySet())
+		{
+			if (isSuperKey(superKey, key))
+			{
+				superChannels.add(getChannelImpl(superKey.getType(), superKey.getTopic()));
+			}
 		}
+		((ChannelImpl) channel).setSuperChannels(superChannels);
+	}
+	
+	static private boolean isSuperKey(ChannelKey superKey, ChannelKey key)
+	{
+		return	!superKey.equals(key)
+			&&	superKey.getTopic().equals(key.getTopic())
+			&&	TypeHelper.typeIsSubtypeOf(
+				TypeLiteral.get(key.getType()), TypeLiteral.get(superKey.getType()));
 	}
 
-	@Override public void registerConsumers(Object instance)
+	@Override public Subscription registerConsumers(Object instance)
 	{
 		Class<?> clazz = TypeHelper.extractPureClass(instance);
-		Lock read = _lock.readLock();
-		read.lock();
+		List<ConsumerFilter> events = _processor.process(clazz);
+		if (events.isEmpty())
+		{
+			return NO_SUBSCRIPTION;
+		}
+		SubscriptionImpl subscription = new SubscriptionImpl(instance);
+		// Add all consumers (and filters) to the matching channels 
+		for (ConsumerFilter event: events)
+		{
+			ChannelKey key = event.getKey();
+			if (TopicTrie.isPattern(key.getTopic()))
+			{
+				addWildcardConsumer(instance, event, subscription);
+			}
+			else
+			{
+				addConsumer(getChannelImpl(key.getType(), key.getTopic()), 
+					instance, event, subscription);
+			}
+		}
+		index(subscription);
+		return subscription;
+	}
+	
+	@Override public void unregisterConsumers(Object instance)
+	{
+		if (instance == null)
+		{
+			return;
+		}
+		List<SubscriptionImpl> subscriptions;
+		synchronized (_subscriptions)
+		{
+			List<SubscriptionImpl> sameHash = 
+				_subscriptions.get(System.identityHashCode(instance));
+			if (sameHash == null)
+			{
+				return;
+			}
+			subscriptions = new ArrayList<SubscriptionImpl>(sameHash.size());
+			for (SubscriptionImpl subscription: sameHash)
+			{
+				if (subscription._instance.get() == instance)
+				{
+					subscriptions.add(subscription);
+				}
+			}
+		}
+		for (SubscriptionImpl subscription: subscriptions)
+		{
+			subscription.close();
+		}
+	}
+	
+	private void addWildcardConsumer(
+		Object instance, ConsumerFilter event, SubscriptionImpl subscription)
+	{
+		WildcardConsumer consumer = new WildcardConsumer(instance, event, subscription);
+		_lock.lock();
 		try
 		{
-			List<ConsumerFilter> events = _processor.process(clazz);
-			// Add all consumers (and filters) to the matching channels 
-			for (ConsumerFilter event: events)
+			for (ChannelKey key: _topics.match(event.getKey().getTopic()))
 			{
-				ChannelImpl<?> channel = 
-					getChannelImpl(event.getKey().getType(), event.getKey().getTopic());
-				channel.addConsumer(instance, event.getConsumer(), event.getPriority(), 
-					event.getFilter(), event.getExecutor());
+				if (consumer.matches(key))
+				{
+					addConsumer(getChannelImpl(key.getType(), key.getTopic()), 
+						instance, event, subscription);
+				}
 			}
+			// Remember consumer for channels registered later
+			_wildcardConsumers.add(consumer);
+			subscription._wildcards.add(consumer);
 		}
 		finally
 		{
-			read.unlock();
+			_lock.unlock();
+		}
+	}
+	
+	static private void addConsumer(ChannelImpl<?> channel, Object instance, 
+		ConsumerFilter event, SubscriptionImpl subscription)
+	{
+		subscription.added(channel, channel.addConsumer(instance, 
+			event.getConsumerInvoker(), event.getPriority(), event.getFilterInvoker(), 
+			event.getExecutor()));
+	}
+	
+	// Subscriptions are indexed by identity hash code of their instance
+	private void index(SubscriptionImpl subscription)
+	{
+		synchronized (_subscriptions)
+		{
+			List<SubscriptionImpl> sameHash = _subscriptions.get(subscription._hash);
+			if (sameHash == null)
+			{
+				sameHash = new ArrayList<SubscriptionImpl>(1);
+				_subscriptions.put(subscription._hash, sameHash);
+			}
+			sameHash.add(subscription);
 		}
 	}
 	
+	private void unindex(SubscriptionImpl subscription)
+	{
+		synchronized (_subscriptions)
+		{
+			List<SubscriptionImpl> sameHash = _subscriptions.get(subscription._hash);
+			if (sameHash != null && sameHash.remove(subscription) && sameHash.isEmpty())
+			{
+				_subscriptions.remove(subscription._hash);
+			}
+		}
+	}
+	
+	// Consumers of one instance: channels they were added to, wildcard consumers;
+	// an instance may have several subscriptions (eg registered by Guice and then
+	// explicitly), hence each subscription removes only its own consumers
+	private class SubscriptionImpl implements Subscription, Cleanable
+	{
+		SubscriptionImpl(Object instance)
+		{
+			_instance = _cleaner.weakReference(instance, this);
+			_hash = System.identityHashCode(instance);
+		}
+		
+		void added(ChannelImpl<?> channel, ChannelImpl.Consumer consumer)
+		{
+			_channels.addIfAbsent(channel);
+			_consumers.add(consumer);
+		}
+
+		@Override public void close()
+		{
+			if (!_closed.compareAndSet(false, true))
+			{
+				return;
+			}
+			// First prevent wildcard consumers from being added to new channels
+			_lock.lock();
+			try
+			{
+				_wildcardConsumers.removeAll(_wildcards);
+			}
+			finally
+			{
+				_lock.unlock();
+			}
+			for (ChannelImpl<?> channel: _channels)
+			{
+				channel.removeConsumers(_consumers);
+			}
+			unindex(this);
+		}
+
+		@Override public boolean isClosed()
+		{
+			return _closed.get();
+		}
+		
+		@Override public Subscription closeOnDispose(Component component)
+		{
+			new WindowCloser(component);
+			return this;
+		}
+
+		// Called by Cleaner once instance has been garbage collected; channels
+		// remove their own consumers
+		@Override public void cleanup()
+		{
+			_closed.set(true);
+			_lock.lock();
+			try
+			{
+				_wildcardConsumers.removeAll(_wildcards);
+			}
+			finally
+			{
+				_lock.unlock();
+			}
+			unindex(this);
+		}
+
+		// Closes the subscription once the Window containing component (or component
+		// itself if it is a Window) gets closed, ie disposed; just removing component
+		// from its Window, or hiding the Window, doesn't close the subscription
+		private class WindowCloser extends WindowAdapter implements HierarchyListener
+		{
+			WindowCloser(Component component)
+			{
+				_component = component;
+				if (component instanceof Window)
+				{
+					watch((Window) component);
+				}
+				else
+				{
+					// Follow component when moved to another Window
+					component.addHierarchyListener(this);
+					watch(windowOf(component));
+				}
+			}
+			
+			@Override public void hierarchyChanged(HierarchyEvent e)
+			{
+				if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0)
+				{
+					watch(windowOf(_component));
+				}
+			}
+			
+			@Override public void windowClosed(WindowEvent e)
+			{
+				_component.removeHierarchyListener(this);
+				watch(null);
+				close();
+			}
+			
+			private void watch(Window window)
+			{
+				if (window != _window)
+				{
+					if (_window != null)
+					{
+						_window.removeWindowListener(this);
+					}
+					_window = window;
+					if (window != null)
+					{
+						window.addWindowListener(this);
+					}
+				}
+			}
+			
+			final private Component _component;
+			private Window _window = null;
+		}
+
+		final private WeakReference<Object> _instance;
+		final private int _hash;
+		final private AtomicBoolean _closed = new AtomicBoolean(false);
+		final private CopyOnWriteArrayList<ChannelImpl<?>> _channels = 
+			new CopyOnWriteArrayList<ChannelImpl<?>>();
+		final private List<ChannelImpl.Consumer> _consumers = 
+			new CopyOnWriteArrayList<ChannelImpl.Consumer>();
+		final private List<WildcardConsumer> _wildcards = 
+			new CopyOnWriteArrayList<WildcardConsumer>();
+	}
+	
+	// Consumer registered with a wildcard topic
+	private class WildcardConsumer
+	{
+		WildcardConsumer(Object instance, ConsumerFilter event, SubscriptionImpl subscription)
+		{
+			_instance = new WeakReference<Object>(instance);
+			_event = event;
+			_subscription = subscription;
+		}
+		
+		boolean matches(ChannelKey key)
+		{
+			return	_event.getKey().getType().equals(key.getType())
+				&&	_topics.match(_event.getKey().getTopic()).contains(key);
+		}
+		
+		final private WeakReference<Object> _instance;
+		final private ConsumerFilter _event;
+		final private SubscriptionImpl _subscription;
+	}
+	
 	static public class ChannelImplHolder
 	{
+		ChannelImplHolder(ChannelOptions options)
+		{
+			_options = options;
+		}
+		
+		ChannelOptions getOptions()
+		{
+			return _options;
+		}
+		
 		ChannelImpl<?> getChannel()
 		{
 			return _channel;
@@ -135,15 +488,56 @@ public class EventServiceImpl implements EventService
 			_channel = channel;
 		}
 
-		private ChannelImpl<?> _channel;
+		final private ChannelOptions _options;
+		// Lazily created, set only once
+		private volatile ChannelImpl<?> _channel;
+	}
+
+	static private Window windowOf(Component component)
+	{
+		for (Component parent = component; parent != null; parent = parent.getParent())
+		{
+			if (parent instanceof Window)
+			{
+				return (Window) parent;
+			}
+		}
+		return null;
 	}
 
+	static final private Subscription NO_SUBSCRIPTION = new Subscription()
+	{
+		@Override public void close()
+		{
+		}
+
+		@Override public boolean isClosed()
+		{
+			return true;
+		}
+
+		@Override public Subscription closeOnDispose(Component component)
+		{
+			return this;
+		}
+	};
+	
 	final private AnnotationProcessor _processor;
 	final private ChannelFactory _factory;
+	final private Cleaner _cleaner;
 
 	// Map of all registered event channels
-	final private Map<ChannelKey, ChannelImplHolder> _channels = 
-		new HashMap<ChannelKey, ChannelImplHolder>();
-	// RW lock to access _consumers
-	final private ReadWriteLock _lock = new ReentrantReadWriteLock();
+	final private ConcurrentMap<ChannelKey, ChannelImplHolder> _channels = 
+		new ConcurrentHashMap<ChannelKey, ChannelImplHolder>();
+	// Index of channels topics, to resolve wildcard topics of consumers
+	final private TopicTrie _topics = new TopicTrie();
+	// All consumers with wildcard topics, to be added to channels registered later
+	final private List<WildcardConsumer> _wildcardConsumers = 
+		new ArrayList<WildcardConsumer>();
+	// Subscriptions of all registered instances, by identity hash code of instance
+	final private Map<Integer, List<SubscriptionImpl>> _subscriptions = 
+		new HashMap<Integer, List<SubscriptionImpl>>();
+	// Lock serializing channels registration, channels creation and registration
+	// of wildcard consumers; never used once channels are created
+	final private Lock _lock = new ReentrantLock();
 }
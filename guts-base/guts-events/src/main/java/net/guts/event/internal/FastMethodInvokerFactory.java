@@ -0,0 +1,167 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Singleton;
+import com.google.inject.internal.BytecodeGen.Visibility;
+
+// Uses cglib (as repackaged by Guice) to generate, once per consumer method, a 
+// class that directly calls that method without reflection nor arguments array.
+// Falls back to reflection when the method cannot be accessed from a generated
+// class (eg private classes or non public methods). Methods taking one int, long
+// or double argument also get a generated PrimitiveCall to be called without 
+// boxing. Nothing is cached here: generated classes are referenced by their 
+// invokers only, hence they don't prevent consumer classes from being unloaded.
+@Singleton
+public class FastMethodInvokerFactory implements MethodInvokerFactory
+{
+	static private final Logger _logger = 
+		LoggerFactory.getLogger(FastMethodInvokerFactory.class);
+
+	//CSOFF: IllegalCatchCheck
+	@Override public MethodInvoker create(Class<?> clazz, Method method)
+	{
+		if (	Modifier.isPublic(method.getModifiers())
+			&&	method.getParameterTypes().length == 1
+			&&	isAccessible(clazz) 
+			&&	isAccessible(clazz, method.getDeclaringClass()))
+		{
+			try
+			{
+				Visibility visibility = Visibility.forType(clazz).and(
+					Visibility.forType(method.getDeclaringClass()));
+				ObjectCall call = CallGenerator.generate(clazz, method, visibility);
+				if (CallGenerator.supportsPrimitive(method.getParameterTypes()[0]))
+				{
+					// int, long and double events can then be passed without boxing
+					return new FastPrimitiveMethodInvoker(method, call, 
+						CallGenerator.generatePrimitive(clazz, method, visibility));
+				}
+				return new FastMethodInvoker(method, call);
+			}
+			catch (RuntimeException e)
+			{
+				// Generation generally fails for all methods at once (e.g. java.lang 
+				// not opened to Guice), hence warn only once
+				if (_fallbackLogged.compareAndSet(false, true))
+				{
+					_logger.warn("Could not generate invoker for " + method + 
+						", this and further failing methods will be called through " +
+						"reflection; use Events.useReflection() to disable generation", e);
+				}
+				else
+				{
+					_logger.debug("Could not generate invoker for " + method, e);
+				}
+			}
+		}
+		return new ReflectionMethodInvoker(method);
+	}
+	//CSON: IllegalCatchCheck
+	
+	// Generated class is in the package of clazz, hence a non public superclass
+	// declaring the method must be in the same package
+	static private boolean isAccessible(Class<?> clazz, Class<?> declaring)
+	{
+		if (	!Modifier.isPublic(declaring.getModifiers())
+			&&	clazz.getPackage() != declaring.getPackage())
+		{
+			return false;
+		}
+		return isAccessible(declaring);
+	}
+	
+	static private boolean isAccessible(Class<?> clazz)
+	{
+		for (Class<?> c = clazz; c != null; c = c.getEnclosingClass())
+		{
+			if (Modifier.isPrivate(c.getModifiers()))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	final private AtomicBoolean _fallbackLogged = new AtomicBoolean(false);
+	
+	//CSOFF: IllegalCatchCheck
+	static private class FastMethodInvoker implements MethodInvoker
+	{
+		FastMethodInvoker(Method method, ObjectCall call)
+		{
+			_method = method;
+			_call = call;
+		}
+		
+		@Override public Method getMethod()
+		{
+			return _method;
+		}
+
+		@Override public Object invoke(Object instance, Object event)
+			throws InvocationTargetException
+		{
+			try
+			{
+				return _call.call(instance, event);
+			}
+			catch (Throwable e)
+			{
+				// Same behavior as Method.invoke()
+				throw new InvocationTargetException(e);
+			}
+		}
+		
+		final private Method _method;
+		final private ObjectCall _call;
+	}
+	
+	static private class FastPrimitiveMethodInvoker 
+		extends FastMethodInvoker implements PrimitiveMethodInvoker
+	{
+		FastPrimitiveMethodInvoker(
+			Method method, ObjectCall call, PrimitiveCall primitiveCall)
+		{
+			super(method, call);
+			_primitiveCall = primitiveCall;
+		}
+		
+		@Override public Object invoke(Object instance, long bits)
+			throws InvocationTargetException
+		{
+			try
+			{
+				return _primitiveCall.call(instance, bits);
+			}
+			catch (Throwable e)
+			{
+				// Same behavior as Method.invoke()
+				throw new InvocationTargetException(e);
+			}
+		}
+		
+		final private PrimitiveCall _primitiveCall;
+	}
+	//CSON: IllegalCatchCheck
+}
@@ -0,0 +1,91 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.guts.event.Coalescing;
+import net.guts.event.Replay;
+
+// Bounded history of events published to a replaying channel
+class History<T>
+{
+	@SuppressWarnings("unchecked")
+	History(Replay policy)
+	{
+		_size = policy.getSize();
+		if (policy.getMode() == Replay.Mode.LATEST_BY_KEY)
+		{
+			_key = (Coalescing.Key<T>) policy.getKey();
+			_events = null;
+			_keyedEvents = new LinkedHashMap<Object, T>()
+			{
+				@Override protected boolean removeEldestEntry(Map.Entry<Object, T> eldest)
+				{
+					return size() > _size;
+				}
+			};
+		}
+		else
+		{
+			_key = null;
+			_events = (T[]) new Object[_size];
+			_keyedEvents = null;
+		}
+	}
+	
+	synchronized void add(T event)
+	{
+		if (_keyedEvents != null)
+		{
+			// Remove first so that the key moves to the end (latest published)
+			Object key = _key.keyOf(event);
+			_keyedEvents.remove(key);
+			_keyedEvents.put(key, event);
+		}
+		else
+		{
+			_events[(int) (_count++ % _size)] = event;
+		}
+	}
+	
+	// Returns retained events, oldest first
+	synchronized List<T> events()
+	{
+		if (_keyedEvents != null)
+		{
+			return new ArrayList<T>(_keyedEvents.values());
+		}
+		int size = (int) Math.min(_count, _size);
+		List<T> events = new ArrayList<T>(size);
+		for (long i = _count - size; i < _count; i++)
+		{
+			events.add(_events[(int) (i % _size)]);
+		}
+		return events;
+	}
+	
+	final private int _size;
+	final private Coalescing.Key<T> _key;
+	// Ring of latest events, for Replay.Mode.LATEST
+	final private T[] _events;
+	private long _count = 0;
+	// Latest event per key, least recently published first, for LATEST_BY_KEY
+	final private Map<Object, T> _keyedEvents;
+}
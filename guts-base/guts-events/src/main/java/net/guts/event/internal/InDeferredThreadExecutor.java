@@ -12,14 +12,179 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
+
 package net.guts.event.internal;
 
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.guts.event.DeferredThreadOptions;
+import net.guts.event.DeferredThreadOptions.Rejection;
+
+import com.google.inject.internal.util.$MapMaker;
 
-public final class InDeferredThreadExecutor implements Executor
+// Bounded pool of daemon threads used for @InDeferredThread consumers; rejected
+// notifications are thrown back (as RejectedExecutionException) to ChannelImpl
+// which reports them to ConsumerExceptionHandler
+public class InDeferredThreadExecutor extends ThreadPoolExecutor
 {
+	public InDeferredThreadExecutor(DeferredThreadOptions options)
+	{
+		this(options, options.isChannelOrdering(), "GUTS-Events deferred-");
+	}
+	
+	// ordered: run OrderedRunnables with the same key one after the other
+	protected InDeferredThreadExecutor(
+		DeferredThreadOptions options, boolean ordered, String threadName)
+	{
+		super(options.getThreads(), options.getThreads(), KEEP_ALIVE_SECONDS, 
+			TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(options.getQueueSize()),
+			new DaemonThreadFactory(threadName), 
+			new RejectionHandler(options.getRejection()));
+		allowCoreThreadTimeOut(true);
+		_options = options;
+		_ordered = ordered;
+	}
+	
+	public DeferredThreadOptions getOptions()
+	{
+		return _options;
+	}
+	
+	// Number of tasks waiting for a thread, including tasks held for ordering
+	public int getPendingCount()
+	{
+		int count = getQueue().size();
+		synchronized (_serialExecutors)
+		{
+			for (SerialExecutor executor: _serialExecutors.values())
+			{
+				count += executor.getPendingCount();
+			}
+		}
+		return count;
+	}
+
 	@Override public void execute(Runnable command)
 	{
-		new Thread(command).start();
+		if (_ordered && command instanceof OrderedRunnable)
+		{
+			serialExecutor(((OrderedRunnable) command).getOrderingKey()).execute(command);
+		}
+		else
+		{
+			super.execute(command);
+		}
 	}
+	
+	private Executor serialExecutor(Object key)
+	{
+		synchronized (_serialExecutors)
+		{
+			SerialExecutor executor = _serialExecutors.get(key);
+			if (executor == null)
+			{
+				// CALLER_RUNS would break ordering, hence only DISCARD doesn't block
+				executor = new SerialExecutor(_pool, _handOff, _options.getQueueSize(), 
+					_options.getRejection() != Rejection.DISCARD);
+				_serialExecutors.put(key, executor);
+			}
+			return executor;
+		}
+	}
+	
+	static private class RejectionHandler implements RejectedExecutionHandler
+	{
+		RejectionHandler(Rejection rejection)
+		{
+			_rejection = rejection;
+		}
+		
+		@Override public void rejectedExecution(Runnable task, ThreadPoolExecutor pool)
+		{
+			if (pool.isShutdown())
+			{
+				throw new RejectedExecutionException("Deferred thread pool is shut down");
+			}
+			switch (_rejection)
+			{
+				case CALLER_RUNS:
+				task.run();
+				break;
+				
+				case BLOCK:
+				try
+				{
+					pool.getQueue().put(task);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new RejectedExecutionException(e);
+				}
+				break;
+				
+				default:
+				throw new RejectedExecutionException("Deferred thread pool is saturated");
+			}
+		}
+
+		final private Rejection _rejection;
+	}
+	
+	static private class DaemonThreadFactory implements ThreadFactory
+	{
+		DaemonThreadFactory(String name)
+		{
+			_name = name;
+		}
+		
+		@Override public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, _name + _count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+		final private String _name;
+		final private AtomicInteger _count = new AtomicInteger(0);
+	}
+
+	static final private long KEEP_ALIVE_SECONDS = 60L;
+
+	final private DeferredThreadOptions _options;
+	final private boolean _ordered;
+	// Executors for ordering, one per ordering key; keys are weak and compared by
+	// identity, as consumers may override equals()
+	final private Map<Object, SerialExecutor> _serialExecutors = 
+		new $MapMaker().weakKeys().makeMap();
+	// Direct access to the pool, bypassing channel ordering
+	final private Executor _pool = new Executor()
+	{
+		@Override public void execute(Runnable command)
+		{
+			InDeferredThreadExecutor.super.execute(command);
+		}
+	};
+	// Used by SerialExecutors to go on in another thread: never blocks nor runs 
+	// command in the calling thread, whatever the rejection policy
+	final private Executor _handOff = new Executor()
+	{
+		@Override public void execute(Runnable command)
+		{
+			if (isShutdown() || !getQueue().offer(command))
+			{
+				throw new RejectedExecutionException("Deferred thread pool is saturated");
+			}
+			// Handoff may come from a caller thread while no pool thread is alive
+			prestartCoreThread();
+		}
+	};
 }
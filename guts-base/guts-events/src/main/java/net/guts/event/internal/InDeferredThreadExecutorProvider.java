@@ -0,0 +1,41 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.util.concurrent.Executor;
+
+import net.guts.event.DeferredThreadOptions;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+// Creates the @InDeferredThread pool from DeferredThreadOptions if bound by the
+// application, from DeferredThreadOptions.DEFAULT otherwise
+public class InDeferredThreadExecutorProvider implements Provider<Executor>
+{
+	@Inject(optional = true) 
+	public void setOptions(DeferredThreadOptions options)
+	{
+		_options = options;
+	}
+	
+	@Override public Executor get()
+	{
+		return new InDeferredThreadExecutor(_options);
+	}
+
+	private DeferredThreadOptions _options = DeferredThreadOptions.DEFAULT;
+}
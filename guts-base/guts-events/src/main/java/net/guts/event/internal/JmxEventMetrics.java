@@ -0,0 +1,157 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.guts.common.cleaner.Cleanable;
+import net.guts.common.cleaner.Cleaner;
+import net.guts.event.EventMetrics;
+
+import com.google.inject.Inject;
+
+// Eagerly created by EventModule to expose DefaultEventMetrics through JMX, if
+// enabled in MetricsOptions; the MBean only weakly references statistics, so that
+// discarded Injectors can still be garbage collected (the Cleaner then unregisters
+// the MBean)
+public class JmxEventMetrics implements EventMetricsMXBean, Cleanable
+{
+	static private final Logger _logger = LoggerFactory.getLogger(JmxEventMetrics.class);
+	
+	static final String NAME_PREFIX = "net.guts.event:type=EventMetrics,id=";
+	
+	@Inject public JmxEventMetrics(EventMetrics metrics, Cleaner cleaner)
+	{
+		if (	metrics instanceof DefaultEventMetrics
+			&&	((DefaultEventMetrics) metrics).getOptions().isJmx())
+		{
+			_metrics = cleaner.weakReference((DefaultEventMetrics) metrics, this);
+			_name = register();
+		}
+		else
+		{
+			_metrics = new WeakReference<DefaultEventMetrics>(null);
+			_name = null;
+		}
+	}
+	
+	// Name of this MBean, null if not registered
+	ObjectName getName()
+	{
+		return _name;
+	}
+	
+	@Override public long getSlowConsumerThresholdMillis()
+	{
+		DefaultEventMetrics metrics = metrics();
+		return (metrics != null ? metrics.getSlowConsumerThreshold(TimeUnit.MILLISECONDS) : 0);
+	}
+
+	@Override public void setSlowConsumerThresholdMillis(long threshold)
+	{
+		DefaultEventMetrics metrics = metrics();
+		if (metrics != null)
+		{
+			metrics.setSlowConsumerThreshold(threshold, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override public Map<String, Long> getPublishCounts()
+	{
+		DefaultEventMetrics metrics = metrics();
+		return (metrics != null ? metrics.getPublishCounts() : 
+			Collections.<String, Long>emptyMap());
+	}
+
+	@Override public Map<String, Integer> getExecutorQueueDepths()
+	{
+		DefaultEventMetrics metrics = metrics();
+		return (metrics != null ? metrics.getExecutorQueueDepths() : 
+			Collections.<String, Integer>emptyMap());
+	}
+
+	@Override public List<ConsumerStatistics> getConsumers()
+	{
+		DefaultEventMetrics metrics = metrics();
+		return (metrics != null ? metrics.getConsumerStatistics() : 
+			Collections.<ConsumerStatistics>emptyList());
+	}
+
+	@Override public void reset()
+	{
+		DefaultEventMetrics metrics = metrics();
+		if (metrics != null)
+		{
+			metrics.reset();
+		}
+	}
+	
+	private ObjectName register()
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(NAME_PREFIX + _ids.incrementAndGet());
+			server.registerMBean(this, name);
+			return name;
+		}
+		catch (JMException e)
+		{
+			_logger.warn("Could not register EventMetrics MBean", e);
+			return null;
+		}
+	}
+	
+	// Called by the Cleaner once DefaultEventMetrics has been garbage collected
+	@Override public void cleanup()
+	{
+		if (_name != null)
+		{
+			try
+			{
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(_name);
+			}
+			catch (JMException e)
+			{
+				_logger.debug("Could not unregister EventMetrics MBean", e);
+			}
+		}
+	}
+	
+	private DefaultEventMetrics metrics()
+	{
+		return _metrics.get();
+	}
+
+	static final private AtomicInteger _ids = new AtomicInteger(0);
+	
+	// Must be kept for the Cleaner to be notified
+	final private WeakReference<DefaultEventMetrics> _metrics;
+	final private ObjectName _name;
+}
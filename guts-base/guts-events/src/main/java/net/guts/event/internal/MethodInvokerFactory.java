@@ -0,0 +1,28 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.internal;
+
+import java.lang.reflect.Method;
+
+import com.google.inject.ImplementedBy;
+
+// Creates invokers for consumer and filter methods; default implementation uses
+// generated classes, but this can be overridden to use plain reflection with
+// Events.useReflection()
+@ImplementedBy(FastMethodInvokerFactory.class)
+public interface MethodInvokerFactory
+{
+	public MethodInvoker create(Class<?> clazz, Method method);
+}
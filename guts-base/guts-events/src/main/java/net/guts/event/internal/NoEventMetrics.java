@@ -0,0 +1,64 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+import net.guts.event.EventMetrics;
+
+// EventMetrics used when metrics are disabled; ChannelImpl checks CONSUMER to avoid
+// measuring consumers invocation time at all
+final class NoEventMetrics implements EventMetrics
+{
+	static final NoEventMetrics INSTANCE = new NoEventMetrics();
+	
+	static final ConsumerMetrics CONSUMER = new ConsumerMetrics()
+	{
+		@Override public void notified(long nanos)
+		{
+		}
+
+		@Override public void failed()
+		{
+		}
+
+		@Override public void dropped()
+		{
+		}
+	};
+
+	static final private ChannelMetrics CHANNEL = new ChannelMetrics()
+	{
+		@Override public void published()
+		{
+		}
+
+		@Override public ConsumerMetrics consumerAdded(Method consumer)
+		{
+			return CONSUMER;
+		}
+	};
+	
+	private NoEventMetrics()
+	{
+	}
+	
+	@Override public ChannelMetrics channelCreated(Type eventType, String topic)
+	{
+		return CHANNEL;
+	}
+}
@@ -0,0 +1,110 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import net.guts.event.DoubleChannel;
+import net.guts.event.EventService;
+import net.guts.event.IntChannel;
+import net.guts.event.LongChannel;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.TypeLiteral;
+
+// Provides the IntChannel, LongChannel or DoubleChannel view of the channel of
+// int, long or double events; events are passed as raw bits to ChannelImpl
+public class PrimitiveChannelProvider<C> implements Provider<C>
+{
+	public PrimitiveChannelProvider(Class<C> channelType, String topic)
+	{
+		_channelType = channelType;
+		_topic = topic;
+	}
+	
+	@Inject public void setEventService(EventService service)
+	{
+		_service = service;
+	}
+
+	// The channel itself is registered by the ChannelProvider bound by 
+	// Events.bindChannel() along with this provider
+	@Override public C get()
+	{
+		if (_channelType == IntChannel.class)
+		{
+			return _channelType.cast(new IntChannelImpl(channel(int.class)));
+		}
+		if (_channelType == LongChannel.class)
+		{
+			return _channelType.cast(new LongChannelImpl(channel(long.class)));
+		}
+		return _channelType.cast(new DoubleChannelImpl(channel(double.class)));
+	}
+	
+	private ChannelImpl<?> channel(Class<?> eventType)
+	{
+		return (ChannelImpl<?>) _service.getChannel(TypeLiteral.get(eventType), _topic);
+	}
+	
+	static private class IntChannelImpl implements IntChannel
+	{
+		IntChannelImpl(ChannelImpl<?> channel)
+		{
+			_channel = channel;
+		}
+		
+		@Override public void publish(int event)
+		{
+			_channel.publishBits(event);
+		}
+		
+		final private ChannelImpl<?> _channel;
+	}
+	
+	static private class LongChannelImpl implements LongChannel
+	{
+		LongChannelImpl(ChannelImpl<?> channel)
+		{
+			_channel = channel;
+		}
+		
+		@Override public void publish(long event)
+		{
+			_channel.publishBits(event);
+		}
+		
+		final private ChannelImpl<?> _channel;
+	}
+	
+	static private class DoubleChannelImpl implements DoubleChannel
+	{
+		DoubleChannelImpl(ChannelImpl<?> channel)
+		{
+			_channel = channel;
+		}
+		
+		@Override public void publish(double event)
+		{
+			_channel.publishBits(Double.doubleToRawLongBits(event));
+		}
+		
+		final private ChannelImpl<?> _channel;
+	}
+
+	final private Class<C> _channelType;
+	final private String _topic;
+	private EventService _service = null;
+}
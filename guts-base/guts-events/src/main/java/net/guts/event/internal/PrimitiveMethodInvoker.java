@@ -0,0 +1,27 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.lang.reflect.InvocationTargetException;
+
+// Implemented by invokers that can pass int, long or double events to their 
+// method without boxing them; events are passed as raw bits, as encoded by 
+// PrimitiveChannelProvider: (long) value for int, Double.doubleToRawLongBits()
+// for double
+public interface PrimitiveMethodInvoker extends MethodInvoker
+{
+	public Object invoke(Object instance, long bits) throws InvocationTargetException;
+}
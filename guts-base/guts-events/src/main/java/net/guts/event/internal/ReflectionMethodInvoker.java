@@ -0,0 +1,40 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+public class ReflectionMethodInvoker implements MethodInvoker
+{
+	public ReflectionMethodInvoker(Method method)
+	{
+		_method = method;
+		_method.setAccessible(true);
+	}
+	
+	@Override public Method getMethod()
+	{
+		return _method;
+	}
+
+	@Override public Object invoke(Object instance, Object event)
+		throws InvocationTargetException, IllegalAccessException
+	{
+		return _method.invoke(instance, event);
+	}
+
+	final private Method _method;
+}
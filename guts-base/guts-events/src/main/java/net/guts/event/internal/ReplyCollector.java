@@ -0,0 +1,274 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import net.guts.event.Replies;
+
+// Collects replies of all consumers notified of one request. ChannelImpl calls 
+// expect() for each consumer before notifying it, reply() once each consumer has
+// been called, and dispatched() once all consumers have been expected; replies are
+// complete when all these calls have been done.
+class ReplyCollector implements Replies<Object>
+{
+	ReplyCollector(Class<?> replyType)
+	{
+		_replyType = replyType;
+	}
+	
+	synchronized void expect(int count)
+	{
+		_pending += count;
+	}
+	
+	void reply(Object result)
+	{
+		List<Runnable> listeners;
+		synchronized (this)
+		{
+			_pending--;
+			if (_done)
+			{
+				// Cancelled, just drop the reply
+				return;
+			}
+			if (result != null && _replyType.isInstance(result))
+			{
+				_replies.add(result);
+				if (_replies.size() == 1)
+				{
+					notifyAll();
+				}
+			}
+			listeners = checkComplete();
+		}
+		runListeners(listeners);
+	}
+	
+	void dispatched()
+	{
+		List<Runnable> listeners;
+		synchronized (this)
+		{
+			_dispatched = true;
+			listeners = checkComplete();
+		}
+		runListeners(listeners);
+	}
+	
+	// Called with lock held, returns the listeners to run if just completed
+	private List<Runnable> checkComplete()
+	{
+		if (_done || !_dispatched || _pending > 0)
+		{
+			return null;
+		}
+		return complete();
+	}
+	
+	// Called with lock held
+	private List<Runnable> complete()
+	{
+		_done = true;
+		notifyAll();
+		List<Runnable> listeners = _listeners;
+		_listeners = null;
+		return listeners;
+	}
+	
+	static private void runListeners(List<Runnable> listeners)
+	{
+		if (listeners != null)
+		{
+			for (Runnable listener: listeners)
+			{
+				listener.run();
+			}
+		}
+	}
+	
+	@Override public void addListener(final Runnable listener, final Executor executor)
+	{
+		Runnable task = new Runnable()
+		{
+			@Override public void run()
+			{
+				executor.execute(listener);
+			}
+		};
+		synchronized (this)
+		{
+			if (!_done)
+			{
+				if (_listeners == null)
+				{
+					_listeners = new ArrayList<Runnable>(1);
+				}
+				_listeners.add(task);
+				return;
+			}
+		}
+		task.run();
+	}
+
+	@Override public boolean cancel(boolean mayInterruptIfRunning)
+	{
+		// Consumers already notified can't be interrupted
+		List<Runnable> listeners;
+		synchronized (this)
+		{
+			if (_done)
+			{
+				return false;
+			}
+			_cancelled = true;
+			listeners = complete();
+		}
+		runListeners(listeners);
+		return true;
+	}
+
+	@Override public synchronized boolean isCancelled()
+	{
+		return _cancelled;
+	}
+
+	@Override public synchronized boolean isDone()
+	{
+		return _done;
+	}
+
+	@Override public synchronized List<Object> get() throws InterruptedException
+	{
+		while (!_done)
+		{
+			wait();
+		}
+		return result();
+	}
+
+	@Override public synchronized List<Object> get(long timeout, TimeUnit unit)
+		throws InterruptedException, TimeoutException
+	{
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!_done)
+		{
+			waitUntil(deadline);
+		}
+		return result();
+	}
+	
+	// Called with lock held
+	private List<Object> result()
+	{
+		if (_cancelled)
+		{
+			throw new CancellationException();
+		}
+		return Collections.unmodifiableList(_replies);
+	}
+	
+	// Called with lock held
+	private void waitUntil(long deadline) throws InterruptedException, TimeoutException
+	{
+		long remaining = deadline - System.nanoTime();
+		if (remaining <= 0)
+		{
+			throw new TimeoutException();
+		}
+		TimeUnit.NANOSECONDS.timedWait(this, remaining);
+	}
+
+	@Override public Future<Object> first()
+	{
+		return _first;
+	}
+	
+	// The first reply is known once there is one reply or all replies are known
+	private class FirstReply implements Future<Object>
+	{
+		@Override public boolean cancel(boolean mayInterruptIfRunning)
+		{
+			return ReplyCollector.this.cancel(mayInterruptIfRunning);
+		}
+
+		@Override public boolean isCancelled()
+		{
+			return ReplyCollector.this.isCancelled();
+		}
+
+		@Override public boolean isDone()
+		{
+			synchronized (ReplyCollector.this)
+			{
+				return _done || !_replies.isEmpty();
+			}
+		}
+
+		@Override public Object get() throws InterruptedException
+		{
+			synchronized (ReplyCollector.this)
+			{
+				while (!isDone())
+				{
+					ReplyCollector.this.wait();
+				}
+				return result();
+			}
+		}
+
+		@Override public Object get(long timeout, TimeUnit unit) 
+			throws InterruptedException, TimeoutException
+		{
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (ReplyCollector.this)
+			{
+				while (!isDone())
+				{
+					waitUntil(deadline);
+				}
+				return result();
+			}
+		}
+		
+		// Called with lock held
+		private Object result()
+		{
+			List<Object> replies = ReplyCollector.this.result();
+			return (replies.isEmpty() ? null : replies.get(0));
+		}
+	}
+	
+	final private Class<?> _replyType;
+	final private List<Object> _replies = new ArrayList<Object>();
+	final private Future<Object> _first = new FirstReply();
+	// Number of consumers expected to reply
+	private int _pending = 0;
+	// true once all consumers have been expected
+	private boolean _dispatched = false;
+	private boolean _done = false;
+	private boolean _cancelled = false;
+	// Listeners to run once done, null once done
+	private List<Runnable> _listeners = null;
+}
@@ -0,0 +1,40 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import net.guts.event.Replies;
+import net.guts.event.RequestChannel;
+
+// Sends requests through the ChannelImpl of the request type and topic
+class RequestChannelImpl<Q, R> implements RequestChannel<Q, R>
+{
+	RequestChannelImpl(ChannelImpl<Q> channel, Class<?> replyType)
+	{
+		_channel = channel;
+		_replyType = replyType;
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	@Override public Replies<R> publish(Q request)
+	{
+		ReplyCollector replies = new ReplyCollector(_replyType);
+		_channel.request(request, replies);
+		return (Replies) replies;
+	}
+	
+	final private ChannelImpl<Q> _channel;
+	final private Class<?> _replyType;
+}
@@ -0,0 +1,52 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import net.guts.event.ChannelOptions;
+import net.guts.event.EventService;
+import net.guts.event.RequestChannel;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.TypeLiteral;
+
+public class RequestChannelProvider<Q, R> implements Provider<RequestChannel<Q, R>>
+{
+	public RequestChannelProvider(
+		TypeLiteral<Q> requestType, TypeLiteral<R> replyType, String topic)
+	{
+		_requestType = requestType;
+		_replyType = replyType;
+		_topic = topic;
+	}
+	
+	@Inject public void setEventService(EventService service)
+	{
+		_service = service;
+		_service.registerChannel(_requestType, _topic, ChannelOptions.DEFAULT);
+	}
+
+	// Bound as singleton, hence get() is called only once
+	@Override public RequestChannel<Q, R> get()
+	{
+		return _service.getRequestChannel(_requestType, _replyType, _topic);
+	}
+
+	final private TypeLiteral<Q> _requestType;
+	final private TypeLiteral<R> _replyType;
+	final private String _topic;
+	private EventService _service = null;
+}
@@ -0,0 +1,253 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.guts.common.cleaner.Cleanable;
+import net.guts.common.cleaner.Cleaner;
+import net.guts.event.RingBuffering;
+import net.guts.event.RingBuffering.WaitStrategy;
+
+// Single-producer, single-consumer ring buffer of preallocated slots (Disruptor
+// style): the producer claims slots up to one full lap ahead of the consumer 
+// sequence, the consumer thread handles all events up to the cursor (published
+// sequence) in one batch.
+// The consumer thread is started by the first publish() and only weakly references
+// the handler (its Channel): once the Channel is garbage collected (eg because its
+// Injector was discarded), the Cleaner stops the thread.
+final class RingBuffer<T> implements Runnable, Cleanable
+{
+	static private final Logger _logger = LoggerFactory.getLogger(RingBuffer.class);
+
+	static interface Handler<T>
+	{
+		public void handle(T event);
+	}
+	
+	RingBuffer(RingBuffering policy, Handler<T> handler, Cleaner cleaner, String name)
+	{
+		_entries = new Object[policy.getSize()];
+		_mask = policy.getSize() - 1;
+		_blocking = (policy.getWaitStrategy() == WaitStrategy.BLOCKING);
+		_handler = cleaner.weakReference(handler, this);
+		_name = name;
+	}
+	
+	// Must always be called from the same thread
+	void publish(T event)
+	{
+		if (_publisher != Thread.currentThread())
+		{
+			start();
+		}
+		long next = _next + 1;
+		// Wait until the consumer has freed the slot (one lap behind)
+		long wrapPoint = next - _entries.length;
+		while (wrapPoint > _cachedConsumed)
+		{
+			_cachedConsumed = _consumed.get();
+			if (wrapPoint > _cachedConsumed)
+			{
+				LockSupport.parkNanos(1L);
+			}
+		}
+		_entries[(int) (next & _mask)] = event;
+		_next = next;
+		if (_blocking)
+		{
+			// Full volatile write, then check if the consumer sleeps
+			_cursor.set(next);
+			if (_waiting)
+			{
+				_lock.lock();
+				try
+				{
+					_published.signalAll();
+				}
+				finally
+				{
+					_lock.unlock();
+				}
+			}
+		}
+		else
+		{
+			// Ordered write is enough: the consumer spins on _cursor
+			_cursor.lazySet(next);
+		}
+	}
+	
+	// Called by the first publish(), then only if another thread publishes
+	synchronized private void start()
+	{
+		Thread current = Thread.currentThread();
+		if (_publisher != null)
+		{
+			throw new IllegalStateException(String.format(
+				"%s: events published from thread '%s' and thread '%s', but " +
+				"ring-buffered channels support only one publishing thread", 
+				_name, _publisher.getName(), current.getName()));
+		}
+		_publisher = current;
+		Thread thread = new Thread(this, _name);
+		thread.setDaemon(true);
+		_thread = thread;
+		thread.start();
+	}
+	
+	// Called by the Cleaner once the handler has been garbage collected
+	@Override public void cleanup()
+	{
+		_stopped = true;
+		Thread thread = _thread;
+		if (thread != null)
+		{
+			thread.interrupt();
+		}
+	}
+	
+	@Override public void run()
+	{
+		long next = 0;
+		try
+		{
+			while (!_stopped)
+			{
+				long available = waitFor(next);
+				if (!dispatch(next, available))
+				{
+					break;
+				}
+				// Free all handled slots at once
+				_consumed.lazySet(available);
+				next = available + 1;
+			}
+		}
+		catch (InterruptedException e)
+		{
+			_logger.debug("Ring buffer thread interrupted", e);
+		}
+		_logger.debug("Ring buffer thread stopped: {}", _name);
+	}
+	
+	// Returns false if the handler has been garbage collected; the handler is not
+	// referenced from run() so that it can be collected while the thread waits
+	//CSOFF: IllegalCatchCheck
+	@SuppressWarnings("unchecked")
+	private boolean dispatch(long first, long last)
+	{
+		Handler<T> handler = _handler.get();
+		if (handler == null)
+		{
+			return false;
+		}
+		for (long sequence = first; sequence <= last; sequence++)
+		{
+			int index = (int) (sequence & _mask);
+			T event = (T) _entries[index];
+			_entries[index] = null;
+			try
+			{
+				handler.handle(event);
+			}
+			catch (RuntimeException e)
+			{
+				// Keep the thread alive for next events
+				_logger.error("Exception while dispatching event " + event, e);
+			}
+		}
+		return true;
+	}
+	//CSON: IllegalCatchCheck
+	
+	private long waitFor(long sequence) throws InterruptedException
+	{
+		long available = _cursor.get();
+		if (available >= sequence)
+		{
+			return available;
+		}
+		if (!_blocking)
+		{
+			while ((available = _cursor.get()) < sequence)
+			{
+				// Busy spin
+				if (_stopped)
+				{
+					throw new InterruptedException();
+				}
+			}
+			return available;
+		}
+		_lock.lock();
+		try
+		{
+			_waiting = true;
+			while ((available = _cursor.get()) < sequence)
+			{
+				_published.await();
+			}
+			return available;
+		}
+		finally
+		{
+			_waiting = false;
+			_lock.unlock();
+		}
+	}
+	
+	// Padding around the sequence value, to avoid false sharing of the cache line
+	// between producer and consumer sequences
+	@SuppressWarnings("unused")
+	static private class Sequence extends AtomicLong
+	{
+		Sequence()
+		{
+			super(-1L);
+		}
+		
+		public volatile long _p1, _p2, _p3, _p4, _p5, _p6, _p7 = 7L;
+	}
+	
+	final private Object[] _entries;
+	final private int _mask;
+	final private boolean _blocking;
+	final private WeakReference<Handler<T>> _handler;
+	final private String _name;
+	private volatile Thread _publisher = null;
+	private volatile Thread _thread = null;
+	private volatile boolean _stopped = false;
+	// Last published sequence
+	final private Sequence _cursor = new Sequence();
+	// Last consumed sequence
+	final private Sequence _consumed = new Sequence();
+	// Used by the producer only
+	private long _next = -1L;
+	private long _cachedConsumed = -1L;
+	// Used by BLOCKING wait strategy only
+	final private Lock _lock = new ReentrantLock();
+	final private Condition _published = _lock.newCondition();
+	private volatile boolean _waiting = false;
+}
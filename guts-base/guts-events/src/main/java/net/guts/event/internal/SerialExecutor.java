@@ -0,0 +1,209 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+// Executes tasks one after the other, in submission order, with threads borrowed
+// from another Executor; the number of pending tasks is bounded: once full, either
+// callers wait for room or tasks are rejected.
+// After MAX_BATCH tasks, the thread is handed back to the pool and draining goes
+// on in a new task submitted to handOff (which must never block nor run the task
+// in the calling thread), so that one busy executor can't starve other ones.
+final class SerialExecutor implements Executor
+{
+	SerialExecutor(Executor delegate, Executor handOff, int capacity, boolean blockWhenFull)
+	{
+		_delegate = delegate;
+		_handOff = handOff;
+		_capacity = capacity;
+		_blockWhenFull = blockWhenFull;
+	}
+	
+	@Override public void execute(Runnable task)
+	{
+		synchronized (_tasks)
+		{
+			// When no drainer is active (last handoff rejected), nobody would make
+			// room, hence task is accepted and a new drainer gets started
+			while (_tasks.size() >= _capacity && _active)
+			{
+				if (!_blockWhenFull)
+				{
+					throw new RejectedExecutionException(
+						"Too many pending tasks (" + _capacity + ")");
+				}
+				if (Thread.currentThread() == _drainerThread)
+				{
+					// Waiting for itself to make room would never end
+					throw new RejectedExecutionException("Too many pending tasks (" + 
+						_capacity + ") submitted from the thread executing them");
+				}
+				try
+				{
+					_tasks.wait();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new RejectedExecutionException(e);
+				}
+			}
+			_tasks.add(task);
+			if (_active)
+			{
+				// The running drainer will get to this task
+				return;
+			}
+			_active = true;
+		}
+		try
+		{
+			_delegate.execute(_drainer);
+		}
+		catch (RejectedExecutionException e)
+		{
+			synchronized (_tasks)
+			{
+				_tasks.remove(task);
+				_active = false;
+				_tasks.notifyAll();
+			}
+			throw e;
+		}
+	}
+	
+	int getPendingCount()
+	{
+		synchronized (_tasks)
+		{
+			return _tasks.size();
+		}
+	}
+	
+	private Runnable next()
+	{
+		synchronized (_tasks)
+		{
+			Runnable task = _tasks.poll();
+			if (task == null)
+			{
+				_active = false;
+				_drainerThread = null;
+			}
+			else
+			{
+				_drainerThread = Thread.currentThread();
+				_tasks.notifyAll();
+			}
+			return task;
+		}
+	}
+	
+	// Lets another thread go on with pending tasks; returns false if no other
+	// thread could be found (then the current drainer should go on if it can)
+	private boolean handOff()
+	{
+		synchronized (_tasks)
+		{
+			_drainerThread = null;
+			if (_tasks.isEmpty())
+			{
+				_active = false;
+				return true;
+			}
+		}
+		try
+		{
+			_handOff.execute(_drainer);
+			return true;
+		}
+		catch (RejectedExecutionException e)
+		{
+			synchronized (_tasks)
+			{
+				// Next call to execute() will start a new drainer
+				_active = false;
+				_tasks.notifyAll();
+			}
+			return false;
+		}
+	}
+	
+	// Called by a drainer which could not hand off: takes over again unless another
+	// drainer was started meanwhile
+	private boolean reclaim()
+	{
+		synchronized (_tasks)
+		{
+			if (_active)
+			{
+				return false;
+			}
+			_active = true;
+			return true;
+		}
+	}
+	
+	private class Drainer implements Runnable
+	{
+		@Override public void run()
+		{
+			do
+			{
+				for (int i = 0; i < MAX_BATCH; i++)
+				{
+					Runnable task = next();
+					if (task == null)
+					{
+						return;
+					}
+					boolean completed = false;
+					try
+					{
+						task.run();
+						completed = true;
+					}
+					finally
+					{
+						if (!completed)
+						{
+							// Let another thread go on with pending tasks
+							handOff();
+						}
+					}
+				}
+			}
+			// If the pool is saturated, this thread goes on with next batch
+			while (!handOff() && reclaim());
+		}
+	}
+
+	static final private int MAX_BATCH = 64;
+	
+	final private Executor _delegate;
+	final private Executor _handOff;
+	final private int _capacity;
+	final private boolean _blockWhenFull;
+	final private Runnable _drainer = new Drainer();
+	final private Queue<Runnable> _tasks = new LinkedList<Runnable>();
+	private boolean _active = false;
+	// Thread currently executing tasks, if any
+	private Thread _drainerThread = null;
+}
@@ -0,0 +1,129 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Index of all registered channels with a topic, by topic segments ('.' separated),
+// used to find channels matching a wildcard topic ('*' matches exactly one segment,
+// '#' matches zero or more segments); results are cached per pattern until a new
+// channel gets added
+final class TopicTrie
+{
+	static boolean isPattern(String topic)
+	{
+		for (String segment: segments(topic))
+		{
+			if (segment.equals(ONE_SEGMENT) || segment.equals(ANY_SEGMENTS))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	synchronized void add(ChannelKey key)
+	{
+		if (key.getTopic().length() == 0)
+		{
+			return;
+		}
+		Node node = _root;
+		for (String segment: segments(key.getTopic()))
+		{
+			Node child = node._children.get(segment);
+			if (child == null)
+			{
+				child = new Node();
+				node._children.put(segment, child);
+			}
+			node = child;
+		}
+		node._keys.add(key);
+		_cache.clear();
+	}
+	
+	synchronized List<ChannelKey> match(String pattern)
+	{
+		List<ChannelKey> keys = _cache.get(pattern);
+		if (keys == null)
+		{
+			Set<ChannelKey> matches = new LinkedHashSet<ChannelKey>();
+			collect(_root, segments(pattern), 0, matches);
+			keys = Collections.unmodifiableList(new ArrayList<ChannelKey>(matches));
+			_cache.put(pattern, keys);
+		}
+		return keys;
+	}
+	
+	static private void collect(Node node, String[] pattern, int index, Set<ChannelKey> matches)
+	{
+		if (index == pattern.length)
+		{
+			matches.addAll(node._keys);
+			return;
+		}
+		String segment = pattern[index];
+		if (segment.equals(ANY_SEGMENTS))
+		{
+			// Either '#' matches no more segment, or it matches one more segment
+			collect(node, pattern, index + 1, matches);
+			for (Node child: node._children.values())
+			{
+				collect(child, pattern, index, matches);
+			}
+		}
+		else if (segment.equals(ONE_SEGMENT))
+		{
+			for (Node child: node._children.values())
+			{
+				collect(child, pattern, index + 1, matches);
+			}
+		}
+		else
+		{
+			Node child = node._children.get(segment);
+			if (child != null)
+			{
+				collect(child, pattern, index + 1, matches);
+			}
+		}
+	}
+	
+	static private String[] segments(String topic)
+	{
+		return topic.split("\\.", -1);
+	}
+	
+	static private class Node
+	{
+		final private Map<String, Node> _children = new HashMap<String, Node>();
+		final private List<ChannelKey> _keys = new ArrayList<ChannelKey>();
+	}
+
+	static final private String ONE_SEGMENT = "*";
+	static final private String ANY_SEGMENTS = "#";
+	
+	final private Node _root = new Node();
+	final private Map<String, List<ChannelKey>> _cache = 
+		new HashMap<String, List<ChannelKey>>();
+}
@@ -27,7 +27,9 @@
  * <li><a href="#guts5">Controlling thread executing consumers notification</a></li>
  * <li><a href="#guts6">Adding special processing to consumer returned values</a></li>
  * <li><a href="#guts7">Handling exceptions thrown by consumers</a></li>
- * <li><a href="#guts9">Miscellaneous</a></li>
+ * <li><a href="#guts8">Channel options</a></li>
+ * <li><a href="#guts9">Monitoring channels and consumers</a></li>
+ * <li><a href="#guts10">Miscellaneous</a></li>
  * </ul>
  * 
  * <p/><a name="guts1"></a><h3>Main concepts</h3>
@@ -163,6 +165,16 @@
  *     ...
  * }
  * </pre>
+ * A consumer method can also consume events from several topics at once, by using
+ * wildcards in its topic: topics are made of segments separated by {@code '.'}, 
+ * {@code '*'} matches exactly one segment and {@code '#'} matches zero or more 
+ * segments:
+ * <pre>
+ * // Notified of events sent to "quotes.EUR.USD", "quotes.USD.JPY"...
+ * &#64;Consumes(topic = "quotes.*.*") public void push(Quote event) {...}
+ * // Notified of events sent to "quotes", "quotes.EUR", "quotes.EUR.USD"...
+ * &#64;Consumes(topic = "quotes.#") public void pushAll(Quote event) {...}
+ * </pre>
  * 
  * <h4>Events of generic types</h4>
  * GUTS-Events, thanks to Guice, also supports events of generic types, by using Guice
@@ -231,6 +243,18 @@
  *     ...
  * }
  * </pre>
+ * For {@code int}, {@code long} and {@code double} events, publishing through a 
+ * {@code Channel<Integer>} boxes every event. {@link net.guts.event.IntChannel},
+ * {@link net.guts.event.LongChannel} and {@link net.guts.event.DoubleChannel}, 
+ * which are bound along with these {@code Channel}s, avoid that: consumers (and
+ * their filters) called in the publishing thread receive events without any
+ * allocation:
+ * <pre>
+ *     &#64;Inject Supplier(IntChannel channel)
+ *     {
+ *         ...
+ *     }
+ * </pre>
  * 
  * <h4>Several consumers in the same class</h4>
  * In GUTS-Events, one class can have several consumer methods for different types
@@ -403,20 +427,39 @@
  * should be used for a given consumer method is based on specific annotations put
  * on that method; default behavior requires no annotation.
  * <p/>
- * In addition to default behavior, GUTS-Events pre-defines two Thread Policies 
+ * In addition to default behavior, GUTS-Events pre-defines three Thread Policies 
  * accessible by the following annotations (follow the javadoc links below for 
  * further details):
  * <ul>
  * <li>{@link net.guts.event.InDeferredThread}</li>
+ * <li>{@link net.guts.event.InMailbox}</li>
  * <li>{@link net.guts.event.InEDT}</li>
  * </ul>
  * <p/>
  * Note that filter methods are not impacted by thread policies on consumer 
  * methods, they are always executed on the same thread as the supplier.
  * <p/>
+ * {@link net.guts.event.InDeferredThread} consumers are notified from a bounded 
+ * pool of threads; the pool size, its maximum number of pending notifications, 
+ * what happens when the pool is saturated and whether events order is preserved
+ * per {@link net.guts.event.Channel} are all defined by
+ * {@link net.guts.event.DeferredThreadOptions}, which you can bind in one of your
+ * {@code Module}s:
+ * <pre>
+ * bind(DeferredThreadOptions.class).toInstance(
+ *     DeferredThreadOptions.DEFAULT.withQueueSize(1000).withChannelOrdering(true));
+ * </pre>
+ * <p/>
+ * If an {@link java.util.concurrent.Executor} rejects an event notification (by
+ * throwing {@link java.util.concurrent.RejectedExecutionException}), each consumer 
+ * that would have been notified is reported to 
+ * {@link net.guts.event.ConsumerExceptionHandler}.
+ * <p/>
  * <b>Important</b>: consumer priorities (see {@link net.guts.event.Consumes#priority()})
  * are not fully guaranteed when using different Thread Policies for a set of 
- * consumer methods. Calling order is guaranteed only within the same Thread Policy.
+ * consumer methods. Calling order is guaranteed only within the same Thread Policy,
+ * except for {@link net.guts.event.InMailbox} which notifies different consumer 
+ * instances in parallel.
  * <p/>
  * GUTS-Events also allows you to provide your own Thread Policies. For instance,
  * you can use Java 5 {@link java.util.concurrent.ThreadPoolExecutor} or your own
@@ -490,13 +533,91 @@
  * </pre>
  * The example above simply logs all exceptions thrown by consumer methods.
  * 
- * <p/><a name="guts9"></a><h3>Miscellaneous</h3>
+ * <p/><a name="guts8"></a><h3>Channel options</h3>
+ * Each {@link net.guts.event.Channel} can be bound with specific 
+ * {@link net.guts.event.ChannelOptions} that change the way events are dispatched
+ * to its consumers.
+ * <h4>Coalescing events</h4>
+ * Some suppliers publish events much faster than consumers can process them (eg
+ * market data displayed in Swing components, which cannot be repainted thousands
+ * of times per second). For such channels, you can define a 
+ * {@link net.guts.event.Coalescing} policy: events published during a given delay are
+ * then delivered all at once (or collapsed to the latest one, possibly per key),
+ * with only one call to each consumer's {@link java.util.concurrent.Executor}, 
+ * eg one single "hop" to the EDT for all {@link net.guts.event.InEDT} consumers:
+ * <pre>
+ * Events.bindChannel(binder(), Quote.class, "quotes", ChannelOptions.DEFAULT
+ *     .withCoalescing(Coalescing.latest(100, TimeUnit.MILLISECONDS)));
+ * </pre>
+ * <h4>Ring-buffered channels</h4>
+ * For "hot" channels where events are always published by the same thread, and 
+ * publishing must cost as little as possible for that thread, you can define a 
+ * {@link net.guts.event.RingBuffering} policy: published events are stored into a
+ * preallocated ring buffer, then consumers are notified from a dedicated thread
+ * which either spins or sleeps while waiting for new events:
+ * <pre>
+ * Events.bindChannel(binder(), Quote.class, "quotes", 
+ *     ChannelOptions.DEFAULT.withRingBuffering(RingBuffering.busySpin(1024)));
+ * </pre>
+ * <h4>Replaying latest events</h4>
+ * Consumers registered late (eg views opened long after startup) miss the events
+ * published before, which is a problem for events that describe a state. You can
+ * define a {@link net.guts.event.Replay} policy, so that a bounded number of the 
+ * latest events (possibly the latest one per key) is retained by the channel and
+ * replayed to each consumer as soon as it is registered:
+ * <pre>
+ * Events.bindChannel(binder(), Status.class, null, 
+ *     ChannelOptions.DEFAULT.withReplay(Replay.latest(1)));
+ * </pre>
+ * <h4>Polymorphic dispatch</h4>
+ * By default, events published to a {@code Channel<QuoteEvent>} are notified only
+ * to consumers of {@code QuoteEvent}. With polymorphic dispatch, they are also 
+ * notified to consumers of all bound {@link net.guts.event.Channel}s (with the same
+ * topic) which type is a superclass or interface of {@code QuoteEvent}:
+ * <pre>
+ * Events.bindChannel(binder(), MarketEvent.class);
+ * Events.bindChannel(binder(), QuoteEvent.class, null, 
+ *     ChannelOptions.DEFAULT.withPolymorphicDispatch(true));
+ * 
+ * // Consumer notified of all events sent to Channel&lt;MarketEvent&gt; and 
+ * // Channel&lt;QuoteEvent&gt;
+ * &#64;Consumes public void push(MarketEvent event) {...}
+ * </pre>
+ * Supertypes {@link net.guts.event.Channel}s are determined when channels are bound,
+ * hence polymorphic dispatch does not scan types hierarchy on each published event.
+ * 
+ * <p/><a name="guts9"></a><h3>Monitoring channels and consumers</h3>
+ * GUTS-Events reports the number of events published to each 
+ * {@link net.guts.event.Channel}, the time taken by each consumer method, and the
+ * number of failed or dropped notifications to {@link net.guts.event.EventMetrics}.
+ * Metrics have a cost on every published event, hence they are disabled by default
+ * and must be enabled with {@link net.guts.event.MetricsOptions}:
+ * <pre>
+ * bind(MetricsOptions.class).toInstance(MetricsOptions.DEFAULT.withEnabled(true)
+ *     .withSlowConsumerThreshold(20, TimeUnit.MILLISECONDS).withJmx(true));
+ * </pre>
+ * Default implementation can make these statistics, along with the number of 
+ * pending notifications of each Thread Policy executor, available through a JMX 
+ * MBean named {@code net.guts.event:type=EventMetrics,id=...}.
+ * <p/>
+ * Besides, any consumer method that takes longer than the threshold to handle an
+ * event is logged, along with the event type and the thread that called it; this
+ * is particularly useful to find consumers that block the <i>Swing Event Dispatch
+ * Thread</i>.
+ * 
+ * <p/><a name="guts10"></a><h3>Miscellaneous</h3>
  * In GUTS-Events, all reference to instances of classes containing consumer methods
  * are {@link java.lang.ref.WeakReference}s, which means that your code is responsible
  * to hold a strong references to them as long as you want them to receive events
  * notification. If you use Guice to instantiate these classes as 
  * {@link com.google.inject.Singleton}, then Guice will hold strong references on your
  * behalf.
+ * <p/>
+ * Consumers of an instance that must stop receiving events before it gets garbage
+ * collected (e.g. a dialog that has been closed) can be explicitly unregistered, 
+ * either with {@link net.guts.event.EventService#unregisterConsumers} or by closing
+ * the {@link net.guts.event.Subscription} returned by 
+ * {@link net.guts.event.EventService#registerConsumers}.
  */
 package net.guts.event;
 
@@ -0,0 +1,140 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.testng.annotations.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import net.guts.common.injection.InjectionListeners;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+
+@Test(groups = "itest")
+public class EventMetricsJmxTest
+{
+	public void checkStatisticsExposedThroughJmx() throws Exception
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName pattern = new ObjectName("net.guts.event:type=EventMetrics,*");
+		Set<ObjectName> before = server.queryNames(pattern, null);
+		
+		Injector injector = createJmxInjector();
+		Set<ObjectName> after = server.queryNames(pattern, null);
+		after.removeAll(before);
+		assertThat(after).hasSize(1);
+		ObjectName name = after.iterator().next();
+		
+		injector.getInstance(Consumer.class);
+		Channel<Integer> channel = injector.getInstance(EventService.class).getChannel(
+			TypeLiteral.get(Integer.class), "jmx");
+		channel.publish(1);
+		channel.publish(2);
+		
+		TabularData counts = (TabularData) server.getAttribute(name, "PublishCounts");
+		CompositeData count = counts.get(new Object[]{"java.lang.Integer 'jmx'"});
+		assertThat(count.get("value")).isEqualTo(2L);
+		CompositeData[] consumers = (CompositeData[]) server.getAttribute(name, "Consumers");
+		assertThat(consumers).hasSize(1);
+		assertThat(consumers[0].get("notified")).isEqualTo(2L);
+		TabularData depths = (TabularData) server.getAttribute(name, "ExecutorQueueDepths");
+		assertThat(depths.get(new Object[]{"@InDeferredThread"}).get("value")).isEqualTo(0);
+		assertThat(server.getAttribute(name, "SlowConsumerThresholdMillis")).isEqualTo(100L);
+	}
+	
+	public void checkMBeanUnregisteredWhenInjectorDiscarded() throws Exception
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName pattern = new ObjectName("net.guts.event:type=EventMetrics,*");
+		Set<ObjectName> before = server.queryNames(pattern, null);
+		Injector injector = createJmxInjector();
+		Set<ObjectName> after = server.queryNames(pattern, null);
+		after.removeAll(before);
+		assertThat(after).hasSize(1);
+		ObjectName name = after.iterator().next();
+		
+		injector = null;
+		for (int i = 0; i < 50 && server.isRegistered(name); i++)
+		{
+			System.gc();
+			Thread.sleep(100);
+		}
+		assertThat(server.isRegistered(name)).as("MBean registered").isFalse();
+	}
+	
+	public void checkMetricsDisabledByDefault() throws Exception
+	{
+		int before = countMetricsMBeans();
+		Injector injector = Guice.createInjector(new EventModule());
+		assertThat(countMetricsMBeans()).isEqualTo(before);
+		EventMetrics metrics = injector.getInstance(EventMetrics.class);
+		assertThat(metrics.getClass().getSimpleName()).isEqualTo("NoEventMetrics");
+	}
+	
+	public void checkNoJmx() throws Exception
+	{
+		int before = countMetricsMBeans();
+		Guice.createInjector(new EventModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				bind(MetricsOptions.class).toInstance(
+					MetricsOptions.DEFAULT.withEnabled(true).withJmx(false));
+			}
+		});
+		assertThat(countMetricsMBeans()).isEqualTo(before);
+	}
+	
+	// Other MBeans (eg the Cleaner's) may be registered at the same time
+	static private int countMetricsMBeans() throws Exception
+	{
+		return ManagementFactory.getPlatformMBeanServer().queryNames(
+			new ObjectName("net.guts.event:type=EventMetrics,*"), null).size();
+	}
+	
+	static private Injector createJmxInjector()
+	{
+		Injector injector = Guice.createInjector(new EventModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				bind(MetricsOptions.class).toInstance(
+					MetricsOptions.DEFAULT.withEnabled(true).withJmx(true));
+				Events.bindChannel(binder(), Integer.class, "jmx");
+			}
+		});
+		InjectionListeners.injectListeners(injector);
+		return injector;
+	}
+	
+	static public class Consumer
+	{
+		@Consumes(topic = "jmx") public void push(Integer event)
+		{
+		}
+	}
+}
@@ -0,0 +1,137 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import static org.easymock.EasyMock.createMock;
+
+import org.easymock.EasyMock;
+import org.testng.annotations.Test;
+
+import net.guts.common.injection.InjectionListeners;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+
+@Test(groups = "itest")
+public class PolymorphicDispatchTest
+{
+	public void checkDispatchToSupertypesChannels()
+	{
+		final ConsumerExceptionHandler handler = createMock(ConsumerExceptionHandler.class);
+		// Create Guice injector
+		Injector injector = Guice.createInjector(new EventModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				bind(ConsumerExceptionHandler.class).toInstance(handler);
+				Events.bindChannel(binder(), MarketEvent.class);
+				Events.bindChannel(binder(), MarketEvent.class, "other");
+				Events.bindChannel(binder(), QuoteEvent.class);
+				Events.bindChannel(binder(), FxQuoteEvent.class, null, 
+					ChannelOptions.DEFAULT.withPolymorphicDispatch(true));
+			}
+		});
+		InjectionListeners.injectListeners(injector);
+		// Get Consumer & Suppliers
+		Consumer1 mock = EasyMock.createMock(Consumer1.class);
+		Consumer2 consumer = injector.getInstance(Consumer2.class);
+		consumer.setMock(mock);
+		Supplier1 supplier = injector.getInstance(Supplier1.class);
+
+		// Prepare test
+		QuoteEvent quote = new QuoteEvent();
+		FxQuoteEvent fxQuote = new FxQuoteEvent();
+		mock.pushQuote(quote);
+		mock.pushFxQuote(fxQuote);
+		mock.pushMarket(fxQuote);
+		mock.pushQuote(fxQuote);
+		
+		// Replay test
+		EasyMock.replay(handler, mock);
+		supplier.generate(quote, fxQuote);
+		EasyMock.verify(handler, mock);
+	}
+
+	static public interface MarketEvent
+	{
+	}
+	
+	static public class QuoteEvent implements MarketEvent
+	{
+	}
+	
+	static public class FxQuoteEvent extends QuoteEvent
+	{
+	}
+	
+	public interface Consumer1
+	{
+		public void pushMarket(MarketEvent event);
+		public void pushOtherMarket(MarketEvent event);
+		public void pushQuote(QuoteEvent event);
+		public void pushFxQuote(FxQuoteEvent event);
+	}
+	
+	static public class Consumer2
+	{
+		public void setMock(Consumer1 mock)
+		{
+			_mock = mock;
+		}
+		
+		@Consumes public void pushMarket(MarketEvent event)
+		{
+			_mock.pushMarket(event);
+		}
+		
+		@Consumes(topic = "other") public void pushOtherMarket(MarketEvent event)
+		{
+			_mock.pushOtherMarket(event);
+		}
+		
+		@Consumes public void pushQuote(QuoteEvent event)
+		{
+			_mock.pushQuote(event);
+		}
+		
+		@Consumes public void pushFxQuote(FxQuoteEvent event)
+		{
+			_mock.pushFxQuote(event);
+		}
+		
+		private Consumer1 _mock;
+	}
+	
+	static public class Supplier1
+	{
+		@Inject public Supplier1(Channel<QuoteEvent> quotes, Channel<FxQuoteEvent> fxQuotes)
+		{
+			_quotes = quotes;
+			_fxQuotes = fxQuotes;
+		}
+		
+		public void generate(QuoteEvent quote, FxQuoteEvent fxQuote)
+		{
+			_quotes.publish(quote);
+			_fxQuotes.publish(fxQuote);
+		}
+		
+		final private Channel<QuoteEvent> _quotes;
+		final private Channel<FxQuoteEvent> _fxQuotes;
+	}
+}
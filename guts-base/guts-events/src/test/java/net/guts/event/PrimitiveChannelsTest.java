@@ -0,0 +1,122 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import net.guts.common.injection.InjectionListeners;
+import net.guts.event.internal.EventImpl;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+@Test(groups = "itest")
+public class PrimitiveChannelsTest
+{
+	public void checkPrimitiveChannelsFilterAndPriority()
+	{
+		Injector injector = createInjector(ChannelOptions.DEFAULT);
+		Consumer consumer = injector.getInstance(Consumer.class);
+		
+		injector.getInstance(IntChannel.class).publish(1);
+		injector.getInstance(IntChannel.class).publish(-2);
+		injector.getInstance(Key.get(LongChannel.class, new EventImpl(TOPIC, false)))
+			.publish(3L);
+		injector.getInstance(DoubleChannel.class).publish(4.5);
+		assertThat(consumer._events).containsExactly(
+			"first int 1", "int 1", "first int -2", "long 3", "double 4.5");
+	}
+
+	public void checkPrimitiveAndWrapperPublishersShareConsumers()
+	{
+		Injector injector = createInjector(ChannelOptions.DEFAULT);
+		Consumer consumer = injector.getInstance(Consumer.class);
+		
+		injector.getInstance(IntChannel.class).publish(5);
+		injector.getInstance(Key.get(new TypeLiteral<Channel<Integer>>() {}, 
+			new EventImpl("", true))).publish(6);
+		assertThat(consumer._events).containsExactly(
+			"first int 5", "int 5", "first int 6", "int 6");
+	}
+
+	public void checkPrimitiveChannelsWithOptionsStillWork()
+	{
+		Injector injector = 
+			createInjector(ChannelOptions.DEFAULT.withReplay(Replay.latest(1)));
+		injector.getInstance(IntChannel.class).publish(7);
+		injector.getInstance(IntChannel.class).publish(8);
+		
+		// Replayed event was boxed when published; replay is done consumer by
+		// consumer, as they get registered, hence regardless of priorities
+		Consumer consumer = injector.getInstance(Consumer.class);
+		assertThat(consumer._events).containsOnly("first int 8", "int 8");
+	}
+
+	static private Injector createInjector(final ChannelOptions options)
+	{
+		Injector injector = Guice.createInjector(new EventModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				Events.bindChannel(binder(), int.class, null, options);
+				Events.bindChannel(binder(), long.class, TOPIC);
+				Events.bindChannel(binder(), double.class);
+			}
+		});
+		InjectionListeners.injectListeners(injector);
+		return injector;
+	}
+	
+	static public class Consumer
+	{
+		@Consumes(priority = -1) public void pushFirst(int event)
+		{
+			_events.add("first int " + event);
+		}
+		
+		@Consumes(filterId = "positive") public void push(int event)
+		{
+			_events.add("int " + event);
+		}
+		
+		@Filters(id = "positive") public boolean filter(int event)
+		{
+			return event > 0;
+		}
+		
+		@Consumes(topic = TOPIC) public void push(long event)
+		{
+			_events.add("long " + event);
+		}
+		
+		@Consumes public void push(double event)
+		{
+			_events.add("double " + event);
+		}
+		
+		final private List<String> _events = new ArrayList<String>();
+	}
+	
+	static final private String TOPIC = "TOPIC";
+}
@@ -0,0 +1,64 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import net.guts.common.injection.InjectionListeners;
+import net.guts.event.internal.MethodInvokerFactory;
+import net.guts.event.internal.ReflectionMethodInvokerFactory;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+@Test(groups = "itest")
+public class ReflectionInvokersTest
+{
+	public void checkConsumersCalledThroughReflection()
+	{
+		Injector injector = Guice.createInjector(new EventModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				Events.useReflection(binder());
+				Events.bindChannel(binder(), Integer.class);
+			}
+		});
+		InjectionListeners.injectListeners(injector);
+		assertThat(injector.getInstance(MethodInvokerFactory.class))
+			.isInstanceOf(ReflectionMethodInvokerFactory.class);
+		Consumer consumer = injector.getInstance(Consumer.class);
+		injector.getInstance(Key.get(new TypeLiteral<Channel<Integer>>() {})).publish(1);
+		assertThat(consumer._events).containsOnly(1);
+	}
+	
+	static public class Consumer
+	{
+		@Consumes public void push(Integer event)
+		{
+			_events.add(event);
+		}
+		
+		final private List<Integer> _events = new ArrayList<Integer>();
+	}
+}
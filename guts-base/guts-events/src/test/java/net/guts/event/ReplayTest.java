@@ -0,0 +1,132 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import net.guts.common.injection.InjectionListeners;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+@Test(groups = "itest")
+public class ReplayTest
+{
+	public void checkLatestEventsReplayedToNewConsumers()
+	{
+		Injector injector = 
+			createInjector(ChannelOptions.DEFAULT.withReplay(Replay.latest(2)));
+		Channel<String> channel = injector.getInstance(CHANNEL_KEY);
+		channel.publish("a1");
+		channel.publish("b1");
+		channel.publish("a2");
+		
+		EventService service = injector.getInstance(EventService.class);
+		Consumer consumer = new Consumer();
+		service.registerConsumers(consumer);
+		assertThat(consumer._events).containsExactly("b1", "a2");
+		
+		// Newly published events are notified once only
+		channel.publish("c1");
+		assertThat(consumer._events).containsExactly("b1", "a2", "c1");
+	}
+
+	public void checkLatestEventByKeyReplayedToNewConsumers()
+	{
+		Injector injector = createInjector(ChannelOptions.DEFAULT.withReplay(
+			Replay.latestByKey(2, new Coalescing.Key<String>()
+			{
+				@Override public Object keyOf(String event)
+				{
+					return event.charAt(0);
+				}
+			})));
+		Channel<String> channel = injector.getInstance(CHANNEL_KEY);
+		channel.publish("a1");
+		channel.publish("b1");
+		channel.publish("a2");
+		channel.publish("c1");
+		
+		EventService service = injector.getInstance(EventService.class);
+		Consumer consumer = new Consumer();
+		service.registerConsumers(consumer);
+		// "b" was the least recently published key, hence dropped
+		assertThat(consumer._events).containsExactly("a2", "c1");
+	}
+
+	public void checkFiltersApplyToReplayedEvents()
+	{
+		Injector injector = 
+			createInjector(ChannelOptions.DEFAULT.withReplay(Replay.latest(4)));
+		Channel<String> channel = injector.getInstance(CHANNEL_KEY);
+		channel.publish("a1");
+		channel.publish("b1");
+		
+		EventService service = injector.getInstance(EventService.class);
+		FilteredConsumer consumer = new FilteredConsumer();
+		service.registerConsumers(consumer);
+		assertThat(consumer._events).containsExactly("b1");
+	}
+	
+	static private Injector createInjector(final ChannelOptions options)
+	{
+		Injector injector = Guice.createInjector(new EventModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				Events.bindChannel(binder(), String.class, null, options);
+			}
+		});
+		InjectionListeners.injectListeners(injector);
+		return injector;
+	}
+	
+	static public class Consumer
+	{
+		@Consumes public void push(String event)
+		{
+			_events.add(event);
+		}
+		
+		final List<String> _events = new ArrayList<String>();
+	}
+	
+	static public class FilteredConsumer
+	{
+		@Filters public boolean filter(String event)
+		{
+			return event.startsWith("b");
+		}
+		
+		@Consumes public void push(String event)
+		{
+			_events.add(event);
+		}
+		
+		final List<String> _events = new ArrayList<String>();
+	}
+	
+	static final private Key<Channel<String>> CHANNEL_KEY =
+		Key.get(new TypeLiteral<Channel<String>>() {});
+}
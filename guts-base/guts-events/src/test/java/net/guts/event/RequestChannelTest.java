@@ -0,0 +1,124 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import net.guts.common.injection.InjectionListeners;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+
+@Test(groups = "itest")
+public class RequestChannelTest
+{
+	public void checkRepliesFromAllConsumers() throws Exception
+	{
+		Injector injector = createInjector();
+		Consumer1 consumer1 = injector.getInstance(Consumer1.class);
+		Consumer2 consumer2 = injector.getInstance(Consumer2.class);
+		Supplier supplier = injector.getInstance(Supplier.class);
+		
+		Replies<String> replies = supplier.request(21);
+		assertThat(replies.get(1, TimeUnit.SECONDS)).containsOnly("21", "42");
+		assertThat(replies.isDone()).isTrue();
+		assertThat(supplier.request(22).first().get(1, TimeUnit.SECONDS)).isNotNull();
+		// Keep consumers reachable until the end of the test
+		assertThat(consumer1).isNotSameAs(consumer2);
+	}
+
+	public void checkNoConsumerCompletesImmediately() throws Exception
+	{
+		Injector injector = createInjector();
+		Supplier supplier = injector.getInstance(Supplier.class);
+		
+		Replies<String> replies = supplier.request(1);
+		assertThat(replies.isDone()).isTrue();
+		assertThat(replies.get()).isEmpty();
+		assertThat(replies.first().get()).isNull();
+	}
+
+	public void checkRequestsDoNotBreakPlainEvents() throws Exception
+	{
+		Injector injector = createInjector();
+		Consumer1 consumer = injector.getInstance(Consumer1.class);
+		injector.getInstance(Supplier.class)._channel.publish(3);
+		assertThat(consumer._last).isEqualTo(3);
+	}
+	
+	static private Injector createInjector()
+	{
+		Injector injector = Guice.createInjector(new EventModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				Events.bindChannel(binder(), Integer.class);
+				Events.bindRequestChannel(binder(), Integer.class, String.class);
+			}
+		});
+		InjectionListeners.injectListeners(injector);
+		return injector;
+	}
+	
+	static public class Consumer1
+	{
+		@Consumes public String reply(Integer request)
+		{
+			_last = request;
+			return request.toString();
+		}
+		
+		private volatile Integer _last;
+	}
+	
+	static public class Consumer2
+	{
+		@Consumes @InDeferredThread public String reply(Integer request)
+		{
+			return String.valueOf(request * 2);
+		}
+		
+		// Not a reply: wrong type
+		@Consumes public Integer notAReply(Integer request)
+		{
+			return request;
+		}
+	}
+	
+	static public class Supplier
+	{
+		@Inject public Supplier(
+			RequestChannel<Integer, String> requests, Channel<Integer> channel)
+		{
+			_requests = requests;
+			_channel = channel;
+		}
+		
+		public Replies<String> request(Integer request)
+		{
+			return _requests.publish(request);
+		}
+		
+		final private RequestChannel<Integer, String> _requests;
+		final private Channel<Integer> _channel;
+	}
+}
@@ -0,0 +1,106 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event;
+
+import static org.easymock.EasyMock.createMock;
+
+import org.easymock.EasyMock;
+import org.testng.annotations.Test;
+
+import net.guts.common.injection.InjectionListeners;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+
+@Test(groups = "itest")
+public class WildcardTopicsTest
+{
+	public void checkWildcardTopicsConsume()
+	{
+		final ConsumerExceptionHandler handler = createMock(ConsumerExceptionHandler.class);
+		// Create Guice injector
+		Injector injector = Guice.createInjector(new EventModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				bind(ConsumerExceptionHandler.class).toInstance(handler);
+				Events.bindChannel(binder(), Integer.class, "quotes");
+				Events.bindChannel(binder(), Integer.class, "quotes.EUR.USD");
+				Events.bindChannel(binder(), Integer.class, "quotes.USD.JPY");
+				Events.bindChannel(binder(), String.class, "quotes.USD.CHF");
+			}
+		});
+		InjectionListeners.injectListeners(injector);
+		// Get Consumer
+		Consumer1 mock = EasyMock.createMock(Consumer1.class);
+		Consumer2 consumer = injector.getInstance(Consumer2.class);
+		consumer.setMock(mock);
+		// Register a new channel after consumer registration
+		injector.getInstance(EventService.class).registerChannel(
+			TypeLiteral.get(Integer.class), "quotes.EUR.CHF");
+
+		// Prepare test
+		mock.pushAll(1);
+		mock.pushAll(2);
+		mock.pushPairs(2);
+		mock.pushAll(3);
+		mock.pushPairs(3);
+		mock.pushAll(4);
+		mock.pushPairs(4);
+		
+		// Replay test
+		EasyMock.replay(handler, mock);
+		channel(injector, "quotes").publish(1);
+		channel(injector, "quotes.EUR.USD").publish(2);
+		channel(injector, "quotes.USD.JPY").publish(3);
+		channel(injector, "quotes.EUR.CHF").publish(4);
+		EasyMock.verify(handler, mock);
+	}
+	
+	static private Channel<Integer> channel(Injector injector, String topic)
+	{
+		return injector.getInstance(EventService.class).getChannel(
+			TypeLiteral.get(Integer.class), topic);
+	}
+
+	public interface Consumer1
+	{
+		public void pushAll(Integer event);
+		public void pushPairs(Integer event);
+	}
+	
+	static public class Consumer2
+	{
+		public void setMock(Consumer1 mock)
+		{
+			_mock = mock;
+		}
+		
+		@Consumes(topic = "quotes.#") public void pushAll(Integer event)
+		{
+			_mock.pushAll(event);
+		}
+		
+		@Consumes(topic = "quotes.*.*") public void pushPairs(Integer event)
+		{
+			_mock.pushPairs(event);
+		}
+		
+		private Consumer1 _mock;
+	}
+}
@@ -0,0 +1,289 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.bridge;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import net.guts.common.injection.InjectionListeners;
+import net.guts.event.Channel;
+import net.guts.event.ChannelOptions;
+import net.guts.event.Consumes;
+import net.guts.event.EventModule;
+import net.guts.event.EventService;
+import net.guts.event.Events;
+import net.guts.event.RingBuffering;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+
+@Test(groups = "itest")
+public class BridgeTest
+{
+	public void checkEventsMirroredThroughLoopback() throws Exception
+	{
+		checkEventsMirrored(
+			new LoopbackTransport("BridgeTest"), new LoopbackTransport("BridgeTest"));
+	}
+
+	public void checkEventsMirroredThroughLocalSocket() throws Exception
+	{
+		int port = freePort();
+		File tokens = tokenDirectory();
+		checkEventsMirrored(new LocalSocketTransport(port, tokens), 
+			new LocalSocketTransport(port, tokens));
+	}
+	
+	public void checkLocalSocketRejectsInvalidToken() throws Exception
+	{
+		int port = freePort();
+		LocalSocketTransport transport = new LocalSocketTransport(port, tokenDirectory());
+		final List<byte[]> packets = new CopyOnWriteArrayList<byte[]>();
+		transport.start(new BridgeTransport.Receiver()
+		{
+			@Override public void receive(byte[] packet)
+			{
+				packets.add(packet);
+			}
+		});
+		Socket socket = new Socket(InetAddress.getByName(null), port);
+		try
+		{
+			socket.setSoTimeout(5000);
+			InputStream input = socket.getInputStream();
+			DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+			// READY
+			assertThat(input.read()).isEqualTo(1);
+			output.write(new byte[32]);
+			output.writeInt(1);
+			output.writeByte(0);
+			output.flush();
+			// Connection closed without ACCEPTED
+			assertThat(input.read()).isEqualTo(-1);
+			assertThat(packets).isEmpty();
+		}
+		finally
+		{
+			socket.close();
+			transport.stop();
+		}
+	}
+	
+	public void checkSerializableCodecDecodesAllowedClasses() throws Exception
+	{
+		EventCodec<Event> codec = Codecs.serializable(Event.class);
+		Event event = decode(codec, encode(codec, new Event(new Integer[] {1, 2})));
+		assertThat((Object[]) event._payload).containsOnly(1, 2);
+	}
+	
+	@Test(expectedExceptions = IOException.class)
+	public void checkSerializableCodecRejectsOtherClasses() throws Exception
+	{
+		EventCodec<Event> codec = Codecs.serializable(Event.class);
+		decode(codec, encode(codec, new Event(new Date())));
+	}
+	
+	static private <T> byte[] encode(EventCodec<T> codec, T event) throws IOException
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		codec.encode(event, new DataOutputStream(buffer));
+		return buffer.toByteArray();
+	}
+	
+	static private <T> T decode(EventCodec<T> codec, byte[] bytes) throws IOException
+	{
+		return codec.decode(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+	
+	static private int freePort() throws IOException
+	{
+		ServerSocket socket = new ServerSocket(0);
+		int port = socket.getLocalPort();
+		socket.close();
+		return port;
+	}
+	
+	static private File tokenDirectory() throws IOException
+	{
+		File directory = File.createTempFile("guts-bridge", "");
+		directory.delete();
+		directory.deleteOnExit();
+		return directory;
+	}
+	
+	@Test(expectedExceptions = CreationException.class)
+	public void checkRingBufferedChannelCannotBeBridged()
+	{
+		Guice.createInjector(new EventModule(), new BridgeModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				bind(BridgeTransport.class).toInstance(new LoopbackTransport("BridgeTest"));
+				Events.bindChannel(binder(), String.class, "bridged", 
+					ChannelOptions.DEFAULT.withRingBuffering(RingBuffering.blocking(16)));
+				Bridges.bridgeChannel(binder(), String.class, "bridged", Codecs.string());
+			}
+		});
+	}
+	
+	public void checkEventsPublishedByConsumersOfReceivedEventsAreSent() throws Exception
+	{
+		Injector injector1 = createInjector(new LoopbackTransport("BridgeTest-republish"));
+		Injector injector2 = createInjector(new LoopbackTransport("BridgeTest-republish"));
+		SecondConsumer consumer1 = injector1.getInstance(SecondConsumer.class);
+		injector2.getInstance(Republisher.class);
+		try
+		{
+			channel(injector1, "bridged").publish("hello");
+			assertThat(consumer1._latch.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(consumer1._events).containsExactly("echo hello");
+		}
+		finally
+		{
+			injector1.getInstance(EventBridge.class).close();
+			injector2.getInstance(EventBridge.class).close();
+		}
+	}
+	
+	private void checkEventsMirrored(BridgeTransport transport1, BridgeTransport transport2)
+		throws Exception
+	{
+		Injector injector1 = createInjector(transport1);
+		Injector injector2 = createInjector(transport2);
+		Consumer consumer1 = injector1.getInstance(Consumer.class);
+		Consumer consumer2 = injector2.getInstance(Consumer.class);
+		try
+		{
+			channel(injector1).publish("from 1");
+			assertThat(consumer2._latch.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(consumer2._events).containsExactly("from 1");
+			
+			consumer1._latch = new CountDownLatch(1);
+			channel(injector2).publish("from 2");
+			assertThat(consumer1._latch.await(5, TimeUnit.SECONDS)).isTrue();
+			// Wait a bit to make sure events are not sent back
+			Thread.sleep(200);
+			assertThat(consumer1._events).containsExactly("from 1", "from 2");
+			assertThat(consumer2._events).containsExactly("from 1", "from 2");
+		}
+		finally
+		{
+			injector1.getInstance(EventBridge.class).close();
+			injector2.getInstance(EventBridge.class).close();
+		}
+	}
+	
+	static private Injector createInjector(final BridgeTransport transport)
+	{
+		Injector injector = Guice.createInjector(
+			new EventModule(), new BridgeModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				bind(BridgeTransport.class).toInstance(transport);
+				Events.bindChannel(binder(), String.class, "bridged");
+				Bridges.bridgeChannel(binder(), String.class, "bridged", Codecs.string());
+				Events.bindChannel(binder(), String.class, "second");
+				Bridges.bridgeChannel(binder(), String.class, "second", Codecs.string());
+			}
+		});
+		InjectionListeners.injectListeners(injector);
+		return injector;
+	}
+	
+	static public class Consumer
+	{
+		@Consumes(topic = "bridged") public void push(String event)
+		{
+			_events.add(event);
+			_latch.countDown();
+		}
+		
+		final List<String> _events = new CopyOnWriteArrayList<String>();
+		volatile CountDownLatch _latch = new CountDownLatch(1);
+	}
+	
+	// Publishes to another bridged channel while handling each received event
+	static public class Republisher
+	{
+		@Inject Republisher(EventService service)
+		{
+			_second = service.getChannel(TypeLiteral.get(String.class), "second");
+		}
+		
+		@Consumes(topic = "bridged") public void push(String event)
+		{
+			_second.publish("echo " + event);
+		}
+		
+		final private Channel<String> _second;
+	}
+	
+	static public class SecondConsumer
+	{
+		@Consumes(topic = "second") public void push(String event)
+		{
+			_events.add(event);
+			_latch.countDown();
+		}
+		
+		final List<String> _events = new CopyOnWriteArrayList<String>();
+		final CountDownLatch _latch = new CountDownLatch(1);
+	}
+	
+	static public class Event implements Serializable
+	{
+		Event(Object payload)
+		{
+			_payload = payload;
+		}
+		
+		final Object _payload;
+	}
+	
+	static private Channel<String> channel(Injector injector)
+	{
+		return channel(injector, "bridged");
+	}
+	
+	static private Channel<String> channel(Injector injector, String topic)
+	{
+		return injector.getInstance(EventService.class).getChannel(
+			TypeLiteral.get(String.class), topic);
+	}
+}
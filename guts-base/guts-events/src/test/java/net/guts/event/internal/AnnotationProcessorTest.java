@@ -21,7 +21,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -54,7 +58,8 @@ public class AnnotationProcessorTest
 		channels.add(key(new TypeLiteral<List<String>>(){}));
 		Map<Class<? extends Annotation>, Provider<Executor>> executors =
 			new HashMap<Class<? extends Annotation>, Provider<Executor>>();
-		_processor = new AnnotationProcessor(channels, executors);
+		_processor = new AnnotationProcessor(
+			channels, executors, new FastMethodInvokerFactory());
 	}
 
 	public void checkOneConsumesInteger()
@@ -506,6 +511,39 @@ public class AnnotationProcessorTest
 		@Filters(type = Integer.class) public boolean filters(Number event) {return true;}
 	}
 
+	public void checkConcurrentProcessSameClass() throws Exception
+	{
+		final int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Callable<List<ConsumerFilter>>> tasks = 
+				new ArrayList<Callable<List<ConsumerFilter>>>();
+			for (int i = 0; i < threads; i++)
+			{
+				tasks.add(new Callable<List<ConsumerFilter>>()
+				{
+					@Override public List<ConsumerFilter> call()
+					{
+						return _processor.process(Consumer5.class);
+					}
+				});
+			}
+			// All threads must get the same analysis result
+			List<Future<List<ConsumerFilter>>> results = executor.invokeAll(tasks);
+			List<ConsumerFilter> events = _processor.process(Consumer5.class);
+			assertThat(events).as("events").hasSize(2);
+			for (Future<List<ConsumerFilter>> result: results)
+			{
+				assertThat(result.get()).as("events").isSameAs(events);
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
 	static private void checkEvent(List<ConsumerFilter> events, int index, ChannelKey key, 
 		int priority, String consumer, String filter)
 	{
@@ -14,33 +14,49 @@
 
 package net.guts.event.internal;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.easymock.Capture;
 import org.easymock.classextension.EasyMock;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.inject.Provider;
 import com.google.inject.TypeLiteral;
 
 import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.same;
 import static org.easymock.classextension.EasyMock.createMock;
-import static org.easymock.classextension.EasyMock.createNiceMock;
 import static org.easymock.classextension.EasyMock.createStrictMock;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.easymock.classextension.EasyMock.reset;
 import static org.easymock.classextension.EasyMock.verify;
+import static org.fest.assertions.Assertions.assertThat;
 
 import net.guts.common.cleaner.Cleaner;
+import net.guts.common.cleaner.CleanerImpl;
+import net.guts.event.ChannelOptions;
+import net.guts.event.Coalescing;
 import net.guts.event.ConsumerExceptionHandler;
 import net.guts.event.ConsumerReturnHandler;
+import net.guts.event.DeferredThreadOptions;
+import net.guts.event.Replay;
+import net.guts.event.RingBuffering;
 import net.guts.event.internal.ChannelImpl;
 
 @Test(groups = "utest")
@@ -49,15 +65,18 @@ public class ChannelImplTest
 	@BeforeMethod public void setup()
 	{
 		_exceptionHandler = createMock(ConsumerExceptionHandler.class);
-		_cleanup = createNiceMock(Cleaner.class);
+		_cleanup = new CleanerImpl();
 		_intReturnHandler = createMock(ConsumerReturnHandler.class);
 		_stringReturnHandler = createMock(ConsumerReturnHandler.class);
 		_returnHandlers = new HashMap<TypeLiteral<?>, ConsumerReturnHandler<?>>();
 		_returnHandlers.put(TypeLiteral.get(int.class), _intReturnHandler);
 		_returnHandlers.put(TypeLiteral.get(String.class), _stringReturnHandler);
-		_channel = new ChannelImpl<Integer>(
-			Integer.class, "", _exceptionHandler, _cleanup, _returnHandlers);
-		replay(_exceptionHandler, _cleanup);
+		_metrics = new DefaultEventMetrics(
+			Collections.<Class<? extends Annotation>, Provider<Executor>>emptyMap());
+		_channel = new ChannelImpl<Integer>(Integer.class, "", ChannelOptions.DEFAULT,
+			_exceptionHandler, _cleanup, _returnHandlers, new CoalescingScheduler(_cleanup), 
+			_metrics);
+		replay(_exceptionHandler);
 	}
 	
 	public void checkTwoExecutors() throws Exception
@@ -213,10 +232,419 @@ public class ChannelImplTest
 		}
 	}
 	
+	public void checkFiltersWithCurrentThreadExecutor() throws Exception
+	{
+		Method method = Consumer6.class.getDeclaredMethod("push", Integer.class);
+		Method filter = Consumer6.class.getDeclaredMethod("accept", Integer.class);
+
+		Consumer3 mock = createStrictMock(Consumer3.class);
+		Executor exec = new InCurrentThreadExecutor();
+		Consumer6 consumer1 = new Consumer6(mock, 1, 5);
+		Consumer6 consumer2 = new Consumer6(mock, 2, 10);
+		_channel.addConsumer(consumer2, method, 2, filter, exec);
+		_channel.addConsumer(consumer1, method, 1, filter, exec);
+		
+		// Only consumers which filter accepts the event get called, in priority order
+		mock.push(eq(7), eq(1));
+		mock.push(eq(12), eq(1));
+		mock.push(eq(12), eq(2));
+		replay(mock);
+		_channel.publish(3);
+		_channel.publish(7);
+		_channel.publish(12);
+		verify(mock);
+	}
+	
+	static public class Consumer6
+	{
+		public Consumer6(Consumer3 mock, int priority, int threshold)
+		{
+			_mock = mock;
+			_priority = priority;
+			_threshold = threshold;
+		}
+		public boolean accept(Integer event)
+		{
+			return event > _threshold;
+		}
+		public void push(Integer event)
+		{
+			_mock.push(event, _priority);
+		}
+		private final Consumer3 _mock;
+		private final int _priority;
+		private final int _threshold;
+	}
+	
+	public void checkCoalescingAllEvents() throws Exception
+	{
+		Consumer3 mock = createStrictMock(Consumer3.class);
+		mock.push(eq(1), eq(0));
+		mock.push(eq(2), eq(0));
+		mock.push(eq(3), eq(0));
+		replay(mock);
+		CountingExecutor exec = publishCoalesced(
+			Coalescing.all(COALESCING_DELAY, TimeUnit.MILLISECONDS), mock, 1, 2, 3);
+		verify(mock);
+		assertThat(exec._calls).as("executor calls").isEqualTo(1);
+	}
+	
+	public void checkCoalescingLatestEvent() throws Exception
+	{
+		Consumer3 mock = createStrictMock(Consumer3.class);
+		mock.push(eq(3), eq(0));
+		replay(mock);
+		CountingExecutor exec = publishCoalesced(
+			Coalescing.latest(COALESCING_DELAY, TimeUnit.MILLISECONDS), mock, 1, 2, 3);
+		verify(mock);
+		assertThat(exec._calls).as("executor calls").isEqualTo(1);
+	}
+	
+	public void checkCoalescingLatestEventByKey() throws Exception
+	{
+		// Key is the parity of the event
+		Coalescing.Key<Integer> key = new Coalescing.Key<Integer>()
+		{
+			@Override public Object keyOf(Integer event)
+			{
+				return event % 2;
+			}
+		};
+		Consumer3 mock = createStrictMock(Consumer3.class);
+		mock.push(eq(5), eq(0));
+		mock.push(eq(4), eq(0));
+		replay(mock);
+		CountingExecutor exec = publishCoalesced(
+			Coalescing.latestByKey(COALESCING_DELAY, TimeUnit.MILLISECONDS, key), 
+			mock, 1, 2, 3, 4, 5);
+		verify(mock);
+		assertThat(exec._calls).as("executor calls").isEqualTo(1);
+	}
+	
+	public void checkRejectedNotificationReported() throws Exception
+	{
+		Method method = Consumer4.class.getDeclaredMethod("push", Integer.class);
+		Consumer3 mock = createMock(Consumer3.class);
+		Consumer4 consumer = new Consumer4(mock, 0);
+		Executor exec = new Executor()
+		{
+			public void execute(Runnable command)
+			{
+				throw new RejectedExecutionException();
+			}
+		};
+		_channel.addConsumer(consumer, method, 0, null, exec);
+		
+		reset(_exceptionHandler);
+		_exceptionHandler.handleException(isA(RejectedExecutionException.class), 
+			eq(method), same(consumer), eq(Integer.class), eq(""));
+		replay(_exceptionHandler, mock);
+		_channel.publish(1);
+		verify(_exceptionHandler, mock);
+		assertThat(_metrics.getConsumerStatistics().get(0).getDropped()).isEqualTo(1);
+	}
+	
+	public void checkMailboxOrderPerConsumer() throws Exception
+	{
+		Method method = Consumer7.class.getDeclaredMethod("push", Integer.class);
+		CountDownLatch done = new CountDownLatch(2 * MAILBOX_EVENTS);
+		Consumer7 consumer1 = new Consumer7(done);
+		Consumer7 consumer2 = new Consumer7(done);
+		MailboxExecutor exec = new MailboxExecutor(DeferredThreadOptions.DEFAULT.withThreads(4));
+		try
+		{
+			_channel.addConsumer(consumer1, method, 0, null, exec);
+			_channel.addConsumer(consumer2, method, 0, null, exec);
+			for (int i = 0; i < MAILBOX_EVENTS; i++)
+			{
+				_channel.publish(i);
+			}
+			assertThat(done.await(10, TimeUnit.SECONDS)).as("all events notified").isTrue();
+			for (int i = 0; i < MAILBOX_EVENTS; i++)
+			{
+				assertThat(consumer1._events.get(i)).as("consumer1 event #" + i).isEqualTo(i);
+				assertThat(consumer2._events.get(i)).as("consumer2 event #" + i).isEqualTo(i);
+			}
+		}
+		finally
+		{
+			exec.shutdownNow();
+		}
+	}
+
+	public void checkRingBufferBusySpin() throws Exception
+	{
+		publishRingBuffered(RingBuffering.busySpin(16));
+	}
+	
+	public void checkRingBufferBlocking() throws Exception
+	{
+		publishRingBuffered(RingBuffering.blocking(16));
+	}
+	
+	public void checkRingBufferRejectsSecondPublisher() throws Exception
+	{
+		final ChannelImpl<Integer> channel = new ChannelImpl<Integer>(Integer.class, "", 
+			ChannelOptions.DEFAULT.withRingBuffering(RingBuffering.blocking(16)), 
+			_exceptionHandler, _cleanup, _returnHandlers, new CoalescingScheduler(_cleanup), 
+			_metrics);
+		channel.publish(1);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		Thread publisher = new Thread()
+		{
+			@Override public void run()
+			{
+				try
+				{
+					channel.publish(2);
+				}
+				catch (RuntimeException e)
+				{
+					error.set(e);
+				}
+			}
+		};
+		publisher.start();
+		publisher.join(1000);
+		assertThat(error.get()).as("second publisher error")
+			.isInstanceOf(IllegalStateException.class);
+		// First publisher can go on
+		channel.publish(3);
+	}
+
+	public void checkRingBufferThreadStopsWithChannel() throws Exception
+	{
+		ChannelImpl<Integer> channel = new ChannelImpl<Integer>(Integer.class, "ring-gc", 
+			ChannelOptions.DEFAULT.withRingBuffering(RingBuffering.busySpin(16)), 
+			_exceptionHandler, _cleanup, _returnHandlers, new CoalescingScheduler(_cleanup), 
+			_metrics);
+		assertThat(findRingThread()).as("thread before first publish").isNull();
+		channel.publish(1);
+		Thread thread = findRingThread();
+		assertThat(thread).as("thread after first publish").isNotNull();
+		channel = null;
+		for (int i = 0; i < 50 && thread.isAlive(); i++)
+		{
+			System.gc();
+			thread.join(100);
+		}
+		assertThat(thread.isAlive()).as("thread alive after channel collected").isFalse();
+	}
+	
+	public void checkCoalescingThreadStopsWithScheduler() throws Exception
+	{
+		CoalescingScheduler scheduler = new CoalescingScheduler(_cleanup);
+		final AtomicReference<Thread> flusher = new AtomicReference<Thread>();
+		final CountDownLatch flushed = new CountDownLatch(1);
+		scheduler.schedule(new Runnable()
+		{
+			@Override public void run()
+			{
+				flusher.set(Thread.currentThread());
+				flushed.countDown();
+			}
+		}, 0);
+		assertThat(flushed.await(5, TimeUnit.SECONDS)).as("flushed").isTrue();
+		Thread thread = flusher.get();
+		scheduler = null;
+		for (int i = 0; i < 50 && thread.isAlive(); i++)
+		{
+			System.gc();
+			thread.join(100);
+		}
+		assertThat(thread.isAlive()).as("thread alive after scheduler collected")
+			.isFalse();
+	}
+	
+	static private Thread findRingThread()
+	{
+		for (Thread thread: Thread.getAllStackTraces().keySet())
+		{
+			if (thread.getName().contains("'ring-gc'"))
+			{
+				return thread;
+			}
+		}
+		return null;
+	}
+	
+	// Each consumer must get replayed then published events, without duplicates
+	// nor gaps, even when registered while another thread publishes
+	public void checkReplayOrderedWithConcurrentPublish() throws Exception
+	{
+		final ChannelImpl<Integer> channel = new ChannelImpl<Integer>(Integer.class, "", 
+			ChannelOptions.DEFAULT.withReplay(Replay.latest(10)), _exceptionHandler, 
+			_cleanup, _returnHandlers, new CoalescingScheduler(_cleanup), _metrics);
+		Method method = Consumer7.class.getDeclaredMethod("push", Integer.class);
+		final int events = 20000;
+		Thread publisher = new Thread()
+		{
+			@Override public void run()
+			{
+				for (int i = 0; i < events; i++)
+				{
+					channel.publish(i);
+				}
+			}
+		};
+		List<Consumer7> consumers = new ArrayList<Consumer7>();
+		publisher.start();
+		while (publisher.isAlive())
+		{
+			Consumer7 consumer = new Consumer7(new CountDownLatch(0));
+			consumers.add(consumer);
+			channel.addConsumer(consumer, method, 0, null, new InCurrentThreadExecutor());
+			Thread.yield();
+		}
+		publisher.join();
+		for (Consumer7 consumer: consumers)
+		{
+			List<Integer> received = consumer._events;
+			assertThat(received).as("received events").isNotEmpty();
+			for (int i = 1; i < received.size(); i++)
+			{
+				assertThat(received.get(i)).as("event after " + received.get(i - 1))
+					.isEqualTo(received.get(i - 1) + 1);
+			}
+			assertThat(received.get(received.size() - 1)).as("last event")
+				.isEqualTo(events - 1);
+		}
+	}
+	
+	// A consumer of a replaying channel that takes long to handle an event must
+	// not prevent other threads from publishing or registering consumers
+	public void checkReplayNotifiesOutsideLock() throws Exception
+	{
+		final ChannelImpl<Integer> channel = new ChannelImpl<Integer>(Integer.class, "", 
+			ChannelOptions.DEFAULT.withReplay(Replay.latest(10)), _exceptionHandler, 
+			_cleanup, _returnHandlers, new CoalescingScheduler(_cleanup), _metrics);
+		Consumer8 slow = new Consumer8();
+		channel.addConsumer(slow, Consumer8.class.getDeclaredMethod("push", Integer.class), 
+			0, null, new InCurrentThreadExecutor());
+		Thread publisher = new Thread()
+		{
+			@Override public void run()
+			{
+				channel.publish(1);
+			}
+		};
+		publisher.start();
+		try
+		{
+			assertThat(slow._blocked.await(5, TimeUnit.SECONDS)).as("slow consumer called")
+				.isTrue();
+			channel.publish(2);
+			Consumer7 consumer = new Consumer7(new CountDownLatch(0));
+			channel.addConsumer(consumer, Consumer7.class.getDeclaredMethod(
+				"push", Integer.class), 0, null, new InCurrentThreadExecutor());
+			assertThat(consumer._events).as("replayed events").containsExactly(1, 2);
+		}
+		finally
+		{
+			slow._release.countDown();
+		}
+		publisher.join(5000);
+		assertThat(slow._events).as("slow consumer events").containsOnly(1, 2);
+	}
+	
+	// Publish more events than the ring can hold, to check wrapping
+	private void publishRingBuffered(RingBuffering ring) throws Exception
+	{
+		ChannelImpl<Integer> channel = new ChannelImpl<Integer>(Integer.class, "", 
+			ChannelOptions.DEFAULT.withRingBuffering(ring), _exceptionHandler, 
+			_cleanup, _returnHandlers, new CoalescingScheduler(_cleanup), _metrics);
+		Method method = Consumer7.class.getDeclaredMethod("push", Integer.class);
+		CountDownLatch done = new CountDownLatch(2 * MAILBOX_EVENTS);
+		Consumer7 consumer1 = new Consumer7(done);
+		Consumer7 consumer2 = new Consumer7(done);
+		channel.addConsumer(consumer1, method, 0, null, new InCurrentThreadExecutor());
+		channel.addConsumer(consumer2, method, 0, null, new InCurrentThreadExecutor());
+		for (int i = 0; i < MAILBOX_EVENTS; i++)
+		{
+			channel.publish(i);
+		}
+		assertThat(done.await(10, TimeUnit.SECONDS)).as("all events notified").isTrue();
+		for (int i = 0; i < MAILBOX_EVENTS; i++)
+		{
+			assertThat(consumer1._events.get(i)).as("consumer1 event #" + i).isEqualTo(i);
+			assertThat(consumer2._events.get(i)).as("consumer2 event #" + i).isEqualTo(i);
+		}
+	}
+
+	static public class Consumer7
+	{
+		public Consumer7(CountDownLatch done)
+		{
+			_done = done;
+		}
+		public void push(Integer event)
+		{
+			_events.add(event);
+			_done.countDown();
+		}
+		private final List<Integer> _events = 
+			Collections.synchronizedList(new ArrayList<Integer>());
+		private final CountDownLatch _done;
+	}
+	
+	// Blocks while handling event 1, until released
+	static public class Consumer8
+	{
+		public void push(Integer event) throws InterruptedException
+		{
+			_events.add(event);
+			if (event == 1)
+			{
+				_blocked.countDown();
+				_release.await(5, TimeUnit.SECONDS);
+			}
+		}
+		private final List<Integer> _events = 
+			Collections.synchronizedList(new ArrayList<Integer>());
+		private final CountDownLatch _blocked = new CountDownLatch(1);
+		private final CountDownLatch _release = new CountDownLatch(1);
+	}
+	
+	private CountingExecutor publishCoalesced(
+		Coalescing coalescing, Consumer3 mock, Integer... events) throws Exception
+	{
+		ChannelImpl<Integer> channel = new ChannelImpl<Integer>(Integer.class, "", 
+			ChannelOptions.DEFAULT.withCoalescing(coalescing), _exceptionHandler, 
+			_cleanup, _returnHandlers, new CoalescingScheduler(_cleanup), _metrics);
+		Method method = Consumer4.class.getDeclaredMethod("push", Integer.class);
+		Consumer4 consumer = new Consumer4(mock, 0);
+		CountingExecutor exec = new CountingExecutor();
+		channel.addConsumer(consumer, method, 0, null, exec);
+		for (Integer event: events)
+		{
+			channel.publish(event);
+		}
+		assertThat(exec._done.await(COALESCING_DELAY * 20, TimeUnit.MILLISECONDS))
+			.as("coalesced events dispatched").isTrue();
+		return exec;
+	}
+
+	static private class CountingExecutor implements Executor
+	{
+		@Override public void execute(Runnable command)
+		{
+			_calls++;
+			command.run();
+			_done.countDown();
+		}
+
+		private volatile int _calls = 0;
+		final private CountDownLatch _done = new CountDownLatch(1);
+	}
+
+	static final private long COALESCING_DELAY = 50L;
+	static final private int MAILBOX_EVENTS = 200;
+
 	private ConsumerExceptionHandler _exceptionHandler;
 	private ConsumerReturnHandler<Integer> _intReturnHandler;
 	private ConsumerReturnHandler<String> _stringReturnHandler;
 	private Cleaner _cleanup;
+	private DefaultEventMetrics _metrics;
 	private ChannelImpl<Integer> _channel;
 	private Map<TypeLiteral<?>, ConsumerReturnHandler<?>> _returnHandlers;
 }
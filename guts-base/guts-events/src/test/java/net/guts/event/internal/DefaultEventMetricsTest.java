@@ -0,0 +1,148 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.inject.Provider;
+import com.google.inject.TypeLiteral;
+
+import static org.easymock.classextension.EasyMock.createNiceMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.fest.assertions.Assertions.assertThat;
+
+import net.guts.common.cleaner.Cleaner;
+import net.guts.common.cleaner.CleanerImpl;
+import net.guts.event.ChannelOptions;
+import net.guts.event.ConsumerExceptionHandler;
+import net.guts.event.ConsumerReturnHandler;
+import net.guts.event.MetricsOptions;
+
+@Test(groups = "utest")
+public class DefaultEventMetricsTest
+{
+	@BeforeMethod public void setup()
+	{
+		ConsumerExceptionHandler exceptionHandler = 
+			createNiceMock(ConsumerExceptionHandler.class);
+		Cleaner cleanup = new CleanerImpl();
+		replay(exceptionHandler);
+		_metrics = new DefaultEventMetrics(
+			Collections.<Class<? extends Annotation>, Provider<Executor>>emptyMap());
+		_channel = new ChannelImpl<Integer>(Integer.class, "topic", ChannelOptions.DEFAULT,
+			exceptionHandler, cleanup, 
+			Collections.<TypeLiteral<?>, ConsumerReturnHandler<?>>emptyMap(), 
+			new CoalescingScheduler(cleanup), _metrics);
+	}
+	
+	public void checkPublishAndNotifyCounts() throws Exception
+	{
+		Method method = Consumer.class.getDeclaredMethod("push", Integer.class);
+		Consumer consumer1 = new Consumer();
+		Consumer consumer2 = new Consumer();
+		_channel.addConsumer(consumer1, method, 0, null, new InCurrentThreadExecutor());
+		_channel.addConsumer(consumer2, method, 0, null, new InCurrentThreadExecutor());
+		_channel.publish(1);
+		_channel.publish(-1);
+		_channel.publish(2);
+
+		assertThat(_metrics.getPublishCounts()).hasSize(1);
+		assertThat(_metrics.getPublishCounts().get("java.lang.Integer 'topic'"))
+			.isEqualTo(3L);
+		// Both consumer instances share the same statistics
+		List<ConsumerStatistics> statistics = _metrics.getConsumerStatistics();
+		assertThat(statistics).hasSize(1);
+		ConsumerStatistics consumerStats = statistics.get(0);
+		assertThat(consumerStats.getChannel()).isEqualTo("java.lang.Integer 'topic'");
+		assertThat(consumerStats.getNotified()).isEqualTo(6);
+		assertThat(consumerStats.getFailed()).isEqualTo(2);
+		assertThat(consumerStats.getDropped()).isEqualTo(0);
+		long total = 0;
+		for (long count: consumerStats.getLatencyHistogram())
+		{
+			total += count;
+		}
+		assertThat(total).isEqualTo(6);
+		
+		_metrics.reset();
+		assertThat(_metrics.getPublishCounts().get("java.lang.Integer 'topic'"))
+			.isEqualTo(0L);
+		assertThat(_metrics.getConsumerStatistics().get(0).getNotified()).isEqualTo(0);
+	}
+	
+	public void checkDroppedCount() throws Exception
+	{
+		Method method = Consumer.class.getDeclaredMethod("push", Integer.class);
+		Consumer consumer = new Consumer();
+		_channel.addConsumer(consumer, method, 0, null, new Executor()
+		{
+			@Override public void execute(Runnable command)
+			{
+				throw new RejectedExecutionException();
+			}
+		});
+		_channel.publish(1);
+		ConsumerStatistics consumerStats = _metrics.getConsumerStatistics().get(0);
+		assertThat(consumerStats.getDropped()).isEqualTo(1);
+		assertThat(consumerStats.getNotified()).isEqualTo(0);
+	}
+	
+	public void checkSlowConsumerThreshold()
+	{
+		assertThat(_metrics.getSlowConsumerThreshold(TimeUnit.MILLISECONDS))
+			.isEqualTo(100);
+		_metrics.setOptions(
+			MetricsOptions.DEFAULT.withSlowConsumerThreshold(1, TimeUnit.SECONDS));
+		assertThat(_metrics.getSlowConsumerThreshold(TimeUnit.MILLISECONDS))
+			.isEqualTo(1000);
+		_metrics.setSlowConsumerThreshold(0, TimeUnit.MILLISECONDS);
+		assertThat(_metrics.getSlowConsumerThreshold(TimeUnit.NANOSECONDS)).isEqualTo(0);
+	}
+	
+	public void checkHistogramBuckets()
+	{
+		assertThat(DefaultEventMetrics.bucket(0)).isEqualTo(0);
+		assertThat(DefaultEventMetrics.bucket(1023)).isEqualTo(0);
+		assertThat(DefaultEventMetrics.bucket(1024)).isEqualTo(1);
+		assertThat(DefaultEventMetrics.bucket(2047)).isEqualTo(1);
+		assertThat(DefaultEventMetrics.bucket(2048)).isEqualTo(2);
+		assertThat(DefaultEventMetrics.bucket(Long.MAX_VALUE))
+			.isEqualTo(DefaultEventMetrics.HISTOGRAM_BUCKETS - 1);
+	}
+	
+	static public class Consumer
+	{
+		public void push(Integer event)
+		{
+			if (event < 0)
+			{
+				throw new IllegalArgumentException("negative event");
+			}
+		}
+	}
+
+	private DefaultEventMetrics _metrics;
+	private ChannelImpl<Integer> _channel;
+}
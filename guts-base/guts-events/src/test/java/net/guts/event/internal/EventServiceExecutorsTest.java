@@ -27,14 +27,15 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import static org.easymock.classextension.EasyMock.createMock;
-import static org.easymock.classextension.EasyMock.createNiceMock;
 import static org.easymock.classextension.EasyMock.createStrictMock;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.easymock.classextension.EasyMock.reset;
 import static org.easymock.classextension.EasyMock.verify;
 
 import net.guts.common.cleaner.Cleaner;
+import net.guts.common.cleaner.CleanerImpl;
 import net.guts.event.Channel;
+import net.guts.event.ChannelOptions;
 import net.guts.event.ConsumerExceptionHandler;
 import net.guts.event.ConsumerReturnHandler;
 import net.guts.event.Consumes;
@@ -55,7 +56,7 @@ public class EventServiceExecutorsTest
 	@BeforeMethod public void setup()
 	{
 		_exceptionHandler = createMock(ConsumerExceptionHandler.class);
-		_cleaner = createNiceMock(Cleaner.class);
+		_cleaner = new CleanerImpl();
 		final Map<Class<? extends Annotation>, Provider<Executor>> executors =
 			new HashMap<Class<? extends Annotation>, Provider<Executor>>();
 		final Map<TypeLiteral<?>, ConsumerReturnHandler<?>> returnHandlers =
@@ -68,18 +69,21 @@ public class EventServiceExecutorsTest
 		{
 			public AnnotationProcessor create(Set<ChannelKey> channels)
 			{
-				return new AnnotationProcessor(channels, executors);
+				return new AnnotationProcessor(
+					channels, executors, new FastMethodInvokerFactory());
 			}
 		};
 		ChannelFactory channelFactory = new ChannelFactory()
 		{
-			@Override public ChannelImpl<?> create(Type eventType, String topic)
+			@Override public ChannelImpl<?> create(
+				Type eventType, String topic, ChannelOptions options)
 			{
-				return new ChannelImpl<Object>(
-					eventType, topic, _exceptionHandler, _cleaner, returnHandlers);
+				return new ChannelImpl<Object>(eventType, topic, options, 
+					_exceptionHandler, _cleaner, returnHandlers, 
+					new CoalescingScheduler(_cleaner), new DefaultEventMetrics(executors));
 			}
 		};
-		_service = new EventServiceImpl(processorFactory, channelFactory);
+		_service = new EventServiceImpl(processorFactory, channelFactory, _cleaner);
 		_service.registerChannel(TypeLiteral.get(Integer.class), null);
 	}
 	
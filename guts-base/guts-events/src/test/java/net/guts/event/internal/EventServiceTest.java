@@ -14,6 +14,9 @@
 
 package net.guts.event.internal;
 
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.awt.event.HierarchyEvent;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.HashMap;
@@ -22,10 +25,13 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
 
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+
+import org.testng.SkipException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import static org.easymock.classextension.EasyMock.createNiceMock;
 import static org.easymock.classextension.EasyMock.createMock;
 import static org.easymock.classextension.EasyMock.createStrictMock;
 import static org.easymock.classextension.EasyMock.replay;
@@ -34,12 +40,15 @@ import static org.easymock.classextension.EasyMock.verify;
 import static org.fest.assertions.Assertions.assertThat;
 
 import net.guts.common.cleaner.Cleaner;
+import net.guts.common.cleaner.CleanerImpl;
 import net.guts.event.Channel;
+import net.guts.event.ChannelOptions;
 import net.guts.event.ConsumerExceptionHandler;
 import net.guts.event.ConsumerReturnHandler;
 import net.guts.event.Consumes;
 import net.guts.event.EventService;
 import net.guts.event.Filters;
+import net.guts.event.Subscription;
 import net.guts.event.internal.AnnotationProcessor;
 import net.guts.event.internal.AnnotationProcessorFactory;
 import net.guts.event.internal.ChannelKey;
@@ -54,7 +63,7 @@ public class EventServiceTest
 	@BeforeMethod public void setup()
 	{
 		_exceptionHandler = createMock(ConsumerExceptionHandler.class);
-		_cleaner = createNiceMock(Cleaner.class);
+		_cleaner = new CleanerImpl();
 		final Map<Class<? extends Annotation>, Provider<Executor>> executors =
 			new HashMap<Class<? extends Annotation>, Provider<Executor>>();
 		final Map<TypeLiteral<?>, ConsumerReturnHandler<?>> returnHandlers =
@@ -63,18 +72,21 @@ public class EventServiceTest
 		{
 			public AnnotationProcessor create(Set<ChannelKey> channels)
 			{
-				return new AnnotationProcessor(channels, executors);
+				return new AnnotationProcessor(
+					channels, executors, new FastMethodInvokerFactory());
 			}
 		};
 		ChannelFactory channelFactory = new ChannelFactory()
 		{
-			@Override public ChannelImpl<?> create(Type eventType, String topic)
+			@Override public ChannelImpl<?> create(
+				Type eventType, String topic, ChannelOptions options)
 			{
-				return new ChannelImpl<Object>(
-					eventType, topic, _exceptionHandler, _cleaner, returnHandlers);
+				return new ChannelImpl<Object>(eventType, topic, options, 
+					_exceptionHandler, _cleaner, returnHandlers, 
+					new CoalescingScheduler(_cleaner), new DefaultEventMetrics(executors));
 			}
 		};
-		_service = new EventServiceImpl(processorFactory, channelFactory);
+		_service = new EventServiceImpl(processorFactory, channelFactory, _cleaner);
 	}
 
 	@Test(expectedExceptions = IllegalArgumentException.class)
@@ -303,6 +315,187 @@ public class EventServiceTest
 		@Filters public boolean filter(int[] event) {return true;}
 	}
 	
+	public void checkClosedSubscriptionStopsNotifications()
+	{
+		Integer event1 = new Integer(3);
+		Integer event2 = new Integer(10);
+		_service.registerChannel(TypeLiteral.get(Integer.class), null);
+		Channel<Integer> channel = 
+			_service.getChannel(TypeLiteral.get(Integer.class), null);
+
+		Consumer1 mock = createStrictMock(Consumer1.class);
+		mock.push(same(event1));
+		Consumer2 consumer = new Consumer2(mock);
+		
+		replay(mock, _exceptionHandler);
+		Subscription subscription = _service.registerConsumers(consumer);
+		assertThat(subscription.isClosed()).isFalse();
+		channel.publish(event1);
+		subscription.close();
+		assertThat(subscription.isClosed()).isTrue();
+		channel.publish(event2);
+		// Closing twice is harmless
+		subscription.close();
+		verify(mock, _exceptionHandler);
+	}
+	
+	public void checkClosedSubscriptionKeepsOtherSubscriptions()
+	{
+		Integer event1 = new Integer(3);
+		Integer event2 = new Integer(10);
+		_service.registerChannel(TypeLiteral.get(Integer.class), null);
+		Channel<Integer> channel = 
+			_service.getChannel(TypeLiteral.get(Integer.class), null);
+
+		Consumer1 mock = createStrictMock(Consumer1.class);
+		// Registered twice, hence notified twice until first subscription is closed
+		mock.push(same(event1));
+		mock.push(same(event1));
+		mock.push(same(event2));
+		Consumer2 consumer = new Consumer2(mock);
+		
+		replay(mock, _exceptionHandler);
+		Subscription subscription1 = _service.registerConsumers(consumer);
+		Subscription subscription2 = _service.registerConsumers(consumer);
+		channel.publish(event1);
+		subscription1.close();
+		assertThat(subscription2.isClosed()).isFalse();
+		channel.publish(event2);
+		verify(mock, _exceptionHandler);
+	}
+	
+	public void checkUnregisterConsumers()
+	{
+		Integer event1 = new Integer(3);
+		Integer event2 = new Integer(10);
+		_service.registerChannel(TypeLiteral.get(Integer.class), null);
+		Channel<Integer> channel = 
+			_service.getChannel(TypeLiteral.get(Integer.class), null);
+
+		Consumer1 mock1 = createStrictMock(Consumer1.class);
+		Consumer1 mock2 = createStrictMock(Consumer1.class);
+		mock1.push(same(event1));
+		mock2.push(same(event1));
+		mock2.push(same(event2));
+		Consumer2 consumer1 = new Consumer2(mock1);
+		Consumer2 consumer2 = new Consumer2(mock2);
+		
+		replay(mock1, mock2, _exceptionHandler);
+		Subscription subscription = _service.registerConsumers(consumer1);
+		_service.registerConsumers(consumer2);
+		channel.publish(event1);
+		_service.unregisterConsumers(consumer1);
+		assertThat(subscription.isClosed()).isTrue();
+		channel.publish(event2);
+		// Unregistering unknown instances is harmless
+		_service.unregisterConsumers(consumer1);
+		_service.unregisterConsumers(new Object());
+		verify(mock1, mock2, _exceptionHandler);
+	}
+	
+	public void checkClosedSubscriptionStopsWildcardNotifications()
+	{
+		Integer event1 = new Integer(3);
+		Integer event2 = new Integer(10);
+		_service.registerChannel(TypeLiteral.get(Integer.class), "quote.fx");
+		Channel<Integer> channel1 = 
+			_service.getChannel(TypeLiteral.get(Integer.class), "quote.fx");
+		
+		Consumer1 mock = createStrictMock(Consumer1.class);
+		mock.push(same(event1));
+		mock.push(same(event1));
+		Consumer5 consumer = new Consumer5(mock);
+		
+		replay(mock, _exceptionHandler);
+		Subscription subscription = _service.registerConsumers(consumer);
+		_service.registerChannel(TypeLiteral.get(Integer.class), "quote.bond");
+		Channel<Integer> channel2 = 
+			_service.getChannel(TypeLiteral.get(Integer.class), "quote.bond");
+		channel1.publish(event1);
+		channel2.publish(event1);
+		subscription.close();
+		channel1.publish(event2);
+		channel2.publish(event2);
+		// Channels registered after close must not get the consumer either
+		_service.registerChannel(TypeLiteral.get(Integer.class), "quote.equity");
+		_service.getChannel(TypeLiteral.get(Integer.class), "quote.equity").publish(event2);
+		verify(mock, _exceptionHandler);
+	}
+	
+	static public class Consumer5
+	{
+		public Consumer5(Consumer1 mock)
+		{
+			_mock = mock;
+		}
+		@Consumes(topic = "quote.*") public void push(Integer event)
+		{
+			_mock.push(event);
+		}
+		private final Consumer1 _mock;
+	}
+	
+	public void checkSubscriptionClosedOnDispose() throws Exception
+	{
+		if (GraphicsEnvironment.isHeadless())
+		{
+			throw new SkipException("Windows can't be created in headless mode");
+		}
+		_service.registerChannel(TypeLiteral.get(Integer.class), null);
+		Consumer1 mock = createStrictMock(Consumer1.class);
+		replay(mock, _exceptionHandler);
+		
+		JDialog dialog = new JDialog();
+		JPanel panel = new JPanel();
+		dialog.add(panel);
+		dialog.pack();
+		Subscription subscription = 
+			_service.registerConsumers(new Consumer2(mock)).closeOnDispose(panel);
+		assertThat(subscription.isClosed()).isFalse();
+		dialog.dispose();
+		// Wait until WINDOW_CLOSED has been dispatched
+		EventQueue.invokeAndWait(new Runnable()
+		{
+			@Override public void run()
+			{
+			}
+		});
+		assertThat(subscription.isClosed()).isTrue();
+		_service.getChannel(TypeLiteral.get(Integer.class), null).publish(1);
+		verify(mock, _exceptionHandler);
+	}
+	
+	// Tab removal, CardLayout swaps... make components non displayable for a while,
+	// this must not close their subscriptions
+	public void checkSubscriptionNotClosedWhenComponentRemoved()
+	{
+		_service.registerChannel(TypeLiteral.get(Integer.class), null);
+		Consumer1 mock = createStrictMock(Consumer1.class);
+		mock.push(1);
+		replay(mock, _exceptionHandler);
+		
+		JPanel parent = new JPanel();
+		JPanel panel = new JPanel();
+		parent.add(panel);
+		Subscription subscription = 
+			_service.registerConsumers(new Consumer2(mock)).closeOnDispose(panel);
+		parent.remove(panel);
+		panel.dispatchEvent(new HierarchyEvent(panel, HierarchyEvent.HIERARCHY_CHANGED, 
+			panel, null, HierarchyEvent.DISPLAYABILITY_CHANGED));
+		assertThat(subscription.isClosed()).isFalse();
+		_service.getChannel(TypeLiteral.get(Integer.class), null).publish(1);
+		verify(mock, _exceptionHandler);
+	}
+	
+	public void checkNoConsumerSubscription()
+	{
+		replay(_exceptionHandler);
+		Subscription subscription = _service.registerConsumers(new Object());
+		assertThat(subscription.isClosed()).isTrue();
+		subscription.close();
+		verify(_exceptionHandler);
+	}
+	
 	static private final String TOPIC = "dummy";
 	static private final String BAD_TOPIC = "unexisting";
 	private EventService _service;
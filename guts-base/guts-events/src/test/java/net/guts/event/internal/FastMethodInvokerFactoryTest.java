@@ -0,0 +1,144 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.event.internal;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.testng.annotations.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+@Test(groups = "utest")
+public class FastMethodInvokerFactoryTest
+{
+	public void checkGeneratedInvoker() throws Exception
+	{
+		Method method = Consumer1.class.getMethod("push", int.class);
+		MethodInvoker invoker = _factory.create(Consumer1.class, method);
+		assertThat(invoker instanceof ReflectionMethodInvoker)
+			.as("reflection invoker").isFalse();
+		assertThat(invoker.getMethod()).as("invoker.getMethod()").isEqualTo(method);
+		assertThat(invoker.invoke(new Consumer1(), 10)).as("invoke()").isEqualTo("10");
+	}
+
+	public void checkGeneratedObjectInvoker() throws Exception
+	{
+		Method method = Consumer1.class.getMethod("push", String.class);
+		MethodInvoker invoker = _factory.create(Consumer1.class, method);
+		assertThat(invoker instanceof ReflectionMethodInvoker)
+			.as("reflection invoker").isFalse();
+		assertThat(invoker instanceof PrimitiveMethodInvoker).as("primitive invoker").isFalse();
+		assertThat(invoker.invoke(new Consumer1(), "abc")).as("invoke()").isEqualTo("abc!");
+	}
+
+	public void checkGeneratedInvokerWrapsException() throws Exception
+	{
+		Method method = Consumer1.class.getMethod("fail", Integer.class);
+		MethodInvoker invoker = _factory.create(Consumer1.class, method);
+		try
+		{
+			invoker.invoke(new Consumer1(), 10);
+			assert false : "invoke() should have thrown InvocationTargetException";
+		}
+		catch (InvocationTargetException e)
+		{
+			assertThat(e.getTargetException()).isInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	public void checkGeneratedPrimitiveInvoker() throws Exception
+	{
+		Method method = Consumer1.class.getMethod("push", int.class);
+		MethodInvoker invoker = _factory.create(Consumer1.class, method);
+		assertThat(invoker).as("invoker").isInstanceOf(PrimitiveMethodInvoker.class);
+		PrimitiveMethodInvoker primitive = (PrimitiveMethodInvoker) invoker;
+		assertThat(primitive.invoke(new Consumer1(), -10L)).as("invoke()")
+			.isEqualTo("-10");
+
+		method = Consumer1.class.getMethod("filter", double.class);
+		primitive = (PrimitiveMethodInvoker) _factory.create(Consumer1.class, method);
+		long bits = Double.doubleToRawLongBits(2.5);
+		assertThat(primitive.invoke(new Consumer1(), bits)).as("invoke()").isEqualTo(true);
+		assertThat(primitive.invoke(new Consumer1(), 0L)).as("invoke()").isEqualTo(false);
+	}
+
+	public void checkGeneratedPrimitiveInvokerWrapsException() throws Exception
+	{
+		Method method = Consumer1.class.getMethod("fail", long.class);
+		PrimitiveMethodInvoker invoker = 
+			(PrimitiveMethodInvoker) _factory.create(Consumer1.class, method);
+		try
+		{
+			invoker.invoke(new Consumer1(), 10L);
+			assert false : "invoke() should have thrown InvocationTargetException";
+		}
+		catch (InvocationTargetException e)
+		{
+			assertThat(e.getTargetException()).isInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	public void checkReflectionInvokerForPrivateClass() throws Exception
+	{
+		Method method = Consumer2.class.getMethod("push", int.class);
+		MethodInvoker invoker = _factory.create(Consumer2.class, method);
+		assertThat(invoker).as("invoker").isInstanceOf(ReflectionMethodInvoker.class);
+		assertThat(invoker.invoke(new Consumer2(), 10)).as("invoke()").isNull();
+	}
+
+	public void checkReflectionInvokerForNonPublicMethod() throws Exception
+	{
+		Method method = Consumer1.class.getDeclaredMethod("pushLocal", int.class);
+		MethodInvoker invoker = _factory.create(Consumer1.class, method);
+		assertThat(invoker).as("invoker").isInstanceOf(ReflectionMethodInvoker.class);
+	}
+
+	static public class Consumer1
+	{
+		public String push(int event)
+		{
+			return "" + event;
+		}
+		public String push(String event)
+		{
+			return event + "!";
+		}
+		void pushLocal(int event)
+		{
+		}
+		public void fail(Integer event)
+		{
+			throw new IllegalStateException();
+		}
+		public void fail(long event)
+		{
+			throw new IllegalStateException();
+		}
+		public boolean filter(double event)
+		{
+			return event > 1.0;
+		}
+	}
+
+	static private class Consumer2
+	{
+		public void push(int event)
+		{
+		}
+	}
+	
+	final private MethodInvokerFactory _factory = new FastMethodInvokerFactory();
+}
@@ -0,0 +1,281 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import net.guts.event.DeferredThreadOptions;
+import net.guts.event.DeferredThreadOptions.Rejection;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+@Test(groups = "utest")
+public class InDeferredThreadExecutorTest
+{
+	@AfterMethod public void shutdown()
+	{
+		if (_executor != null)
+		{
+			_executor.shutdownNow();
+		}
+	}
+	
+	public void checkCallerRunsWhenSaturated() throws Exception
+	{
+		saturate(Rejection.CALLER_RUNS);
+		ThreadRecorder task = new ThreadRecorder();
+		_executor.execute(task);
+		assertThat(task._thread).as("notification thread").isSameAs(Thread.currentThread());
+	}
+
+	public void checkDiscardWhenSaturated() throws Exception
+	{
+		saturate(Rejection.DISCARD);
+		try
+		{
+			_executor.execute(new ThreadRecorder());
+			assert false : "execute() should have thrown RejectedExecutionException";
+		}
+		catch (RejectedExecutionException e)
+		{
+			// Expected
+		}
+	}
+
+	public void checkRejectAfterShutdown() throws Exception
+	{
+		_executor = new InDeferredThreadExecutor(DeferredThreadOptions.DEFAULT);
+		_executor.shutdown();
+		try
+		{
+			_executor.execute(new ThreadRecorder());
+			assert false : "execute() should have thrown RejectedExecutionException";
+		}
+		catch (RejectedExecutionException e)
+		{
+			// Expected
+		}
+	}
+
+	public void checkChannelOrdering() throws Exception
+	{
+		_executor = new InDeferredThreadExecutor(DeferredThreadOptions.DEFAULT
+			.withThreads(4).withQueueSize(10).withRejection(Rejection.BLOCK)
+			.withChannelOrdering(true));
+		List<Integer> events1 = Collections.synchronizedList(new ArrayList<Integer>());
+		List<Integer> events2 = Collections.synchronizedList(new ArrayList<Integer>());
+		CountDownLatch done = new CountDownLatch(2 * EVENTS);
+		for (int i = 0; i < EVENTS; i++)
+		{
+			_executor.execute(new OrderedRecorder("channel1", events1, i, done));
+			_executor.execute(new OrderedRecorder("channel2", events2, i, done));
+		}
+		assertThat(done.await(10, TimeUnit.SECONDS)).as("all events notified").isTrue();
+		for (int i = 0; i < EVENTS; i++)
+		{
+			assertThat(events1.get(i)).as("channel1 event #" + i).isEqualTo(i);
+			assertThat(events2.get(i)).as("channel2 event #" + i).isEqualTo(i);
+		}
+	}
+
+	public void checkOrderedExecutorHandsOffAfterBatch() throws Exception
+	{
+		_executor = new InDeferredThreadExecutor(DeferredThreadOptions.DEFAULT
+			.withThreads(1).withQueueSize(1000).withRejection(Rejection.BLOCK)
+			.withChannelOrdering(true));
+		// Hold the only pool thread until all events are submitted
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		_executor.execute(new Blocker(started, release));
+		assertThat(started.await(1, TimeUnit.SECONDS)).as("pool thread started").isTrue();
+		List<Integer> events = Collections.synchronizedList(new ArrayList<Integer>());
+		CountDownLatch done = new CountDownLatch(EVENTS + 1);
+		for (int i = 0; i < EVENTS; i++)
+		{
+			_executor.execute(new OrderedRecorder("channel1", events, i, done));
+		}
+		_executor.execute(new OrderedRecorder("channel2", events, -1, done));
+		release.countDown();
+		assertThat(done.await(10, TimeUnit.SECONDS)).as("all events notified").isTrue();
+		assertThat(events.indexOf(-1)).as("channel2 event position")
+			.isGreaterThan(0).isLessThan(EVENTS);
+	}
+
+	public void checkOrderingKeysComparedByIdentity() throws Exception
+	{
+		_executor = new InDeferredThreadExecutor(DeferredThreadOptions.DEFAULT
+			.withThreads(2).withQueueSize(10).withRejection(Rejection.BLOCK)
+			.withChannelOrdering(true));
+		final CountDownLatch started = new CountDownLatch(1);
+		_executor.execute(new OrderedBlocker(new EqualKey(), started, _release));
+		assertThat(started.await(1, TimeUnit.SECONDS)).as("first task started").isTrue();
+		// Equal but not same key: must not wait for the first task
+		List<Integer> events = Collections.synchronizedList(new ArrayList<Integer>());
+		CountDownLatch done = new CountDownLatch(1);
+		_executor.execute(new OrderedRecorder(new EqualKey(), events, 1, done));
+		assertThat(done.await(1, TimeUnit.SECONDS)).as("second task notified").isTrue();
+	}
+
+	public void checkRejectSelfPostWhenBlocked() throws Exception
+	{
+		_executor = new InDeferredThreadExecutor(DeferredThreadOptions.DEFAULT
+			.withThreads(1).withQueueSize(1).withRejection(Rejection.BLOCK)
+			.withChannelOrdering(true));
+		final Object key = "channel";
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final CountDownLatch done = new CountDownLatch(1);
+		_executor.execute(new OrderedRecorder(key, null, 0, null)
+		{
+			@Override public void run()
+			{
+				try
+				{
+					// First one fills the queue, second one can't wait for room
+					_executor.execute(new OrderedRecorder(key, null, 1, null));
+					_executor.execute(new OrderedRecorder(key, null, 2, null));
+				}
+				catch (RuntimeException e)
+				{
+					error.set(e);
+				}
+				done.countDown();
+			}
+		});
+		assertThat(done.await(1, TimeUnit.SECONDS)).as("no deadlock").isTrue();
+		assertThat(error.get()).as("self post error")
+			.isInstanceOf(RejectedExecutionException.class);
+	}
+
+	// Blocks the only pool thread and fills the queue
+	private void saturate(Rejection rejection) throws Exception
+	{
+		_executor = new InDeferredThreadExecutor(DeferredThreadOptions.DEFAULT
+			.withThreads(1).withQueueSize(1).withRejection(rejection));
+		final CountDownLatch started = new CountDownLatch(1);
+		_executor.execute(new Blocker(started, _release));
+		assertThat(started.await(1, TimeUnit.SECONDS)).as("pool thread started").isTrue();
+		_executor.execute(new ThreadRecorder());
+	}
+	
+	static private class Blocker implements Runnable
+	{
+		Blocker(CountDownLatch started, CountDownLatch release)
+		{
+			_started = started;
+			_release = release;
+		}
+		
+		@Override public void run()
+		{
+			_started.countDown();
+			try
+			{
+				_release.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		final private CountDownLatch _started;
+		final private CountDownLatch _release;
+	}
+	
+	static private class OrderedBlocker extends Blocker implements OrderedRunnable
+	{
+		OrderedBlocker(Object key, CountDownLatch started, CountDownLatch release)
+		{
+			super(started, release);
+			_key = key;
+		}
+		
+		@Override public Object getOrderingKey()
+		{
+			return _key;
+		}
+		
+		final private Object _key;
+	}
+	
+	// All instances are equal
+	static private class EqualKey
+	{
+		@Override public boolean equals(Object that)
+		{
+			return that instanceof EqualKey;
+		}
+		
+		@Override public int hashCode()
+		{
+			return 0;
+		}
+	}
+	
+	static private class ThreadRecorder implements Runnable
+	{
+		@Override public void run()
+		{
+			_thread = Thread.currentThread();
+		}
+		
+		private volatile Thread _thread = null;
+	}
+
+	static private class OrderedRecorder implements OrderedRunnable
+	{
+		OrderedRecorder(Object key, List<Integer> events, int event, CountDownLatch done)
+		{
+			_key = key;
+			_events = events;
+			_event = event;
+			_done = done;
+		}
+		
+		@Override public Object getOrderingKey()
+		{
+			return _key;
+		}
+
+		@Override public void run()
+		{
+			if (_events != null)
+			{
+				_events.add(_event);
+				_done.countDown();
+			}
+		}
+
+		final private Object _key;
+		final private List<Integer> _events;
+		final private int _event;
+		final private CountDownLatch _done;
+	}
+	
+	static final private int EVENTS = 200;
+
+	final private CountDownLatch _release = new CountDownLatch(1);
+	private InDeferredThreadExecutor _executor = null;
+}
@@ -0,0 +1,83 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.event.internal;
+
+import org.testng.annotations.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+@Test(groups = "utest")
+public class TopicTrieTest
+{
+	public void checkIsPattern()
+	{
+		assertThat(TopicTrie.isPattern("")).as("''").isFalse();
+		assertThat(TopicTrie.isPattern("quotes.EUR")).as("quotes.EUR").isFalse();
+		assertThat(TopicTrie.isPattern("quotes*")).as("quotes*").isFalse();
+		assertThat(TopicTrie.isPattern("quotes.*")).as("quotes.*").isTrue();
+		assertThat(TopicTrie.isPattern("#")).as("#").isTrue();
+	}
+
+	public void checkOneSegmentWildcard()
+	{
+		TopicTrie trie = createTrie();
+		assertThat(trie.match("quotes.*")).containsOnly(QUOTES_EUR);
+		assertThat(trie.match("quotes.*.*")).containsOnly(QUOTES_EUR_USD, QUOTES_USD_JPY);
+		assertThat(trie.match("*.EUR.*")).containsOnly(QUOTES_EUR_USD, TRADES_EUR_USD);
+		assertThat(trie.match("*")).containsOnly(QUOTES);
+	}
+
+	public void checkAnySegmentsWildcard()
+	{
+		TopicTrie trie = createTrie();
+		assertThat(trie.match("quotes.#")).containsOnly(
+			QUOTES, QUOTES_EUR, QUOTES_EUR_USD, QUOTES_USD_JPY);
+		assertThat(trie.match("#.USD")).containsOnly(QUOTES_EUR_USD, TRADES_EUR_USD);
+		assertThat(trie.match("#")).containsOnly(QUOTES, QUOTES_EUR, 
+			QUOTES_EUR_USD, QUOTES_USD_JPY, TRADES_EUR_USD);
+		assertThat(trie.match("trades.#.JPY")).isEmpty();
+	}
+
+	public void checkMatchUpdatedWhenChannelAdded()
+	{
+		TopicTrie trie = createTrie();
+		assertThat(trie.match("trades.*.*")).containsOnly(TRADES_EUR_USD);
+		ChannelKey key = new ChannelKey(Integer.class, "trades.USD.JPY");
+		trie.add(key);
+		assertThat(trie.match("trades.*.*")).containsOnly(TRADES_EUR_USD, key);
+	}
+
+	static private TopicTrie createTrie()
+	{
+		TopicTrie trie = new TopicTrie();
+		trie.add(new ChannelKey(Integer.class, ""));
+		trie.add(QUOTES);
+		trie.add(QUOTES_EUR);
+		trie.add(QUOTES_EUR_USD);
+		trie.add(QUOTES_USD_JPY);
+		trie.add(TRADES_EUR_USD);
+		return trie;
+	}
+
+	static final private ChannelKey QUOTES = new ChannelKey(Integer.class, "quotes");
+	static final private ChannelKey QUOTES_EUR = new ChannelKey(Integer.class, "quotes.EUR");
+	static final private ChannelKey QUOTES_EUR_USD = 
+		new ChannelKey(Integer.class, "quotes.EUR.USD");
+	static final private ChannelKey QUOTES_USD_JPY = 
+		new ChannelKey(String.class, "quotes.USD.JPY");
+	static final private ChannelKey TRADES_EUR_USD = 
+		new ChannelKey(Integer.class, "trades.EUR.USD");
+}
@@ -47,7 +47,7 @@ class ActionRegistrationManagerImpl implements ActionRegistrationManager
 		_injector = injector;
 		_resourceInjector = resourceInjector;
 		_policy = policy;
-		cleaner.addCleanable(_actions);
+		_actions = WeakRefSet.create(cleaner);
 	}
 
 	@Override public void registerActions(final Object instance)
@@ -120,7 +120,7 @@ class ActionRegistrationManagerImpl implements ActionRegistrationManager
 	
 	final private Map<Class<?>, List<Field>> _actionClasses = 
 		new HashMap<Class<?>, List<Field>>();
-	final private WeakRefSet<GutsAction> _actions = WeakRefSet.create();
+	final private WeakRefSet<GutsAction> _actions;
 	final private ResourceInjector _resourceInjector;
 	final private Injector _injector;
 	final private ActionNamePolicy _policy;
@@ -14,6 +14,9 @@
 
 package net.guts.gui.action;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.swing.Action;
 import javax.swing.Icon;
 import javax.swing.KeyStroke;
@@ -30,51 +33,51 @@ class GutsActionInjector extends BeanPropertiesInjector<GutsAction>
 	{
 		Action action = component.action();
 		// First try to handle "easy" properties
-		KeyHandler handler = new KeyHandler(action, resources, key);
-		boolean ok = handler.handle("accelerator", Action.ACCELERATOR_KEY, KeyStroke.class);
-		ok = ok || handler.handle("largeIcon", Action.LARGE_ICON_KEY, Icon.class);
-		ok = ok || handler.handle("longDescription", Action.LONG_DESCRIPTION, String.class);
-		ok = ok || handler.handle("toolTipText", Action.SHORT_DESCRIPTION, String.class);
-		ok = ok || handler.handle("smallIcon", Action.SMALL_ICON, Icon.class);
+		ActionProperty property = _properties.get(key.name());
+		if (property != null)
+		{
+			action.putValue(property._actionKey, resources.getValue(key, property._type));
+			return true;
+		}
 		// Then deal with special "text" property (with mnemonics)
-		if (!ok && key.name().equals("text"))
+		if (key.name().equals("text"))
 		{
 			String text = resources.getValue(key, String.class);
 			MnemonicInfo info = MnemonicInfo.extract(text);
 			action.putValue(Action.NAME, info.getText());
 			action.putValue(Action.MNEMONIC_KEY, info.getMnemonic());
 			action.putValue(Action.DISPLAYED_MNEMONIC_INDEX_KEY, info.getMnemonicIndex());
-			ok = true;
+			return true;
 		}
-		return ok;
+		return false;
+	}
+	
+	static private void addProperty(String property, String actionKey, Class<?> type)
+	{
+		_properties.put(property, new ActionProperty(actionKey, type));
 	}
 
-	static private class KeyHandler
+	static private class ActionProperty
 	{
-		KeyHandler(Action action, ResourceMap resources, Key key)
+		ActionProperty(String actionKey, Class<?> type)
 		{
-			_action = action;
-			_resources = resources;
-			_key = key;
-			_name = key.name();
+			_actionKey = actionKey;
+			_type = type;
 		}
 		
-		boolean handle(String property, String actionKey, Class<?> type)
-		{
-			if (_name.equals(property))
-			{
-				_action.putValue(actionKey, _resources.getValue(_key, type));
-				return true;
-			}
-			else
-			{
-				return false;
-			}
-		}
-		
-		final private Action _action;
-		final private ResourceMap _resources;
-		final private Key _key;
-		final private String _name;
+		final private String _actionKey;
+		final private Class<?> _type;
+	}
+	
+	// Properties directly mapped to Action values
+	static final private Map<String, ActionProperty> _properties = 
+		new HashMap<String, ActionProperty>();
+	static
+	{
+		addProperty("accelerator", Action.ACCELERATOR_KEY, KeyStroke.class);
+		addProperty("largeIcon", Action.LARGE_ICON_KEY, Icon.class);
+		addProperty("longDescription", Action.LONG_DESCRIPTION, String.class);
+		addProperty("toolTipText", Action.SHORT_DESCRIPTION, String.class);
+		addProperty("smallIcon", Action.SMALL_ICON, Icon.class);
 	}
 }
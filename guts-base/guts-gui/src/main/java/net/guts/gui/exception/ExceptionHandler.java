@@ -21,6 +21,8 @@ class ExceptionHandler
 	ExceptionHandler(Method handler, Class<? extends Throwable> type, int priority)
 	{
 		_handler = handler;
+		// Once for all, rather than each time an exception is dispatched
+		_handler.setAccessible(true);
 		_type = type;
 		_priority = priority;
 	}
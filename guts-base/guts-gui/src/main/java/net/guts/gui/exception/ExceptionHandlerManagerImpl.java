@@ -12,14 +12,17 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
+
 package net.guts.gui.exception;
 
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,13 +44,12 @@ class ExceptionHandlerManagerImpl implements ExceptionHandlerManager
 	public ExceptionHandlerManagerImpl(AnnotationProcessor processor, Cleaner cleaner)
 	{
 		_processor = processor;
-		cleaner.addCleanable(new Cleanable()
-		{
-			@Override public void cleanup()
-			{
-				ExceptionHandlerManagerImpl.this.cleanup();
-			}
-		});
+		_cleaner = cleaner;
+	}
+	
+	@Inject(optional = true) void setThrottling(ExceptionThrottling throttling)
+	{
+		_throttler = new Throttler(throttling);
 	}
 
 	/* (non-Javadoc)
@@ -55,29 +57,29 @@ class ExceptionHandlerManagerImpl implements ExceptionHandlerManager
 	 */
 	@Override public void handleException(Throwable e)
 	{
+		Throttler throttler = _throttler;
+		if (throttler != null && !throttler.accept(e))
+		{
+			_logger.debug("Exception not handled because of throttling", e);
+			return;
+		}
 		dispatch(e);
 	}
 	
 	private void dispatch(Throwable e)
 	{
-		Class<? extends Throwable> clazz = e.getClass();
-		synchronized (_handlers)
+		// No lock needed here: the plan is immutable, any concurrent change to 
+		// handlers gets visible to the next call to dispatch()
+		for (Handler handler: _plan.chain(e.getClass()))
 		{
-			for (Handler handler: _handlers)
+			// Check if reference is still valid
+			Object instance = handler._instance.get();
+			if (instance != null)
 			{
-				// Check if reference is still valid
-				Object instance = handler._instance.get();
-				if (instance != null)
+				// Call the handler and check if it has handled this exception
+				if (handle(instance, handler._info.getHandler(), e))
 				{
-					// Check method arg type is compatible with e
-					if (handler._info.getType().isAssignableFrom(clazz))
-					{
-						// Call the handler and check if it has handled this exception
-						if (handle(instance, handler._info.getHandler(), e))
-						{
-							break;
-						}
-					}
+					break;
 				}
 			}
 		}
@@ -90,12 +92,21 @@ class ExceptionHandlerManagerImpl implements ExceptionHandlerManager
 	{
 		List<ExceptionHandler> handlers = 
 			_processor.process(TypeHelper.extractPureClass(instance));
-		synchronized (_handlers)
+		if (handlers.isEmpty())
 		{
+			return;
+		}
+		synchronized (_lock)
+		{
+			Handler[] current = _plan._handlers;
+			Handler[] all = Arrays.copyOf(current, current.length + handlers.size());
+			int i = current.length;
 			for (ExceptionHandler handler: handlers)
 			{
-				_handlers.add(new Handler(instance, handler));
+				all[i++] = new Handler(_cleaner.weakReference(instance, _cleanable), handler);
 			}
+			Arrays.sort(all);
+			_plan = new Plan(all);
 		}
 	}
 
@@ -104,7 +115,6 @@ class ExceptionHandlerManagerImpl implements ExceptionHandlerManager
 	{
 		try
 		{
-			method.setAccessible(true);
 			return (Boolean) method.invoke(instance, e);
 		}
 		catch (Exception exc)
@@ -119,31 +129,86 @@ class ExceptionHandlerManagerImpl implements ExceptionHandlerManager
 	
 	private void cleanup()
 	{
-		synchronized (_handlers)
+		synchronized (_lock)
+		{
+			Handler[] current = _plan._handlers;
+			List<Handler> handlers = new ArrayList<Handler>(current.length);
+			for (Handler handler: current)
+			{
+				if (handler._instance.get() != null)
+				{
+					handlers.add(handler);
+				}
+			}
+			if (handlers.size() != current.length)
+			{
+				_plan = new Plan(handlers.toArray(new Handler[handlers.size()]));
+			}
+		}
+	}
+	
+	// Immutable list of all handlers, sorted by priority and registration order,
+	// with a cache of the handlers matching each class of exception dispatched;
+	// replaced as a whole whenever handlers are registered or cleaned up
+	static private class Plan
+	{
+		Plan(Handler[] handlers)
+		{
+			_handlers = handlers;
+		}
+		
+		Handler[] chain(Class<? extends Throwable> type)
+		{
+			Handler[] chain = _chains.get(type);
+			if (chain == null)
+			{
+				chain = resolve(type);
+				Handler[] previous = _chains.putIfAbsent(type, chain);
+				if (previous != null)
+				{
+					chain = previous;
+				}
+			}
+			return chain;
+		}
+		
+		private Handler[] resolve(Class<? extends Throwable> type)
 		{
-			Iterator<Handler> i = _handlers.iterator();
-			while (i.hasNext())
+			List<Handler> chain = new ArrayList<Handler>();
+			for (Handler handler: _handlers)
 			{
-				if (i.next()._instance.get() == null)
+				// Check method arg type is compatible with type
+				if (handler._info.getType().isAssignableFrom(type))
 				{
-					i.remove();
+					chain.add(handler);
 				}
 			}
+			return chain.toArray(new Handler[chain.size()]);
 		}
+		
+		final private Handler[] _handlers;
+		final private ConcurrentMap<Class<? extends Throwable>, Handler[]> _chains =
+			new ConcurrentHashMap<Class<? extends Throwable>, Handler[]>();
 	}
 
 	static private class Handler implements Comparable<Handler>
 	{
-		Handler(Object instance, ExceptionHandler info)
+		Handler(WeakReference<Object> instance, ExceptionHandler info)
 		{
-			_instance = new WeakReference<Object>(instance);
+			_instance = instance;
 			_info = info;
 		}
 		
 		@Override public int compareTo(Handler that)
 		{
-			int diff = this._info.getPriority() - that._info.getPriority();
-			return (diff != 0 ? diff : this._order - that._order);
+			// Don't subtract priorities: Integer.MIN_VALUE/MAX_VALUE would overflow
+			int priority = this._info.getPriority();
+			int thatPriority = that._info.getPriority();
+			if (priority != thatPriority)
+			{
+				return (priority < thatPriority ? -1 : 1);
+			}
+			return (this._order < that._order ? -1 : (this._order == that._order ? 0 : 1));
 		}
 		
 		@Override public int hashCode()
@@ -175,10 +240,22 @@ class ExceptionHandlerManagerImpl implements ExceptionHandlerManager
 		
 		final private WeakReference<Object> _instance;
 		final private ExceptionHandler _info;
-		final private int _order = _total++;
-		static private int _total = 0; 
+		final private int _order = _total.getAndIncrement();
+		static final private AtomicInteger _total = new AtomicInteger(0); 
 	}
 
 	final private AnnotationProcessor _processor;
-	final private SortedSet<Handler> _handlers = new TreeSet<Handler>();
+	final private Cleaner _cleaner;
+	// Removes handlers of garbage collected instances
+	final private Cleanable _cleanable = new Cleanable()
+	{
+		@Override public void cleanup()
+		{
+			ExceptionHandlerManagerImpl.this.cleanup();
+		}
+	};
+	// Lock serializing all modifications of _plan
+	final private Object _lock = new Object();
+	private volatile Plan _plan = new Plan(new Handler[0]);
+	private volatile Throttler _throttler = null;
 }
@@ -59,8 +59,8 @@ public final class ExceptionHandlingModule extends AbstractSingletonModule
 				binder(), new ExceptionHandlerInjectionListener());
 		OneTypeListener<Object> typeListener = 
 			new OneTypeListener<Object>(Object.class, injectionListener);
-		bindListener(
-			Matchers.hasMethodAnnotatedWith(HandlesException.class), typeListener);
+		bindListener(Matchers.indexed(HandlesException.class, 
+			Matchers.hasMethodAnnotatedWith(HandlesException.class)), typeListener);
 		// Registers static injection of SwingExceptionHandler class
 		requestStaticInjection(SwingExceptionHandler.class);
 	}
@@ -0,0 +1,98 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.gui.exception;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable options limiting the number of exceptions dispatched by 
+ * {@link ExceptionHandlerManager} to {@link HandlesException} methods, useful 
+ * when a misbehaving background process throws the same exception over and over.
+ * <p/>
+ * Throttling is disabled by default; it is enabled through 
+ * {@link Exceptions#bindThrottling}:
+ * <pre>
+ * Exceptions.bindThrottling(binder(), ExceptionThrottling.NONE
+ *     .withDuplicatesIgnoredFor(5, TimeUnit.SECONDS)
+ *     .withMaxRate(20));
+ * </pre>
+ * Exceptions that are not dispatched are logged at {@code DEBUG} level.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public final class ExceptionThrottling
+{
+	/**
+	 * No throttling: all exceptions are dispatched.
+	 */
+	static final public ExceptionThrottling NONE = new ExceptionThrottling(0, 0);
+	
+	private ExceptionThrottling(long duplicatesWindow, int maxRate)
+	{
+		_duplicatesWindow = duplicatesWindow;
+		_maxRate = maxRate;
+	}
+	
+	/**
+	 * Returns new throttling options where an exception identical to another 
+	 * exception dispatched less than {@code delay} ago is not dispatched. Two
+	 * exceptions are identical if they have the same class, the same message 
+	 * and were thrown from the same code location.
+	 * 
+	 * @param delay delay during which identical exceptions are ignored, 
+	 * {@code 0} to dispatch all identical exceptions
+	 * @param unit unit of {@code delay}
+	 * @return new options, {@code this} is not modified
+	 */
+	public ExceptionThrottling withDuplicatesIgnoredFor(long delay, TimeUnit unit)
+	{
+		return new ExceptionThrottling(unit.toNanos(delay), _maxRate);
+	}
+	
+	/**
+	 * Returns new throttling options where no more than {@code exceptionsPerSecond}
+	 * exceptions are dispatched every second.
+	 * 
+	 * @param exceptionsPerSecond maximum number of exceptions dispatched every 
+	 * second, {@code 0} for no maximum
+	 * @return new options, {@code this} is not modified
+	 */
+	public ExceptionThrottling withMaxRate(int exceptionsPerSecond)
+	{
+		return new ExceptionThrottling(_duplicatesWindow, exceptionsPerSecond);
+	}
+	
+	/**
+	 * @return delay, in nanoseconds, during which identical exceptions are 
+	 * ignored, {@code 0} if identical exceptions are all dispatched
+	 */
+	public long getDuplicatesWindow()
+	{
+		return _duplicatesWindow;
+	}
+	
+	/**
+	 * @return maximum number of exceptions dispatched every second, {@code 0} if
+	 * there is no maximum
+	 */
+	public int getMaxRate()
+	{
+		return _maxRate;
+	}
+	
+	final private long _duplicatesWindow;
+	final private int _maxRate;
+}
@@ -0,0 +1,47 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.gui.exception;
+
+import com.google.inject.Binder;
+
+/**
+ * Utility class to define, from within a Guice {@link com.google.inject.Module}, 
+ * bindings used by Guts-GUI Exception Handling system.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public final class Exceptions
+{
+	private Exceptions()
+	{
+	}
+
+	/**
+	 * Sets the {@link ExceptionThrottling} options used by 
+	 * {@link ExceptionHandlerManager} to limit the number of exceptions dispatched
+	 * to {@link HandlesException} methods.
+	 * <p/>
+	 * This must be called from {@link com.google.inject.Module#configure(Binder)}.
+	 * 
+	 * @param binder the Guice binder passed to 
+	 * {@link com.google.inject.Module#configure(Binder)}
+	 * @param throttling the throttling options to apply to all exceptions
+	 */
+	static public void bindThrottling(Binder binder, ExceptionThrottling throttling)
+	{
+		binder.bind(ExceptionThrottling.class).toInstance(throttling);
+	}
+}
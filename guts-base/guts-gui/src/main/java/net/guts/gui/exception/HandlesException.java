@@ -20,6 +20,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import net.guts.common.index.Indexed;
+
 /**
  * Annotates a method that will get called whenever an exception is processed by
  * {@link ExceptionHandlerManager}, typically uncaught exceptions that occur in 
@@ -42,6 +44,7 @@ import java.lang.annotation.Target;
  * @author Jean-Francois Poilpret
  */
 @Documented
+@Indexed
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface HandlesException
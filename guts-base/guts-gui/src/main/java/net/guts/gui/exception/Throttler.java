@@ -0,0 +1,148 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.gui.exception;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Applies ExceptionThrottling options; thread-safe without locks
+class Throttler
+{
+	static final private Logger _logger = LoggerFactory.getLogger(Throttler.class);
+	
+	Throttler(ExceptionThrottling throttling)
+	{
+		_duplicatesWindow = throttling.getDuplicatesWindow();
+		_maxRate = throttling.getMaxRate();
+	}
+	
+	boolean accept(Throwable e)
+	{
+		// Duplicates don't count in the rate
+		return !isDuplicate(e) && !exceedsRate();
+	}
+	
+	private boolean isDuplicate(Throwable e)
+	{
+		if (_duplicatesWindow == 0)
+		{
+			return false;
+		}
+		long now = System.nanoTime();
+		Signature signature = new Signature(e);
+		if (_lastSeen.size() >= MAX_SIGNATURES)
+		{
+			// Protect against exceptions with ever changing messages
+			_lastSeen.clear();
+		}
+		Long last = _lastSeen.putIfAbsent(signature, now);
+		while (last != null)
+		{
+			if (now - last < _duplicatesWindow)
+			{
+				return true;
+			}
+			if (_lastSeen.replace(signature, last, now))
+			{
+				return false;
+			}
+			last = _lastSeen.putIfAbsent(signature, now);
+		}
+		return false;
+	}
+	
+	private boolean exceedsRate()
+	{
+		if (_maxRate == 0)
+		{
+			return false;
+		}
+		long now = System.nanoTime();
+		long start = _periodStart.get();
+		if (now - start >= PERIOD && _periodStart.compareAndSet(start, now))
+		{
+			int count = _count.getAndSet(0);
+			if (count > _maxRate)
+			{
+				_logger.info("{} exceptions were not handled because of throttling", 
+					count - _maxRate);
+			}
+		}
+		return _count.incrementAndGet() > _maxRate;
+	}
+	
+	// Identifies identical exceptions
+	static private class Signature
+	{
+		Signature(Throwable e)
+		{
+			_type = e.getClass();
+			_message = e.getMessage();
+			StackTraceElement[] stack = e.getStackTrace();
+			_origin = (stack.length > 0 ? stack[0] : null);
+		}
+
+		@Override public int hashCode()
+		{
+			final int prime = 31;
+			int result = _type.hashCode();
+			result = prime * result + (_message == null ? 0 : _message.hashCode());
+			result = prime * result + (_origin == null ? 0 : _origin.hashCode());
+			return result;
+		}
+
+		@Override public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof Signature))
+			{
+				return false;
+			}
+			Signature that = (Signature) obj;
+			return	_type == that._type
+				&&	equal(_message, that._message)
+				&&	equal(_origin, that._origin);
+		}
+		
+		static private boolean equal(Object o1, Object o2)
+		{
+			return (o1 == null ? o2 == null : o1.equals(o2));
+		}
+		
+		final private Class<?> _type;
+		final private String _message;
+		final private StackTraceElement _origin;
+	}
+	
+	static final private int MAX_SIGNATURES = 256;
+	static final private long PERIOD = TimeUnit.SECONDS.toNanos(1);
+	
+	final private long _duplicatesWindow;
+	final private int _maxRate;
+	final private ConcurrentMap<Signature, Long> _lastSeen = 
+		new ConcurrentHashMap<Signature, Long>();
+	final private AtomicLong _periodStart = new AtomicLong(System.nanoTime());
+	final private AtomicInteger _count = new AtomicInteger(0);
+}
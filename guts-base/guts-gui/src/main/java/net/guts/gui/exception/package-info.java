@@ -23,6 +23,9 @@
  * framework but never caught by any of your own event listeners.</li>
  * <li>{@link net.guts.gui.exception.ExceptionHandlingModule} which must be added
  * to the list of Guice {@link com.google.inject.Module}s used by your application.</li>
+ * <li>{@link net.guts.gui.exception.Exceptions} with which you can bind 
+ * {@link net.guts.gui.exception.ExceptionThrottling} options, to limit the number
+ * of (possibly identical) exceptions handled every second.</li>
  * </ul>
  */
 package net.guts.gui.exception;
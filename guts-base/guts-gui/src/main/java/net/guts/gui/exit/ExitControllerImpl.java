@@ -35,7 +35,7 @@ class ExitControllerImpl implements ExitController
 	{
 		_shutdownChannel = shutdownChannel;
 		_exitPerformer = exitPerformer;
-		cleaner.addCleanable(_checkers);
+		_checkers = WeakRefSet.create(cleaner);
 	}
 
 	/* (non-Javadoc)
@@ -89,5 +89,5 @@ class ExitControllerImpl implements ExitController
 	
 	final private Channel<Void> _shutdownChannel;
 	final private ExitPerformer _exitPerformer;
-	final private WeakRefSet<ExitChecker> _checkers = WeakRefSet.create();
+	final private WeakRefSet<ExitChecker> _checkers;
 }
@@ -0,0 +1,250 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.gui.resource;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.EventQueue;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Toolkit;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.CellRendererPane;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// ImageIcon which image is loaded later, generally in a background thread. Until
+// then, it paints nothing but already has the right size (read from the image 
+// header by readSize()), and it remembers painted components (or the component
+// using them, for cell renderers) in order to repaint them later; getImage()
+// loads the image right away, as its callers (e.g. look and feels deriving
+// disabled icons) need actual pixels.
+final class AsyncImageIcon extends ImageIcon
+{
+	private static final long serialVersionUID = 1L;
+	static private final Logger _logger = LoggerFactory.getLogger(AsyncImageIcon.class);
+	
+	AsyncImageIcon(URL url)
+	{
+		_url = url;
+		setDescription(url.toExternalForm());
+	}
+	
+	boolean isLoaded()
+	{
+		return _loaded;
+	}
+	
+	// Number of bytes used by the decoded image (0 until loaded)
+	long bytes()
+	{
+		return (_loaded ? BYTES_PER_PIXEL * _width * _height : 0L);
+	}
+	
+	// Decodes the image, unless already done, and returns once it is available
+	void load()
+	{
+		synchronized (_lock)
+		{
+			if (_loaded)
+			{
+				return;
+			}
+			// Don't use Toolkit.getImage(), which would cache the image forever
+			Image image = Toolkit.getDefaultToolkit().createImage(_url);
+			// Blocks until the image is completely loaded
+			setImage(image);
+			int width = super.getIconWidth();
+			int height = super.getIconHeight();
+			_resized = (width != _width || height != _height);
+			_width = Math.max(width, 0);
+			_height = Math.max(height, 0);
+			_loaded = true;
+		}
+		if (EventQueue.isDispatchThread())
+		{
+			repaintComponents();
+		}
+		else
+		{
+			EventQueue.invokeLater(new Runnable()
+			{
+				@Override public void run()
+				{
+					repaintComponents();
+				}
+			});
+		}
+	}
+	
+	@Override public Image getImage()
+	{
+		load();
+		return super.getImage();
+	}
+	
+	@Override public int getIconWidth()
+	{
+		return (_loaded ? super.getIconWidth() : _width);
+	}
+
+	@Override public int getIconHeight()
+	{
+		return (_loaded ? super.getIconHeight() : _height);
+	}
+
+	@Override public synchronized void paintIcon(Component c, Graphics g, int x, int y)
+	{
+		if (!_loaded)
+		{
+			if (c == null)
+			{
+				// Nothing can be repainted later, hence wait for the image
+				load();
+			}
+			else
+			{
+				synchronized (_components)
+				{
+					_components.put(repainted(c), Boolean.TRUE);
+				}
+				return;
+			}
+		}
+		super.paintIcon(c, g, x, y);
+	}
+	
+	// Cell renderers (JTable, JList, JTree...) are only rubber stamps, moved away by
+	// their CellRendererPane right after painting: the component using the
+	// renderer is the one to repaint
+	static private Component repainted(Component c)
+	{
+		Container pane = SwingUtilities.getAncestorOfClass(CellRendererPane.class, c);
+		if (pane != null && pane.getParent() != null)
+		{
+			return pane.getParent();
+		}
+		return c;
+	}
+	
+	private void repaintComponents()
+	{
+		List<Component> components;
+		synchronized (_components)
+		{
+			components = new ArrayList<Component>(_components.keySet());
+			_components.clear();
+		}
+		for (Component component: components)
+		{
+			if (_resized)
+			{
+				component.invalidate();
+				component.validate();
+			}
+			component.repaint();
+		}
+	}
+	
+	// Reads the image size from its header only, without decoding it, unless 
+	// already done; blocks on I/O, hence must be called without holding any lock
+	void readSize()
+	{
+		synchronized (_lock)
+		{
+			if (!_loaded && !_sized)
+			{
+				readHeader();
+				_sized = true;
+			}
+		}
+	}
+	
+	private void readHeader()
+	{
+		InputStream input = null;
+		try
+		{
+			input = _url.openStream();
+			ImageInputStream stream = ImageIO.createImageInputStream(input);
+			Iterator<ImageReader> readers = 
+				(stream != null ? ImageIO.getImageReaders(stream) : null);
+			if (readers != null && readers.hasNext())
+			{
+				ImageReader reader = readers.next();
+				try
+				{
+					reader.setInput(stream, true, true);
+					_width = reader.getWidth(0);
+					_height = reader.getHeight(0);
+				}
+				finally
+				{
+					reader.dispose();
+					stream.close();
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			_logger.debug("Could not read size of image " + _url, e);
+		}
+		finally
+		{
+			close(input);
+		}
+	}
+	
+	static private void close(InputStream input)
+	{
+		if (input != null)
+		{
+			try
+			{
+				input.close();
+			}
+			catch (IOException e)
+			{
+				_logger.debug("Could not close image stream", e);
+			}
+		}
+	}
+	
+	static final private long BYTES_PER_PIXEL = 4L;
+	
+	final private URL _url;
+	final private transient Object _lock = new Object();
+	final private transient Map<Component, Boolean> _components = 
+		new WeakHashMap<Component, Boolean>();
+	private volatile boolean _loaded = false;
+	private boolean _resized = false;
+	private boolean _sized = false;
+	private volatile int _width = 0;
+	private volatile int _height = 0;
+}
@@ -14,6 +14,12 @@
 
 package net.guts.gui.resource;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,6 +67,12 @@ import com.google.inject.TypeLiteral;
  *     }
  * }
  * </pre>
+ * <p/>
+ * Injection of a given class, with a given prefix and {@link ResourceMap}, is
+ * planned once: the matching keys and the bean properties they map to are looked
+ * up the first time only, later injections (e.g. another instance of the same 
+ * dialog) just replay that plan. Plans are discarded along with their 
+ * {@code ResourceMap}, i.e. when the {@link java.util.Locale} changes.
  * 
  * @param <T> type that can be injected
  *
@@ -68,6 +80,11 @@ import com.google.inject.TypeLiteral;
  */
 public class BeanPropertiesInjector<T> implements InstanceInjector<T>
 {
+	public BeanPropertiesInjector()
+	{
+		_defaultInjectProperty = !overridesInjectProperty(getClass());
+	}
+	
 	@Inject final void setPropertyFactory(UntypedPropertyFactory properties)
 	{
 		_properties = properties;
@@ -85,14 +102,68 @@ public class BeanPropertiesInjector<T> implements InstanceInjector<T>
 	@Override public final void inject(T component, String prefix, ResourceMap resources)
 	{
 		// For each injectable resource
-		for (Key key: resources.keys(prefix))
+		for (Step step: plan(component.getClass(), prefix, resources))
+		{
+			if (!handleSpecialProperty(component, step._key, resources))
+			{
+				if (_defaultInjectProperty)
+				{
+					step.inject(component, resources);
+				}
+				else
+				{
+					injectProperty(component, step._key, resources);
+				}
+			}
+		}
+	}
+	
+	private List<Step> plan(Class<?> type, String prefix, ResourceMap resources)
+	{
+		synchronized (_plans)
 		{
-			if (!handleSpecialProperty(component, key, resources))
+			Map<PlanKey, List<Step>> plans = _plans.get(resources);
+			if (plans == null)
 			{
-				injectProperty(component, key, resources);
+				plans = new HashMap<PlanKey, List<Step>>();
+				_plans.put(resources, plans);
+			}
+			PlanKey planKey = new PlanKey(type, prefix);
+			List<Step> plan = plans.get(planKey);
+			if (plan == null)
+			{
+				plan = new ArrayList<Step>();
+				for (Key key: resources.keys(prefix))
+				{
+					plan.add(new Step(key, type));
+				}
+				plans.put(planKey, plan);
+			}
+			return plan;
+		}
+	}
+	
+	//CSOFF: EmptyBlock
+	static private boolean overridesInjectProperty(Class<?> type)
+	{
+		for (	Class<?> current = type; 
+				current != BeanPropertiesInjector.class; 
+				current = current.getSuperclass())
+		{
+			try
+			{
+				current.getDeclaredMethod(
+					"injectProperty", Object.class, Key.class, ResourceMap.class);
+				return true;
+			}
+			catch (NoSuchMethodException e)
+			{
+				// Check superclass
 			}
 		}
+		return false;
 	}
+	//CSON: EmptyBlock
 
 	/**
 	 * Override this method if there are properties that must be injected in a
@@ -182,4 +253,68 @@ public class BeanPropertiesInjector<T> implements InstanceInjector<T>
 	 */
 	final protected Logger _logger = LoggerFactory.getLogger(getClass());
 	private UntypedPropertyFactory _properties;
+	
+	// One step of an injection plan: one key and the property it is injected to
+	private class Step
+	{
+		Step(Key key, Class<?> type)
+		{
+			_key = key;
+			_type = type;
+		}
+		
+		void inject(Object component, ResourceMap resources)
+		{
+			// Lookup the property the first time only
+			if (!_resolved)
+			{
+				_property = writableProperty(_key.name(), _type);
+				_resolved = true;
+			}
+			if (_property != null)
+			{
+				// Get the value in the correct type
+				Object value = resources.getValue(_key, _property.type());
+				// Set the property with the resource value
+				_property.set(component, value);
+			}
+		}
+		
+		final private Key _key;
+		final private Class<?> _type;
+		private volatile UntypedProperty _property = null;
+		private volatile boolean _resolved = false;
+	}
+	
+	static private class PlanKey
+	{
+		PlanKey(Class<?> type, String prefix)
+		{
+			_type = type;
+			_prefix = prefix;
+		}
+		
+		@Override public int hashCode()
+		{
+			return _type.hashCode() * 31 + _prefix.hashCode();
+		}
+		
+		@Override public boolean equals(Object o)
+		{
+			if (!(o instanceof PlanKey))
+			{
+				return false;
+			}
+			PlanKey that = (PlanKey) o;
+			return this._type == that._type && this._prefix.equals(that._prefix);
+		}
+		
+		final private Class<?> _type;
+		final private String _prefix;
+	}
+	
+	final private boolean _defaultInjectProperty;
+	// Plans are discarded once their ResourceMap is not used any more
+	final private Map<ResourceMap, Map<PlanKey, List<Step>>> _plans = 
+		new WeakHashMap<ResourceMap, Map<PlanKey, List<Step>>>();
 }
@@ -15,6 +15,7 @@
 package net.guts.gui.resource;
 
 import java.io.InputStream;
+import java.net.URL;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
@@ -81,14 +82,27 @@ final class Bundle
 		try
 		{
 			ClassLoader loader = Thread.currentThread().getContextClassLoader();
-			InputStream in = loader.getResourceAsStream(path + ".xml");
-			if ((in = loader.getResourceAsStream(path + ".xml")) != null)
+			URL url;
+			if ((url = loader.getResource(path + BundleCompiler.EXTENSION)) != null)
 			{
-				_properties.loadFromXML(in);
+				BundleCompiler.read(url, _properties);
 			}
-			else if ((in = loader.getResourceAsStream(path + ".properties")) != null)
+			else if ((url = loader.getResource(path + ".xml")) != null)
 			{
-				_properties.load(in);
+				// Note: loadFromXML() closes the stream
+				_properties.loadFromXML(url.openStream());
+			}
+			else if ((url = loader.getResource(path + ".properties")) != null)
+			{
+				InputStream in = url.openStream();
+				try
+				{
+					_properties.load(in);
+				}
+				finally
+				{
+					in.close();
+				}
 			}
 			else
 			{
@@ -97,7 +111,7 @@ final class Bundle
 		}
 		catch (Exception e)
 		{
-			String msg = String.format("Bundle `{}.properties` couldn't be loaded", path);
+			String msg = String.format("Bundle `%s.properties` couldn't be loaded", path);
 			_logger.warn(msg, e); 
 		}
 		// CSON: IllegalCatchCheck
@@ -140,7 +154,8 @@ final class Bundle
 	
 		// Check the path exists
 		ClassLoader loader = Thread.currentThread().getContextClassLoader();
-		if (	loader.getResource(realPath + ".xml") != null
+		if (	loader.getResource(realPath + BundleCompiler.EXTENSION) != null
+			||	loader.getResource(realPath + ".xml") != null
 			||	loader.getResource(realPath + ".properties") != null)
 		{
 			return realPath;
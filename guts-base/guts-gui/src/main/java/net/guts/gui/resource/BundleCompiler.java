@@ -0,0 +1,301 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.gui.resource;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.InvalidPropertiesFormatException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles resource bundles ({@code .properties} or {@code .xml} files) into a 
+ * compact binary format (files with the {@value #EXTENSION} extension), which 
+ * {@link ResourceInjector} reads faster than the original files.
+ * <p/>
+ * At runtime, a compiled bundle, when present, is always used in place of the 
+ * original {@code .xml} or {@code .properties} file with the same name; hence 
+ * compiled bundles must be regenerated whenever original files are modified. 
+ * <p/>
+ * Compilation is generally performed as part of the build of your application,
+ * e.g. with Maven, through {@code exec-maven-plugin}, once resources have been 
+ * copied to {@code target/classes}:
+ * <pre>
+ * &lt;plugin&gt;
+ *     &lt;groupId&gt;org.codehaus.mojo&lt;/groupId&gt;
+ *     &lt;artifactId&gt;exec-maven-plugin&lt;/artifactId&gt;
+ *     &lt;executions&gt;
+ *         &lt;execution&gt;
+ *             &lt;phase&gt;process-classes&lt;/phase&gt;
+ *             &lt;goals&gt;&lt;goal&gt;java&lt;/goal&gt;&lt;/goals&gt;
+ *             &lt;configuration&gt;
+ *                 &lt;mainClass&gt;net.guts.gui.resource.BundleCompiler&lt;/mainClass&gt;
+ *                 &lt;arguments&gt;
+ *                     &lt;argument&gt;${project.build.outputDirectory}&lt;/argument&gt;
+ *                 &lt;/arguments&gt;
+ *             &lt;/configuration&gt;
+ *         &lt;/execution&gt;
+ *     &lt;/executions&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ * The binary format is made of a header (magic number, version, number of 
+ * properties) followed by all properties sorted by key, each key and value being
+ * stored as its length followed by its UTF-8 bytes.
+ *
+ * @author Jean-Francois Poilpret
+ */
+public final class BundleCompiler
+{
+	static private final Logger _logger = LoggerFactory.getLogger(BundleCompiler.class);
+	
+	/**
+	 * Extension of compiled bundle files.
+	 */
+	static public final String EXTENSION = ".bundle";
+	
+	private BundleCompiler()
+	{
+	}
+	
+	/**
+	 * Compiles all bundles found in the directories passed as arguments (and 
+	 * their subdirectories); each compiled bundle is written next to its original
+	 * file.
+	 * 
+	 * @param args directories containing bundles to compile
+	 * @throws IOException if a bundle could not be read or compiled
+	 */
+	static public void main(String[] args) throws IOException
+	{
+		for (String directory: args)
+		{
+			compileAll(new File(directory));
+		}
+	}
+	
+	/**
+	 * Compiles all bundles found in {@code directory} and its subdirectories; each
+	 * compiled bundle is written next to its original file.
+	 * <p/>
+	 * If both {@code .xml} and {@code .properties} files exist for the same bundle,
+	 * only the {@code .xml} file is compiled, as {@link ResourceInjector} would only
+	 * use that one.
+	 * <p/>
+	 * Files that are not valid properties files (e.g. {@code .xml} files that are 
+	 * not properties, such as logging configurations) are skipped, with a warning.
+	 * 
+	 * @param directory root directory of all bundles to compile
+	 * @return the number of compiled bundles
+	 * @throws IOException if a bundle could not be read or written
+	 */
+	static public int compileAll(File directory) throws IOException
+	{
+		int count = 0;
+		File[] files = directory.listFiles();
+		if (files == null)
+		{
+			return count;
+		}
+		for (File file: files)
+		{
+			String name = file.getName();
+			if (file.isDirectory())
+			{
+				count += compileAll(file);
+			}
+			else if (name.endsWith(XML_EXTENSION))
+			{
+				if (compile(file, baseName(file, XML_EXTENSION)))
+				{
+					count++;
+				}
+			}
+			else if (name.endsWith(PROPERTIES_EXTENSION))
+			{
+				String baseName = baseName(file, PROPERTIES_EXTENSION);
+				if (!new File(baseName + XML_EXTENSION).exists() && compile(file, baseName))
+				{
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+	
+	static private String baseName(File file, String extension)
+	{
+		String path = file.getPath();
+		return path.substring(0, path.length() - extension.length());
+	}
+	
+	// Returns false if source is not a valid properties file
+	static private boolean compile(File source, String baseName) throws IOException
+	{
+		Properties properties = new Properties();
+		InputStream input = new FileInputStream(source);
+		try
+		{
+			if (source.getName().endsWith(XML_EXTENSION))
+			{
+				properties.loadFromXML(input);
+			}
+			else
+			{
+				properties.load(input);
+			}
+		}
+		catch (InvalidPropertiesFormatException e)
+		{
+			_logger.warn("Skipped " + source + ", not a properties file: " + e.getMessage());
+			return false;
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Thrown by Properties.load() for malformed unicode escapes
+			_logger.warn("Skipped " + source + ", invalid properties: " + e.getMessage());
+			return false;
+		}
+		finally
+		{
+			input.close();
+		}
+		OutputStream output = 
+			new BufferedOutputStream(new FileOutputStream(baseName + EXTENSION));
+		try
+		{
+			write(properties, output);
+		}
+		finally
+		{
+			output.close();
+		}
+		return true;
+	}
+	
+	/**
+	 * Writes {@code properties} to {@code output} in the compiled bundle format.
+	 * 
+	 * @param properties the properties to compile
+	 * @param output where to write the compiled properties; it is not closed by this
+	 * method
+	 * @throws IOException if {@code output} could not be written
+	 */
+	static public void write(Properties properties, OutputStream output) 
+		throws IOException
+	{
+		// Sort properties by key
+		Map<String, String> sorted = new TreeMap<String, String>();
+		for (String key: properties.stringPropertyNames())
+		{
+			sorted.put(key, properties.getProperty(key));
+		}
+		DataOutputStream data = new DataOutputStream(output);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(sorted.size());
+		for (Map.Entry<String, String> entry: sorted.entrySet())
+		{
+			writeString(data, entry.getKey());
+			writeString(data, entry.getValue());
+		}
+		data.flush();
+	}
+	
+	static private void writeString(DataOutputStream output, String value) 
+		throws IOException
+	{
+		byte[] bytes = value.getBytes(ENCODING);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+	
+	// Reads a compiled bundle into properties; bundles are small, hence read in one
+	// go (memory-mapping them would not be faster, and would keep files locked on
+	// some platforms until the mapping gets garbage collected)
+	static void read(URL url, Properties properties) throws IOException
+	{
+		read(ByteBuffer.wrap(readFully(url)), properties);
+	}
+	
+	//CSOFF: InnerAssignmentCheck
+	static private byte[] readFully(URL url) throws IOException
+	{
+		InputStream input = url.openStream();
+		try
+		{
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int count;
+			while ((count = input.read(buffer)) != -1)
+			{
+				output.write(buffer, 0, count);
+			}
+			return output.toByteArray();
+		}
+		finally
+		{
+			input.close();
+		}
+	}
+	//CSON: InnerAssignmentCheck
+	
+	static private void read(ByteBuffer buffer, Properties properties) throws IOException
+	{
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+		{
+			throw new IOException("Not a compiled bundle");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION)
+		{
+			throw new IOException("Unsupported compiled bundle version " + version);
+		}
+		int count = buffer.getInt();
+		for (int i = 0; i < count; i++)
+		{
+			String key = readString(buffer);
+			properties.put(key, readString(buffer));
+		}
+	}
+	
+	static private String readString(ByteBuffer buffer) throws UnsupportedEncodingException
+	{
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, ENCODING);
+	}
+	
+	static final private int MAGIC = 0x47555453;
+	static final private int VERSION = 1;
+	static final private int HEADER_SIZE = 12;
+	static final private int BUFFER_SIZE = 8192;
+	static final private String ENCODING = "UTF-8";
+	static final private String XML_EXTENSION = ".xml";
+	static final private String PROPERTIES_EXTENSION = ".properties";
+}
@@ -0,0 +1,63 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.gui.resource;
+
+import java.net.URL;
+
+import javax.swing.ImageIcon;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Cache of images read from resource bundles, shared by the {@link ResourceConverter}s
+ * for {@link javax.swing.Icon}, {@link java.awt.Image} and 
+ * {@link net.guts.gui.util.CursorInfo}, hence each image gets loaded only once, 
+ * whatever the number of components it is injected into.
+ * <p/>
+ * Images are cached by their URL, as long as the total size of cached images fits 
+ * a memory budget; least recently used images are evicted first.
+ * <p/>
+ * You may use this service in your own {@code ResourceConverter}s, when they need
+ * images, by having it injected.
+ *
+ * @author Jean-Francois Poilpret
+ */
+@ImplementedBy(ImageCacheImpl.class)
+public interface ImageCache
+{
+	/**
+	 * Returns the icon for the image at {@code url}, without waiting for that image
+	 * to be loaded. 
+	 * <p/>
+	 * If the image is not in the cache yet, it gets decoded in a background thread;
+	 * until then, the returned icon already has the right size but paints nothing
+	 * (calling its {@link ImageIcon#getImage()} waits for the image to be loaded). 
+	 * Components that have been painted in the meantime are repainted as soon as 
+	 * the image is ready.
+	 * 
+	 * @param url location of the image
+	 * @return the (possibly still loading) icon for the image at {@code url}
+	 */
+	public ImageIcon getIcon(URL url);
+
+	/**
+	 * Returns the icon for the image at {@code url}, once that image has been 
+	 * completely loaded.
+	 * 
+	 * @param url location of the image
+	 * @return the icon for the image at {@code url}
+	 */
+	public ImageIcon loadIcon(URL url);
+}
@@ -0,0 +1,148 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.gui.resource;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.ImageIcon;
+
+import com.google.inject.Singleton;
+
+@Singleton
+class ImageCacheImpl implements ImageCache
+{
+	ImageCacheImpl()
+	{
+		this(MAX_CACHED_BYTES);
+	}
+	
+	ImageCacheImpl(long maxBytes)
+	{
+		_maxBytes = maxBytes;
+	}
+	
+	@Override public ImageIcon getIcon(URL url)
+	{
+		AsyncImageIcon icon = icon(url);
+		if (!icon.isLoaded())
+		{
+			_loader.execute(new Loader(icon));
+		}
+		return icon;
+	}
+
+	@Override public ImageIcon loadIcon(URL url)
+	{
+		AsyncImageIcon icon = icon(url);
+		if (!icon.isLoaded())
+		{
+			icon.load();
+			evict(icon);
+		}
+		return icon;
+	}
+	
+	private AsyncImageIcon icon(URL url)
+	{
+		// Don't use URL as a key: its equals() and hashCode() may resolve host names
+		String key = url.toExternalForm();
+		AsyncImageIcon icon;
+		synchronized (_icons)
+		{
+			icon = _icons.get(key);
+			if (icon == null)
+			{
+				icon = new AsyncImageIcon(url);
+				_icons.put(key, icon);
+			}
+		}
+		// Reading the image header blocks: don't hold the lock of the whole cache
+		icon.readSize();
+		return icon;
+	}
+	
+	// Removes least recently used images until all images fit the memory budget;
+	// the image just loaded is always kept
+	private void evict(AsyncImageIcon loaded)
+	{
+		synchronized (_icons)
+		{
+			long total = 0;
+			for (AsyncImageIcon icon: _icons.values())
+			{
+				total += icon.bytes();
+			}
+			Iterator<AsyncImageIcon> i = _icons.values().iterator();
+			while (total > _maxBytes && i.hasNext())
+			{
+				AsyncImageIcon icon = i.next();
+				if (icon != loaded && icon.isLoaded())
+				{
+					total -= icon.bytes();
+					i.remove();
+				}
+			}
+		}
+	}
+	
+	private class Loader implements Runnable
+	{
+		Loader(AsyncImageIcon icon)
+		{
+			_icon = icon;
+		}
+		
+		@Override public void run()
+		{
+			if (!_icon.isLoaded())
+			{
+				_icon.load();
+				evict(_icon);
+			}
+		}
+		
+		final private AsyncImageIcon _icon;
+	}
+	
+	static private class LoaderThreadFactory implements ThreadFactory
+	{
+		@Override public Thread newThread(Runnable task)
+		{
+			Thread thread = new Thread(task, THREAD_NAME);
+			thread.setDaemon(true);
+			thread.setPriority(Thread.NORM_PRIORITY - 1);
+			return thread;
+		}
+	}
+	
+	static final private String THREAD_NAME = "GUTS-GUI image loader";
+	static final private int LOADER_THREADS = 2;
+	static final private long MAX_CACHED_BYTES = 32L * 1024 * 1024;
+	static final private int INITIAL_CAPACITY = 64;
+	static final private float LOAD_FACTOR = 0.75f;
+	
+	final private long _maxBytes;
+	// Access-ordered: least recently used images come first
+	final private Map<String, AsyncImageIcon> _icons = 
+		new LinkedHashMap<String, AsyncImageIcon>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+	final private ExecutorService _loader = 
+		Executors.newFixedThreadPool(LOADER_THREADS, new LoaderThreadFactory());
+}
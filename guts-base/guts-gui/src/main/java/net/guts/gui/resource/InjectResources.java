@@ -20,6 +20,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import net.guts.common.index.Indexed;
+
 /**
  * Annotates a class to tell {@link ResourceModule} that any instances, created 
  * by Guice, of the annotated class, should have resources injected into them
@@ -28,6 +30,7 @@ import java.lang.annotation.Target;
  * @author Jean-Francois Poilpret
  */
 @Documented
+@Indexed
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.TYPE})
 public @interface InjectResources
@@ -14,6 +14,8 @@
 
 package net.guts.gui.resource;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,41 +34,78 @@ class JTabbedPaneInjector extends BeanPropertiesInjector<JTabbedPane>
 		JTabbedPane tabs, Key key, ResourceMap resources)
 	{
 		String name = key.name();
-		Matcher matcher = _tabsTagPattern.matcher(name);
-		if (!matcher.matches())
+		TabKey tabKey = tabKey(name);
+		if (tabKey == NO_TAB)
 		{
 			return false;
 		}
-		try
+		if (tabKey == INVALID_TAB)
 		{
-			int tab = Integer.parseInt(matcher.group(1));
-			if (tab < 0 || tab >= tabs.getTabCount())
+			return true;
+		}
+		int tab = tabKey._tab;
+		if (tab < 0 || tab >= tabs.getTabCount())
+		{
+			_logger.debug(
+				"JTabbedPane {} has only {} tabs, so property {} can't be matched.",
+				new Object[]{tabs.getName(), tabs.getTabCount(), name});
+			return true;
+		}
+		TabProperty property = tabKey._property;
+		if (property == null)
+		{
+			_logger.debug("Property {} isn't valid for a JTabbedPane.", name);
+			return true;
+		}
+		// Convert the value to the expected type for that tab property
+		Object value = resources.getValue(key, property.type());
+		// Set the value for the right tab
+		property.setValue(tabs, tab, value);
+		return true;
+	}
+	// CSON: ReturnCountCheck
+	
+	// Parses property names once only
+	private TabKey tabKey(String name)
+	{
+		TabKey tabKey = _tabKeys.get(name);
+		if (tabKey == null)
+		{
+			Matcher matcher = _tabsTagPattern.matcher(name);
+			if (!matcher.matches())
 			{
-				_logger.debug(
-					"JTabbedPane {} has only {} tabs, so property {} can't be matched.",
-					new Object[]{tabs.getName(), tabs.getTabCount(), name});
-				return true;
+				tabKey = NO_TAB;
 			}
-			TabProperty property = TabProperty.fromName(matcher.group(2));
-			if (property == null)
+			else
 			{
-				_logger.debug("Property {} isn't valid for a JTabbedPane.", name);
-				return true;
+				try
+				{
+					tabKey = new TabKey(Integer.parseInt(matcher.group(1)), 
+						TabProperty.fromName(matcher.group(2)));
+				}
+				catch (NumberFormatException e)
+				{
+					_logger.warn(
+						"Normally impossible to get this exception with property " + name, e);
+					tabKey = INVALID_TAB;
+				}
 			}
-			// Convert the value to the expected type for that tab property
-			Object value = resources.getValue(key, property.type());
-			// Set the value for the right tab
-			property.setValue(tabs, tab, value);
-			return true;
+			_tabKeys.put(name, tabKey);
 		}
-		catch (NumberFormatException e)
+		return tabKey;
+	}
+	
+	static private class TabKey
+	{
+		TabKey(int tab, TabProperty property)
 		{
-			_logger.warn(
-				"Normally impossible to get this exception with property " + name, e);
-			return true;
+			_tab = tab;
+			_property = property;
 		}
+		
+		final private int _tab;
+		final private TabProperty _property;
 	}
-	// CSON: ReturnCountCheck
 	
 	static private enum TabProperty
 	{
@@ -132,4 +171,9 @@ class JTabbedPaneInjector extends BeanPropertiesInjector<JTabbedPane>
 	}
 	
 	static final private Pattern _tabsTagPattern = Pattern.compile("tab([0-9]+)-([a-zA-Z]+)");
+	static final private TabKey NO_TAB = new TabKey(-1, null);
+	static final private TabKey INVALID_TAB = new TabKey(-1, null);
+	
+	final private ConcurrentMap<String, TabKey> _tabKeys = 
+		new ConcurrentHashMap<String, TabKey>();
 }
@@ -38,6 +38,7 @@ import net.guts.gui.util.CursorHelper;
 import net.guts.gui.util.CursorInfo;
 import net.guts.gui.util.CursorType;
 
+import com.google.inject.Inject;
 import com.google.inject.TypeLiteral;
 
 /**
@@ -67,6 +68,16 @@ import com.google.inject.TypeLiteral;
  * Note that you should not directly inject a {@code ResourceConverter<T>}
  * in your own {@code ResourceConverter}, that would trigger a circular dependency.
  * <p/>
+ * Values returned by {@code ResourceConverter}s are cached by {@link ResourceMap}
+ * and may thus be shared by several injected objects; if your converter returns
+ * mutable values, then you should annotate it with {@link Uncached}.
+ * <p/>
+ * <b>Compatibility note:</b> this caching is enabled by default; previous 
+ * versions of Guts-GUI called converters again for every injected object. 
+ * Existing converters that return mutable values (or values that must not be 
+ * shared between objects for any other reason) must thus be annotated with 
+ * {@link Uncached} to keep their former behavior.
+ * <p/>
  * Note that {@link ResourceInjector} already comes with {@code ResourceConverter}s
  * for many types (as described in {@link ResourceModule}) and it's unlikely you
  * would often need your own {@code ResourceConverter}.
@@ -153,12 +164,18 @@ class IconConverter implements ResourceConverter<Icon>
 {
 	static private final Logger _logger = LoggerFactory.getLogger(IconConverter.class);
 	
+	@Inject IconConverter(ImageCache cache)
+	{
+		_cache = cache;
+	}
+	
 	@Override public Icon convert(ResourceEntry entry)
 	{
 		URL url = entry.valueAsUrl();
 		if (url != null)
 		{
-			return new ImageIcon(url);
+			// Icons are loaded in background, don't wait for them
+			return _cache.getIcon(url);
 		}
 		else
 		{
@@ -166,18 +183,26 @@ class IconConverter implements ResourceConverter<Icon>
 			return null;
 		}
 	}
+	
+	final private ImageCache _cache;
 }
 
-class ImageConverter extends AbstractCompoundResourceConverter<Image>
+class ImageConverter implements ResourceConverter<Image>
 {
 	static private final Logger _logger = LoggerFactory.getLogger(ImageConverter.class);
 
+	@Inject ImageConverter(ImageCache cache)
+	{
+		_cache = cache;
+	}
+	
 	@Override public Image convert(ResourceEntry entry)
 	{
-		Icon icon = converter(Icon.class).convert(entry);
-		if (icon != null && icon instanceof ImageIcon)
+		URL url = entry.valueAsUrl();
+		if (url != null)
 		{
-			return ((ImageIcon) icon).getImage();
+			// Images are not repainted automatically once loaded, hence wait for them
+			return _cache.loadIcon(url).getImage();
 		}
 		else
 		{
@@ -185,12 +210,19 @@ class ImageConverter extends AbstractCompoundResourceConverter<Image>
 			return null;
 		}
 	}
+	
+	final private ImageCache _cache;
 }
 
-class CursorInfoConverter extends AbstractCompoundResourceConverter<CursorInfo>
+class CursorInfoConverter implements ResourceConverter<CursorInfo>
 {
 	static private final Logger _logger = LoggerFactory.getLogger(CursorInfoConverter.class);
 	
+	@Inject CursorInfoConverter(ImageCache cache)
+	{
+		_cache = cache;
+	}
+	
 	@Override public CursorInfo convert(ResourceEntry entry)
 	{
 		CursorInfo info = _cursors.get(entry.value());
@@ -213,8 +245,15 @@ class CursorInfoConverter extends AbstractCompoundResourceConverter<CursorInfo>
 						entry.value());
 					return null;
 				}
-				ImageIcon icon = (ImageIcon) converter(Icon.class).convert(
-					entry.derive(tokenize.nextToken()));
+				URL url = entry.derive(tokenize.nextToken()).valueAsUrl();
+				if (url == null)
+				{
+					_logger.debug("Could not convert {} to a valid Cursor URL!", 
+						entry.value());
+					return null;
+				}
+				// Cursors need the actual image, hence wait for it
+				ImageIcon icon = _cache.loadIcon(url);
 				double x = getHotspotRate(tokenize);
 				double y = getHotspotRate(tokenize);
 				info = CursorHelper.buildCursor(icon, x, y);
@@ -253,6 +292,7 @@ class CursorInfoConverter extends AbstractCompoundResourceConverter<CursorInfo>
 	static private final double	MAX_COORDINATE	= 0.99;
 	static private final double	MEAN_COORDINATE	= 0.5;
 	
+	private final ImageCache _cache;
 	private final Map<String, CursorInfo> _cursors = new HashMap<String, CursorInfo>();
 }
 
@@ -327,6 +367,7 @@ class ClassConverter<T> implements ResourceConverter<Class<? extends T>>
 	private final Class<T> _clazz;
 }
 
+@Uncached
 class ListConverter<T> extends AbstractCompoundResourceConverter<List<T>>
 {
 	ListConverter(TypeLiteral<T> type, String delimiters)
@@ -352,6 +393,7 @@ class ListConverter<T> extends AbstractCompoundResourceConverter<List<T>>
 	final private String _delimiters;
 }
 
+@Uncached
 class MapConverter<K, V> extends AbstractCompoundResourceConverter<Map<K, V>>
 {
 	MapConverter(TypeLiteral<K> keyType, TypeLiteral<V> valueType)
@@ -14,12 +14,16 @@
 
 package net.guts.gui.resource;
 
+import java.lang.ref.SoftReference;
 import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.NavigableSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.WeakHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +44,15 @@ import com.google.inject.TypeLiteral;
  * properties relevant to a given prefix, and then retrieving the value of any
  * property in a given type.
  * <p/>
+ * {@code ResourceMap} instances are immutable snapshots of their bundles for the
+ * current {@link java.util.Locale}; they are shared by all classes using the same
+ * bundles and are discarded whenever the {@code Locale} changes.
+ * <p/>
+ * Converted values are cached (softly, and up to a limited number of values) so
+ * that converting the same property to the same type again, e.g. for another
+ * instance of the same class, returns the same value without preprocessing nor
+ * converting it again; converters annotated with {@link Uncached} are not cached.
+ * <p/>
  * You don't need to use this interface unless you need to write your own 
  * {@link InstanceInjector}.
  *
@@ -52,11 +65,20 @@ final public class ResourceMap
 	ResourceMap(List<Bundle> bundles, ResourceConverterFinder finder, 
 		ResourcePreprocessor preprocessor)
 	{
-		_bundles = bundles;
+		// Merge all bundles once: the first bundle defining a key wins
 		for (Bundle bundle: bundles)
 		{
-			_allKeys.addAll(bundle.properties().keySet());
+			for (Map.Entry<String, String> property: bundle.properties().entrySet())
+			{
+				if (!_properties.containsKey(property.getKey()))
+				{
+					_properties.put(property.getKey(), 
+						new Property(property.getValue(), bundle.source()));
+				}
+			}
 		}
+		_allKeys = _properties.keySet().toArray(new String[_properties.size()]);
+		Arrays.sort(_allKeys);
 		_finder = finder;
 		_preprocessor = preprocessor;
 	}
@@ -77,7 +99,9 @@ final public class ResourceMap
 	 */
 	public Set<Key> keys(String prefix)
 	{
-		return new KeySet(prefix, _allKeys.subSet(prefix + ".", prefix + "/"));
+		int from = indexOf(prefix + ".");
+		int to = indexOf(prefix + "/");
+		return new KeySet(prefix, Arrays.asList(_allKeys).subList(from, to));
 	}
 	
 	/**
@@ -102,6 +126,13 @@ final public class ResourceMap
 	public <T> T getValue(Key key, TypeLiteral<T> type)
 	{
 		String fullKey = key.fullKey();
+		// Only values of cacheable converters are ever found in the cache
+		ValueKey valueKey = new ValueKey(fullKey, type);
+		T cachedValue = this.<T>cachedValue(valueKey);
+		if (cachedValue != null)
+		{
+			return cachedValue;
+		}
 		ResourceConverter<T> converter = _finder.getConverter(type);
 		if (converter == null)
 		{
@@ -109,25 +140,23 @@ final public class ResourceMap
 				fullKey, type);
 			return null;
 		}
-		if (!_allKeys.contains(fullKey))
+		Property property = _properties.get(fullKey);
+		if (property == null)
 		{
 			return null;
 		}
-		for (Bundle bundle: _bundles)
+		// First pre-process raw string value
+		String value = _preprocessor.convert(this, property._value);
+		// Then require conversion
+		T result = converter.convert(new ResourceEntry(value, property._source));
+		if (result != null && isCacheable(converter))
 		{
-			if (bundle.properties().containsKey(fullKey))
+			synchronized (_values)
 			{
-				// First pre-process raw string value
-				String value = _preprocessor.convert(this, bundle.properties().get(fullKey));
-				// Then require conversion
-				ResourceEntry entry = new ResourceEntry(value, bundle.source());
-				return converter.convert(entry);
+				_values.put(valueKey, new SoftReference<Object>(result));
 			}
 		}
-		// Cannot reach this location normally
-		_logger.error(
-			"Impossible error! getValue() for key `{}` couldn't find property", fullKey);
-		return null;
+		return result;
 	}
 
 	/**
@@ -173,7 +202,7 @@ final public class ResourceMap
 	 */
 	public Key getKey(String name)
 	{
-		if (_allKeys.contains(name))
+		if (_properties.containsKey(name))
 		{
 			return new Key(name, null);
 		}
@@ -220,11 +249,102 @@ final public class ResourceMap
 		final private String _prefix;
 	}
 	
+	@SuppressWarnings("unchecked") 
+	private <T> T cachedValue(ValueKey key)
+	{
+		synchronized (_values)
+		{
+			SoftReference<Object> reference = _values.get(key);
+			return (reference != null ? (T) reference.get() : null);
+		}
+	}
+	
+	// Checks @Uncached only once per converter class
+	static private boolean isCacheable(ResourceConverter<?> converter)
+	{
+		Class<?> clazz = converter.getClass();
+		synchronized (_cacheable)
+		{
+			Boolean cacheable = _cacheable.get(clazz);
+			if (cacheable == null)
+			{
+				cacheable = !clazz.isAnnotationPresent(Uncached.class);
+				_cacheable.put(clazz, cacheable);
+			}
+			return cacheable;
+		}
+	}
+	
+	// Returns the position of the first key greater than or equal to key
+	private int indexOf(String key)
+	{
+		int index = Arrays.binarySearch(_allKeys, key);
+		return (index >= 0 ? index : -index - 1);
+	}
+	
+	// Raw value of a property, along with the source of its bundle
+	static private class Property
+	{
+		Property(String value, String source)
+		{
+			_value = value;
+			_source = source;
+		}
+		
+		final private String _value;
+		final private String _source;
+	}
+	
+	// Key of a converted value in the cache
+	static private class ValueKey
+	{
+		ValueKey(String key, TypeLiteral<?> type)
+		{
+			_key = key;
+			_type = type;
+		}
+		
+		@Override public int hashCode()
+		{
+			return _key.hashCode() * 31 + _type.hashCode();
+		}
+		
+		@Override public boolean equals(Object o)
+		{
+			if (!(o instanceof ValueKey))
+			{
+				return false;
+			}
+			ValueKey that = (ValueKey) o;
+			return this._key.equals(that._key) && this._type.equals(that._type);
+		}
+		
+		final private String _key;
+		final private TypeLiteral<?> _type;
+	}
+	
+	// Converted values, least recently used ones are evicted first
+	static private class ValueCache extends LinkedHashMap<ValueKey, SoftReference<Object>>
+	{
+		private static final long serialVersionUID = 1L;
+
+		ValueCache()
+		{
+			super(MAX_CACHED_VALUES, LOAD_FACTOR, true);
+		}
+		
+		@Override protected boolean removeEldestEntry(
+			Map.Entry<ValueKey, SoftReference<Object>> eldest)
+		{
+			return size() > MAX_CACHED_VALUES || eldest.getValue().get() == null;
+		}
+	}
+	
 	// The classes below are used to dynamically remove prefix from the property keys
 	// set returned by keys(prefix) method.
 	static private class KeySet extends AbstractSet<Key>
 	{
-		KeySet(String prefix, Set<String> keys)
+		KeySet(String prefix, List<String> keys)
 		{
 			_prefix = prefix;
 			_keys = keys;
@@ -241,7 +361,7 @@ final public class ResourceMap
 		}
 
 		private final String _prefix;
-		private final Set<String> _keys;
+		private final List<String> _keys;
 	}
 	
 	static private class KeyIterator implements Iterator<Key>
@@ -281,8 +401,16 @@ final public class ResourceMap
 		final private Iterator<String> _iterator;
 	}
 	
-	final private List<Bundle> _bundles;
-	final private NavigableSet<String> _allKeys = new TreeSet<String>();
+	static final private int MAX_CACHED_VALUES = 512;
+	static final private float LOAD_FACTOR = 0.75f;
+	
+	// Whether values of each converter class can be cached
+	static final private Map<Class<?>, Boolean> _cacheable = 
+		new WeakHashMap<Class<?>, Boolean>();
+	
+	final private Map<ValueKey, SoftReference<Object>> _values = new ValueCache();
+	final private Map<String, Property> _properties = new HashMap<String, Property>();
+	final private String[] _allKeys;
 	final private ResourceConverterFinder _finder;
 	final private ResourcePreprocessor _preprocessor;
 }
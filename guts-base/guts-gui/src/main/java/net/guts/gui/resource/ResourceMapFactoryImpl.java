@@ -15,10 +15,16 @@
 package net.guts.gui.resource;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,13 +67,28 @@ class ResourceMapFactoryImpl implements ResourceMapFactory
 		{
 			_bundlesPerPackage.put(entry.getKey(), getBundles(entry.getValue()));
 		}
+		// Preload all bundles known so far
+		update(_bundles.values(), Locale.getDefault());
 	}
 	
 	@Override public ResourceMap createResourceMap(Class<?> clazz)
 	{
+		ResourceMap map = _mapsPerClass.get(clazz);
+		if (map != null)
+		{
+			return map;
+		}
 		// Ask for the sorted list of Bundle matching the component type
 		List<Bundle> bundles = getBundleNames(clazz);
-		return new ResourceMap(bundles, _finder, _preprocessor);
+		// Classes sharing the same bundles chain also share the same ResourceMap
+		map = _maps.get(bundles);
+		if (map == null)
+		{
+			map = new ResourceMap(bundles, _finder, _preprocessor);
+			_maps.put(bundles, map);
+		}
+		_mapsPerClass.put(clazz, map);
+		return map;
 	}
 	
 	private List<Bundle> getBundleNames(Class<?> type)
@@ -134,6 +155,7 @@ class ResourceMapFactoryImpl implements ResourceMapFactory
 			Bundle bundle = getBundle(realPath);
 			if (bundle != null)
 			{
+				bundle.update(Locale.getDefault());
 				bundles.add(bundle);
 			}
 		}
@@ -164,9 +186,8 @@ class ResourceMapFactoryImpl implements ResourceMapFactory
 		{
 			return bundle;
 		}
-		// Create a new Bundle and cache it
+		// Create a new Bundle and cache it, it will be loaded later
 		bundle = new Bundle(path);
-		bundle.update(Locale.getDefault());
 		_bundles.put(path, bundle);
 		return bundle;
 	}
@@ -175,9 +196,56 @@ class ResourceMapFactoryImpl implements ResourceMapFactory
 	public void localeChanged(Locale locale)
 	{
 		// Force refresh of all Bundles
-		for (Bundle bundle: _bundles.values())
+		update(_bundles.values(), locale);
+		// All ResourceMaps are now obsolete, they will be rebuilt on demand
+		_maps.clear();
+		_mapsPerClass.clear();
+	}
+
+	// Loads bundles in parallel, returns once all bundles are loaded
+	static private void update(Collection<Bundle> bundles, final Locale locale)
+	{
+		int threads = Math.min(bundles.size(), Runtime.getRuntime().availableProcessors());
+		if (threads <= 1)
+		{
+			for (Bundle bundle: bundles)
+			{
+				bundle.update(locale);
+			}
+			return;
+		}
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(bundles.size());
+		for (final Bundle bundle: bundles)
+		{
+			tasks.add(new Callable<Void>()
+			{
+				@Override public Void call()
+				{
+					bundle.update(locale);
+					return null;
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			for (Future<Void> future: executor.invokeAll(tasks))
+			{
+				future.get();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			_logger.warn("Interrupted while loading bundles", e);
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			_logger.error("Could not load bundles", e.getCause());
+		}
+		finally
 		{
-			bundle.update(locale);
+			executor.shutdown();
 		}
 	}
 
@@ -199,6 +267,10 @@ class ResourceMapFactoryImpl implements ResourceMapFactory
 		new HashMap<Class<?>, List<Bundle>>();
 	final private Map<String, List<Bundle>> _bundlesPerPackage = 
 		new HashMap<String, List<Bundle>>();
+	final private Map<List<Bundle>, ResourceMap> _maps = 
+		new HashMap<List<Bundle>, ResourceMap>();
+	final private Map<Class<?>, ResourceMap> _mapsPerClass = 
+		new HashMap<Class<?>, ResourceMap>();
 	final private ResourceConverterFinder _finder;
 	final private ResourcePreprocessor _preprocessor;
 }
@@ -217,7 +217,8 @@ public final class ResourceModule extends AbstractSingletonModule
 			binder(), new ResourceInjectionListener());
 		OneTypeListener<Object> typeListener = 
 			new OneTypeListener<Object>(Object.class, injectionListener);
-		bindListener(Matchers.isAnnotatedWith(InjectResources.class), typeListener);
+		bindListener(Matchers.indexed(InjectResources.class, 
+			Matchers.isAnnotatedWith(InjectResources.class)), typeListener);
 	}
 	
 	private <T> void bindConverter(
@@ -0,0 +1,49 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.gui.resource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates a {@link ResourceConverter} class whose converted values must not be
+ * cached by {@link ResourceMap}.
+ * <p/>
+ * By default, {@code ResourceMap} caches the values returned by 
+ * {@link ResourceMap#getValue(ResourceMap.Key, com.google.inject.TypeLiteral)}, 
+ * hence the same instance may be injected into several objects. This is fine for 
+ * immutable types like {@link java.awt.Color} or {@link java.awt.Font}, but wrong
+ * for mutable types (like {@link java.util.List}), for which each call must create
+ * a new instance; the {@code ResourceConverter} for such types should be annotated
+ * with {@code @Uncached}:
+ * <pre>
+ * &#64;Uncached
+ * class StringListConverter implements ResourceConverter&lt;List&lt;String&gt;&gt;
+ * {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author Jean-Francois Poilpret
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Uncached
+{
+}
@@ -71,6 +71,13 @@
  * {@link java.util.Locale} which language can't be written with {@code ISO-8859-1}
  * charset (e.g. asian languages). Guts-GUI will always use an XML bundle if it 
  * exists, and will fall back to normal properties file if not.
+ * <p/>
+ * Bundles can also be compiled, at build time, into a binary format that is faster
+ * to load, with {@link net.guts.gui.resource.BundleCompiler}; Guts-GUI will always 
+ * use a compiled bundle if it exists. Bundles bound through 
+ * {@link net.guts.gui.resource.Resources} (including the root bundle) are all loaded 
+ * in parallel at startup, and reloaded in parallel whenever the {@code Locale} 
+ * changes.
  * 
  * <p/><a name="rsrc2"></a><h3>Resources searching principles</h3>
  * As when using Java {@link java.util.ResourceBundle}s, Guts-GUI will search the most
@@ -14,6 +14,9 @@
 
 package net.guts.gui.task;
 
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -27,6 +30,7 @@ import net.guts.event.Consumes;
 import net.guts.gui.exit.ExitController;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 
 @Singleton
@@ -35,9 +39,19 @@ class ExecutorServiceRegistry
 	static final private Logger _logger = 
 		LoggerFactory.getLogger(ExecutorServiceRegistry.class);
 
-	@Inject ExecutorServiceRegistry(Cleaner cleaner)
+	@Inject ExecutorServiceRegistry(Cleaner cleaner, 
+		Map<Class<? extends Annotation>, Provider<Executor>> threadPolicies)
 	{
-		cleaner.addCleanable(_executors);
+		_executors = WeakRefSet.create(cleaner);
+		// Also drain thread policies executors (eg @InDeferredThread pool) at shutdown
+		for (Provider<Executor> provider: threadPolicies.values())
+		{
+			Executor executor = provider.get();
+			if (executor instanceof ExecutorService)
+			{
+				registerExecutor((ExecutorService) executor);
+			}
+		}
 	}
 	
 	public void registerExecutor(ExecutorService executor)
@@ -45,7 +59,8 @@ class ExecutorServiceRegistry
 		_executors.add(executor);
 	}
 	
-	@Consumes(topic = ExitController.SHUTDOWN_EVENT)
+	// Called last, so that other shutdown consumers can still use executors
+	@Consumes(topic = ExitController.SHUTDOWN_EVENT, priority = Integer.MAX_VALUE)
 	public void shutdown(Void nothing)
 	{
 		_executors.perform(new Performer<ExecutorService>()
@@ -91,5 +106,5 @@ class ExecutorServiceRegistry
 
 	static private final int WAIT_TIME_UNTIL_SHUTDOWN = 30;
 
-	final private WeakRefSet<ExecutorService> _executors = WeakRefSet.create();
+	final private WeakRefSet<ExecutorService> _executors;
 }
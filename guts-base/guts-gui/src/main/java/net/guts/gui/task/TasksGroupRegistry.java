@@ -31,7 +31,7 @@ class TasksGroupRegistry
 	@Inject TasksGroupRegistry(ResourceInjector injector, Cleaner cleaner)
 	{
 		_injector = injector;
-		cleaner.addCleanable(_groups);
+		_groups = WeakRefSet.create(cleaner);
 	}
 	
 	public void registerTasksGroup(TasksGroup group)
@@ -58,6 +58,6 @@ class TasksGroupRegistry
 		});
 	}
 
-	final private WeakRefSet<TasksGroup> _groups = WeakRefSet.create();
+	final private WeakRefSet<TasksGroup> _groups;
 	final private ResourceInjector _injector;
 }
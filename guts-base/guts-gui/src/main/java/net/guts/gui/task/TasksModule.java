@@ -49,6 +49,9 @@ public final class TasksModule extends AbstractSingletonModule
 		// Make sure Resource Injection system is installed
 		install(new ResourceModule());
 
+		// Make sure all ExecutorServices get shut down when application exits
+		bind(ExecutorServiceRegistry.class).asEagerSingleton();
+
 		// Bind TasksGroupFactory
 		install(new FactoryModuleBuilder()
 			.implement(TasksGroup.class, TasksGroup.class)
@@ -30,6 +30,7 @@ import net.guts.gui.resource.AbstractCompoundResourceConverter;
 import net.guts.gui.resource.ResourceConverter;
 import net.guts.gui.resource.ResourceEntry;
 import net.guts.gui.resource.Resources;
+import net.guts.gui.resource.Uncached;
 
 import com.google.inject.Binder;
 import com.google.inject.TypeLiteral;
@@ -124,6 +125,7 @@ public class EnumIconRenderer<T extends Enum<T>> extends DefaultTableCellRendere
 	final private EnumMap<T, Icon> _icons;
 }
 
+@Uncached
 class EnumIconRendererResourceConverter<T extends Enum<T>> 
 	extends AbstractCompoundResourceConverter<EnumIconRenderer<T>>
 {
@@ -0,0 +1,186 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package net.guts.gui.exception;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import net.guts.common.injection.InjectionListeners;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+
+@Test(groups = "itest")
+public class ExceptionHandlerManagerTest
+{
+	public void checkHandlersChainedByPriorityAndType()
+	{
+		Injector injector = createInjector(new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+			}
+		});
+		ExceptionHandlerManager manager = injector.getInstance(ExceptionHandlerManager.class);
+		Handlers handlers = injector.getInstance(Handlers.class);
+
+		manager.handleException(new IllegalArgumentException());
+		assertThat(handlers._calls).containsExactly("runtime", "illegal");
+		handlers._calls.clear();
+		manager.handleException(new IllegalStateException());
+		assertThat(handlers._calls).containsExactly("runtime", "any");
+		handlers._calls.clear();
+		manager.handleException(new Exception());
+		assertThat(handlers._calls).containsExactly("any");
+		
+		// Handlers registered later are added to the chains already resolved
+		OtherHandlers others = injector.getInstance(OtherHandlers.class);
+		handlers._calls.clear();
+		manager.handleException(new IllegalStateException());
+		assertThat(handlers._calls).containsExactly("runtime", "any");
+		assertThat(others._calls).containsExactly("first");
+	}
+
+	public void checkExtremePrioritiesOrdered()
+	{
+		Injector injector = createInjector(new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+			}
+		});
+		ExceptionHandlerManager manager = injector.getInstance(ExceptionHandlerManager.class);
+		ExtremeHandlers handlers = injector.getInstance(ExtremeHandlers.class);
+
+		manager.handleException(new UnsupportedOperationException());
+		assertThat(handlers._calls).containsExactly("first", "last");
+	}
+
+	public void checkDuplicateExceptionsIgnored()
+	{
+		Injector injector = createInjector(new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				Exceptions.bindThrottling(binder(), ExceptionThrottling.NONE
+					.withDuplicatesIgnoredFor(1, TimeUnit.HOURS));
+			}
+		});
+		ExceptionHandlerManager manager = injector.getInstance(ExceptionHandlerManager.class);
+		Handlers handlers = injector.getInstance(Handlers.class);
+
+		for (int i = 0; i < 3; i++)
+		{
+			manager.handleException(newException("same"));
+		}
+		manager.handleException(newException("other"));
+		assertThat(handlers._calls).containsExactly("any", "any");
+	}
+
+	public void checkMaxRateOfExceptions()
+	{
+		Injector injector = createInjector(new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				Exceptions.bindThrottling(binder(), ExceptionThrottling.NONE.withMaxRate(5));
+			}
+		});
+		ExceptionHandlerManager manager = injector.getInstance(ExceptionHandlerManager.class);
+		Handlers handlers = injector.getInstance(Handlers.class);
+
+		for (int i = 0; i < 20; i++)
+		{
+			manager.handleException(new Exception("#" + i));
+		}
+		// The loop may cross one period boundary
+		assertThat(handlers._calls.size()).as("handled exceptions")
+			.isGreaterThanOrEqualTo(5).isLessThanOrEqualTo(10);
+	}
+	
+	static private Exception newException(String message)
+	{
+		return new Exception(message);
+	}
+
+	static private Injector createInjector(Module module)
+	{
+		Injector injector = Guice.createInjector(new ExceptionHandlingModule(), module);
+		InjectionListeners.injectListeners(injector);
+		return injector;
+	}
+	
+	static public class Handlers
+	{
+		@HandlesException(priority = 1) public boolean handleAny(Exception e)
+		{
+			_calls.add("any");
+			return true;
+		}
+		
+		@HandlesException(priority = -1) public boolean handleRuntime(RuntimeException e)
+		{
+			_calls.add("runtime");
+			return false;
+		}
+		
+		// Private handlers are supported as well
+		@HandlesException private boolean handleIllegal(IllegalArgumentException e)
+		{
+			_calls.add("illegal");
+			return true;
+		}
+		
+		final private List<String> _calls = new ArrayList<String>();
+	}
+	
+	static public class ExtremeHandlers
+	{
+		@HandlesException(priority = Integer.MAX_VALUE) 
+		public boolean handleLast(Exception e)
+		{
+			_calls.add("last");
+			return true;
+		}
+		
+		@HandlesException(priority = Integer.MIN_VALUE) 
+		public boolean handleFirst(UnsupportedOperationException e)
+		{
+			_calls.add("first");
+			return false;
+		}
+		
+		final private List<String> _calls = new ArrayList<String>();
+	}
+	
+	static public class OtherHandlers
+	{
+		@HandlesException(priority = 0) public boolean handleState(IllegalStateException e)
+		{
+			_calls.add("first");
+			return false;
+		}
+		
+		final private List<String> _calls = new ArrayList<String>();
+	}
+}
@@ -0,0 +1,95 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.gui.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.JLabel;
+
+import org.fest.assertions.Assertions;
+import org.testng.annotations.Test;
+
+import net.guts.gui.resource.ResourceMap.Key;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+@Test(groups = "itest")
+public class BeanPropertiesInjectorTest
+{
+	static final private String PREFIX = "LocaleResourceTest-test1-label";
+	
+	public void checkPlanReplayedForSeveralInstances()
+	{
+		Locale.setDefault(Locale.ENGLISH);
+		Injector injector = createInjector();
+		BeanPropertiesInjector<JLabel> labelInjector = new BeanPropertiesInjector<JLabel>();
+		injector.injectMembers(labelInjector);
+		ResourceMapFactoryImpl factory = 
+			(ResourceMapFactoryImpl) injector.getInstance(ResourceMapFactory.class);
+		ResourceMap resources = factory.createResourceMap(JLabel.class);
+		for (int i = 0; i < 2; i++)
+		{
+			JLabel label = new JLabel();
+			labelInjector.inject(label, PREFIX, resources);
+			Assertions.assertThat(label.getText()).isEqualTo("Default Label 1");
+			Assertions.assertThat(label.getToolTipText()).isEqualTo("Default Tooltip 1");
+		}
+		// Plans must follow Locale changes
+		factory.localeChanged(Locale.FRENCH);
+		resources = factory.createResourceMap(JLabel.class);
+		JLabel label = new JLabel();
+		labelInjector.inject(label, PREFIX, resources);
+		Assertions.assertThat(label.getText()).isEqualTo("Label francais 1");
+	}
+	
+	public void checkOverriddenInjectPropertyCalled()
+	{
+		Locale.setDefault(Locale.ENGLISH);
+		Injector injector = createInjector();
+		RecordingInjector labelInjector = injector.getInstance(RecordingInjector.class);
+		ResourceMap resources = 
+			injector.getInstance(ResourceMapFactory.class).createResourceMap(JLabel.class);
+		labelInjector.inject(new JLabel(), PREFIX, resources);
+		labelInjector.inject(new JLabel(), PREFIX, resources);
+		Assertions.assertThat(labelInjector._names).containsExactly(
+			"text", "toolTipText", "text", "toolTipText");
+	}
+	
+	static private Injector createInjector()
+	{
+		return Guice.createInjector(new ResourceModule(), new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				Resources.bindRootBundle(binder(), "/net/guts/gui/resource/locale-test");
+			}
+		});
+	}
+	
+	static class RecordingInjector extends BeanPropertiesInjector<JLabel>
+	{
+		@Override protected void injectProperty(
+			JLabel component, Key key, ResourceMap resources)
+		{
+			_names.add(key.name());
+		}
+		
+		final private List<String> _names = new ArrayList<String>();
+	}
+}
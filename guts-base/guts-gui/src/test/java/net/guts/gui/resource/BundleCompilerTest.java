@@ -0,0 +1,156 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.gui.resource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.fest.assertions.Assertions;
+import org.testng.annotations.Test;
+
+@Test(groups = "utest")
+public class BundleCompilerTest
+{
+	public void checkCompiledPropertiesReadBack() throws IOException
+	{
+		File directory = createDirectory();
+		Properties properties = new Properties();
+		properties.setProperty("label.text", "Some text");
+		properties.setProperty("label.toolTipText", "\u65e5\u672c\u8a9e");
+		properties.setProperty("empty", "");
+		File file = new File(directory, "test" + BundleCompiler.EXTENSION);
+		OutputStream output = new FileOutputStream(file);
+		try
+		{
+			BundleCompiler.write(properties, output);
+		}
+		finally
+		{
+			output.close();
+		}
+		Properties actual = new Properties();
+		BundleCompiler.read(file.toURI().toURL(), actual);
+		Assertions.assertThat(actual).isEqualTo(properties);
+	}
+	
+	public void checkCompiledBundleUsedInPlaceOfOriginal() throws IOException
+	{
+		File directory = createDirectory();
+		File bundles = new File(directory, "bundles");
+		bundles.mkdir();
+		store(new File(bundles, "resources.properties"), "text", "properties");
+		store(new File(bundles, "resources_fr.properties"), "text", "french properties");
+		store(new File(bundles, "xml-resources.properties"), "text", "properties");
+		storeToXML(new File(bundles, "xml-resources.xml"), "text", "xml");
+		Assertions.assertThat(BundleCompiler.compileAll(directory)).isEqualTo(3);
+		// Change original files to make sure they are not used
+		store(new File(bundles, "resources.properties"), "text", "changed");
+		storeToXML(new File(bundles, "xml-resources.xml"), "text", "changed");
+
+		Thread thread = Thread.currentThread();
+		ClassLoader loader = thread.getContextClassLoader();
+		thread.setContextClassLoader(
+			new URLClassLoader(new URL[]{directory.toURI().toURL()}, loader));
+		try
+		{
+			Assertions.assertThat(Bundle.checkBundleExists("/bundles/resources", null))
+				.isEqualTo("bundles/resources");
+			Bundle bundle = new Bundle("bundles/resources");
+			bundle.update(Locale.FRENCH);
+			Assertions.assertThat(bundle.properties().get("text"))
+				.isEqualTo("french properties");
+			bundle = new Bundle("bundles/xml-resources");
+			bundle.update(Locale.ENGLISH);
+			Assertions.assertThat(bundle.properties().get("text")).isEqualTo("xml");
+		}
+		finally
+		{
+			thread.setContextClassLoader(loader);
+		}
+	}
+	
+	public void checkInvalidFilesSkipped() throws IOException
+	{
+		File directory = createDirectory();
+		store(new File(directory, "resources.properties"), "text", "properties");
+		write(new File(directory, "logback.xml"), "<configuration/>");
+		write(new File(directory, "broken.properties"), "text=\\u12");
+		Assertions.assertThat(BundleCompiler.compileAll(directory)).isEqualTo(1);
+		Assertions.assertThat(new File(directory, "resources" + BundleCompiler.EXTENSION))
+			.exists();
+		Assertions.assertThat(new File(directory, "logback" + BundleCompiler.EXTENSION))
+			.doesNotExist();
+		Assertions.assertThat(new File(directory, "broken" + BundleCompiler.EXTENSION))
+			.doesNotExist();
+	}
+	
+	static private File createDirectory() throws IOException
+	{
+		File directory = File.createTempFile("bundles", "");
+		directory.delete();
+		directory.mkdir();
+		directory.deleteOnExit();
+		return directory;
+	}
+	
+	static private void write(File file, String content) throws IOException
+	{
+		OutputStream output = new FileOutputStream(file);
+		try
+		{
+			output.write(content.getBytes("UTF-8"));
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+	
+	static private void store(File file, String key, String value) throws IOException
+	{
+		Properties properties = new Properties();
+		properties.setProperty(key, value);
+		OutputStream output = new FileOutputStream(file);
+		try
+		{
+			properties.store(output, null);
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+	
+	static private void storeToXML(File file, String key, String value) throws IOException
+	{
+		Properties properties = new Properties();
+		properties.setProperty(key, value);
+		OutputStream output = new FileOutputStream(file);
+		try
+		{
+			properties.storeToXML(output, null);
+		}
+		finally
+		{
+			output.close();
+		}
+	}
+}
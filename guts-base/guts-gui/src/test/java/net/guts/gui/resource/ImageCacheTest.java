@@ -0,0 +1,131 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.gui.resource;
+
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.image.BufferedImage;
+import java.net.URL;
+
+import javax.swing.ImageIcon;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+
+import org.fest.assertions.Assertions;
+import org.testng.annotations.Test;
+
+@Test(groups = "itest")
+public class ImageCacheTest
+{
+	public void checkIconSharedAndSizedBeforeLoading()
+	{
+		ImageCache cache = new ImageCacheImpl();
+		ImageIcon icon = cache.getIcon(url("icon.jpg"));
+		ImageIcon expected = new ImageIcon(url("icon.jpg"));
+		Assertions.assertThat(icon.getIconWidth()).isEqualTo(expected.getIconWidth());
+		Assertions.assertThat(icon.getIconHeight()).isEqualTo(expected.getIconHeight());
+		Assertions.assertThat(cache.getIcon(url("icon.jpg"))).isSameAs(icon);
+		Assertions.assertThat(cache.loadIcon(url("icon.jpg"))).isSameAs(icon);
+		Assertions.assertThat(icon.getImage()).isNotNull();
+	}
+	
+	public void checkImageAvailableBeforeBackgroundLoading()
+	{
+		ImageCache cache = new ImageCacheImpl();
+		ImageIcon icon = cache.getIcon(url("ko.png"));
+		ImageIcon expected = new ImageIcon(url("ko.png"));
+		Assertions.assertThat(icon.getImage()).isNotNull();
+		Assertions.assertThat(icon.getImage().getWidth(null))
+			.isEqualTo(expected.getIconWidth());
+	}
+	
+	public void checkIconLoadedInBackground() throws Exception
+	{
+		ImageCache cache = new ImageCacheImpl();
+		AsyncImageIcon icon = (AsyncImageIcon) cache.getIcon(url("ok.png"));
+		long timeout = System.currentTimeMillis() + TIMEOUT_MS;
+		while (!icon.isLoaded() && System.currentTimeMillis() < timeout)
+		{
+			Thread.sleep(10);
+		}
+		Assertions.assertThat(icon.isLoaded()).isTrue();
+		Assertions.assertThat(icon.getImage()).isNotNull();
+	}
+	
+	public void checkLeastRecentlyUsedIconEvicted()
+	{
+		// Budget large enough for one image only
+		ImageCache cache = new ImageCacheImpl(1L);
+		ImageIcon ok = cache.loadIcon(url("ok.png"));
+		Assertions.assertThat(cache.loadIcon(url("ok.png"))).isSameAs(ok);
+		cache.loadIcon(url("ko.png"));
+		Assertions.assertThat(cache.loadIcon(url("ok.png"))).isNotSameAs(ok);
+	}
+	
+	public void checkTableRepaintedOnceCellIconLoaded() throws Exception
+	{
+		final AsyncImageIcon icon = new AsyncImageIcon(url("ok.png"));
+		final RepaintedTable table = new RepaintedTable();
+		table.setDefaultRenderer(Object.class, new DefaultTableCellRenderer()
+		{
+			@Override public Component getTableCellRendererComponent(JTable t, 
+				Object value, boolean selected, boolean focus, int row, int column)
+			{
+				super.getTableCellRendererComponent(
+					t, value, selected, focus, row, column);
+				setIcon(icon);
+				return this;
+			}
+		});
+		table.setSize(100, 50);
+		table.paint(new BufferedImage(100, 50, BufferedImage.TYPE_INT_ARGB).getGraphics());
+		table._repainted = false;
+		icon.load();
+		// Wait for the repaint posted by load()
+		EventQueue.invokeAndWait(new Runnable()
+		{
+			@Override public void run()
+			{
+			}
+		});
+		Assertions.assertThat(table._repainted).as("table repainted").isTrue();
+	}
+	
+	static private class RepaintedTable extends JTable
+	{
+		private static final long serialVersionUID = 1L;
+
+		RepaintedTable()
+		{
+			super(new Object[][]{{"cell"}}, new Object[]{"column"});
+		}
+		
+		@Override public void repaint(long time, int x, int y, int width, int height)
+		{
+			_repainted = true;
+			super.repaint(time, x, y, width, height);
+		}
+		
+		private volatile boolean _repainted = false;
+	}
+	
+	static private URL url(String image)
+	{
+		return Thread.currentThread().getContextClassLoader().getResource(
+			"net/guts/gui/resource/images/" + image);
+	}
+	
+	static final private long TIMEOUT_MS = 5000L;
+}
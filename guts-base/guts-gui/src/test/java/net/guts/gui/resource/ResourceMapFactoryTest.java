@@ -0,0 +1,135 @@
+//  Copyright 2009 Jean-Francois Poilpret
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package net.guts.gui.resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fest.assertions.Assertions;
+import org.testng.annotations.Test;
+
+import net.guts.gui.resource.bundle2.Panel21;
+import net.guts.gui.resource.bundle2.Panel22;
+import net.guts.gui.resource.bundle2.Panel23;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+
+@Test(groups = "itest")
+public class ResourceMapFactoryTest
+{
+	static final private String KEY = "LocaleResourceTest-test1-label.text";
+	
+	public void checkResourceMapSharedBySameBundles()
+	{
+		Locale.setDefault(Locale.ENGLISH);
+		ResourceMapFactory factory = createFactory();
+		ResourceMap map21 = factory.createResourceMap(Panel21.class);
+		Assertions.assertThat(factory.createResourceMap(Panel21.class)).isSameAs(map21);
+		Assertions.assertThat(factory.createResourceMap(Panel22.class)).isSameAs(map21);
+		Assertions.assertThat(factory.createResourceMap(Panel23.class)).isNotSameAs(map21);
+	}
+	
+	public void checkResourceMapKeysSortedAndFiltered()
+	{
+		Locale.setDefault(Locale.ENGLISH);
+		ResourceMap map = createFactory().createResourceMap(Panel21.class);
+		Assertions.assertThat(map.keys("LocaleResourceTest-test1-label")).hasSize(2);
+		Assertions.assertThat(map.keys("LocaleResourceTest-test1")).isEmpty();
+		Assertions.assertThat(map.keys("unknown")).isEmpty();
+		Assertions.assertThat(map.getKey(KEY)).isNotNull();
+		Assertions.assertThat(map.getKey("unknown")).isNull();
+	}
+	
+	public void checkResourceMapRebuiltOnLocaleChange()
+	{
+		Locale.setDefault(Locale.ENGLISH);
+		ResourceMapFactoryImpl factory = createFactory();
+		ResourceMap before = factory.createResourceMap(Panel21.class);
+		Assertions.assertThat(before.getValue(before.getKey(KEY), String.class))
+			.isEqualTo("Default Label 1");
+		factory.localeChanged(Locale.FRENCH);
+		ResourceMap after = factory.createResourceMap(Panel21.class);
+		Assertions.assertThat(after).isNotSameAs(before);
+		Assertions.assertThat(after.getValue(after.getKey(KEY), String.class))
+			.isEqualTo("Label francais 1");
+	}
+	
+	public void checkConvertedValuesCached()
+	{
+		Locale.setDefault(Locale.ENGLISH);
+		ResourceMap map = createFactory(new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				Resources.bindConverter(binder(), StringBuilder.class)
+					.toInstance(new StringBuilderConverter());
+				Resources.bindConverter(binder(), StringBuffer.class)
+					.toInstance(new StringBufferConverter());
+			}
+		}).createResourceMap(Panel21.class);
+		ResourceMap.Key key = map.getKey(KEY);
+		StringBuilder builder = map.getValue(key, StringBuilder.class);
+		Assertions.assertThat(builder.toString()).isEqualTo("Default Label 1");
+		Assertions.assertThat(map.getValue(key, StringBuilder.class)).isSameAs(builder);
+		Assertions.assertThat(_conversions.get()).isEqualTo(1);
+		// Values from converters annotated with @Uncached are converted each time
+		StringBuffer buffer = map.getValue(key, StringBuffer.class);
+		Assertions.assertThat(map.getValue(key, StringBuffer.class)).isNotSameAs(buffer);
+		Assertions.assertThat(_conversions.get()).isEqualTo(3);
+	}
+	
+	static private ResourceMapFactoryImpl createFactory(Module... modules)
+	{
+		_conversions.set(0);
+		List<Module> allModules = new ArrayList<Module>(Arrays.asList(modules));
+		allModules.add(new ResourceModule());
+		allModules.add(new AbstractModule()
+		{
+			@Override protected void configure()
+			{
+				Resources.bindRootBundle(binder(), "/net/guts/gui/resource/locale-test");
+			}
+		});
+		Injector injector = Guice.createInjector(allModules);
+		return (ResourceMapFactoryImpl) injector.getInstance(ResourceMapFactory.class);
+	}
+	
+	static class StringBuilderConverter implements ResourceConverter<StringBuilder>
+	{
+		@Override public StringBuilder convert(ResourceEntry entry)
+		{
+			_conversions.incrementAndGet();
+			return new StringBuilder(entry.value());
+		}
+	}
+	
+	@Uncached
+	static class StringBufferConverter implements ResourceConverter<StringBuffer>
+	{
+		@Override public StringBuffer convert(ResourceEntry entry)
+		{
+			_conversions.incrementAndGet();
+			return new StringBuffer(entry.value());
+		}
+	}
+	
+	static final private AtomicInteger _conversions = new AtomicInteger();
+}